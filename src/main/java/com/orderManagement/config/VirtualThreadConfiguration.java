@@ -0,0 +1,45 @@
+package com.orderManagement.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves requests on virtual threads instead of the fixed Tomcat worker pool, so a request waiting on the database
+ * no longer holds a platform thread. Locks held across blocking calls are {@code java.util.concurrent} locks,
+ * which release the carrier thread while waiting, where a {@code synchronized} block would pin it.
+ * Virtual threads need a Java 21 runtime. The build targets Java 17, so the executor is looked up when the
+ * application starts and startup fails on an older runtime.
+ * The configuration only exists when {@code app.virtual-threads.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.virtual-threads.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadConfiguration {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        ExecutorService requestExecutor = newVirtualThreadPerTaskExecutor();
+        log.info("Serving requests on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(requestExecutor);
+    }
+
+    /**
+     * @return An executor starting a new virtual thread for every task.
+     * @throws IllegalStateException if the runtime has no virtual threads.
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException exception) {
+            throw new IllegalStateException("Virtual threads need a Java 21 runtime, running on " + Runtime.version());
+        } catch (ReflectiveOperationException exception) {
+            throw new IllegalStateException("Virtual threads are not available on " + Runtime.version(), exception);
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package com.orderManagement.controller;
 
 import com.orderManagement.exceptions.BookAlreadyExistsException;
+import com.orderManagement.exceptions.BookArchivedException;
 import com.orderManagement.exceptions.BookDoesNotExistsException;
+import com.orderManagement.exceptions.BookNotFinishedException;
+import com.orderManagement.exceptions.BookOpenException;
 import com.orderManagement.model.Book;
+import com.orderManagement.model.BookArchive;
+import com.orderManagement.model.BookDepth;
+import com.orderManagement.service.ArchiveService;
 import com.orderManagement.service.BookService;
 import com.orderManagement.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -26,10 +32,13 @@ public class BookController {
 
     private final OrderService orderService;
 
+    private final ArchiveService archiveService;
+
     @Autowired
-    public BookController(BookService bookService, OrderService orderService) {
+    public BookController(BookService bookService, OrderService orderService, ArchiveService archiveService) {
         this.bookService = bookService;
         this.orderService = orderService;
+        this.archiveService = archiveService;
     }
     @Operation(summary = "Gets a book by bookName")
     @ApiResponses(value = {
@@ -98,6 +107,7 @@ public class BookController {
             @ApiResponse(responseCode = "200", description = "Successfully opened book."),
             @ApiResponse(responseCode = "500", description = "Exception occurred while opening a book."),
             @ApiResponse(responseCode = "400", description = "Book doest not exists."),
+            @ApiResponse(responseCode = "409", description = "Book can not be opened as it is archived."),
             @ApiResponse(responseCode = "424", description = "Book can not be opened as it contains pending orders")
     })
     @PostMapping("/open/{bookName}")
@@ -110,7 +120,11 @@ public class BookController {
             if(orderService.getPendingOrdersForBook(bookName).size() > 0){
                 return ResponseEntity.status(HttpStatus.FAILED_DEPENDENCY).body("Book can not be opened as it contains pending orders");
             }
-            bookService.openBook(bookName);
+            archiveService.openBook(bookName);
+        }
+        catch (BookArchivedException exception){
+            log.warn(exception.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(exception.getMessage());
         }
         catch (Exception exception){
             log.error("Error occurred while opening book {}. Exception {}",bookName,exception.getMessage());
@@ -119,4 +133,52 @@ public class BookController {
         log.info("Book opened successfully {}",bookName);
         return ResponseEntity.ok("Book opened successfully");
     }
+    @Operation(summary = "Moves orders and executions of a closed book without pending orders out of the hot tables")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully archived book."),
+            @ApiResponse(responseCode = "500", description = "Exception occurred while archiving a book."),
+            @ApiResponse(responseCode = "400", description = "Book doest not exists or is open."),
+            @ApiResponse(responseCode = "424", description = "Book can not be archived as it contains pending orders")
+    })
+    @PostMapping("/archive/{bookName}")
+    public ResponseEntity<?> archiveBook(@PathVariable String bookName) {
+        BookArchive bookArchive;
+        try{
+            log.info("Received request to archive book {}",bookName);
+            bookArchive = archiveService.archiveBook(bookName);
+        }
+        catch (BookDoesNotExistsException | BookOpenException exception){
+            log.warn(exception.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(exception.getMessage());
+        }
+        catch (BookNotFinishedException exception){
+            log.warn(exception.getMessage());
+            return ResponseEntity.status(HttpStatus.FAILED_DEPENDENCY).body(exception.getMessage());
+        }
+        catch (Exception exception){
+            log.error("Error occurred while archiving book {}. Exception {}",bookName,exception.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error while archiving the book");
+        }
+        log.info("Book archived successfully {}",bookName);
+        return ResponseEntity.ok(bookArchive);
+    }
+    @Operation(summary = "Gets the aggregated price levels and top of book of a book for an instrument")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved depth of the book"),
+            @ApiResponse(responseCode = "400", description = "Number of levels is not positive."),
+            @ApiResponse(responseCode = "404", description = "The book does not exist")
+    })
+    @GetMapping("/{bookName}/depth")
+    public ResponseEntity<?> getDepth(@PathVariable String bookName, @RequestParam int instrumentId,
+                                      @RequestParam(defaultValue = "5") int levels) {
+        if(levels < 1){
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Number of levels must be positive");
+        }
+        if(!bookService.isBookAvailable(bookName)){
+            log.warn("Book {} not available in system ",bookName);
+            return ResponseEntity.notFound().build();
+        }
+        BookDepth bookDepth = orderService.getDepth(bookName, instrumentId, levels);
+        return ResponseEntity.ok(bookDepth);
+    }
 }
@@ -1,21 +1,34 @@
 package com.orderManagement.controller;
 
+import com.orderManagement.exceptions.BookArchivedException;
 import com.orderManagement.exceptions.BookDoesNotExistsException;
 import com.orderManagement.exceptions.BookOpenException;
+import com.orderManagement.exceptions.ExecutionQueueFullException;
 import com.orderManagement.model.Execution;
+import com.orderManagement.model.ExecutionResult;
+import com.orderManagement.model.ExecutionTicket;
+import com.orderManagement.model.Fill;
 import com.orderManagement.service.ExecutionService;
+import com.orderManagement.service.ExecutionTicketService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+import java.util.Optional;
+
 @RestController
 @Tag(name = "Execution API", description = "API to manage executions")
 @RequestMapping("/execution")
@@ -24,13 +37,22 @@ public class ExecutionController {
 
     private final ExecutionService executionService;
 
+    private ExecutionTicketService executionTicketService;
+
     public ExecutionController(ExecutionService executionService) {
         this.executionService = executionService;
     }
+
+    @Autowired(required = false)
+    public void setExecutionTicketService(ExecutionTicketService executionTicketService) {
+        this.executionTicketService = executionTicketService;
+    }
+
     @Operation(summary = "Triggers a execution against a book orders")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully triggered an execution."),
-            @ApiResponse(responseCode = "400", description = "Order book is still open. Cant run executions.|| Book doest not exists exception."),
+            @ApiResponse(responseCode = "202", description = "Execution triggered, its fills are not persisted yet. Do not retry, it would execute again."),
+            @ApiResponse(responseCode = "400", description = "Order book is still open. Cant run executions.|| Book doest not exists exception.|| Order book is archived."),
             @ApiResponse(responseCode = "500", description = "Exception occurred while saving a order.")
     })
     @PostMapping("/triggerExecution")
@@ -38,6 +60,9 @@ public class ExecutionController {
         try{
             log.info("Received execution trigger request ",execution);
             executionService.triggerExecution(execution);
+            if(!isFillPersistenceAcknowledged()){
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body("Execution triggered, fills pending");
+            }
             String success = "Execution triggered successfully";
             log.info(success);
             return ResponseEntity.ok(success);
@@ -50,9 +75,109 @@ public class ExecutionController {
             log.warn(exception.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(exception.getMessage());
         }
+        catch (BookArchivedException exception){
+            log.warn(exception.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(exception.getMessage());
+        }
         catch (Exception exception){
             log.error("Error occurred while executing trigger for book {}. Exception {}",execution.getBookName(),exception.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(exception.getMessage());
         }
     }
+    @Operation(summary = "Triggers a batch of executions against book orders in one transaction")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed. Each item reports whether its execution was triggered or rejected."),
+            @ApiResponse(responseCode = "202", description = "Batch processed as with 200, the fills of its executions are not persisted yet. Do not retry, it would execute again."),
+            @ApiResponse(responseCode = "500", description = "Exception occurred while processing the batch. No execution of the batch is persisted.")
+    })
+    @PostMapping("/triggerExecutions")
+    public ResponseEntity<?> triggerExecutions(@RequestBody List<Execution> executions) {
+        try{
+            log.info("Received batch of {} executions",executions.size());
+            List<ExecutionResult> results = executionService.triggerExecutions(executions);
+            if(!isFillPersistenceAcknowledged()){
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(results);
+            }
+            log.info("Successfully processed batch of {} executions",executions.size());
+            return ResponseEntity.ok(results);
+        }
+        catch (Exception exception){
+            log.error("Error occurred while executing batch of {} executions. Exception {}",executions.size(),exception.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(exception.getMessage());
+        }
+    }
+    private boolean isFillPersistenceAcknowledged() {
+        try{
+            //Committed by now, so the fill writer can get a connection to flush while this request waits
+            executionService.awaitFillPersistence();
+            return true;
+        }
+        catch (RuntimeException exception){
+            //The executions are committed already, only the flush of their fills is late
+            log.warn("Fills of triggered executions were not acknowledged. Exception {}",exception.getMessage());
+            return false;
+        }
+    }
+    @Operation(summary = "Queues an execution and answers with a ticket before it is triggered")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Execution queued. The ticket reports its outcome once triggered."),
+            @ApiResponse(responseCode = "400", description = "Callback URL is not an absolute http or https URL."),
+            @ApiResponse(responseCode = "404", description = "Asynchronous executions are not enabled."),
+            @ApiResponse(responseCode = "503", description = "Execution queue is full, retry later."),
+            @ApiResponse(responseCode = "500", description = "Exception occurred while queuing the execution.")
+    })
+    @PostMapping("/submitExecution")
+    public ResponseEntity<?> submitExecution(@RequestBody Execution execution,
+                                             @RequestParam(required = false) String callbackUrl) {
+        if (executionTicketService == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Asynchronous executions are not enabled");
+        }
+        try{
+            ExecutionTicket executionTicket = executionTicketService.submit(execution, callbackUrl);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(executionTicket);
+        }
+        catch (IllegalArgumentException exception){
+            log.warn(exception.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(exception.getMessage());
+        }
+        catch (ExecutionQueueFullException exception){
+            log.warn(exception.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(exception.getMessage());
+        }
+        catch (Exception exception){
+            log.error("Error occurred while queuing execution for book {}. Exception {}",execution.getBookName(),exception.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(exception.getMessage());
+        }
+    }
+    @Operation(summary = "Gets the state of an asynchronously submitted execution")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the ticket"),
+            @ApiResponse(responseCode = "404", description = "Ticket is unknown, expired or asynchronous executions are not enabled.")
+    })
+    @GetMapping("/ticket/{ticketId}")
+    public ResponseEntity<?> getTicket(@PathVariable Long ticketId) {
+        Optional<ExecutionTicket> executionTicket = executionTicketService == null
+                ? Optional.empty()
+                : executionTicketService.getTicket(ticketId);
+        if (executionTicket.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Ticket " + ticketId + " does not exists");
+        }
+        return ResponseEntity.ok(executionTicket.get());
+    }
+    @Operation(summary = "Gets the orders an execution filled and the quantity allocated to each")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved fills of the execution"),
+            @ApiResponse(responseCode = "500", description = "Exception occurred while retrieving fills")
+    })
+    @GetMapping("/{executionId}/fills")
+    public ResponseEntity<?> getFills(@PathVariable Long executionId) {
+        try{
+            List<Fill> fills = executionService.getFillsForExecution(executionId);
+            return ResponseEntity.ok(fills);
+        }
+        catch (Exception exception){
+            log.error("Error occurred while retrieving fills of execution {}. Exception {}",executionId,exception.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(exception.getMessage());
+        }
+    }
 }
@@ -1,17 +1,32 @@
 package com.orderManagement.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orderManagement.entity.OrderEntity;
 import com.orderManagement.exceptions.*;
 import com.orderManagement.model.Order;
+import com.orderManagement.model.OrderState;
 import com.orderManagement.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
 @RestController
 @Tag(name = "Order API", description = "API to manage orders")
 @RequestMapping("/order")
@@ -20,8 +35,44 @@ public class OrderController {
 
     private final OrderService orderService;
 
-    public OrderController(OrderService orderService) {
+    private final ObjectMapper objectMapper;
+
+    private final int bulkChunkSize;
+
+    public OrderController(OrderService orderService, ObjectMapper objectMapper,
+                           @Value("${app.orders.bulk.chunk-size:1000}") int bulkChunkSize) {
         this.orderService = orderService;
+        this.objectMapper = objectMapper;
+        this.bulkChunkSize = bulkChunkSize;
+    }
+    @Operation(summary = "Gets an active order by orderId")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved order"),
+            @ApiResponse(responseCode = "404", description = "The order does not exist or is not active")
+    })
+    @GetMapping("/{orderId}")
+    public ResponseEntity<Order> getOrder(@PathVariable Long orderId) {
+        Optional<Order> order = orderService.getActiveOrder(orderId);
+        if(order.isEmpty()){
+            log.warn("Order {} not active in system ",orderId);
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(order.get());
+    }
+    @Operation(summary = "Gets an order as it was at a given time, rebuilt from its events")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully rebuilt order"),
+            @ApiResponse(responseCode = "404", description = "The order did not exist at that time or event sourcing is disabled")
+    })
+    @GetMapping("/{orderId}/asOf")
+    public ResponseEntity<OrderState> getOrderAsOf(@PathVariable Long orderId,
+                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime time) {
+        Optional<OrderState> order = orderService.getOrderAsOf(orderId, time).map(OrderEntity::toOrderState);
+        if(order.isEmpty()){
+            log.warn("Order {} not found as of {}", orderId, time);
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(order.get());
     }
     @Operation(summary = "Adds a given order if doest not exists")
     @ApiResponses(value = {
@@ -55,10 +106,76 @@ public class OrderController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(exception.getMessage());
         }
     }
+    @Operation(summary = "Adds a list of new orders in chunked transactions")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully saved orders. Returns the assigned order ids in input order."),
+            @ApiResponse(responseCode = "400", description = "Order book is already closed. || Order carrying an order id received. Chunks before the failing one stay saved."),
+            @ApiResponse(responseCode = "500", description = "Exception occurred while saving orders.")
+    })
+    @PostMapping(value = "/addOrders", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> addOrders(@RequestBody List<Order> orders) {
+        List<Long> orderIds = new ArrayList<>(orders.size());
+        try{
+            log.info("Received {} orders to add", orders.size());
+            for (int from = 0; from < orders.size(); from += bulkChunkSize) {
+                orderIds.addAll(orderService.addOrders(orders.subList(from, Math.min(from + bulkChunkSize, orders.size()))));
+            }
+            log.info("Successfully added {} orders in system", orderIds.size());
+            return ResponseEntity.ok(orderIds);
+        }
+        catch (Exception exception){
+            return bulkFailure(exception, orderIds.size());
+        }
+    }
+    @Operation(summary = "Adds a stream of new orders, one JSON order per line, in chunked transactions")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully saved orders. Returns the assigned order ids in input order."),
+            @ApiResponse(responseCode = "400", description = "Order book is already closed. || Order carrying an order id received. || Malformed line. Chunks before the failing one stay saved."),
+            @ApiResponse(responseCode = "500", description = "Exception occurred while saving orders.")
+    })
+    @PostMapping(value = "/addOrders", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<?> addOrdersStream(Reader body) {
+        List<Long> orderIds = new ArrayList<>();
+        try{
+            //Only one chunk of the stream is held in memory at a time
+            BufferedReader reader = new BufferedReader(body);
+            List<Order> chunk = new ArrayList<>(bulkChunkSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                chunk.add(objectMapper.readValue(line, Order.class));
+                if (chunk.size() == bulkChunkSize) {
+                    orderIds.addAll(orderService.addOrders(chunk));
+                    chunk = new ArrayList<>(bulkChunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                orderIds.addAll(orderService.addOrders(chunk));
+            }
+            log.info("Successfully added {} streamed orders in system", orderIds.size());
+            return ResponseEntity.ok(orderIds);
+        }
+        catch (Exception exception){
+            return bulkFailure(exception, orderIds.size());
+        }
+    }
+
+    private ResponseEntity<?> bulkFailure(Exception exception, int savedOrders) {
+        String message = exception.getMessage() + " Orders saved before the failure: " + savedOrders;
+        if (exception instanceof BookClosedException || exception instanceof OrderNotAvailableException || exception instanceof IOException) {
+            log.warn(message);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(message);
+        }
+        log.error("Error occurred while adding orders. Exception is {} ", message);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(message);
+    }
     @Operation(summary = "Edits an existing order")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully edited order."),
             @ApiResponse(responseCode = "400", description = "Order book is already closed. Cant edit order. || Book doest not exists exception || Order to edit not available. || Order is in inactive status"),
+            @ApiResponse(responseCode = "409", description = "The order was changed concurrently, retry the edit."),
             @ApiResponse(responseCode = "500", description = "Exception occurred while editing an order.")
     })
     @PostMapping("/editOrder")
@@ -85,6 +202,10 @@ public class OrderController {
             log.warn(exception.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(exception.getMessage());
         }
+        catch (OrderConflictException | OptimisticLockingFailureException exception){
+            log.warn(exception.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(exception.getMessage());
+        }
         catch (Exception exception){
             log.error("Error occurred while editing order {}. Exception is {} ",order,exception.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(exception.getMessage());
@@ -93,7 +214,8 @@ public class OrderController {
     @Operation(summary = "Deletes an existing order")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully deleted order."),
-            @ApiResponse(responseCode = "400", description = "Order book is already closed. Cant delete order. || Book doest not exists exception || Order to delete not available."),
+            @ApiResponse(responseCode = "400", description = "Order book is already closed. Cant delete order. || Book doest not exists exception || Order to delete not available. || Order is in inactive status"),
+            @ApiResponse(responseCode = "409", description = "The order was changed concurrently, retry the delete."),
             @ApiResponse(responseCode = "500", description = "Exception occurred while deleting a order.")
     })
     @PostMapping("/deleteOrder/{orderId}")
@@ -116,6 +238,14 @@ public class OrderController {
             log.warn(exception.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(exception.getMessage());
         }
+        catch (InactiveOrderException exception){
+            log.warn(exception.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(exception.getMessage());
+        }
+        catch (OrderConflictException | OptimisticLockingFailureException exception){
+            log.warn(exception.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(exception.getMessage());
+        }
         catch (Exception exception){
             log.error("Error occurred while deleting order {}. Exception is {} ",orderId,exception.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(exception.getMessage());
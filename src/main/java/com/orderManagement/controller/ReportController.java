@@ -1,18 +1,24 @@
 package com.orderManagement.controller;
 
 import com.orderManagement.model.Book;
+import com.orderManagement.locking.StripedLockManager;
+import com.orderManagement.model.FillWriterMetrics;
+import com.orderManagement.model.LockStatistics;
 import com.orderManagement.model.Report;
+import com.orderManagement.persistence.FillWriter;
 import com.orderManagement.service.ReportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -23,8 +29,18 @@ public class ReportController {
 
     private final ReportService reportService;
 
-    public ReportController(ReportService reportService) {
+    private final StripedLockManager lockManager;
+
+    private FillWriter fillWriter;
+
+    public ReportController(ReportService reportService, StripedLockManager lockManager) {
         this.reportService = reportService;
+        this.lockManager = lockManager;
+    }
+
+    @Autowired(required = false)
+    public void setFillWriter(FillWriter fillWriter) {
+        this.fillWriter = fillWriter;
     }
 
     @Operation(summary = "Gets a report by bookName")
@@ -45,4 +61,32 @@ public class ReportController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(exception.getMessage());
         }
     }
+
+    @Operation(summary = "Gets flush lag and throughput of the write-behind fill writer")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved fill writer metrics"),
+            @ApiResponse(responseCode = "404", description = "Write-behind of fills is not enabled")
+    })
+    @GetMapping("/metrics/fillWriter")
+    public ResponseEntity<?> getFillWriterMetrics() {
+        if (fillWriter == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Write-behind of fills is not enabled");
+        }
+        FillWriterMetrics metrics = fillWriter.getMetrics();
+        return ResponseEntity.ok(metrics);
+    }
+
+    @Operation(summary = "Gets contention and wait time of the order and execution locks")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved lock statistics"),
+            @ApiResponse(responseCode = "400", description = "Number of hottest stripes is not positive.")
+    })
+    @GetMapping("/metrics/locks")
+    public ResponseEntity<?> getLockStatistics(@RequestParam(defaultValue = "10") int hottest) {
+        if(hottest < 1){
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Number of hottest stripes must be positive");
+        }
+        LockStatistics statistics = lockManager.getStatistics(hottest);
+        return ResponseEntity.ok(statistics);
+    }
 }
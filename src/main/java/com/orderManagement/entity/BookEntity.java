@@ -1,14 +1,12 @@
 package com.orderManagement.entity;
 
 
-import com.orderManagement.converter.BooleanConverter;
 import com.orderManagement.model.Book;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
-import org.springframework.beans.BeanUtils;
 /**
  * Represents a book entity in the Order Management System.
  * A book entity corresponds to a book record in the database.
@@ -21,7 +19,6 @@ import org.springframework.beans.BeanUtils;
 public class BookEntity {
     @Id
     private String bookName;
-    @Convert(converter = BooleanConverter.class)
     private boolean isClosed;
     /**
      * Converts a Book model object to a BookEntity.
@@ -30,9 +27,7 @@ public class BookEntity {
      * @return The corresponding BookEntity.
      */
     public static BookEntity toEntity(Book book){
-        BookEntity bookEntity = new BookEntity();
-        BeanUtils.copyProperties(book,bookEntity);
-        return bookEntity;
+        return EntityMappers.BOOKS.toEntity(book);
     }
     /**
      * Converts this BookEntity to a Book model object.
@@ -40,8 +35,6 @@ public class BookEntity {
      * @return The corresponding Book model object.
      */
     public Book toBean(){
-        Book book = new Book();
-        BeanUtils.copyProperties(this,book);
-        return book;
+        return EntityMappers.BOOKS.toBean(this);
     }
 }
@@ -0,0 +1,14 @@
+package com.orderManagement.entity;
+
+/**
+ * Copies the fields of a model object into its entity and back.
+ *
+ * @param <B> The type of the model object.
+ * @param <E> The type of the entity.
+ */
+public interface EntityMapper<B, E> {
+
+    E toEntity(B bean);
+
+    B toBean(E entity);
+}
@@ -0,0 +1,111 @@
+package com.orderManagement.entity;
+
+import com.orderManagement.model.Book;
+import com.orderManagement.model.Execution;
+import com.orderManagement.model.Fill;
+import com.orderManagement.model.Order;
+
+/**
+ * Field by field mappings between the models and the entities, used in place of reflective property copies
+ * since they run on every order, execution and book change.
+ * A field added to both sides of a mapping has to be added here too.
+ */
+public final class EntityMappers {
+
+    private EntityMappers() {
+    }
+
+    public static final EntityMapper<Book, BookEntity> BOOKS = new EntityMapper<>() {
+        @Override
+        public BookEntity toEntity(Book book) {
+            BookEntity bookEntity = new BookEntity();
+            bookEntity.setBookName(book.getBookName());
+            bookEntity.setClosed(book.isClosed());
+            return bookEntity;
+        }
+
+        @Override
+        public Book toBean(BookEntity bookEntity) {
+            Book book = new Book();
+            book.setBookName(bookEntity.getBookName());
+            book.setClosed(bookEntity.isClosed());
+            return book;
+        }
+    };
+
+    public static final EntityMapper<Order, OrderEntity> ORDERS = new EntityMapper<>() {
+        @Override
+        public OrderEntity toEntity(Order order) {
+            OrderEntity orderEntity = new OrderEntity();
+            orderEntity.setOrderId(order.getOrderId());
+            orderEntity.setInstrumentId(order.getInstrumentId());
+            orderEntity.setQuantity(order.getQuantity());
+            orderEntity.setEntryDate(order.getEntryDate());
+            orderEntity.setType(order.getType());
+            orderEntity.setPrice(order.getPrice());
+            orderEntity.setBookName(order.getBookName());
+            return orderEntity;
+        }
+
+        @Override
+        public Order toBean(OrderEntity orderEntity) {
+            Order order = new Order();
+            order.setOrderId(orderEntity.getOrderId());
+            order.setInstrumentId(orderEntity.getInstrumentId());
+            order.setQuantity(orderEntity.getQuantity());
+            order.setEntryDate(orderEntity.getEntryDate());
+            order.setType(orderEntity.getType());
+            order.setPrice(orderEntity.getPrice());
+            order.setBookName(orderEntity.getBookName());
+            return order;
+        }
+    };
+
+    public static final EntityMapper<Execution, ExecutionEntity> EXECUTIONS = new EntityMapper<>() {
+        @Override
+        public ExecutionEntity toEntity(Execution execution) {
+            ExecutionEntity executionEntity = new ExecutionEntity();
+            executionEntity.setInstrumentId(execution.getInstrumentId());
+            executionEntity.setQuantity(execution.getQuantity());
+            executionEntity.setType(execution.getType());
+            executionEntity.setPrice(execution.getPrice());
+            executionEntity.setBookName(execution.getBookName());
+            return executionEntity;
+        }
+
+        @Override
+        public Execution toBean(ExecutionEntity executionEntity) {
+            Execution execution = new Execution();
+            execution.setInstrumentId(executionEntity.getInstrumentId());
+            execution.setQuantity(executionEntity.getQuantity());
+            execution.setType(executionEntity.getType());
+            execution.setPrice(executionEntity.getPrice());
+            execution.setBookName(executionEntity.getBookName());
+            return execution;
+        }
+    };
+
+    public static final EntityMapper<Fill, FillEntity> FILLS = new EntityMapper<>() {
+        @Override
+        public FillEntity toEntity(Fill fill) {
+            FillEntity fillEntity = new FillEntity();
+            fillEntity.setFillId(fill.getFillId());
+            fillEntity.setExecutionId(fill.getExecutionId());
+            fillEntity.setOrderId(fill.getOrderId());
+            fillEntity.setQuantity(fill.getQuantity());
+            fillEntity.setPrice(fill.getPrice());
+            return fillEntity;
+        }
+
+        @Override
+        public Fill toBean(FillEntity fillEntity) {
+            Fill fill = new Fill();
+            fill.setFillId(fillEntity.getFillId());
+            fill.setExecutionId(fillEntity.getExecutionId());
+            fill.setOrderId(fillEntity.getOrderId());
+            fill.setQuantity(fillEntity.getQuantity());
+            fill.setPrice(fillEntity.getPrice());
+            return fill;
+        }
+    };
+}
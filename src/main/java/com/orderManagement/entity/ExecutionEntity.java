@@ -1,13 +1,13 @@
 package com.orderManagement.entity;
 
-import com.orderManagement.converter.ExecutionTypeToStringConverter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.orderManagement.matching.PriceTicks;
 import com.orderManagement.model.Execution;
 import com.orderManagement.model.ExecutionType;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.springframework.beans.BeanUtils;
 
 @Entity
 @Data
@@ -17,13 +17,15 @@ import org.springframework.beans.BeanUtils;
 public class ExecutionEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "executions_seq")
+    @SequenceGenerator(name = "executions_seq", sequenceName = "EXECUTIONS_SEQ", allocationSize = 50)
     private Long executionId;
     private int instrumentId;
     private int quantity;
-    @Convert(converter = ExecutionTypeToStringConverter.class)
+    @Convert(converter = ExecutionTypeConverter.class)
     private ExecutionType type;
-    private double price;
+    @JsonIgnore
+    private long priceTicks;
     private String bookName;
 
     /**
@@ -33,9 +35,17 @@ public class ExecutionEntity {
      * @return The corresponding ExecutionEntity.
      */
     public static ExecutionEntity toEntity(Execution execution){
-        ExecutionEntity executionEntity = new ExecutionEntity();
-        BeanUtils.copyProperties(execution,executionEntity);
-        return executionEntity;
+        return EntityMappers.EXECUTIONS.toEntity(execution);
+    }
+    /**
+     * @return The price as a decimal, it is stored as fixed-point ticks.
+     */
+    public double getPrice(){
+        return PriceTicks.toPrice(priceTicks);
+    }
+
+    public void setPrice(double price){
+        this.priceTicks = PriceTicks.toTicks(price);
     }
     /**
      * Converts this ExecutionEntity to a Execution model object.
@@ -43,8 +53,6 @@ public class ExecutionEntity {
      * @return The corresponding Execution model object.
      */
     public Execution toBean(){
-        Execution execution = new Execution();
-        BeanUtils.copyProperties(this,execution);
-        return execution;
+        return EntityMappers.EXECUTIONS.toBean(this);
     }
 }
@@ -0,0 +1,22 @@
+package com.orderManagement.entity;
+
+import com.orderManagement.model.ExecutionType;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores an {@link ExecutionType} as its code rather than its ordinal or name.
+ */
+@Converter
+public class ExecutionTypeConverter implements AttributeConverter<ExecutionType, Integer> {
+
+    @Override
+    public Integer convertToDatabaseColumn(ExecutionType value) {
+        return value == null ? null : value.getCode();
+    }
+
+    @Override
+    public ExecutionType convertToEntityAttribute(Integer code) {
+        return code == null ? null : ExecutionType.fromCode(code);
+    }
+}
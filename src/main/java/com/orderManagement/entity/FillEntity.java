@@ -0,0 +1,62 @@
+package com.orderManagement.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.orderManagement.matching.PriceTicks;
+import com.orderManagement.model.Fill;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name="FILLS")
+public class FillEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long fillId;
+    private Long executionId;
+    private Long orderId;
+    private int quantity;
+    @JsonIgnore
+    private long priceTicks;
+
+    /**
+     * Creates the FillEntity allocating part of an execution to an order.
+     *
+     * @param executionId The id of the execution.
+     * @param orderId     The id of the filled order.
+     * @param quantity    The allocated quantity.
+     * @param price       The price the order was filled at.
+     * @return The corresponding FillEntity.
+     */
+    public static FillEntity of(Long executionId, Long orderId, int quantity, double price){
+        FillEntity fillEntity = new FillEntity();
+        fillEntity.setExecutionId(executionId);
+        fillEntity.setOrderId(orderId);
+        fillEntity.setQuantity(quantity);
+        fillEntity.setPrice(price);
+        return fillEntity;
+    }
+    /**
+     * @return The price as a decimal, it is stored as fixed-point ticks.
+     */
+    public double getPrice(){
+        return PriceTicks.toPrice(priceTicks);
+    }
+
+    public void setPrice(double price){
+        this.priceTicks = PriceTicks.toTicks(price);
+    }
+    /**
+     * Converts this FillEntity to a Fill model object.
+     *
+     * @return The corresponding Fill model object.
+     */
+    public Fill toBean(){
+        return EntityMappers.FILLS.toBean(this);
+    }
+}
@@ -1,15 +1,16 @@
 package com.orderManagement.entity;
 
-import com.orderManagement.converter.BooleanConverter;
-import com.orderManagement.converter.OrderTypeToStringConverter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.orderManagement.matching.PriceTicks;
 import com.orderManagement.model.Book;
 import com.orderManagement.model.Order;
+import com.orderManagement.model.OrderState;
 import com.orderManagement.model.OrderType;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.springframework.beans.BeanUtils;
+import org.hibernate.annotations.OptimisticLock;
 
 import java.time.LocalDateTime;
 
@@ -20,22 +21,29 @@ import java.time.LocalDateTime;
 @Table(name="ORDERS")
 public class OrderEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "ORDERS_SEQ", allocationSize = 50)
     private Long orderId;
     private int instrumentId;
     private int quantity;
+    //Fills do not move the version, only amending or cancelling the order does
+    @OptimisticLock(excluded = true)
     private int remainingQuantity;
     private LocalDateTime entryDate;
 
-    @Convert(converter = BooleanConverter.class)
     private boolean isActive;
-    @Convert(converter = OrderTypeToStringConverter.class)
+    @Convert(converter = OrderTypeConverter.class)
     private OrderType type;
-    private double price;
+    @JsonIgnore
+    private long priceTicks;
     private String bookName;
 
     private Long previousOrderId;
 
+    @Version
+    @JsonIgnore
+    private long version;
+
     /**
      * Converts a Order model object to a OrderEntity.
      *
@@ -43,8 +51,7 @@ public class OrderEntity {
      * @return The corresponding OrderEntity.
      */
     public static OrderEntity toEntity(Order order){
-        OrderEntity orderEntity = new OrderEntity();
-        BeanUtils.copyProperties(order,orderEntity);
+        OrderEntity orderEntity = EntityMappers.ORDERS.toEntity(order);
         orderEntity.setRemainingQuantity(order.getQuantity());
         orderEntity.setActive(true);
         orderEntity.setOrderId(null);
@@ -56,9 +63,36 @@ public class OrderEntity {
      * @return The corresponding Order model object.
      */
     public Order toBean(){
-        Order order = new Order();
-        BeanUtils.copyProperties(this,order);
-        return order;
+        return EntityMappers.ORDERS.toBean(this);
+    }
+    /**
+     * Converts this OrderEntity to the state of the order it holds, without its persistence internals.
+     *
+     * @return The corresponding OrderState model object.
+     */
+    public OrderState toOrderState(){
+        OrderState orderState = new OrderState();
+        orderState.setOrderId(orderId);
+        orderState.setInstrumentId(instrumentId);
+        orderState.setQuantity(quantity);
+        orderState.setRemainingQuantity(remainingQuantity);
+        orderState.setEntryDate(entryDate);
+        orderState.setActive(isActive);
+        orderState.setType(type);
+        orderState.setPrice(getPrice());
+        orderState.setBookName(bookName);
+        orderState.setPreviousOrderId(previousOrderId);
+        return orderState;
+    }
+    /**
+     * @return The price as a decimal, it is stored as fixed-point ticks.
+     */
+    public double getPrice(){
+        return PriceTicks.toPrice(priceTicks);
+    }
+
+    public void setPrice(double price){
+        this.priceTicks = PriceTicks.toTicks(price);
     }
     /**
      * Checks if order is complete or not.
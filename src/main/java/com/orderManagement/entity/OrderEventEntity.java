@@ -0,0 +1,74 @@
+package com.orderManagement.entity;
+
+import com.orderManagement.model.OrderEventType;
+import com.orderManagement.model.OrderType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name="ORDER_EVENTS")
+public class OrderEventEntity {
+
+    @Id
+    private Long eventId;
+    private Long orderId;
+    @Convert(converter = OrderEventTypeConverter.class)
+    private OrderEventType eventType;
+    private int instrumentId;
+    private int quantity;
+    private int remainingQuantity;
+    private LocalDateTime entryDate;
+
+    private boolean isActive;
+    @Convert(converter = OrderTypeConverter.class)
+    private OrderType type;
+    private long priceTicks;
+    private String bookName;
+
+    private Long previousOrderId;
+    private LocalDateTime eventTime;
+
+    /**
+     * Creates the OrderEventEntity recording the state of an order once an event is applied to it.
+     *
+     * @param eventId     The id of the event.
+     * @param eventType   The type of the event.
+     * @param orderEntity The order after the event.
+     * @param eventTime   The time of the event.
+     * @return The corresponding OrderEventEntity.
+     */
+    public static OrderEventEntity of(Long eventId, OrderEventType eventType, OrderEntity orderEntity, LocalDateTime eventTime){
+        OrderEventEntity orderEvent = new OrderEventEntity();
+        orderEvent.setEventId(eventId);
+        orderEvent.setEventType(eventType);
+        orderEvent.setOrderId(orderEntity.getOrderId());
+        orderEvent.setInstrumentId(orderEntity.getInstrumentId());
+        orderEvent.setQuantity(orderEntity.getQuantity());
+        orderEvent.setRemainingQuantity(orderEntity.getRemainingQuantity());
+        orderEvent.setEntryDate(orderEntity.getEntryDate());
+        orderEvent.setActive(orderEntity.isActive());
+        orderEvent.setType(orderEntity.getType());
+        orderEvent.setPriceTicks(orderEntity.getPriceTicks());
+        orderEvent.setBookName(orderEntity.getBookName());
+        orderEvent.setPreviousOrderId(orderEntity.getPreviousOrderId());
+        orderEvent.setEventTime(eventTime);
+        return orderEvent;
+    }
+    /**
+     * Rebuilds the order as it was right after this event.
+     *
+     * @return The corresponding OrderEntity.
+     */
+    public OrderEntity toOrderEntity(){
+        //Orders materialized from events are claimed in memory, they never move their version
+        return new OrderEntity(orderId, instrumentId, quantity, remainingQuantity, entryDate, isActive, type, priceTicks,
+                bookName, previousOrderId, 0L);
+    }
+}
@@ -0,0 +1,22 @@
+package com.orderManagement.entity;
+
+import com.orderManagement.model.OrderEventType;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores an {@link OrderEventType} as its code rather than its ordinal or name.
+ */
+@Converter
+public class OrderEventTypeConverter implements AttributeConverter<OrderEventType, Integer> {
+
+    @Override
+    public Integer convertToDatabaseColumn(OrderEventType value) {
+        return value == null ? null : value.getCode();
+    }
+
+    @Override
+    public OrderEventType convertToEntityAttribute(Integer code) {
+        return code == null ? null : OrderEventType.fromCode(code);
+    }
+}
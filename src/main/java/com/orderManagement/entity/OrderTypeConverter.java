@@ -0,0 +1,22 @@
+package com.orderManagement.entity;
+
+import com.orderManagement.model.OrderType;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores an {@link OrderType} as its code rather than its ordinal or name.
+ */
+@Converter
+public class OrderTypeConverter implements AttributeConverter<OrderType, Integer> {
+
+    @Override
+    public Integer convertToDatabaseColumn(OrderType value) {
+        return value == null ? null : value.getCode();
+    }
+
+    @Override
+    public OrderType convertToEntityAttribute(Integer code) {
+        return code == null ? null : OrderType.fromCode(code);
+    }
+}
@@ -0,0 +1,7 @@
+package com.orderManagement.exceptions;
+
+public class BookArchivedException extends RuntimeException {
+    public BookArchivedException(String message) {
+        super(message);
+    }
+}
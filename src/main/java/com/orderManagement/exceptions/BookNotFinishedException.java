@@ -0,0 +1,7 @@
+package com.orderManagement.exceptions;
+
+public class BookNotFinishedException extends RuntimeException {
+    public BookNotFinishedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.orderManagement.exceptions;
+
+public class ExecutionQueueFullException extends RuntimeException {
+    public ExecutionQueueFullException(String message) {
+        super(message);
+    }
+}
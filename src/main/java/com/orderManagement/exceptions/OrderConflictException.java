@@ -0,0 +1,7 @@
+package com.orderManagement.exceptions;
+
+public class OrderConflictException extends RuntimeException {
+    public OrderConflictException(String message) {
+        super(message);
+    }
+}
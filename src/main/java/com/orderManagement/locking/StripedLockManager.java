@@ -0,0 +1,112 @@
+package com.orderManagement.locking;
+
+import com.orderManagement.model.LockStatistics;
+import com.orderManagement.model.StripeStatistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Hands out locks for arbitrary keys from a fixed number of stripes.
+ * Keys are hashed onto stripes, so memory stays flat however many keys are seen, at the price of
+ * unrelated keys occasionally sharing a stripe. Every acquisition is counted per stripe together with
+ * the time spent waiting when the stripe was already held, so hot keys show up in the statistics.
+ */
+@Component
+public class StripedLockManager {
+
+    private final ReentrantLock[] stripes;
+
+    private final int mask;
+
+    private final AtomicLongArray acquisitions;
+
+    private final AtomicLongArray contendedAcquisitions;
+
+    private final AtomicLongArray waitNanos;
+
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public StripedLockManager(@Value("${app.locks.stripes:256}") int stripeCount) {
+        if (stripeCount < 1 || Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("Lock stripe count must be a power of two, got " + stripeCount);
+        }
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = stripeCount - 1;
+        this.acquisitions = new AtomicLongArray(stripeCount);
+        this.contendedAcquisitions = new AtomicLongArray(stripeCount);
+        this.waitNanos = new AtomicLongArray(stripeCount);
+    }
+
+    /**
+     * Acquires the lock of the stripe a key hashes to. The caller must release it in a finally block.
+     *
+     * @param key The key to lock, typically an execution key.
+     * @return The acquired lock.
+     */
+    public ReentrantLock lock(Object key) {
+        int stripe = stripeFor(key);
+        ReentrantLock lock = stripes[stripe];
+        acquisitions.incrementAndGet(stripe);
+        if (lock.tryLock()) {
+            return lock;
+        }
+        long waitStart = System.nanoTime();
+        lock.lock();
+        long waited = System.nanoTime() - waitStart;
+        contendedAcquisitions.incrementAndGet(stripe);
+        waitNanos.addAndGet(stripe, waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        return lock;
+    }
+
+    /**
+     * Returns contention counters of all stripes along with the most contended ones.
+     *
+     * @param hottestStripes how many of the most contended stripes to report.
+     * @return The lock statistics.
+     */
+    public LockStatistics getStatistics(int hottestStripes) {
+        LockStatistics statistics = new LockStatistics();
+        statistics.setStripes(stripes.length);
+        List<StripeStatistics> stripeStatistics = IntStream.range(0, stripes.length)
+                .mapToObj(this::stripeStatistics)
+                .collect(Collectors.toList());
+        statistics.setAcquisitions(stripeStatistics.stream().mapToLong(StripeStatistics::getAcquisitions).sum());
+        statistics.setContendedAcquisitions(stripeStatistics.stream().mapToLong(StripeStatistics::getContendedAcquisitions).sum());
+        statistics.setTotalWaitMicros(stripeStatistics.stream().mapToLong(StripeStatistics::getTotalWaitMicros).sum());
+        statistics.setMaxWaitMicros(TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get()));
+        statistics.setHottestStripes(stripeStatistics.stream()
+                .filter(stripe -> stripe.getContendedAcquisitions() > 0)
+                .sorted(Comparator.comparingLong(StripeStatistics::getTotalWaitMicros).reversed())
+                .limit(hottestStripes)
+                .collect(Collectors.toList()));
+        return statistics;
+    }
+
+    private StripeStatistics stripeStatistics(int stripe) {
+        StripeStatistics statistics = new StripeStatistics();
+        statistics.setStripe(stripe);
+        statistics.setAcquisitions(acquisitions.get(stripe));
+        statistics.setContendedAcquisitions(contendedAcquisitions.get(stripe));
+        statistics.setTotalWaitMicros(TimeUnit.NANOSECONDS.toMicros(waitNanos.get(stripe)));
+        return statistics;
+    }
+
+    private int stripeFor(Object key) {
+        //Spread the high bits so that keys differing only there do not pile up on one stripe
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,324 @@
+package com.orderManagement.matching;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Applies executions and order book mutations of a book in strict sequence on a single thread.
+ * Books are hashed onto a fixed number of partitions. Each partition owns a pre-allocated ring buffer
+ * that any number of threads publish into and exactly one thread consumes from, so the tasks of a book
+ * never run concurrently and never wait on each other. The order book monitors they take are only shared
+ * with readers of the book's depth. Callers get completion through a future.
+ * A task moves from pending to running when its partition takes it. A caller giving up on a pending task
+ * cancels it, the partition then skips it, so a task either runs in full or not at all.
+ * On stop a partition drains what was claimed and then closes its ring, tasks published after that fail.
+ * The bean only exists when {@code app.sequencer.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.sequencer.enabled", havingValue = "true")
+@Slf4j
+public class BookSequencer implements SmartLifecycle {
+
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    private final Partition[] partitions;
+
+    private final long awaitTimeoutMillis;
+
+    private volatile boolean isRunning;
+
+    public BookSequencer(@Value("${app.sequencer.partitions:4}") int partitionCount,
+                         @Value("${app.sequencer.buffer-size:1024}") int bufferSize,
+                         @Value("${app.sequencer.await-timeout-ms:5000}") long awaitTimeoutMillis) {
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("Sequencer needs at least one partition");
+        }
+        if (awaitTimeoutMillis < 1) {
+            throw new IllegalArgumentException("Sequencer await timeout must be positive");
+        }
+        this.awaitTimeoutMillis = awaitTimeoutMillis;
+        if (bufferSize < 1 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("Sequencer buffer size must be a power of two, got " + bufferSize);
+        }
+        this.partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition(i, bufferSize);
+        }
+    }
+
+    /**
+     * Publishes a task for a book. Tasks of the same book run in publication order on the book's partition thread.
+     *
+     * @param bookName The name of the book the task belongs to.
+     * @param task     The task to run.
+     * @return A future completed once the task has run.
+     */
+    public CompletableFuture<Void> submit(String bookName, Runnable task) {
+        return enqueue(bookName, task);
+    }
+
+    /**
+     * Publishes a task for a book and waits for it to run, rethrowing any runtime exception it raised.
+     * A task still pending at the await timeout, or when the caller is interrupted, is cancelled and never runs.
+     * A task already running is waited for, so the caller always knows whether its task took effect.
+     *
+     * @param bookName The name of the book the task belongs to.
+     * @param task     The task to run.
+     * @throws IllegalStateException if the task was cancelled before it ran.
+     */
+    public void execute(String bookName, Runnable task) {
+        executeAll(Collections.singletonMap(bookName, task));
+    }
+
+    /**
+     * Publishes one task per book and waits for all of them like {@link #execute(String, Runnable)}, sharing a single
+     * await timeout. Tasks of books on different partitions run in parallel. Once one of them fails or the timeout
+     * passes, the tasks still pending are cancelled, and the first failure is rethrown when the others have settled.
+     *
+     * @param tasksByBook The task of each book.
+     * @throws IllegalStateException if a task was cancelled before it ran, the tasks of other books may have run.
+     */
+    public void executeAll(Map<String, Runnable> tasksByBook) {
+        Map<String, SequencedTask> sequencedTasks = new LinkedHashMap<>();
+        Throwable failure = null;
+        try {
+            tasksByBook.forEach((bookName, task) -> sequencedTasks.put(bookName, enqueue(bookName, task)));
+        } catch (RuntimeException exception) {
+            failure = exception;
+            sequencedTasks.values().forEach(SequencedTask::cancelPending);
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(awaitTimeoutMillis);
+        String cancelReason = failure == null ? null : "was published along a task that could not be";
+        boolean isInterrupted = false;
+        try {
+            for (Map.Entry<String, SequencedTask> sequencedTask : sequencedTasks.entrySet()) {
+                while (true) {
+                    try {
+                        if (cancelReason == null) {
+                            sequencedTask.getValue().get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        } else {
+                            //Taken by its partition before it could be cancelled, its outcome is known shortly
+                            sequencedTask.getValue().get();
+                        }
+                        break;
+                    } catch (TimeoutException exception) {
+                        cancelReason = "did not run within " + awaitTimeoutMillis + " ms";
+                        sequencedTasks.values().forEach(SequencedTask::cancelPending);
+                    } catch (InterruptedException exception) {
+                        isInterrupted = true;
+                        if (cancelReason == null) {
+                            cancelReason = "was awaited by an interrupted caller";
+                            sequencedTasks.values().forEach(SequencedTask::cancelPending);
+                        }
+                    } catch (CancellationException exception) {
+                        if (failure == null) {
+                            failure = new IllegalStateException("Sequenced task of book " + sequencedTask.getKey() + " " + cancelReason + ", it was cancelled");
+                        }
+                        break;
+                    } catch (ExecutionException exception) {
+                        if (failure == null) {
+                            failure = exception.getCause();
+                            cancelReason = "was published along a failed task";
+                            sequencedTasks.values().forEach(SequencedTask::cancelPending);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        finally {
+            if (isInterrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure != null) {
+            throw new IllegalStateException(failure);
+        }
+    }
+
+    private SequencedTask enqueue(String bookName, Runnable task) {
+        if (!isRunning) {
+            throw new IllegalStateException("Book sequencer is not running");
+        }
+        SequencedTask sequencedTask = new SequencedTask(task);
+        Partition partition = partitionFor(bookName);
+        if (Thread.currentThread() == partition.consumer) {
+            //Already on the partition thread, publishing would wait on itself
+            partition.run(sequencedTask);
+            return sequencedTask;
+        }
+        partition.publish(sequencedTask);
+        return sequencedTask;
+    }
+
+    private Partition partitionFor(String bookName) {
+        return partitions[Math.floorMod(bookName.hashCode(), partitions.length)];
+    }
+
+    @Override
+    public void start() {
+        isRunning = true;
+        for (Partition partition : partitions) {
+            partition.consumer.start();
+        }
+        log.info("Started book sequencer with {} partitions", partitions.length);
+    }
+
+    @Override
+    public void stop() {
+        isRunning = false;
+        for (Partition partition : partitions) {
+            LockSupport.unpark(partition.consumer);
+        }
+        for (Partition partition : partitions) {
+            try {
+                partition.consumer.join();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    @Override
+    public int getPhase() {
+        //Start before and stop after the services publishing into it
+        return SmartLifecycle.DEFAULT_PHASE - 2;
+    }
+
+    /**
+     * A task with the future completed once it has run. Its state only moves from pending to running or cancelled.
+     */
+    private static final class SequencedTask extends CompletableFuture<Void> {
+
+        private static final int PENDING = 0;
+
+        private static final int RUNNING = 1;
+
+        private static final int CANCELLED = 2;
+
+        private final Runnable task;
+
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        SequencedTask(Runnable task) {
+            this.task = task;
+        }
+
+        boolean markRunning() {
+            return state.compareAndSet(PENDING, RUNNING);
+        }
+
+        boolean cancelPending() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            cancel(false);
+            return true;
+        }
+    }
+
+    private final class Partition implements Runnable {
+
+        private final SequencedTask[] tasks;
+
+        private final AtomicLongArray published;
+
+        private final int mask;
+
+        private final AtomicLong claimed = new AtomicLong(-1);
+
+        private volatile long consumed = -1;
+
+        private final Thread consumer;
+
+        Partition(int index, int bufferSize) {
+            this.tasks = new SequencedTask[bufferSize];
+            this.published = new AtomicLongArray(bufferSize);
+            for (int i = 0; i < bufferSize; i++) {
+                published.set(i, -1);
+            }
+            this.mask = bufferSize - 1;
+            this.consumer = new Thread(this, "book-sequencer-" + index);
+            this.consumer.setDaemon(true);
+        }
+
+        void publish(SequencedTask task) {
+            long sequence = claimed.incrementAndGet();
+            if (sequence < 0) {
+                //Passed the running check before a stop, but the consumer has closed the ring and exited since
+                task.completeExceptionally(new IllegalStateException("Book sequencer is not running"));
+                return;
+            }
+            //Wait until the consumer has freed the slot used one lap earlier
+            while (sequence - consumed > tasks.length) {
+                LockSupport.parkNanos(1_000);
+            }
+            int slot = (int) (sequence & mask);
+            tasks[slot] = task;
+            published.set(slot, sequence);
+            LockSupport.unpark(consumer);
+        }
+
+        @Override
+        public void run() {
+            long next = consumed + 1;
+            while (true) {
+                int slot = (int) (next & mask);
+                if (published.get(slot) != next) {
+                    //Exit only if nothing was claimed beyond what ran, a publisher claiming afterwards sees the ring closed
+                    if (!isRunning && claimed.compareAndSet(next - 1, CLOSED)) {
+                        return;
+                    }
+                    LockSupport.parkNanos(100_000);
+                    continue;
+                }
+                SequencedTask task = tasks[slot];
+                tasks[slot] = null;
+                consumed = next;
+                run(task);
+                next++;
+            }
+        }
+
+        void run(SequencedTask task) {
+            if (!task.markRunning()) {
+                //Cancelled by a caller that gave up waiting, running it now would apply a change it already rolled back
+                return;
+            }
+            try {
+                task.task.run();
+                task.complete(null);
+            } catch (Throwable throwable) {
+                log.error("Sequenced task failed on {}. Exception {}", consumer.getName(), throwable.getMessage());
+                task.completeExceptionally(throwable);
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.orderManagement.matching;
+
+import com.orderManagement.model.OrderType;
+import com.orderManagement.model.PriceLevelDepth;
+
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Represents one side of an order book for a single book and instrument.
+ * Resting orders are grouped into price levels ordered from the best price to the worst
+ * (highest first for BUY, lowest first for SELL) and kept in ascending arrival sequence inside each level,
+ * so an execution only touches the orders it actually fills.
+ * Each level also keeps its total remaining quantity up to date on every add, remove and fill,
+ * so depth is read from the first levels without scanning orders.
+ */
+public class OrderBook {
+
+    private final OrderType side;
+
+    private final TreeMap<Long, PriceLevel> priceLevels;
+
+    public OrderBook(OrderType side) {
+        this.side = side;
+        Comparator<Long> bestPriceFirst = side == OrderType.BUY ? Comparator.reverseOrder() : Comparator.naturalOrder();
+        this.priceLevels = new TreeMap<>(bestPriceFirst);
+    }
+
+    /**
+     * Builds a unique key for the order book of a given book, instrument and side.
+     *
+     * @param bookName     The name of the book.
+     * @param instrumentId The instrument id.
+     * @param side         The side of the order book.
+     * @return The corresponding unique key.
+     */
+    public static String key(String bookName, int instrumentId, OrderType side) {
+        return bookName + ":" + instrumentId + ":" + side;
+    }
+
+    /**
+     * Tells whether a key built by {@link #key(String, int, OrderType)} belongs to the given book.
+     *
+     * @param key      The order book key.
+     * @param bookName The name of the book.
+     * @return True if the key is one of an order book of this book.
+     */
+    public static boolean isKeyOfBook(String key, String bookName) {
+        //What follows the book name is instrument and side, book names may contain the separator themselves
+        return key.startsWith(bookName + ":") && key.indexOf(':', bookName.length() + 1) == key.lastIndexOf(':');
+    }
+
+    public OrderType getSide() {
+        return side;
+    }
+
+    /**
+     * Adds an order to its price level after the orders of a lower arrival sequence.
+     * Orders without remaining quantity are ignored.
+     *
+     * @param order The order to add.
+     */
+    public synchronized void add(RestingOrder order) {
+        if (order.isComplete()) {
+            return;
+        }
+        PriceLevel level = priceLevels.computeIfAbsent(order.getPriceTicks(), price -> new PriceLevel());
+        if (level.orders.isEmpty() || level.orders.peekLast().getArrivalSequence() < order.getArrivalSequence()) {
+            level.orders.addLast(order);
+        } else {
+            //Overtaken on its way to the book, the order steps back past the ones that arrived after it
+            Deque<RestingOrder> laterOrders = new ArrayDeque<>();
+            while (!level.orders.isEmpty() && level.orders.peekLast().getArrivalSequence() > order.getArrivalSequence()) {
+                laterOrders.addFirst(level.orders.pollLast());
+            }
+            level.orders.addLast(order);
+            level.orders.addAll(laterOrders);
+        }
+        level.totalQuantity += order.getRemainingQuantity();
+    }
+
+    /**
+     * Removes an order from its price level.
+     * Levels are plain deques to keep the cost of a resting order down to one slot, so this scans the level
+     * and costs O(orders at that price). Matching never pays it, it only takes orders from the front of a level.
+     *
+     * @param orderId    The id of the order to remove.
+     * @param priceTicks The price of the order in ticks.
+     * @return True if the order was resting in this book.
+     */
+    public synchronized boolean remove(long orderId, long priceTicks) {
+        PriceLevel level = priceLevels.get(priceTicks);
+        if (level == null) {
+            return false;
+        }
+        boolean removed = false;
+        Iterator<RestingOrder> orders = level.orders.iterator();
+        while (orders.hasNext()) {
+            RestingOrder restingOrder = orders.next();
+            if (restingOrder.getOrderId() == orderId) {
+                orders.remove();
+                level.totalQuantity -= restingOrder.getRemainingQuantity();
+                removed = true;
+                break;
+            }
+        }
+        if (level.orders.isEmpty()) {
+            priceLevels.remove(priceTicks);
+        }
+        return removed;
+    }
+
+    /**
+     * Returns the oldest order at the best price level if that level is marketable against the given limit price.
+     *
+     * @param limitPriceTicks The execution price in ticks.
+     * @return The order with the best price-time priority, or {@code null} if nothing crosses the limit price.
+     */
+    public synchronized RestingOrder peekBest(long limitPriceTicks) {
+        Map.Entry<Long, PriceLevel> bestLevel = priceLevels.firstEntry();
+        if (bestLevel == null || !isMarketable(bestLevel.getKey(), limitPriceTicks)) {
+            return null;
+        }
+        return bestLevel.getValue().orders.peekFirst();
+    }
+
+    /**
+     * Fills a resting order of this book and removes it from its level once complete.
+     * Edits and deletes remove orders without holding the matching side's lock, so an order returned by
+     * {@link #peekBest(long)} may have left the book since. Such an order is left untouched.
+     *
+     * @param order    The order to fill, usually the one returned by {@link #peekBest(long)}.
+     * @param quantity The filled quantity.
+     * @return True if the order was filled, false if it no longer rests in this book.
+     */
+    public synchronized boolean fill(RestingOrder order, int quantity) {
+        PriceLevel level = priceLevels.get(order.getPriceTicks());
+        if (level == null) {
+            return false;
+        }
+        //Matching fills the front of a level, only an order that lost its place needs the scan
+        boolean isFirst = level.orders.peekFirst() == order;
+        if (!isFirst && !level.orders.contains(order)) {
+            return false;
+        }
+        order.fill(quantity);
+        level.totalQuantity -= quantity;
+        if (order.isComplete()) {
+            if (isFirst) {
+                level.orders.pollFirst();
+            } else {
+                level.orders.remove(order);
+            }
+            if (level.orders.isEmpty()) {
+                priceLevels.remove(order.getPriceTicks());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Takes back a fill of this book whose transaction rolled back. An order the fill completed goes back to its
+     * level at its arrival position. Whether the order still rests in the book is checked under the book's monitor,
+     * since an edit or delete drops the order from the resident orders before it removes it from here.
+     *
+     * @param order     The filled order.
+     * @param quantity  The filled quantity.
+     * @param isResting Tells whether the order is still the resident one of its id.
+     * @return True if the fill was taken back, false if the order left the book meanwhile.
+     */
+    public synchronized boolean unfill(RestingOrder order, int quantity, BooleanSupplier isResting) {
+        if (!isResting.getAsBoolean()) {
+            return false;
+        }
+        boolean wasComplete = order.isComplete();
+        order.unfill(quantity);
+        if (wasComplete) {
+            add(order);
+            return true;
+        }
+        PriceLevel level = priceLevels.get(order.getPriceTicks());
+        if (level != null) {
+            level.totalQuantity += quantity;
+        }
+        return true;
+    }
+
+    /**
+     * Aggregates the best price levels of this book.
+     *
+     * @param levels The maximum number of levels to return.
+     * @return Price, total remaining quantity and order count of each level, best price first.
+     */
+    public synchronized List<PriceLevelDepth> depth(int levels) {
+        List<PriceLevelDepth> depth = new ArrayList<>(Math.min(levels, priceLevels.size()));
+        for (Map.Entry<Long, PriceLevel> level : priceLevels.entrySet()) {
+            if (depth.size() == levels) {
+                break;
+            }
+            PriceLevelDepth levelDepth = new PriceLevelDepth();
+            levelDepth.setPrice(PriceTicks.toPrice(level.getKey()));
+            levelDepth.setQuantity(level.getValue().totalQuantity);
+            levelDepth.setOrderCount(level.getValue().orders.size());
+            depth.add(levelDepth);
+        }
+        return depth;
+    }
+
+    public synchronized boolean isEmpty() {
+        return priceLevels.isEmpty();
+    }
+
+    private boolean isMarketable(long levelPriceTicks, long limitPriceTicks) {
+        return side == OrderType.BUY ? levelPriceTicks >= limitPriceTicks : levelPriceTicks <= limitPriceTicks;
+    }
+
+    private static final class PriceLevel {
+
+        private final Deque<RestingOrder> orders = new ArrayDeque<>();
+
+        private long totalQuantity;
+    }
+}
@@ -0,0 +1,37 @@
+package com.orderManagement.matching;
+
+/**
+ * Converts prices between their decimal representation and fixed-point ticks.
+ * Matching compares prices as ticks so that equal prices always land on the same price level
+ * and comparisons are plain long comparisons.
+ */
+public final class PriceTicks {
+
+    /**
+     * Number of ticks per unit of price, giving six decimal places of precision.
+     */
+    public static final long SCALE = 1_000_000L;
+
+    private PriceTicks() {
+    }
+
+    /**
+     * Converts a decimal price to ticks, rounding to the nearest tick.
+     *
+     * @param price The decimal price.
+     * @return The price in ticks.
+     */
+    public static long toTicks(double price) {
+        return Math.round(price * SCALE);
+    }
+
+    /**
+     * Converts ticks back to a decimal price.
+     *
+     * @param ticks The price in ticks.
+     * @return The decimal price.
+     */
+    public static double toPrice(long ticks) {
+        return (double) ticks / SCALE;
+    }
+}
@@ -0,0 +1,144 @@
+package com.orderManagement.matching;
+
+import com.orderManagement.entity.OrderEntity;
+import com.orderManagement.model.OrderType;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Resident state of an active order. The same instance is held by the order indexes and rests in its {@link OrderBook},
+ * no {@link OrderEntity} is kept alongside it. Values the entity boxes or composes are primitives here: the price in
+ * fixed-point ticks, the entry date as epoch seconds and nanos, and no previous order as 0. The book name is the
+ * instance shared by every order of the book.
+ * Time priority is a server-assigned arrival sequence, orders rest in their level in ascending sequence.
+ * Entities are materialized from it on demand, for edits, persistence and reports.
+ */
+public final class RestingOrder {
+
+    private static final long NO_ENTRY_DATE = Long.MIN_VALUE;
+
+    private final long orderId;
+
+    private final int instrumentId;
+
+    private final long priceTicks;
+
+    private int remainingQuantity;
+
+    private final long arrivalSequence;
+
+    private final int quantity;
+
+    private final long entryEpochSecond;
+
+    private final int entryNano;
+
+    private final OrderType type;
+
+    private final String bookName;
+
+    private final long previousOrderId;
+
+    private final long version;
+
+    private RestingOrder(OrderEntity orderEntity, String bookName, long arrivalSequence) {
+        this.orderId = orderEntity.getOrderId();
+        this.instrumentId = orderEntity.getInstrumentId();
+        this.priceTicks = orderEntity.getPriceTicks();
+        this.remainingQuantity = orderEntity.getRemainingQuantity();
+        this.arrivalSequence = arrivalSequence;
+        this.quantity = orderEntity.getQuantity();
+        LocalDateTime entryDate = orderEntity.getEntryDate();
+        this.entryEpochSecond = entryDate == null ? NO_ENTRY_DATE : entryDate.toEpochSecond(ZoneOffset.UTC);
+        this.entryNano = entryDate == null ? 0 : entryDate.getNano();
+        this.type = orderEntity.getType();
+        this.bookName = bookName;
+        this.previousOrderId = orderEntity.getPreviousOrderId() == null ? 0 : orderEntity.getPreviousOrderId();
+        this.version = orderEntity.getVersion();
+    }
+
+    /**
+     * Creates the resting order of an active order entity.
+     *
+     * @param orderEntity     The order entity to convert.
+     * @param bookName        The shared instance of the name of its book.
+     * @param arrivalSequence The time priority of the order, assigned by the server as it enters its book.
+     * @return The corresponding resting order.
+     */
+    public static RestingOrder from(OrderEntity orderEntity, String bookName, long arrivalSequence) {
+        return new RestingOrder(orderEntity, bookName, arrivalSequence);
+    }
+
+    /**
+     * Materializes the entity of this order with its current remaining quantity.
+     *
+     * @return A new active order entity, changing it leaves this order untouched.
+     */
+    public OrderEntity toEntity() {
+        LocalDateTime entryDate = entryEpochSecond == NO_ENTRY_DATE ? null
+                : LocalDateTime.ofEpochSecond(entryEpochSecond, entryNano, ZoneOffset.UTC);
+        return new OrderEntity(orderId, instrumentId, quantity, remainingQuantity, entryDate, true, type, priceTicks,
+                bookName, previousOrderId == 0 ? null : previousOrderId, version);
+    }
+
+    public long getOrderId() {
+        return orderId;
+    }
+
+    public int getInstrumentId() {
+        return instrumentId;
+    }
+
+    public long getPriceTicks() {
+        return priceTicks;
+    }
+
+    public int getRemainingQuantity() {
+        return remainingQuantity;
+    }
+
+    public long getArrivalSequence() {
+        return arrivalSequence;
+    }
+
+    public OrderType getType() {
+        return type;
+    }
+
+    public String getBookName() {
+        return bookName;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Reduces the remaining quantity by the filled quantity.
+     *
+     * @param quantity The quantity filled by an execution.
+     */
+    public void fill(int quantity) {
+        remainingQuantity -= quantity;
+    }
+
+    /**
+     * Gives back the quantity of a fill whose transaction rolled back.
+     *
+     * @param quantity The quantity the fill took.
+     */
+    public void unfill(int quantity) {
+        remainingQuantity += quantity;
+    }
+
+    public boolean isComplete() {
+        return remainingQuantity == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "RestingOrder(orderId=" + orderId + ", instrumentId=" + instrumentId + ", priceTicks=" + priceTicks
+                + ", remainingQuantity=" + remainingQuantity + ", arrivalSequence=" + arrivalSequence + ")";
+    }
+}
@@ -0,0 +1,20 @@
+package com.orderManagement.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Represents the outcome of moving a finished book out of the hot tables.
+ * Lombok annotations are used to generate getter, setter, and constructors for its fields.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class BookArchive {
+    private String bookName;
+    private int archivedOrders;
+    private int archivedExecutions;
+}
@@ -0,0 +1,26 @@
+package com.orderManagement.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Represents the aggregated depth of a book for one instrument.
+ * Bids are ordered from the highest price and asks from the lowest, so the first level of each side is the top of book.
+ * Lombok annotations are used to generate getter, setter, and constructors for its fields.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class BookDepth {
+    private String bookName;
+    private int instrumentId;
+    private Double bestBid;
+    private Double bestOffer;
+    private List<PriceLevelDepth> bids;
+    private List<PriceLevelDepth> asks;
+}
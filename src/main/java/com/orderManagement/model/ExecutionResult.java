@@ -0,0 +1,50 @@
+package com.orderManagement.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Represents the outcome of one execution in a batch of executions.
+ * The index refers to the position of the execution in the submitted batch.
+ * Lombok annotations are used to generate getter, setter, and constructors for its fields.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class ExecutionResult {
+    private int index;
+    private boolean executed;
+    private String message;
+
+    /**
+     * Creates a result for an execution that was triggered.
+     *
+     * @param index position of the execution in the batch.
+     * @return The corresponding result.
+     */
+    public static ExecutionResult executed(int index){
+        ExecutionResult executionResult = new ExecutionResult();
+        executionResult.setIndex(index);
+        executionResult.setExecuted(true);
+        executionResult.setMessage("Execution triggered successfully");
+        return executionResult;
+    }
+
+    /**
+     * Creates a result for an execution that was rejected.
+     *
+     * @param index   position of the execution in the batch.
+     * @param message reason of the rejection.
+     * @return The corresponding result.
+     */
+    public static ExecutionResult rejected(int index, String message){
+        ExecutionResult executionResult = new ExecutionResult();
+        executionResult.setIndex(index);
+        executionResult.setExecuted(false);
+        executionResult.setMessage(message);
+        return executionResult;
+    }
+}
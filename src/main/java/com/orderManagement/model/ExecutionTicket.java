@@ -0,0 +1,45 @@
+package com.orderManagement.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents an execution submitted asynchronously and the state it has reached.
+ * Lombok annotations are used to generate getter, setter, and constructors for its fields.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class ExecutionTicket {
+    private long ticketId;
+    private ExecutionTicketStatus status;
+    private String message;
+    private Execution execution;
+    private String callbackUrl;
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+
+    /**
+     * Creates a copy of this ticket in a final state.
+     *
+     * @param status  the final status.
+     * @param message the outcome of the execution.
+     * @return The completed ticket.
+     */
+    public ExecutionTicket complete(ExecutionTicketStatus status, String message){
+        ExecutionTicket executionTicket = new ExecutionTicket();
+        executionTicket.setTicketId(ticketId);
+        executionTicket.setStatus(status);
+        executionTicket.setMessage(message);
+        executionTicket.setExecution(execution);
+        executionTicket.setCallbackUrl(callbackUrl);
+        executionTicket.setSubmittedAt(submittedAt);
+        executionTicket.setCompletedAt(LocalDateTime.now());
+        return executionTicket;
+    }
+}
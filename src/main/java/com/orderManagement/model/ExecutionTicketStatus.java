@@ -0,0 +1,12 @@
+package com.orderManagement.model;
+/**
+ * Represents the state of an execution submitted asynchronously.
+ * A ticket is QUEUED until its execution ran, then EXECUTED, REJECTED when the book does not allow it,
+ * or FAILED when the batch it ran in could not be persisted.
+ */
+public enum ExecutionTicketStatus {
+    QUEUED,
+    EXECUTED,
+    REJECTED,
+    FAILED
+}
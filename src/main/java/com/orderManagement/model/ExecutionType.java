@@ -2,8 +2,35 @@ package com.orderManagement.model;
 /**
  * Represents the type of execution in the Order Management System.
  * An execution can be either an OFFER or an ASK.
+ * Stored as the explicit code of each constant, codes of existing constants never change.
  */
 public enum ExecutionType {
-    OFFER,
-    ASK
+    OFFER(0),
+    ASK(1);
+
+    private static final ExecutionType[] VALUES = values();
+
+    private final int code;
+
+    ExecutionType(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * @param code The stored code.
+     * @return The constant holding that code.
+     * @throws IllegalArgumentException if no constant holds the code.
+     */
+    public static ExecutionType fromCode(int code) {
+        for (ExecutionType value : VALUES) {
+            if (value.code == code) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Unknown execution type code " + code);
+    }
 }
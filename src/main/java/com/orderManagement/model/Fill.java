@@ -0,0 +1,23 @@
+package com.orderManagement.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Represents the allocation of part of an execution to an order in the Order Management System.
+ * A fill includes the execution id, the order id, the allocated quantity and the price it was filled at.
+ * Lombok annotations are used to generate getter, setter, and constructors for its fields.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class Fill {
+    private Long fillId;
+    private Long executionId;
+    private Long orderId;
+    private int quantity;
+    private double price;
+}
@@ -0,0 +1,25 @@
+package com.orderManagement.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Represents a point in time view of the write-behind fill writer.
+ * Flush lag is the time between an order being filled in memory and the fill being committed.
+ * Lombok annotations are used to generate getter, setter, and constructors for its fields.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class FillWriterMetrics {
+    private String durability;
+    private int pendingOrders;
+    private long flushes;
+    private long flushedOrders;
+    private long failedFlushes;
+    private long lastFlushLagMillis;
+    private long maxFlushLagMillis;
+}
@@ -0,0 +1,26 @@
+package com.orderManagement.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Represents contention of the striped lock manager since start up.
+ * An acquisition is contended when the stripe was held by another thread and the caller had to wait.
+ * Lombok annotations are used to generate getter, setter, and constructors for its fields.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class LockStatistics {
+    private int stripes;
+    private long acquisitions;
+    private long contendedAcquisitions;
+    private long totalWaitMicros;
+    private long maxWaitMicros;
+    private List<StripeStatistics> hottestStripes;
+}
@@ -0,0 +1,38 @@
+package com.orderManagement.model;
+/**
+ * Represents the type of an order event in the Order Management System.
+ * An order is CREATED once, AMENDED when an edit replaces it, CANCELLED when deleted and FILLED by executions.
+ * Stored as the explicit code of each constant, codes of existing constants never change.
+ */
+public enum OrderEventType {
+    CREATED(0),
+    AMENDED(1),
+    CANCELLED(2),
+    FILLED(3);
+
+    private static final OrderEventType[] VALUES = values();
+
+    private final int code;
+
+    OrderEventType(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * @param code The stored code.
+     * @return The constant holding that code.
+     * @throws IllegalArgumentException if no constant holds the code.
+     */
+    public static OrderEventType fromCode(int code) {
+        for (OrderEventType value : VALUES) {
+            if (value.code == code) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Unknown order event type code " + code);
+    }
+}
@@ -0,0 +1,30 @@
+package com.orderManagement.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents an order as it was at a given time, rebuilt from its events.
+ * On top of the fields of an {@link Order}, it tells how much of the order was left and whether it was still active.
+ * Lombok annotations are used to generate getter, setter, and constructors for its fields.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class OrderState {
+    private Long orderId;
+    private int instrumentId;
+    private int quantity;
+    private int remainingQuantity;
+    private LocalDateTime entryDate;
+    private boolean active;
+    private OrderType type;
+    private double price;
+    private String bookName;
+    private Long previousOrderId;
+}
@@ -2,8 +2,35 @@ package com.orderManagement.model;
 /**
  * Represents the type of order in the Order Management System.
  * An order can be either a BUY or a SELL order.
+ * Stored as the explicit code of each constant, codes of existing constants never change.
  */
 public enum OrderType {
-    BUY,
-    SELL
+    BUY(0),
+    SELL(1);
+
+    private static final OrderType[] VALUES = values();
+
+    private final int code;
+
+    OrderType(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * @param code The stored code.
+     * @return The constant holding that code.
+     * @throws IllegalArgumentException if no constant holds the code.
+     */
+    public static OrderType fromCode(int code) {
+        for (OrderType value : VALUES) {
+            if (value.code == code) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Unknown order type code " + code);
+    }
 }
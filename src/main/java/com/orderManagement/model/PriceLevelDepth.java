@@ -0,0 +1,20 @@
+package com.orderManagement.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Represents the liquidity resting at one price of one side of a book.
+ * Lombok annotations are used to generate getter, setter, and constructors for its fields.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class PriceLevelDepth {
+    private double price;
+    private long quantity;
+    private int orderCount;
+}
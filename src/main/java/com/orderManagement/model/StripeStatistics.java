@@ -0,0 +1,21 @@
+package com.orderManagement.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Represents contention of a single stripe of the striped lock manager.
+ * Lombok annotations are used to generate getter, setter, and constructors for its fields.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class StripeStatistics {
+    private int stripe;
+    private long acquisitions;
+    private long contendedAcquisitions;
+    private long totalWaitMicros;
+}
@@ -0,0 +1,130 @@
+package com.orderManagement.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Loads the in-memory state of services at startup, one book at a time and several books in parallel.
+ * Rows of a book are read in keyset pages, each page starting after the last row of the previous one,
+ * so only a page per loading thread is held at once whatever the size of the tables. Each page is handed over
+ * whole, so that the in-memory state can take it in a single write instead of one row at a time.
+ * Progress is logged every tenth of the books and throughput once everything is loaded.
+ */
+@Component
+@Slf4j
+public class BookHydrator {
+
+    private final int threads;
+
+    private final int pageSize;
+
+    public BookHydrator(@Value("${app.hydration.threads:0}") int threads,
+                        @Value("${app.hydration.page-size:5000}") int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Hydration page size must be positive, got " + pageSize);
+        }
+        //Zero uses one thread per core
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Reads one page of rows of a book.
+     *
+     * @param <E> The type of the rows.
+     */
+    @FunctionalInterface
+    public interface PageLoader<E> {
+
+        /**
+         * @param bookName The name of the book.
+         * @param last     The last row of the previous page, or {@code null} for the first page.
+         * @param pageSize The maximum number of rows to return.
+         * @return The rows following {@code last} in load order.
+         */
+        List<E> load(String bookName, E last, int pageSize);
+    }
+
+    /**
+     * Loads every row of the given books and hands them to the consumer page by page, in load order within a book.
+     * The consumer is called from several threads at once for different books.
+     *
+     * @param stateName    What is being loaded, used in the log.
+     * @param bookNames    The books to load.
+     * @param pageLoader   Reads a page of rows of a book.
+     * @param pageConsumer Adds a non-empty page of rows of one book to the in-memory state.
+     * @return The number of rows loaded.
+     */
+    public <E> long hydrate(String stateName, List<String> bookNames, PageLoader<E> pageLoader, Consumer<List<E>> pageConsumer) {
+        long start = System.nanoTime();
+        AtomicLong rows = new AtomicLong();
+        AtomicInteger loadedBooks = new AtomicInteger();
+        int progressStep = Math.max(1, bookNames.size() / 10);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, bookNames.size())), runnable -> {
+            Thread thread = new Thread(runnable, "hydration-" + stateName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>(bookNames.size());
+            for (String bookName : bookNames) {
+                futures.add(executor.submit(() -> {
+                    rows.addAndGet(hydrateBook(bookName, pageLoader, pageConsumer));
+                    int loaded = loadedBooks.incrementAndGet();
+                    if (loaded % progressStep == 0) {
+                        log.info("Loaded {} of {} books of {}, {} rows so far", loaded, bookNames.size(), stateName, rows.get());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException exception) {
+            throw new IllegalStateException("Could not load " + stateName, exception.getCause());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading " + stateName, exception);
+        } finally {
+            executor.shutdownNow();
+        }
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        log.info("Loaded {} rows of {} from {} books in {} ms ({} rows/s)",
+                rows.get(), stateName, bookNames.size(), elapsedMillis, rows.get() * 1000 / elapsedMillis);
+        return rows.get();
+    }
+
+    /**
+     * Loads every row of a single book on the calling thread.
+     *
+     * @param bookName     The book to load.
+     * @param pageLoader   Reads a page of rows of the book.
+     * @param pageConsumer Adds a non-empty page of rows of the book to the in-memory state.
+     * @return The number of rows loaded.
+     */
+    public <E> long hydrateBook(String bookName, PageLoader<E> pageLoader, Consumer<List<E>> pageConsumer) {
+        long rows = 0;
+        E last = null;
+        List<E> page;
+        do {
+            page = pageLoader.load(bookName, last, pageSize);
+            rows += page.size();
+            if (!page.isEmpty()) {
+                pageConsumer.accept(page);
+                last = page.get(page.size() - 1);
+            }
+        } while (page.size() == pageSize);
+        return rows;
+    }
+}
@@ -0,0 +1,272 @@
+package com.orderManagement.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps only the books in use in memory.
+ * A book is loaded into every registered {@link ResidentState} the first time it is touched. Books untouched for the
+ * idle timeout are evicted, and when the rows held exceed the budget the least recently touched books are evicted
+ * until it fits again. Operations changing a book pin it for as long as they run, a pinned book is never evicted
+ * however long the operation takes. Books touched within the minimum residency are not evicted either, which keeps
+ * a hot book from being dropped and reloaded over and over. Evicted books are loaded again on their next touch.
+ * The bean only exists when {@code app.hydration.lazy.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.hydration.lazy.enabled", havingValue = "true")
+@Slf4j
+public class BookResidency implements SmartLifecycle, Runnable {
+
+    private final List<ResidentState> states = new CopyOnWriteArrayList<>();
+
+    private final ConcurrentHashMap<String, ResidentBook> residentBooks = new ConcurrentHashMap<>();
+
+    private final long maxResidentRows;
+
+    private final long idleTimeoutNanos;
+
+    private final long minResidencyNanos;
+
+    private final Thread evictor;
+
+    private volatile boolean isRunning;
+
+    public BookResidency(@Value("${app.hydration.lazy.max-resident-rows:1000000}") long maxResidentRows,
+                         @Value("${app.hydration.lazy.idle-timeout-minutes:30}") long idleTimeoutMinutes,
+                         @Value("${app.hydration.lazy.min-residency-ms:5000}") long minResidencyMillis) {
+        if (maxResidentRows < 1 || idleTimeoutMinutes < 1) {
+            throw new IllegalArgumentException("Resident rows budget and idle timeout must be positive");
+        }
+        this.maxResidentRows = maxResidentRows;
+        this.idleTimeoutNanos = TimeUnit.MINUTES.toNanos(idleTimeoutMinutes);
+        this.minResidencyNanos = TimeUnit.MILLISECONDS.toNanos(minResidencyMillis);
+        this.evictor = new Thread(this, "book-evictor");
+        this.evictor.setDaemon(true);
+    }
+
+    /**
+     * Registers the state of a service. Books touched afterwards are loaded into it as well.
+     *
+     * @param state The state to register.
+     */
+    public void register(ResidentState state) {
+        states.add(state);
+    }
+
+    /**
+     * Makes sure a book is in memory and marks it as recently used.
+     * The first touch of a book loads it while concurrent touches of the same book wait.
+     *
+     * @param bookName The name of the book.
+     */
+    public void touch(String bookName) {
+        resident(bookName, false);
+    }
+
+    /**
+     * Makes sure a book is in memory like {@link #touch(String)} and pins it there. A book stays resident while it
+     * holds pins. Every pin has to be released with {@link #unpin(String)}, in a finally block of the operation.
+     *
+     * @param bookName The name of the book.
+     */
+    public void pin(String bookName) {
+        resident(bookName, true);
+    }
+
+    /**
+     * Releases a pin taken by {@link #pin(String)}.
+     *
+     * @param bookName The name of the book.
+     */
+    public void unpin(String bookName) {
+        //A pinned book is never evicted, so the entry is still the one the pin was taken on
+        ResidentBook residentBook = residentBooks.get(bookName);
+        if (residentBook != null) {
+            residentBook.lastTouchNanos = System.nanoTime();
+            residentBook.pins.decrementAndGet();
+        }
+    }
+
+    private void resident(String bookName, boolean pin) {
+        while (true) {
+            ResidentBook residentBook = residentBooks.computeIfAbsent(bookName, ResidentBook::new);
+            if (pin) {
+                residentBook.pins.incrementAndGet();
+            }
+            residentBook.lastTouchNanos = System.nanoTime();
+            //Eviction clears the flag before it reads the pins, so a book seen loaded after pinning stays loaded
+            if (residentBook.isLoaded) {
+                return;
+            }
+            boolean isRetried = false;
+            residentBook.lock.lock();
+            try {
+                if (residentBooks.get(bookName) != residentBook) {
+                    //Evicted in the meantime, start over with a fresh entry
+                    isRetried = true;
+                }
+                else if (!residentBook.isLoaded) {
+                    long start = System.nanoTime();
+                    states.forEach(state -> state.load(bookName));
+                    residentBook.isLoaded = true;
+                    log.info("Loaded book {} in {} ms", bookName, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                }
+            } catch (RuntimeException exception) {
+                if (pin) {
+                    residentBook.pins.decrementAndGet();
+                }
+                throw exception;
+            }
+            finally {
+                residentBook.lock.unlock();
+            }
+            if (isRetried) {
+                if (pin) {
+                    residentBook.pins.decrementAndGet();
+                }
+                continue;
+            }
+            evictOverBudget();
+            return;
+        }
+    }
+
+    public boolean isResident(String bookName) {
+        ResidentBook residentBook = residentBooks.get(bookName);
+        return residentBook != null && residentBook.isLoaded;
+    }
+
+    /**
+     * Evicts books untouched for the idle timeout, then least recently touched books while the budget is exceeded.
+     */
+    void evict() {
+        long now = System.nanoTime();
+        residentBooks.values()
+                .stream()
+                .filter(residentBook -> now - residentBook.lastTouchNanos > idleTimeoutNanos)
+                .collect(Collectors.toList())
+                .forEach(residentBook -> evict(residentBook, idleTimeoutNanos, "idle"));
+        evictOverBudget();
+    }
+
+    private void evictOverBudget() {
+        long residentRows = residentRows();
+        if (residentRows <= maxResidentRows) {
+            return;
+        }
+        long now = System.nanoTime();
+        List<ResidentBook> leastRecentlyTouched = residentBooks.values()
+                .stream()
+                .filter(residentBook -> residentBook.pins.get() == 0 && now - residentBook.lastTouchNanos > minResidencyNanos)
+                .sorted(Comparator.comparingLong(residentBook -> residentBook.lastTouchNanos))
+                .collect(Collectors.toList());
+        for (ResidentBook residentBook : leastRecentlyTouched) {
+            if (residentRows <= maxResidentRows) {
+                return;
+            }
+            residentRows -= evict(residentBook, minResidencyNanos, "over budget");
+        }
+    }
+
+    private long evict(ResidentBook residentBook, long minIdleNanos, String reason) {
+        residentBook.lock.lock();
+        try {
+            //Touched again since it was picked
+            if (!residentBook.isLoaded || System.nanoTime() - residentBook.lastTouchNanos <= minIdleNanos) {
+                return 0;
+            }
+            //Cleared before the pins are read, a pin taken meanwhile either shows up here or waits for the lock
+            residentBook.isLoaded = false;
+            if (residentBook.pins.get() > 0) {
+                residentBook.isLoaded = true;
+                return 0;
+            }
+            long rows = size(residentBook.bookName);
+            states.forEach(state -> state.evict(residentBook.bookName));
+            residentBooks.remove(residentBook.bookName, residentBook);
+            log.info("Evicted book {} holding {} rows, {}", residentBook.bookName, rows, reason);
+            return rows;
+        }
+        finally {
+            residentBook.lock.unlock();
+        }
+    }
+
+    private long residentRows() {
+        return residentBooks.keySet()
+                .stream()
+                .mapToLong(this::size)
+                .sum();
+    }
+
+    private long size(String bookName) {
+        return states.stream().mapToLong(state -> state.size(bookName)).sum();
+    }
+
+    @Override
+    public void run() {
+        //Idle books are looked for a few times per timeout, the budget is also enforced on every load
+        long sweepIntervalNanos = Math.max(TimeUnit.SECONDS.toNanos(1), idleTimeoutNanos / 10);
+        while (isRunning) {
+            LockSupport.parkNanos(this, sweepIntervalNanos);
+            try {
+                evict();
+            } catch (RuntimeException exception) {
+                log.error("Could not evict idle books. Exception {}", exception.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        isRunning = true;
+        evictor.start();
+    }
+
+    @Override
+    public void stop() {
+        isRunning = false;
+        LockSupport.unpark(evictor);
+        try {
+            evictor.join();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        residentBooks.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    private static final class ResidentBook {
+
+        private final String bookName;
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final AtomicInteger pins = new AtomicInteger();
+
+        private volatile boolean isLoaded;
+
+        private volatile long lastTouchNanos;
+
+        private ResidentBook(String bookName) {
+            this.bookName = bookName;
+        }
+    }
+}
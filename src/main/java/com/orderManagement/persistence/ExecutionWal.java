@@ -0,0 +1,711 @@
+package com.orderManagement.persistence;
+
+import com.orderManagement.entity.ExecutionEntity;
+import com.orderManagement.entity.FillEntity;
+import com.orderManagement.model.ExecutionType;
+import com.orderManagement.repository.ExecutionRepository;
+import com.orderManagement.repository.FillRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead log making executions durable in a local memory-mapped file instead of the EXECUTIONS table.
+ * Each execution is appended as a fixed-size record carrying a sequence number, a checksum and the outcome of the
+ * transaction that matched it. Records are prepared, and forced to disk, before that transaction commits, and
+ * prepares waiting at the same time share a single force (group commit). The outcome is written into the records
+ * once the transaction completes, and a background thread then inserts the committed executions into EXECUTIONS in
+ * batches and records in the file header the sequence up to which they are all stored or rolled back.
+ * On startup, committed records past that sequence are inserted again and rolled back ones skipped. Records still
+ * prepared, because the process died before their outcome was written, are resolved against the fills their
+ * transaction inserted into FILLS. Once the file is full, prepares wait until every record is resolved and stored
+ * and start over at the beginning of the file.
+ * Only the insert into EXECUTIONS leaves the request path. The fills and the remaining quantities of the filled orders
+ * are still written inside the transaction of the request, which is what lets a record be resolved against FILLS.
+ * The bean only exists when {@code app.executions.wal.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.executions.wal.enabled", havingValue = "true")
+@Slf4j
+public class ExecutionWal implements SmartLifecycle, Runnable {
+
+    private static final int MAGIC = 0x4558574C;
+
+    private static final int FORMAT_VERSION = 3;
+
+    private static final int HEADER_BYTES = 64;
+
+    private static final int FIRST_SEQUENCE_OFFSET = 8;
+
+    private static final int APPLIED_SEQUENCE_OFFSET = 16;
+
+    private static final int MAX_BOOK_NAME_BYTES = 100;
+
+    /**
+     * Checksum, sequence, sequence of the first record of the transaction, execution id, instrument id, quantity,
+     * type, price in ticks, number of fills, book name length, book name and the outcome, which the checksum leaves out
+     * as it is written after the rest of the record.
+     */
+    static final int RECORD_BYTES = 4 + 8 + 8 + 8 + 4 + 4 + 1 + 8 + 4 + 2 + MAX_BOOK_NAME_BYTES + 1;
+
+    private static final int OUTCOME_OFFSET = RECORD_BYTES - 1;
+
+    private static final byte PREPARED = 0;
+
+    private static final byte COMMITTED = 1;
+
+    private static final byte ROLLED_BACK = 2;
+
+    private final ExecutionRepository executionRepository;
+
+    private final FillRepository fillRepository;
+
+    private final Path path;
+
+    private final long capacity;
+
+    private final int batchSize;
+
+    private final long insertIntervalNanos;
+
+    private final long fullTimeoutMillis;
+
+    private final IdBlock executionIds;
+
+    private FileChannel channel;
+
+    private MappedByteBuffer buffer;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    private int writePosition;
+
+    private volatile long writtenSequence;
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    private final Condition syncFinished = syncLock.newCondition();
+
+    private long syncedSequence;
+
+    private boolean isSyncing;
+
+    private final AtomicLong syncs = new AtomicLong();
+
+    private final ConcurrentLinkedQueue<LoggedExecution> unappliedExecutions = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger unappliedCount = new AtomicInteger();
+
+    private final ConcurrentSkipListSet<Long> pendingSequences = new ConcurrentSkipListSet<>();
+
+    private final ReentrantLock appliedLock = new ReentrantLock();
+
+    private final Condition appliedAdvanced = appliedLock.newCondition();
+
+    private long appliedSequence;
+
+    private final AtomicLong failedInserts = new AtomicLong();
+
+    private final Thread inserter;
+
+    private volatile boolean isRunning;
+
+    @Autowired
+    public ExecutionWal(ExecutionRepository executionRepository, FillRepository fillRepository,
+                        @Value("${app.executions.wal.directory:wal}") String directory,
+                        @Value("${app.executions.wal.size-mb:64}") long sizeMb,
+                        @Value("${app.executions.wal.batch-size:500}") int batchSize,
+                        @Value("${app.executions.wal.insert-interval-ms:20}") long insertIntervalMillis,
+                        @Value("${app.executions.wal.full-timeout-ms:5000}") long fullTimeoutMillis,
+                        @Value("${app.ids.allocation-size:50}") int allocationSize) {
+        this(executionRepository, fillRepository, Paths.get(directory), sizeMb * 1024 * 1024, batchSize, insertIntervalMillis, fullTimeoutMillis, allocationSize);
+    }
+
+    ExecutionWal(ExecutionRepository executionRepository, FillRepository fillRepository, Path directory, long capacity,
+                 int batchSize, long insertIntervalMillis, long fullTimeoutMillis, int allocationSize) {
+        if (capacity < HEADER_BYTES + RECORD_BYTES || capacity > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Execution log size must hold at least one record and stay below 2 GB, got " + capacity);
+        }
+        if (batchSize < 1 || insertIntervalMillis < 1 || fullTimeoutMillis < 1 || allocationSize < 1) {
+            throw new IllegalArgumentException("Execution log batch size, intervals and allocation size must be positive");
+        }
+        this.executionRepository = executionRepository;
+        this.fillRepository = fillRepository;
+        this.path = directory.resolve("executions.wal");
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.insertIntervalNanos = TimeUnit.MILLISECONDS.toNanos(insertIntervalMillis);
+        this.fullTimeoutMillis = fullTimeoutMillis;
+        this.executionIds = new IdBlock("EXECUTIONS_SEQ", executionRepository::nextExecutionIdBlock,
+                executionRepository::findExecutionIdIncrement, allocationSize);
+        this.inserter = new Thread(this, "execution-wal-inserter");
+        this.inserter.setDaemon(true);
+    }
+
+    /**
+     * Hands out the id of a new execution. Executions are no longer inserted through Hibernate, which used to assign it.
+     *
+     * @return The execution id.
+     */
+    public long nextExecutionId() {
+        return executionIds.next();
+    }
+
+    /**
+     * Appends executions outside of a transaction and returns once they are durable. They are inserted into the
+     * database later.
+     *
+     * @param executions The executions to log, with their ids assigned.
+     * @throws IllegalArgumentException if the executions do not fit in the log.
+     * @throws IllegalStateException    if the log is full and could not be emptied in time.
+     */
+    public void appendAll(List<ExecutionEntity> executions) {
+        prepare(executions, new ArrayList<>()).commit();
+    }
+
+    /**
+     * Appends the executions matched by a transaction and returns once they are durable, before the transaction
+     * commits. Nothing is inserted into the database until the outcome of the transaction is given to the returned
+     * {@link Prepared}, which has to happen, as the log cannot be reused past unresolved records.
+     *
+     * @param executions The executions to log, with their ids assigned.
+     * @param fills      The fills the transaction inserts for them, telling on restart whether it committed.
+     * @return The prepared records of the executions.
+     * @throws IllegalArgumentException if the executions do not fit in the log.
+     * @throws IllegalStateException    if the log is full and could not be emptied in time.
+     */
+    public Prepared prepare(List<ExecutionEntity> executions, List<FillEntity> fills) {
+        if (!isRunning) {
+            throw new IllegalStateException("Execution log is not running");
+        }
+        List<byte[]> bookNames = encodeBookNames(executions);
+        Map<Long, Integer> fillCounts = new HashMap<>();
+        fills.forEach(fill -> fillCounts.merge(fill.getExecutionId(), 1, Integer::sum));
+        List<LoggedExecution> loggedExecutions = executions.isEmpty() ? new ArrayList<>() : write(executions, bookNames, fillCounts);
+        if (!loggedExecutions.isEmpty()) {
+            awaitSync(loggedExecutions.get(loggedExecutions.size() - 1).sequence);
+        }
+        return new Prepared(loggedExecutions, fills.size());
+    }
+
+    /**
+     * Checks that executions fit in the log, so that a caller appending them later knows up front they will be accepted.
+     *
+     * @param executions The executions to log.
+     * @throws IllegalArgumentException if a book name does not fit in a record or there are more executions than records.
+     */
+    public void checkLoggable(List<ExecutionEntity> executions) {
+        encodeBookNames(executions);
+    }
+
+    /**
+     * Blocks until every execution logged before the call has been stored in the database.
+     *
+     * @throws IllegalStateException if the executions could not be stored within the timeout.
+     */
+    public void awaitStored() {
+        awaitApplied(writtenSequence);
+    }
+
+    /**
+     * @return The number of forces of the log file, each one covering every append waiting for it.
+     */
+    public long getSyncs() {
+        return syncs.get();
+    }
+
+    /**
+     * @return The number of logged executions not yet inserted into the database.
+     */
+    public int getUnappliedExecutions() {
+        return unappliedCount.get();
+    }
+
+    private List<byte[]> encodeBookNames(List<ExecutionEntity> executions) {
+        //The records of a transaction are never split across a rewind, which would wait for the transaction itself
+        long recordsPerFile = (capacity - HEADER_BYTES) / RECORD_BYTES;
+        if (executions.size() > recordsPerFile) {
+            throw new IllegalArgumentException(executions.size() + " executions do not fit in an execution log of "
+                    + recordsPerFile + " records");
+        }
+        List<byte[]> bookNames = new ArrayList<>(executions.size());
+        for (ExecutionEntity execution : executions) {
+            byte[] bookName = execution.getBookName().getBytes(StandardCharsets.UTF_8);
+            if (bookName.length > MAX_BOOK_NAME_BYTES) {
+                throw new IllegalArgumentException("Book name " + execution.getBookName() + " is longer than " + MAX_BOOK_NAME_BYTES + " bytes");
+            }
+            bookNames.add(bookName);
+        }
+        return bookNames;
+    }
+
+    private List<LoggedExecution> write(List<ExecutionEntity> executions, List<byte[]> bookNames, Map<Long, Integer> fillCounts) {
+        List<LoggedExecution> loggedExecutions = new ArrayList<>(executions.size());
+        appendLock.lock();
+        try {
+            if (writePosition + (long) executions.size() * RECORD_BYTES > capacity) {
+                rewind();
+            }
+            long transactionSequence = writtenSequence + 1;
+            for (int i = 0; i < executions.size(); i++) {
+                long sequence = writtenSequence + 1;
+                ExecutionEntity execution = executions.get(i);
+                writeRecord(writePosition, sequence, transactionSequence, execution,
+                        fillCounts.getOrDefault(execution.getExecutionId(), 0), bookNames.get(i));
+                //Pending before it is published, so the applied sequence never moves past it unnoticed
+                pendingSequences.add(sequence);
+                writtenSequence = sequence;
+                loggedExecutions.add(new LoggedExecution(sequence, writePosition, execution));
+                writePosition += RECORD_BYTES;
+            }
+        }
+        finally {
+            appendLock.unlock();
+        }
+        return loggedExecutions;
+    }
+
+    /**
+     * Waits until the record of the given sequence is on disk. The first waiter forces the file for everyone
+     * written so far, the others wait for that force or take the next one.
+     */
+    private void awaitSync(long sequence) {
+        while (true) {
+            syncLock.lock();
+            try {
+                while (isSyncing && syncedSequence < sequence) {
+                    try {
+                        syncFinished.await();
+                    } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while waiting for executions to be logged");
+                    }
+                }
+                if (syncedSequence >= sequence) {
+                    return;
+                }
+                isSyncing = true;
+            }
+            finally {
+                syncLock.unlock();
+            }
+            long target = writtenSequence;
+            boolean isSynced = false;
+            try {
+                buffer.force();
+                syncs.incrementAndGet();
+                isSynced = true;
+            }
+            finally {
+                syncLock.lock();
+                try {
+                    if (isSynced) {
+                        syncedSequence = Math.max(syncedSequence, target);
+                    }
+                    isSyncing = false;
+                    syncFinished.signalAll();
+                }
+                finally {
+                    syncLock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts over at the beginning of the file once every record in it is resolved and stored in the database.
+     */
+    private void rewind() {
+        long target = writtenSequence;
+        awaitApplied(target);
+        appliedLock.lock();
+        try {
+            //Records left in the file carry lower sequences than the first one expected, a replay stops at them
+            buffer.putLong(FIRST_SEQUENCE_OFFSET, target + 1);
+            buffer.putLong(APPLIED_SEQUENCE_OFFSET, appliedSequence);
+            buffer.force();
+        }
+        finally {
+            appliedLock.unlock();
+        }
+        writePosition = HEADER_BYTES;
+    }
+
+    private void awaitApplied(long target) {
+        LockSupport.unpark(inserter);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(fullTimeoutMillis);
+        appliedLock.lock();
+        try {
+            while (appliedSequence < target) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    throw new IllegalStateException("Logged executions were not stored within " + fullTimeoutMillis + " ms");
+                }
+                try {
+                    appliedAdvanced.await(remainingMillis, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for logged executions to be stored");
+                }
+            }
+        }
+        finally {
+            appliedLock.unlock();
+        }
+    }
+
+    private void writeRecord(int position, long sequence, long transactionSequence, ExecutionEntity execution,
+                             int fillCount, byte[] bookName) {
+        ByteBuffer record = buffer.duplicate();
+        record.position(position + 4);
+        record.putLong(sequence);
+        record.putLong(transactionSequence);
+        record.putLong(execution.getExecutionId());
+        record.putInt(execution.getInstrumentId());
+        record.putInt(execution.getQuantity());
+        record.put((byte) execution.getType().getCode());
+        record.putLong(execution.getPriceTicks());
+        record.putInt(fillCount);
+        record.putShort((short) bookName.length);
+        record.put(bookName);
+        record.put(new byte[MAX_BOOK_NAME_BYTES - bookName.length]);
+        record.put(PREPARED);
+        buffer.putInt(position, checksum(position));
+    }
+
+    /**
+     * Writes the outcome of the transaction into the records of its executions. It is forced along with the next
+     * prepare, a record found still prepared on restart is resolved from the database instead.
+     */
+    private void writeOutcome(List<LoggedExecution> loggedExecutions, byte outcome) {
+        loggedExecutions.forEach(loggedExecution -> buffer.put(loggedExecution.position + OUTCOME_OFFSET, outcome));
+    }
+
+    /**
+     * Reads the record at the given position.
+     *
+     * @return The record, or {@code null} if the record is damaged or is not the expected one.
+     */
+    private RecoveredRecord readRecord(int position, long expectedSequence) {
+        if (buffer.getInt(position) != checksum(position)) {
+            return null;
+        }
+        ByteBuffer record = buffer.duplicate();
+        record.position(position + 4);
+        if (record.getLong() != expectedSequence) {
+            return null;
+        }
+        long transactionSequence = record.getLong();
+        ExecutionEntity execution = new ExecutionEntity();
+        execution.setExecutionId(record.getLong());
+        execution.setInstrumentId(record.getInt());
+        execution.setQuantity(record.getInt());
+        execution.setType(ExecutionType.fromCode(record.get()));
+        execution.setPriceTicks(record.getLong());
+        int fillCount = record.getInt();
+        byte[] bookName = new byte[record.getShort()];
+        record.get(bookName);
+        execution.setBookName(new String(bookName, StandardCharsets.UTF_8));
+        return new RecoveredRecord(transactionSequence, execution, fillCount, buffer.get(position + OUTCOME_OFFSET));
+    }
+
+    private int checksum(int position) {
+        ByteBuffer body = buffer.duplicate();
+        body.position(position + 4);
+        body.limit(position + OUTCOME_OFFSET);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public void run() {
+        while (isRunning) {
+            if (unappliedCount.get() < batchSize) {
+                LockSupport.parkNanos(this, insertIntervalNanos);
+            }
+            insertUnapplied();
+        }
+        //Drain what is left once the services have stopped
+        insertUnapplied();
+    }
+
+    void insertUnapplied() {
+        List<LoggedExecution> batch = new ArrayList<>(batchSize);
+        LoggedExecution loggedExecution;
+        while ((loggedExecution = unappliedExecutions.poll()) != null) {
+            batch.add(loggedExecution);
+            if (batch.size() == batchSize) {
+                if (!insertBatch(batch)) {
+                    return;
+                }
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty() && !insertBatch(batch)) {
+            return;
+        }
+        advanceAppliedSequence();
+    }
+
+    private boolean insertBatch(List<LoggedExecution> batch) {
+        List<ExecutionEntity> executions = new ArrayList<>(batch.size());
+        batch.forEach(loggedExecution -> executions.add(loggedExecution.execution));
+        try {
+            executionRepository.insertAll(executions);
+        } catch (RuntimeException exception) {
+            log.error("Failed to store {} logged executions. Exception {}", batch.size(), exception.getMessage());
+            failedInserts.incrementAndGet();
+            unappliedExecutions.addAll(batch);
+            return false;
+        }
+        unappliedCount.addAndGet(-batch.size());
+        batch.forEach(loggedExecution -> pendingSequences.remove(loggedExecution.sequence));
+        return true;
+    }
+
+    private void advanceAppliedSequence() {
+        //Read the written sequence first, every record up to it was pending before it was published
+        long written = writtenSequence;
+        Long oldestPending = pendingSequences.isEmpty() ? null : pendingSequences.first();
+        long applied = oldestPending == null ? written : Math.min(written, oldestPending - 1);
+        appliedLock.lock();
+        try {
+            if (applied <= appliedSequence) {
+                return;
+            }
+            appliedSequence = applied;
+            //Forced along with the next appends, a stale value only replays records that are already stored
+            buffer.putLong(APPLIED_SEQUENCE_OFFSET, applied);
+            appliedAdvanced.signalAll();
+        }
+        finally {
+            appliedLock.unlock();
+        }
+    }
+
+    private void recover() {
+        long lastSequence = 0;
+        long applied = 0;
+        //Records past the applied sequence grouped by transaction, in log order
+        Map<Long, List<RecoveredRecord>> transactions = new LinkedHashMap<>();
+        if (buffer.getInt(0) == MAGIC) {
+            if (buffer.getInt(4) != FORMAT_VERSION) {
+                throw new IllegalStateException("Execution log " + path + " was written in format " + buffer.getInt(4)
+                        + ", drain it with the version that wrote it before upgrading");
+            }
+            long sequence = buffer.getLong(FIRST_SEQUENCE_OFFSET);
+            applied = buffer.getLong(APPLIED_SEQUENCE_OFFSET);
+            lastSequence = sequence - 1;
+            for (int position = HEADER_BYTES; position + RECORD_BYTES <= buffer.capacity(); position += RECORD_BYTES) {
+                RecoveredRecord record = readRecord(position, sequence);
+                if (record == null) {
+                    break;
+                }
+                if (sequence > applied) {
+                    transactions.computeIfAbsent(record.transactionSequence, key -> new ArrayList<>()).add(record);
+                }
+                lastSequence = sequence++;
+            }
+        }
+        List<ExecutionEntity> unapplied = new ArrayList<>();
+        transactions.values().forEach(records -> {
+            if (isCommitted(records)) {
+                records.forEach(record -> unapplied.add(record.execution));
+            }
+        });
+        for (int from = 0; from < unapplied.size(); from += batchSize) {
+            executionRepository.insertAll(unapplied.subList(from, Math.min(from + batchSize, unapplied.size())));
+        }
+        if (!unapplied.isEmpty()) {
+            log.info("Stored {} executions logged before the last shutdown", unapplied.size());
+        }
+        long recovered = Math.max(lastSequence, applied);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT_VERSION);
+        buffer.putLong(FIRST_SEQUENCE_OFFSET, recovered + 1);
+        buffer.putLong(APPLIED_SEQUENCE_OFFSET, recovered);
+        buffer.force();
+        writePosition = HEADER_BYTES;
+        writtenSequence = recovered;
+        syncedSequence = recovered;
+        appliedSequence = recovered;
+    }
+
+    /**
+     * Tells whether the transaction of the given records committed. Its outcome is in the records unless the process
+     * died before it was written. The transaction then committed if the fills it inserted are in the database.
+     * A transaction that matched nothing inserted nothing either, its executions are stored as they may have
+     * been acknowledged.
+     */
+    private boolean isCommitted(List<RecoveredRecord> records) {
+        byte outcome = records.get(0).outcome;
+        if (outcome != PREPARED) {
+            return outcome == COMMITTED;
+        }
+        List<Long> executionIds = new ArrayList<>(records.size());
+        int fillCount = 0;
+        for (RecoveredRecord record : records) {
+            executionIds.add(record.execution.getExecutionId());
+            fillCount += record.fillCount;
+        }
+        if (fillCount == 0) {
+            log.warn("Storing executions {} of a transaction of unknown outcome that matched no order", executionIds);
+            return true;
+        }
+        return fillRepository.existsByExecutionIdIn(executionIds);
+    }
+
+    @Override
+    public void start() {
+        executionIds.checkIncrement();
+        try {
+            Files.createDirectories(path.getParent());
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(capacity, channel.size()));
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Could not open execution log " + path, exception);
+        }
+        recover();
+        isRunning = true;
+        inserter.start();
+        log.info("Started execution log {} at sequence {}", path, writtenSequence);
+    }
+
+    @Override
+    public void stop() {
+        isRunning = false;
+        LockSupport.unpark(inserter);
+        try {
+            inserter.join();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException exception) {
+            log.warn("Could not close execution log {}. Exception {}", path, exception.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    @Override
+    public int getPhase() {
+        //Start before and stop after the services logging executions, EXECUTIONS is caught up before they read it
+        return SmartLifecycle.DEFAULT_PHASE - 2;
+    }
+
+    /**
+     * Executions of a transaction that are on disk but neither stored nor rolled back yet.
+     */
+    public final class Prepared {
+
+        private final List<LoggedExecution> loggedExecutions;
+
+        private final int fillCount;
+
+        private Prepared(List<LoggedExecution> loggedExecutions, int fillCount) {
+            this.loggedExecutions = loggedExecutions;
+            this.fillCount = fillCount;
+        }
+
+        /**
+         * Records that the transaction committed, its executions are inserted into the database behind the caller.
+         */
+        public void commit() {
+            writeOutcome(loggedExecutions, COMMITTED);
+            unappliedExecutions.addAll(loggedExecutions);
+            if (unappliedCount.addAndGet(loggedExecutions.size()) >= batchSize) {
+                LockSupport.unpark(inserter);
+            }
+        }
+
+        /**
+         * Records that the transaction rolled back, its executions are never inserted.
+         */
+        public void rollback() {
+            writeOutcome(loggedExecutions, ROLLED_BACK);
+            loggedExecutions.forEach(loggedExecution -> pendingSequences.remove(loggedExecution.sequence));
+            LockSupport.unpark(inserter);
+        }
+
+        /**
+         * Settles a transaction whose outcome was not reported, the way a restart would.
+         */
+        public void resolve() {
+            List<Long> executionIds = new ArrayList<>(loggedExecutions.size());
+            loggedExecutions.forEach(loggedExecution -> executionIds.add(loggedExecution.execution.getExecutionId()));
+            if (fillCount == 0 || fillRepository.existsByExecutionIdIn(executionIds)) {
+                commit();
+            } else {
+                rollback();
+            }
+        }
+    }
+
+    private static final class LoggedExecution {
+
+        private final long sequence;
+
+        private final int position;
+
+        private final ExecutionEntity execution;
+
+        LoggedExecution(long sequence, int position, ExecutionEntity execution) {
+            this.sequence = sequence;
+            this.position = position;
+            this.execution = execution;
+        }
+    }
+
+    private static final class RecoveredRecord {
+
+        private final long transactionSequence;
+
+        private final ExecutionEntity execution;
+
+        private final int fillCount;
+
+        private final byte outcome;
+
+        RecoveredRecord(long transactionSequence, ExecutionEntity execution, int fillCount, byte outcome) {
+            this.transactionSequence = transactionSequence;
+            this.execution = execution;
+            this.fillCount = fillCount;
+            this.outcome = outcome;
+        }
+    }
+}
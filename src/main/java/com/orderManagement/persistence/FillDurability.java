@@ -0,0 +1,16 @@
+package com.orderManagement.persistence;
+
+/**
+ * Chooses when an execution is acknowledged while order fills are written behind.
+ */
+public enum FillDurability {
+    /**
+     * The caller waits until the fills of its execution have been committed to the database.
+     */
+    ACK_AFTER_FLUSH,
+    /**
+     * The caller is acknowledged as soon as the fills are applied in memory.
+     * Fills not yet flushed are lost if the application dies.
+     */
+    ACK_IMMEDIATELY
+}
@@ -0,0 +1,295 @@
+package com.orderManagement.persistence;
+
+import com.orderManagement.entity.OrderEntity;
+import com.orderManagement.model.FillWriterMetrics;
+import com.orderManagement.repository.OrdersRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Persists order fills behind the matching path.
+ * Filled orders are marked dirty and coalesced by order id, so an order filled several times between two flushes
+ * is written once with its latest remaining quantity. A background thread flushes dirty orders every flush interval,
+ * or as soon as a batch worth of orders is pending, committing each batch as one JDBC batch of updates that only
+ * touch the remaining quantity. Orders are marked once the transaction of their fills has committed, and callers
+ * await the flush after that commit, never while holding a connection of their own.
+ * The bean only exists when {@code app.fills.write-behind.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.fills.write-behind.enabled", havingValue = "true")
+@Slf4j
+public class FillWriter implements SmartLifecycle, Runnable {
+
+    private final OrdersRepository ordersRepository;
+
+    private final int batchSize;
+
+    private final long flushIntervalNanos;
+
+    private final FillDurability durability;
+
+    private final long ackTimeoutMillis;
+
+    private final ConcurrentHashMap<Long, DirtyOrder> dirtyOrders = new ConcurrentHashMap<>();
+
+    private final AtomicLong markedSequence = new AtomicLong();
+
+    //Held while a batch is taken out of the dirty orders and written, so flushing one order waits for a batch holding it
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final Condition flushed = flushLock.newCondition();
+
+    private volatile long flushedSequence;
+
+    private final AtomicLong flushes = new AtomicLong();
+
+    private final AtomicLong flushedOrders = new AtomicLong();
+
+    private final AtomicLong failedFlushes = new AtomicLong();
+
+    private volatile long lastFlushLagMillis;
+
+    private final AtomicLong maxFlushLagMillis = new AtomicLong();
+
+    private final Thread writer;
+
+    private volatile boolean isRunning;
+
+    public FillWriter(OrdersRepository ordersRepository,
+                      @Value("${app.fills.write-behind.batch-size:500}") int batchSize,
+                      @Value("${app.fills.write-behind.flush-interval-ms:20}") long flushIntervalMillis,
+                      @Value("${app.fills.write-behind.durability:ACK_AFTER_FLUSH}") FillDurability durability,
+                      @Value("${app.fills.write-behind.ack-timeout-ms:5000}") long ackTimeoutMillis) {
+        if (batchSize < 1 || flushIntervalMillis < 1) {
+            throw new IllegalArgumentException("Fill writer batch size and flush interval must be positive");
+        }
+        this.ordersRepository = ordersRepository;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.durability = durability;
+        this.ackTimeoutMillis = ackTimeoutMillis;
+        this.writer = new Thread(this, "fill-writer");
+        this.writer.setDaemon(true);
+    }
+
+    public FillDurability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Queues a filled order for the next flush.
+     *
+     * @param orderEntity the order entity holding the latest remaining quantity.
+     */
+    public void markDirty(OrderEntity orderEntity) {
+        //Keep the time of the first unflushed fill so that the measured lag covers the whole wait
+        dirtyOrders.merge(orderEntity.getOrderId(), new DirtyOrder(orderEntity, System.nanoTime()),
+                (pending, latest) -> new DirtyOrder(latest.orderEntity, pending.markedAtNanos));
+        markedSequence.incrementAndGet();
+        if (dirtyOrders.size() >= batchSize) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * Blocks until every fill marked before the call has been committed.
+     * Concurrent callers share the same flush. Must not be called inside a transaction, the writer needs
+     * a pooled connection of its own to flush.
+     *
+     * @throws IllegalStateException if the fills could not be committed within the acknowledgement timeout.
+     */
+    public void awaitFlush() {
+        long target = markedSequence.get();
+        if (flushedSequence >= target) {
+            return;
+        }
+        LockSupport.unpark(writer);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ackTimeoutMillis);
+        flushLock.lock();
+        try {
+            while (flushedSequence < target) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    throw new IllegalStateException("Order fills were not persisted within " + ackTimeoutMillis + " ms");
+                }
+                try {
+                    flushed.await(remainingMillis, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for order fills to be persisted");
+                }
+            }
+        }
+        finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the pending fill of one order right away, typically before the order is edited or deleted.
+     * If the writer has already taken the order into a batch, waits for that batch to be written first, so the
+     * fill never lands after the caller's change. A batch that failed puts the fill back, and it is written here.
+     *
+     * @param orderId id of the order.
+     * @throws IllegalStateException if a batch in flight was not written within the acknowledgement timeout.
+     */
+    public void flushOrder(Long orderId) {
+        try {
+            if (!writeLock.tryLock(ackTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Order fills of order " + orderId + " were not persisted within " + ackTimeoutMillis + " ms");
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for order fills to be persisted");
+        }
+        try {
+            DirtyOrder dirtyOrder = dirtyOrders.remove(orderId);
+            if (dirtyOrder != null) {
+                ordersRepository.updateRemainingQuantities(Collections.singletonList(dirtyOrder.orderEntity));
+                flushedOrders.incrementAndGet();
+            }
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the current state of the writer.
+     *
+     * @return The fill writer metrics.
+     */
+    public FillWriterMetrics getMetrics() {
+        FillWriterMetrics metrics = new FillWriterMetrics();
+        metrics.setDurability(durability.name());
+        metrics.setPendingOrders(dirtyOrders.size());
+        metrics.setFlushes(flushes.get());
+        metrics.setFlushedOrders(flushedOrders.get());
+        metrics.setFailedFlushes(failedFlushes.get());
+        metrics.setLastFlushLagMillis(lastFlushLagMillis);
+        metrics.setMaxFlushLagMillis(maxFlushLagMillis.get());
+        return metrics;
+    }
+
+    @Override
+    public void run() {
+        while (isRunning) {
+            if (dirtyOrders.size() < batchSize) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            flush();
+        }
+        //Drain what is left once publishers have stopped
+        flush();
+    }
+
+    void flush() {
+        //A fill is put in the map before its sequence is taken, so everything up to target is visible below
+        long target = markedSequence.get();
+        Iterator<Long> orderIds = dirtyOrders.keySet().iterator();
+        while (orderIds.hasNext()) {
+            writeLock.lock();
+            try {
+                List<DirtyOrder> batch = new ArrayList<>(batchSize);
+                while (orderIds.hasNext() && batch.size() < batchSize) {
+                    DirtyOrder dirtyOrder = dirtyOrders.remove(orderIds.next());
+                    if (dirtyOrder != null) {
+                        batch.add(dirtyOrder);
+                    }
+                }
+                if (!batch.isEmpty() && !writeBatch(batch)) {
+                    return;
+                }
+            }
+            finally {
+                writeLock.unlock();
+            }
+        }
+        flushLock.lock();
+        try {
+            flushedSequence = Math.max(flushedSequence, target);
+            flushed.signalAll();
+        }
+        finally {
+            flushLock.unlock();
+        }
+    }
+
+    private boolean writeBatch(List<DirtyOrder> batch) {
+        try {
+            ordersRepository.updateRemainingQuantities(batch.stream().map(dirtyOrder -> dirtyOrder.orderEntity).collect(Collectors.toList()));
+        } catch (RuntimeException exception) {
+            log.error("Failed to flush {} order fills. Exception {}", batch.size(), exception.getMessage());
+            failedFlushes.incrementAndGet();
+            //Put the fills back unless the order has been filled again meanwhile
+            batch.forEach(dirtyOrder -> dirtyOrders.putIfAbsent(dirtyOrder.orderEntity.getOrderId(), dirtyOrder));
+            return false;
+        }
+        long oldestMarkNanos = batch.stream().mapToLong(dirtyOrder -> dirtyOrder.markedAtNanos).min().getAsLong();
+        long lagMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldestMarkNanos);
+        lastFlushLagMillis = lagMillis;
+        maxFlushLagMillis.accumulateAndGet(lagMillis, Math::max);
+        flushes.incrementAndGet();
+        flushedOrders.addAndGet(batch.size());
+        log.debug("Flushed {} order fills with a lag of {} ms", batch.size(), lagMillis);
+        return true;
+    }
+
+    @Override
+    public void start() {
+        isRunning = true;
+        writer.start();
+        log.info("Started fill writer with durability {}", durability);
+    }
+
+    @Override
+    public void stop() {
+        isRunning = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    @Override
+    public int getPhase() {
+        //Start before and stop after the services marking fills
+        return SmartLifecycle.DEFAULT_PHASE - 2;
+    }
+
+    private static final class DirtyOrder {
+
+        private final OrderEntity orderEntity;
+
+        private final long markedAtNanos;
+
+        DirtyOrder(OrderEntity orderEntity, long markedAtNanos) {
+            this.orderEntity = orderEntity;
+            this.markedAtNanos = markedAtNanos;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.orderManagement.persistence;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Hands out ids from blocks reserved on a database sequence, for rows inserted without Hibernate.
+ * Uses the same pooled-lo scheme as Hibernate: a sequence value reserves itself and the size - 1 ids following it,
+ * so ids handed out here and by Hibernate from the same sequence never collide. That only holds while the block size
+ * is the increment of the sequence, which {@link #checkIncrement()} verifies against the database.
+ */
+final class IdBlock {
+
+    private final String sequenceName;
+
+    private final LongSupplier nextBlock;
+
+    private final LongSupplier increment;
+
+    private final int size;
+
+    private long next;
+
+    private long end;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    IdBlock(String sequenceName, LongSupplier nextBlock, LongSupplier increment, int size) {
+        this.sequenceName = sequenceName;
+        this.nextBlock = nextBlock;
+        this.increment = increment;
+        this.size = size;
+    }
+
+    /**
+     * Compares the block size with the increment the sequence actually has. Hibernate adopts the increment found in
+     * the database, so a block larger than it would overlap the ids Hibernate hands out.
+     *
+     * @throws IllegalStateException if the sequence increments by another amount than the block size.
+     */
+    void checkIncrement() {
+        long actualIncrement = increment.getAsLong();
+        if (actualIncrement != size) {
+            throw new IllegalStateException("Sequence " + sequenceName + " increments by " + actualIncrement
+                    + " but app.ids.allocation-size is " + size);
+        }
+    }
+
+    long next() {
+        lock.lock();
+        try {
+            if (next == end) {
+                next = nextBlock.getAsLong();
+                end = next + size;
+            }
+            return next++;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.orderManagement.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file written through a memory mapping that is grown by remapping whenever a write would not fit.
+ */
+final class MappedFile implements Closeable {
+
+    private final FileChannel channel;
+
+    private MappedByteBuffer buffer;
+
+    MappedFile(Path path, long initialCapacity) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(initialCapacity, channel.size()));
+    }
+
+    MappedByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Makes sure the given number of bytes can be written at the current position.
+     */
+    void ensureCapacity(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        int position = buffer.position();
+        long capacity = Math.max((long) buffer.capacity() * 2, (long) position + bytes);
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException("Mapped file can not grow beyond 2 GB");
+        }
+        buffer.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        buffer.position(position);
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Cuts the file at the current position, dropping the unused part of the mapping.
+     */
+    void truncate() throws IOException {
+        buffer.force();
+        channel.truncate(buffer.position());
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+}
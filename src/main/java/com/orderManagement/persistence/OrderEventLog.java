@@ -0,0 +1,386 @@
+package com.orderManagement.persistence;
+
+import com.orderManagement.entity.OrderEntity;
+import com.orderManagement.entity.OrderEventEntity;
+import com.orderManagement.model.OrderEventType;
+import com.orderManagement.repository.OrderEventRepository;
+import com.orderManagement.repository.OrdersRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Persists orders as an append-only log of events instead of updating their rows in place.
+ * Every event is inserted into ORDER_EVENTS with the whole state of the order, within the transaction of the change.
+ * Once that transaction commits, a background thread applies the latest event of each order to ORDERS in batches,
+ * which keeps ORDERS as a view for the queries and hydration reading it, and moves a checkpoint past the applied events.
+ * On startup, events recorded after the checkpoint are applied again, so the view catches up after a crash.
+ * The bean only exists when {@code app.orders.event-sourcing.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.orders.event-sourcing.enabled", havingValue = "true")
+@Slf4j
+public class OrderEventLog implements SmartLifecycle, Runnable {
+
+    private final OrderEventRepository orderEventRepository;
+
+    private final OrdersRepository ordersRepository;
+
+    private final int batchSize;
+
+    private final long materializeIntervalNanos;
+
+    private final long awaitTimeoutMillis;
+
+    private final IdBlock orderIds;
+
+    private final IdBlock eventIds;
+
+    private final ConcurrentHashMap<Long, OrderEventEntity> unmaterializedEvents = new ConcurrentHashMap<>();
+
+    private final ConcurrentSkipListSet<Long> pendingEventIds = new ConcurrentSkipListSet<>();
+
+    private final ReentrantLock allocationLock = new ReentrantLock();
+
+    private long highestEventId;
+
+    private volatile long checkpoint;
+
+    private final ReentrantLock materializedLock = new ReentrantLock();
+
+    private final Condition materialized = materializedLock.newCondition();
+
+    private final Thread materializer;
+
+    private volatile boolean isRunning;
+
+    public OrderEventLog(OrderEventRepository orderEventRepository, OrdersRepository ordersRepository,
+                         @Value("${app.ids.allocation-size:50}") int allocationSize,
+                         @Value("${app.orders.event-sourcing.batch-size:500}") int batchSize,
+                         @Value("${app.orders.event-sourcing.materialize-interval-ms:50}") long materializeIntervalMillis,
+                         @Value("${app.orders.event-sourcing.await-timeout-ms:5000}") long awaitTimeoutMillis) {
+        if (allocationSize < 1 || batchSize < 1 || materializeIntervalMillis < 1 || awaitTimeoutMillis < 1) {
+            throw new IllegalArgumentException("Order event log allocation size, batch size, materialize interval and await timeout must be positive");
+        }
+        this.orderEventRepository = orderEventRepository;
+        this.ordersRepository = ordersRepository;
+        this.batchSize = batchSize;
+        this.materializeIntervalNanos = TimeUnit.MILLISECONDS.toNanos(materializeIntervalMillis);
+        this.awaitTimeoutMillis = awaitTimeoutMillis;
+        this.orderIds = new IdBlock("ORDERS_SEQ", orderEventRepository::nextOrderIdBlock,
+                orderEventRepository::findOrderIdIncrement, allocationSize);
+        this.eventIds = new IdBlock("ORDER_EVENTS_SEQ", orderEventRepository::nextEventIdBlock,
+                orderEventRepository::findEventIdIncrement, allocationSize);
+        this.materializer = new Thread(this, "order-event-materializer");
+        this.materializer.setDaemon(true);
+    }
+
+    /**
+     * Hands out the id of a new order. Orders are no longer inserted through Hibernate, which used to assign it.
+     *
+     * @return The order id.
+     */
+    public long nextOrderId() {
+        return orderIds.next();
+    }
+
+    /**
+     * Records an event of an order.
+     *
+     * @param eventType   The type of the event.
+     * @param orderEntity The order once the event is applied.
+     */
+    public void append(OrderEventType eventType, OrderEntity orderEntity) {
+        appendAll(eventType, Collections.singletonList(orderEntity));
+    }
+
+    /**
+     * Records an event of the same type for several orders with one JDBC batch.
+     * Inside a transaction, the orders are only applied to ORDERS once it commits.
+     *
+     * @param eventType     The type of the events.
+     * @param orderEntities The orders once the event is applied.
+     */
+    public void appendAll(OrderEventType eventType, List<OrderEntity> orderEntities) {
+        LocalDateTime eventTime = LocalDateTime.now();
+        List<OrderEventEntity> orderEvents = new ArrayList<>(orderEntities.size());
+        allocationLock.lock();
+        try {
+            //Ids are pending before the checkpoint can see them, so it never moves past an uncommitted event
+            for (OrderEntity orderEntity : orderEntities) {
+                long eventId = eventIds.next();
+                highestEventId = Math.max(highestEventId, eventId);
+                pendingEventIds.add(eventId);
+                orderEvents.add(OrderEventEntity.of(eventId, eventType, orderEntity, eventTime));
+            }
+        }
+        finally {
+            allocationLock.unlock();
+        }
+        try {
+            orderEventRepository.insertAll(orderEvents);
+        } catch (RuntimeException exception) {
+            orderEvents.forEach(orderEvent -> pendingEventIds.remove(orderEvent.getEventId()));
+            throw exception;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            orderEvents.forEach(this::markUnmaterialized);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                    orderEvents.forEach(OrderEventLog.this::markUnmaterialized);
+                } else {
+                    orderEvents.forEach(orderEvent -> pendingEventIds.remove(orderEvent.getEventId()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes the latest committed state of one order to ORDERS right away, typically before the row is read back.
+     * The event stays queued, the materializer writes it again and moves the checkpoint past it.
+     *
+     * @param orderId id of the order.
+     */
+    public void flushOrder(Long orderId) {
+        OrderEventEntity orderEvent = unmaterializedEvents.get(orderId);
+        if (orderEvent != null) {
+            ordersRepository.mergeAll(Collections.singletonList(orderEvent.toOrderEntity()));
+        }
+    }
+
+    /**
+     * Blocks until every event recorded before the call has been applied to ORDERS.
+     *
+     * @throws IllegalStateException if the events could not be applied within the await timeout.
+     */
+    public void awaitMaterialized() {
+        long target;
+        allocationLock.lock();
+        try {
+            target = highestEventId;
+        }
+        finally {
+            allocationLock.unlock();
+        }
+        if (checkpoint >= target) {
+            return;
+        }
+        LockSupport.unpark(materializer);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(awaitTimeoutMillis);
+        materializedLock.lock();
+        try {
+            while (checkpoint < target) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    throw new IllegalStateException("Order events were not applied within " + awaitTimeoutMillis + " ms");
+                }
+                try {
+                    materialized.await(remainingMillis, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for order events to be applied");
+                }
+            }
+        }
+        finally {
+            materializedLock.unlock();
+        }
+    }
+
+    /**
+     * Rebuilds an order as it was at a given time from its events.
+     *
+     * @param orderId id of the order.
+     * @param asOf    The time to rebuild the order at.
+     * @return The order as of that time, or empty if it did not exist yet.
+     */
+    public Optional<OrderEntity> findAsOf(Long orderId, LocalDateTime asOf) {
+        return orderEventRepository.findFirstByOrderIdAndEventTimeLessThanEqualOrderByEventIdDesc(orderId, asOf)
+                .map(OrderEventEntity::toOrderEntity);
+    }
+
+    /**
+     * @return The number of orders whose latest event is not applied to ORDERS yet.
+     */
+    public int getUnmaterializedOrders() {
+        return unmaterializedEvents.size();
+    }
+
+    private void markUnmaterialized(OrderEventEntity orderEvent) {
+        //Keep the latest event of an order, the ids of the ones it supersedes no longer hold the checkpoint back
+        unmaterializedEvents.compute(orderEvent.getOrderId(), (orderId, current) -> {
+            if (current == null || current.getEventId() < orderEvent.getEventId()) {
+                if (current != null) {
+                    pendingEventIds.remove(current.getEventId());
+                }
+                return orderEvent;
+            }
+            pendingEventIds.remove(orderEvent.getEventId());
+            return current;
+        });
+        if (unmaterializedEvents.size() >= batchSize) {
+            LockSupport.unpark(materializer);
+        }
+    }
+
+    @Override
+    public void run() {
+        while (isRunning) {
+            if (unmaterializedEvents.size() < batchSize) {
+                LockSupport.parkNanos(this, materializeIntervalNanos);
+            }
+            materialize();
+        }
+        //Drain what is left once the services have stopped
+        materialize();
+    }
+
+    void materialize() {
+        List<OrderEventEntity> batch = new ArrayList<>(batchSize);
+        for (Long orderId : unmaterializedEvents.keySet()) {
+            OrderEventEntity orderEvent = unmaterializedEvents.remove(orderId);
+            if (orderEvent == null) {
+                continue;
+            }
+            batch.add(orderEvent);
+            if (batch.size() == batchSize) {
+                if (!writeBatch(batch)) {
+                    return;
+                }
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty() && !writeBatch(batch)) {
+            return;
+        }
+        advanceCheckpoint();
+    }
+
+    private boolean writeBatch(List<OrderEventEntity> batch) {
+        try {
+            ordersRepository.mergeAll(batch.stream().map(OrderEventEntity::toOrderEntity).collect(Collectors.toList()));
+        } catch (RuntimeException exception) {
+            log.error("Failed to apply {} order events. Exception {}", batch.size(), exception.getMessage());
+            //Put the events back unless the order has changed again meanwhile
+            batch.forEach(this::markUnmaterialized);
+            return false;
+        }
+        batch.forEach(orderEvent -> pendingEventIds.remove(orderEvent.getEventId()));
+        log.debug("Applied {} order events", batch.size());
+        return true;
+    }
+
+    private void advanceCheckpoint() {
+        long applied;
+        allocationLock.lock();
+        try {
+            Long oldestPending = pendingEventIds.isEmpty() ? null : pendingEventIds.first();
+            applied = oldestPending == null ? highestEventId : oldestPending - 1;
+        }
+        finally {
+            allocationLock.unlock();
+        }
+        if (applied <= checkpoint) {
+            return;
+        }
+        try {
+            orderEventRepository.updateCheckpoint(applied);
+        } catch (RuntimeException exception) {
+            log.error("Failed to move the order event checkpoint to {}. Exception {}", applied, exception.getMessage());
+            return;
+        }
+        materializedLock.lock();
+        try {
+            checkpoint = applied;
+            materialized.signalAll();
+        }
+        finally {
+            materializedLock.unlock();
+        }
+    }
+
+    private void recover() {
+        checkpoint = orderEventRepository.findCheckpoint();
+        //Only the latest event of an order matters, the ones before it are overwritten anyway
+        Map<Long, OrderEventEntity> latestEvents = new LinkedHashMap<>();
+        long lastEventId = checkpoint;
+        List<OrderEventEntity> page;
+        do {
+            page = orderEventRepository.findByEventIdGreaterThanOrderByEventId(lastEventId, PageRequest.of(0, batchSize));
+            for (OrderEventEntity orderEvent : page) {
+                latestEvents.put(orderEvent.getOrderId(), orderEvent);
+                lastEventId = orderEvent.getEventId();
+            }
+        } while (page.size() == batchSize);
+        List<OrderEntity> orders = latestEvents.values()
+                .stream()
+                .map(OrderEventEntity::toOrderEntity)
+                .collect(Collectors.toList());
+        for (int from = 0; from < orders.size(); from += batchSize) {
+            ordersRepository.mergeAll(orders.subList(from, Math.min(from + batchSize, orders.size())));
+        }
+        if (lastEventId > checkpoint) {
+            orderEventRepository.updateCheckpoint(lastEventId);
+            log.info("Applied the events of {} orders recorded after checkpoint {}", orders.size(), checkpoint);
+            checkpoint = lastEventId;
+        }
+        allocationLock.lock();
+        try {
+            highestEventId = checkpoint;
+        }
+        finally {
+            allocationLock.unlock();
+        }
+    }
+
+    @Override
+    public void start() {
+        orderIds.checkIncrement();
+        eventIds.checkIncrement();
+        recover();
+        isRunning = true;
+        materializer.start();
+        log.info("Started order event log at checkpoint {}", checkpoint);
+    }
+
+    @Override
+    public void stop() {
+        isRunning = false;
+        LockSupport.unpark(materializer);
+        try {
+            materializer.join();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    @Override
+    public int getPhase() {
+        //Start before and stop after the services appending events, ORDERS is caught up before they read it
+        return SmartLifecycle.DEFAULT_PHASE - 2;
+    }
+}
@@ -0,0 +1,83 @@
+package com.orderManagement.persistence;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Splits the datasource into a primary pool for writes and a read replica pool for read-only transactions.
+ * The replica pool connects as the read-only user, to the replica URL when one is set and to the primary database
+ * otherwise, so reporting queries stop taking connections from order entry either way.
+ * The beans only exist when {@code app.datasource.read-replica.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.read-replica.enabled", havingValue = "true")
+public class ReadReplicaConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.read-replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${app.datasource.read-replica.url:}") String url,
+                                              @Value("${app.datasource.read-replica.username:test_ro}") String username,
+                                              @Value("${app.datasource.read-replica.password:}") String password) {
+        return DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url.isEmpty() ? properties.determineUrl() : url)
+                .username(username)
+                .password(password)
+                .build();
+    }
+
+    @Bean
+    public ReadReplicaRoutingDataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                                          @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        return new ReadReplicaRoutingDataSource(primaryDataSource, replicaDataSource);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadReplicaRoutingDataSource routingDataSource) {
+        //The transaction is only flagged read-only after it has asked for a connection, the pool is picked on first use
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * Applies the migrations to the replica as well, for a replica that is a separate local database rather than
+     * a copy kept up to date by the database itself.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.datasource.read-replica.migrate", havingValue = "true")
+    public FlywayMigrationStrategy replicaMigrationStrategy(@Value("${app.datasource.read-replica.url}") String url,
+                                                            @Value("${spring.flyway.user}") String user,
+                                                            @Value("${spring.flyway.password:}") String password) {
+        return flyway -> {
+            flyway.migrate();
+            Flyway.configure()
+                    .configuration(flyway.getConfiguration())
+                    .dataSource(url, user, password)
+                    .load()
+                    .migrate();
+        };
+    }
+}
@@ -0,0 +1,58 @@
+package com.orderManagement.persistence;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hands out connections of the read replica to read-only transactions and of the primary to everything else.
+ * Replica reads only begin once every other bean has started, so the state services hold in memory is always
+ * loaded from the primary and never from a replica lagging behind it.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource implements SmartLifecycle {
+
+    enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private volatile boolean isRunning;
+
+    public ReadReplicaRoutingDataSource(DataSource primaryDataSource, DataSource replicaDataSource) {
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        targetDataSources.put(Route.PRIMARY, primaryDataSource);
+        targetDataSources.put(Route.REPLICA, replicaDataSource);
+        setTargetDataSources(targetDataSources);
+        setDefaultTargetDataSource(primaryDataSource);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return isRunning && TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Route.REPLICA : Route.PRIMARY;
+    }
+
+    @Override
+    public void start() {
+        isRunning = true;
+    }
+
+    @Override
+    public void stop() {
+        isRunning = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    @Override
+    public int getPhase() {
+        //Start after and stop before the services loading their state
+        return Integer.MAX_VALUE;
+    }
+}
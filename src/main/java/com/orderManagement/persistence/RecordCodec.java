@@ -0,0 +1,17 @@
+package com.orderManagement.persistence;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes and reads one record of a {@link SnapshotLog} in a compact binary form.
+ *
+ * @param <T> The type of the records.
+ */
+public interface RecordCodec<T> {
+
+    void write(T record, DataOutput out) throws IOException;
+
+    T read(DataInput in) throws IOException;
+}
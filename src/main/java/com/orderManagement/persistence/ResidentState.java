@@ -0,0 +1,27 @@
+package com.orderManagement.persistence;
+
+/**
+ * In-memory state of a service that {@link BookResidency} loads and evicts one book at a time.
+ */
+public interface ResidentState {
+
+    /**
+     * Loads the state of a book from the database.
+     *
+     * @param bookName The name of the book.
+     */
+    void load(String bookName);
+
+    /**
+     * @param bookName The name of the book.
+     * @return The number of rows of the book currently held in memory.
+     */
+    long size(String bookName);
+
+    /**
+     * Drops the state of a book from memory. Nothing of the book may be lost, pending writes have to be flushed first.
+     *
+     * @param bookName The name of the book.
+     */
+    void evict(String bookName);
+}
@@ -0,0 +1,377 @@
+package com.orderManagement.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of one kind of in-memory state followed by an append-only journal of the mutations made since.
+ * Both files are written through memory mappings. Every record is framed with its length and a checksum, so a
+ * journal cut short by a crash is read up to its last complete record. The journal carries a generation: writing
+ * a snapshot absorbs the current generation and starts the next one, so a journal older than the snapshot is
+ * never replayed on top of it.
+ *
+ * @param <T> The type of the records.
+ */
+@Slf4j
+public class SnapshotLog<T> {
+
+    private static final int SNAPSHOT_MAGIC = 0x534E4150;
+
+    private static final int JOURNAL_MAGIC = 0x4A524E4C;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int JOURNAL_HEADER_BYTES = 4 + 8;
+
+    private static final int FRAME_HEADER_BYTES = 4 + 4;
+
+    private final String name;
+
+    private final Path snapshotPath;
+
+    private final Path journalPath;
+
+    private final RecordCodec<T> codec;
+
+    private final long journalInitialCapacity;
+
+    private final ByteArrayOutputStream scratch = new ByteArrayOutputStream(256);
+
+    private MappedFile journal;
+
+    private long generation;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * The outcome of a restore.
+     *
+     * @param <T> The type of the records.
+     */
+    public static final class Restored<T> {
+
+        private final List<T> records;
+
+        private final long highWaterMark;
+
+        Restored(List<T> records, long highWaterMark) {
+            this.records = records;
+            this.highWaterMark = highWaterMark;
+        }
+
+        /**
+         * @return The snapshot records followed by the journal records, in the order they were written.
+         */
+        public List<T> getRecords() {
+            return records;
+        }
+
+        /**
+         * @return The high-water mark stored with the snapshot.
+         */
+        public long getHighWaterMark() {
+            return highWaterMark;
+        }
+    }
+
+    SnapshotLog(Path directory, String name, RecordCodec<T> codec, long journalInitialCapacity) {
+        this.name = name;
+        this.snapshotPath = directory.resolve(name + ".snapshot");
+        this.journalPath = directory.resolve(name + ".journal");
+        this.codec = codec;
+        this.journalInitialCapacity = journalInitialCapacity;
+    }
+
+    /**
+     * Reads the snapshot and the journal written after it.
+     *
+     * @return The restored records, empty if there is no readable snapshot.
+     */
+    public Optional<Restored<T>> restore() {
+        lock.lock();
+        try {
+            if (!Files.exists(snapshotPath)) {
+                return Optional.empty();
+            }
+            try {
+                List<T> records = new ArrayList<>();
+                long snapshotGeneration;
+                long highWaterMark;
+                try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                    if (buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                        log.warn("Ignoring {} snapshot with an unknown format", name);
+                        return Optional.empty();
+                    }
+                    snapshotGeneration = buffer.getLong();
+                    highWaterMark = buffer.getLong();
+                    int count = buffer.getInt();
+                    for (int i = 0; i < count; i++) {
+                        T record = readFrame(buffer);
+                        if (record == null) {
+                            log.warn("Ignoring {} snapshot, record {} of {} is damaged", name, i, count);
+                            return Optional.empty();
+                        }
+                        records.add(record);
+                    }
+                }
+                int snapshotRecords = records.size();
+                if (Files.exists(journalPath)) {
+                    try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.READ)) {
+                        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                        if (buffer.remaining() >= JOURNAL_HEADER_BYTES && buffer.getInt() == JOURNAL_MAGIC
+                                && buffer.getLong() > snapshotGeneration) {
+                            T record;
+                            while ((record = readFrame(buffer)) != null) {
+                                records.add(record);
+                            }
+                        }
+                    }
+                }
+                log.info("Read {} {} from the snapshot and {} from the journal", snapshotRecords, name, records.size() - snapshotRecords);
+                return Optional.of(new Restored<>(records, highWaterMark));
+            } catch (IOException | RuntimeException exception) {
+                log.warn("Could not read the {} snapshot. Exception {}", name, exception.getMessage());
+                return Optional.empty();
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts journaling mutations.
+     *
+     * @param isRestored True if the state was restored from this log, the journal then continues where it stopped.
+     *                   Otherwise the snapshot no longer matches the state and is dropped.
+     */
+    public void begin(boolean isRestored) {
+        lock.lock();
+        try {
+            try {
+                long snapshotGeneration = readSnapshotGeneration();
+                if (!isRestored) {
+                    Files.deleteIfExists(snapshotPath);
+                }
+                long journalGeneration = readJournalGeneration();
+                if (isRestored && journalGeneration > snapshotGeneration) {
+                    openJournalAtTail(journalGeneration);
+                } else {
+                    resetJournal(Math.max(snapshotGeneration, journalGeneration) + 1);
+                }
+            } catch (IOException exception) {
+                log.error("Could not open the {} journal, restarts will load from the database. Exception {}", name, exception.getMessage());
+                journal = null;
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends a mutation to the journal. A journal that can not be written is dropped together with the snapshot,
+     * so that a restart falls back to the database instead of restoring stale state.
+     *
+     * @param record The record holding the state after the mutation.
+     */
+    public void append(T record) {
+        lock.lock();
+        try {
+            if (journal == null) {
+                return;
+            }
+            try {
+                byte[] bytes = encode(record);
+                journal.ensureCapacity(FRAME_HEADER_BYTES + bytes.length + 4);
+                writeFrame(journal.buffer(), bytes);
+                //Mark the end of the journal, a reused file may hold records of an older generation past this point
+                journal.buffer().putInt(journal.buffer().position(), 0);
+            } catch (IOException | RuntimeException exception) {
+                log.error("Could not append to the {} journal, restarts will load from the database. Exception {}", name, exception.getMessage());
+                discard();
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes a snapshot of the full state and starts a new, empty journal generation.
+     *
+     * @param records       Every record of the state.
+     * @param highWaterMark The highest id ever handed out for this state, checked against the database on restore.
+     */
+    public void writeSnapshot(Collection<T> records, long highWaterMark) {
+        lock.lock();
+        try {
+            Path temporaryPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+            long snapshotGeneration = Math.max(generation, readJournalGeneration());
+            try {
+                Files.deleteIfExists(temporaryPath);
+                try (MappedFile snapshot = new MappedFile(temporaryPath, 4096 + (long) records.size() * 64)) {
+                    ByteBuffer buffer = snapshot.buffer();
+                    buffer.putInt(SNAPSHOT_MAGIC);
+                    buffer.putInt(FORMAT_VERSION);
+                    buffer.putLong(snapshotGeneration);
+                    buffer.putLong(highWaterMark);
+                    buffer.putInt(records.size());
+                    for (T record : records) {
+                        byte[] bytes = encode(record);
+                        snapshot.ensureCapacity(FRAME_HEADER_BYTES + bytes.length);
+                        writeFrame(snapshot.buffer(), bytes);
+                    }
+                    snapshot.truncate();
+                }
+                Files.move(temporaryPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                resetJournal(snapshotGeneration + 1);
+                log.info("Wrote a snapshot of {} {}", records.size(), name);
+            } catch (IOException | RuntimeException exception) {
+                log.error("Could not write the {} snapshot, the next start will load from the database. Exception {}", name, exception.getMessage());
+                discard();
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops journaling and releases the journal file.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            if (journal == null) {
+                return;
+            }
+            try {
+                journal.close();
+            } catch (IOException exception) {
+                log.warn("Could not close the {} journal. Exception {}", name, exception.getMessage());
+            }
+            journal = null;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private void discard() {
+        close();
+        try {
+            Files.deleteIfExists(snapshotPath);
+            Files.deleteIfExists(journalPath);
+        } catch (IOException exception) {
+            log.error("Could not delete the {} snapshot. Exception {}", name, exception.getMessage());
+        }
+    }
+
+    private void resetJournal(long newGeneration) throws IOException {
+        close();
+        Files.deleteIfExists(journalPath);
+        journal = new MappedFile(journalPath, journalInitialCapacity);
+        journal.buffer().putInt(JOURNAL_MAGIC);
+        journal.buffer().putLong(newGeneration);
+        journal.buffer().putInt(journal.buffer().position(), 0);
+        journal.force();
+        generation = newGeneration;
+    }
+
+    private void openJournalAtTail(long journalGeneration) throws IOException {
+        close();
+        journal = new MappedFile(journalPath, journalInitialCapacity);
+        MappedByteBuffer buffer = journal.buffer();
+        buffer.position(JOURNAL_HEADER_BYTES);
+        int tail = buffer.position();
+        while (readFrame(buffer) != null) {
+            tail = buffer.position();
+        }
+        buffer.position(tail);
+        buffer.putInt(tail, 0);
+        generation = journalGeneration;
+    }
+
+    private long readSnapshotGeneration() {
+        return readLongAt(snapshotPath, SNAPSHOT_MAGIC, 8);
+    }
+
+    private long readJournalGeneration() {
+        if (journal != null) {
+            return generation;
+        }
+        return readLongAt(journalPath, JOURNAL_MAGIC, 4);
+    }
+
+    private long readLongAt(Path path, int magic, int offset) {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(offset + 8);
+            if (channel.read(header, 0) < header.capacity() || header.getInt(0) != magic) {
+                return 0;
+            }
+            return header.getLong(offset);
+        } catch (IOException exception) {
+            return 0;
+        }
+    }
+
+    private byte[] encode(T record) throws IOException {
+        scratch.reset();
+        codec.write(record, new DataOutputStream(scratch));
+        return scratch.toByteArray();
+    }
+
+    private static void writeFrame(ByteBuffer buffer, byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        buffer.putInt(bytes.length);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(bytes);
+    }
+
+    /**
+     * Reads the record at the current position.
+     *
+     * @return The record, or {@code null} at the end of the records or at a damaged record.
+     */
+    private T readFrame(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < FRAME_HEADER_BYTES) {
+            return null;
+        }
+        int start = buffer.position();
+        int length = buffer.getInt();
+        int checksum = buffer.getInt();
+        if (length <= 0 || length > buffer.remaining()) {
+            buffer.position(start);
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        if ((int) crc.getValue() != checksum) {
+            buffer.position(start);
+            return null;
+        }
+        return codec.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+}
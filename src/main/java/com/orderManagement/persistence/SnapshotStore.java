@@ -0,0 +1,49 @@
+package com.orderManagement.persistence;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Hands out the {@link SnapshotLog} of each kind of in-memory state, all kept in the same directory.
+ * The bean only exists when {@code app.snapshot.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.snapshot.enabled", havingValue = "true")
+public class SnapshotStore {
+
+    private final Path directory;
+
+    private final long journalInitialCapacity;
+
+    public SnapshotStore(@Value("${app.snapshot.directory:snapshots}") String directory,
+                         @Value("${app.snapshot.journal-initial-size-mb:16}") long journalInitialSizeMb) {
+        if (journalInitialSizeMb < 1) {
+            throw new IllegalArgumentException("Journal size must be positive, got " + journalInitialSizeMb);
+        }
+        this.directory = Paths.get(directory);
+        this.journalInitialCapacity = journalInitialSizeMb * 1024 * 1024;
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Could not create snapshot directory " + directory, exception);
+        }
+    }
+
+    /**
+     * Opens the snapshot and journal of a kind of state.
+     *
+     * @param name  The name of the state, used as file name.
+     * @param codec Writes and reads the records of the state.
+     * @return The snapshot log of the state.
+     */
+    public <T> SnapshotLog<T> open(String name, RecordCodec<T> codec) {
+        return new SnapshotLog<>(directory, name, codec, journalInitialCapacity);
+    }
+}
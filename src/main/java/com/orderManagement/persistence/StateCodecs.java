@@ -0,0 +1,100 @@
+package com.orderManagement.persistence;
+
+import com.orderManagement.entity.ExecutionEntity;
+import com.orderManagement.entity.OrderEntity;
+import com.orderManagement.model.Book;
+import com.orderManagement.model.ExecutionType;
+import com.orderManagement.model.OrderType;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Binary record layouts of the state kept in snapshots and journals.
+ */
+public final class StateCodecs {
+
+    private StateCodecs() {
+    }
+
+    public static final RecordCodec<Book> BOOKS = new RecordCodec<>() {
+        @Override
+        public void write(Book book, DataOutput out) throws IOException {
+            out.writeUTF(book.getBookName());
+            out.writeBoolean(book.isClosed());
+        }
+
+        @Override
+        public Book read(DataInput in) throws IOException {
+            Book book = new Book();
+            book.setBookName(in.readUTF());
+            book.setClosed(in.readBoolean());
+            return book;
+        }
+    };
+
+    public static final RecordCodec<OrderEntity> ORDERS = new RecordCodec<>() {
+        @Override
+        public void write(OrderEntity order, DataOutput out) throws IOException {
+            out.writeLong(order.getOrderId());
+            out.writeUTF(order.getBookName());
+            out.writeInt(order.getInstrumentId());
+            out.writeInt(order.getQuantity());
+            out.writeInt(order.getRemainingQuantity());
+            out.writeLong(order.getEntryDate().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(order.getEntryDate().getNano());
+            out.writeBoolean(order.isActive());
+            out.writeByte(order.getType().getCode());
+            out.writeDouble(order.getPrice());
+            out.writeBoolean(order.getPreviousOrderId() != null);
+            if (order.getPreviousOrderId() != null) {
+                out.writeLong(order.getPreviousOrderId());
+            }
+        }
+
+        @Override
+        public OrderEntity read(DataInput in) throws IOException {
+            OrderEntity order = new OrderEntity();
+            order.setOrderId(in.readLong());
+            order.setBookName(in.readUTF());
+            order.setInstrumentId(in.readInt());
+            order.setQuantity(in.readInt());
+            order.setRemainingQuantity(in.readInt());
+            order.setEntryDate(LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC));
+            order.setActive(in.readBoolean());
+            order.setType(OrderType.fromCode(in.readByte()));
+            order.setPrice(in.readDouble());
+            if (in.readBoolean()) {
+                order.setPreviousOrderId(in.readLong());
+            }
+            return order;
+        }
+    };
+
+    public static final RecordCodec<ExecutionEntity> EXECUTIONS = new RecordCodec<>() {
+        @Override
+        public void write(ExecutionEntity execution, DataOutput out) throws IOException {
+            out.writeLong(execution.getExecutionId());
+            out.writeUTF(execution.getBookName());
+            out.writeInt(execution.getInstrumentId());
+            out.writeInt(execution.getQuantity());
+            out.writeByte(execution.getType().getCode());
+            out.writeDouble(execution.getPrice());
+        }
+
+        @Override
+        public ExecutionEntity read(DataInput in) throws IOException {
+            ExecutionEntity execution = new ExecutionEntity();
+            execution.setExecutionId(in.readLong());
+            execution.setBookName(in.readUTF());
+            execution.setInstrumentId(in.readInt());
+            execution.setQuantity(in.readInt());
+            execution.setType(ExecutionType.fromCode(in.readByte()));
+            execution.setPrice(in.readDouble());
+            return execution;
+        }
+    };
+}
@@ -0,0 +1,40 @@
+package com.orderManagement.repository;
+
+import com.orderManagement.entity.ExecutionEntity;
+import com.orderManagement.entity.OrderEntity;
+import com.orderManagement.model.BookArchive;
+
+import java.util.List;
+
+/**
+ * Repository fragment moving the orders and executions of finished books out of the hot tables
+ * into ARCHIVED_ORDERS and ARCHIVED_EXECUTIONS, and reading them back from there.
+ */
+public interface BookArchiveRepository {
+
+    /**
+     * Copies the orders and executions of a book into the archive tables and deletes them from the hot tables,
+     * all in one transaction.
+     *
+     * @param bookName The name of the book.
+     * @return The number of orders and executions archived.
+     */
+    BookArchive archiveBook(String bookName);
+
+    /**
+     * @return The names of the books having orders or executions in the archive tables.
+     */
+    List<String> findArchivedBookNames();
+
+    /**
+     * @param bookName The name of the book.
+     * @return The archived orders of the book, in order id order.
+     */
+    List<OrderEntity> findArchivedOrdersOfBook(String bookName);
+
+    /**
+     * @param bookName The name of the book.
+     * @return The archived executions of the book, in execution id order.
+     */
+    List<ExecutionEntity> findArchivedExecutionsOfBook(String bookName);
+}
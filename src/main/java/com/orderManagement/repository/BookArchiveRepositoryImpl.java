@@ -0,0 +1,116 @@
+package com.orderManagement.repository;
+
+import com.orderManagement.entity.ExecutionEntity;
+import com.orderManagement.entity.OrderEntity;
+import com.orderManagement.model.BookArchive;
+import com.orderManagement.model.ExecutionType;
+import com.orderManagement.model.OrderType;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Implements {@link BookArchiveRepository} with {@link JdbcTemplate}.
+ * Rows are moved with INSERT ... SELECT followed by DELETE, so they never travel through the application.
+ * The DELETE only removes rows found in the archive tables, a row committed between the two statements
+ * stays in the hot table instead of being lost.
+ */
+public class BookArchiveRepositoryImpl implements BookArchiveRepository {
+
+    private static final String ORDER_COLUMNS = "ORDER_ID, BOOK_NAME, INSTRUMENT_ID, QUANTITY, REMAINING_QUANTITY, " +
+            "ENTRY_DATE, IS_ACTIVE, TYPE, PRICE_TICKS, PREVIOUS_ORDER_ID";
+
+    private static final String EXECUTION_COLUMNS = "EXECUTION_ID, BOOK_NAME, INSTRUMENT_ID, QUANTITY, TYPE, PRICE_TICKS";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String archiveOrdersSql;
+
+    private final String deleteOrdersSql;
+
+    private final String archiveExecutionsSql;
+
+    private final String deleteExecutionsSql;
+
+    private final String findArchivedBookNamesSql;
+
+    private final String findArchivedOrdersSql;
+
+    private final String findArchivedExecutionsSql;
+
+    public BookArchiveRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                     @Value("${spring.jpa.properties.hibernate.default_schema}") String schema) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.archiveOrdersSql = "INSERT INTO " + schema + ".ARCHIVED_ORDERS (" + ORDER_COLUMNS + ") SELECT " + ORDER_COLUMNS +
+                " FROM " + schema + ".ORDERS WHERE BOOK_NAME = ?";
+        this.deleteOrdersSql = "DELETE FROM " + schema + ".ORDERS WHERE BOOK_NAME = ? AND ORDER_ID IN (SELECT ORDER_ID FROM " +
+                schema + ".ARCHIVED_ORDERS WHERE BOOK_NAME = ?)";
+        this.archiveExecutionsSql = "INSERT INTO " + schema + ".ARCHIVED_EXECUTIONS (" + EXECUTION_COLUMNS + ") SELECT " +
+                EXECUTION_COLUMNS + " FROM " + schema + ".EXECUTIONS WHERE BOOK_NAME = ?";
+        this.deleteExecutionsSql = "DELETE FROM " + schema + ".EXECUTIONS WHERE BOOK_NAME = ? AND EXECUTION_ID IN (SELECT EXECUTION_ID FROM " +
+                schema + ".ARCHIVED_EXECUTIONS WHERE BOOK_NAME = ?)";
+        this.findArchivedBookNamesSql = "SELECT BOOK_NAME FROM " + schema + ".ARCHIVED_ORDERS UNION SELECT BOOK_NAME FROM " +
+                schema + ".ARCHIVED_EXECUTIONS";
+        this.findArchivedOrdersSql = "SELECT " + ORDER_COLUMNS + " FROM " + schema + ".ARCHIVED_ORDERS WHERE BOOK_NAME = ? ORDER BY ORDER_ID";
+        this.findArchivedExecutionsSql = "SELECT " + EXECUTION_COLUMNS + " FROM " + schema +
+                ".ARCHIVED_EXECUTIONS WHERE BOOK_NAME = ? ORDER BY EXECUTION_ID";
+    }
+
+    @Override
+    @Transactional
+    public BookArchive archiveBook(String bookName) {
+        BookArchive bookArchive = new BookArchive();
+        bookArchive.setBookName(bookName);
+        bookArchive.setArchivedOrders(jdbcTemplate.update(archiveOrdersSql, bookName));
+        bookArchive.setArchivedExecutions(jdbcTemplate.update(archiveExecutionsSql, bookName));
+        jdbcTemplate.update(deleteOrdersSql, bookName, bookName);
+        jdbcTemplate.update(deleteExecutionsSql, bookName, bookName);
+        return bookArchive;
+    }
+
+    @Override
+    public List<String> findArchivedBookNames() {
+        return jdbcTemplate.query(findArchivedBookNamesSql, (resultSet, rowNum) -> resultSet.getString(1));
+    }
+
+    @Override
+    public List<OrderEntity> findArchivedOrdersOfBook(String bookName) {
+        return jdbcTemplate.query(findArchivedOrdersSql, (resultSet, rowNum) -> toOrderEntity(resultSet), bookName);
+    }
+
+    @Override
+    public List<ExecutionEntity> findArchivedExecutionsOfBook(String bookName) {
+        return jdbcTemplate.query(findArchivedExecutionsSql, (resultSet, rowNum) -> toExecutionEntity(resultSet), bookName);
+    }
+
+    private OrderEntity toOrderEntity(ResultSet resultSet) throws SQLException {
+        OrderEntity orderEntity = new OrderEntity();
+        orderEntity.setOrderId(resultSet.getLong("ORDER_ID"));
+        orderEntity.setBookName(resultSet.getString("BOOK_NAME"));
+        orderEntity.setInstrumentId(resultSet.getInt("INSTRUMENT_ID"));
+        orderEntity.setQuantity(resultSet.getInt("QUANTITY"));
+        orderEntity.setRemainingQuantity(resultSet.getInt("REMAINING_QUANTITY"));
+        orderEntity.setEntryDate(resultSet.getTimestamp("ENTRY_DATE").toLocalDateTime());
+        orderEntity.setActive(resultSet.getBoolean("IS_ACTIVE"));
+        orderEntity.setType(OrderType.fromCode(resultSet.getInt("TYPE")));
+        orderEntity.setPriceTicks(resultSet.getLong("PRICE_TICKS"));
+        long previousOrderId = resultSet.getLong("PREVIOUS_ORDER_ID");
+        orderEntity.setPreviousOrderId(resultSet.wasNull() ? null : previousOrderId);
+        return orderEntity;
+    }
+
+    private ExecutionEntity toExecutionEntity(ResultSet resultSet) throws SQLException {
+        ExecutionEntity executionEntity = new ExecutionEntity();
+        executionEntity.setExecutionId(resultSet.getLong("EXECUTION_ID"));
+        executionEntity.setBookName(resultSet.getString("BOOK_NAME"));
+        executionEntity.setInstrumentId(resultSet.getInt("INSTRUMENT_ID"));
+        executionEntity.setQuantity(resultSet.getInt("QUANTITY"));
+        executionEntity.setType(ExecutionType.fromCode(resultSet.getInt("TYPE")));
+        executionEntity.setPriceTicks(resultSet.getLong("PRICE_TICKS"));
+        return executionEntity;
+    }
+}
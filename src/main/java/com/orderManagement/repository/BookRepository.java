@@ -11,7 +11,7 @@ import org.springframework.stereotype.Repository;
  * Extends {@link JpaRepository} and uses the {@code @Repository} annotation.
  */
 @Repository
-public interface BookRepository  extends JpaRepository<BookEntity,Long> {
+public interface BookRepository  extends JpaRepository<BookEntity,Long>, BookArchiveRepository {
     /**
      * Retrieve a {@link BookEntity} by its book name.
      *
@@ -0,0 +1,33 @@
+package com.orderManagement.repository;
+
+import com.orderManagement.entity.ExecutionEntity;
+
+import java.util.List;
+
+/**
+ * Repository fragment writing {@link com.orderManagement.entity.ExecutionEntity} rows in JDBC batches.
+ */
+public interface ExecutionBatchRepository {
+
+    /**
+     * Inserts executions in JDBC batches, skipping the ones already stored so that a replay inserts nothing twice.
+     * Execution ids are assigned by the caller.
+     *
+     * @param executions The executions to insert.
+     */
+    void insertAll(List<ExecutionEntity> executions);
+
+    /**
+     * Reserves a block of execution ids, the size of the block is the increment of the execution sequence.
+     *
+     * @return The first id of the block.
+     */
+    long nextExecutionIdBlock();
+
+    /**
+     * Reads the increment of the execution sequence from the database.
+     *
+     * @return The number of execution ids each block reserves.
+     */
+    long findExecutionIdIncrement();
+}
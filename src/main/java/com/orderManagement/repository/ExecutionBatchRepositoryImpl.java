@@ -0,0 +1,68 @@
+package com.orderManagement.repository;
+
+import com.orderManagement.entity.ExecutionEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Implements {@link ExecutionBatchRepository} with {@link JdbcTemplate}.
+ * Executions are inserted with a MERGE that leaves existing rows untouched, as the same execution may be written
+ * again when the execution log is replayed after a crash.
+ */
+public class ExecutionBatchRepositoryImpl implements ExecutionBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String insertSql;
+
+    private final String nextExecutionIdSql;
+
+    private final String findIncrementSql;
+
+    private final String schema;
+
+    private final int batchSize;
+
+    public ExecutionBatchRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                        @Value("${spring.jpa.properties.hibernate.default_schema}") String schema,
+                                        @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.insertSql = "MERGE INTO " + schema + ".EXECUTIONS e USING (SELECT CAST(? AS NUMBER) EXECUTION_ID, " +
+                "CAST(? AS VARCHAR2(100)) BOOK_NAME, CAST(? AS NUMBER) INSTRUMENT_ID, CAST(? AS NUMBER) QUANTITY, " +
+                "CAST(? AS NUMBER(1)) TYPE, CAST(? AS NUMBER(19)) PRICE_TICKS FROM DUAL) s ON (e.EXECUTION_ID = s.EXECUTION_ID) " +
+                "WHEN NOT MATCHED THEN INSERT (EXECUTION_ID, BOOK_NAME, INSTRUMENT_ID, QUANTITY, TYPE, PRICE_TICKS) " +
+                "VALUES (s.EXECUTION_ID, s.BOOK_NAME, s.INSTRUMENT_ID, s.QUANTITY, s.TYPE, s.PRICE_TICKS)";
+        this.nextExecutionIdSql = "SELECT " + schema + ".EXECUTIONS_SEQ.NEXTVAL FROM DUAL";
+        this.findIncrementSql = "SELECT INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_SCHEMA = ? AND SEQUENCE_NAME = ?";
+        this.schema = schema.toUpperCase(Locale.ROOT);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void insertAll(List<ExecutionEntity> executions) {
+        if (executions.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(insertSql, executions, batchSize, (preparedStatement, execution) -> {
+            preparedStatement.setLong(1, execution.getExecutionId());
+            preparedStatement.setString(2, execution.getBookName());
+            preparedStatement.setInt(3, execution.getInstrumentId());
+            preparedStatement.setInt(4, execution.getQuantity());
+            preparedStatement.setInt(5, execution.getType().getCode());
+            preparedStatement.setLong(6, execution.getPriceTicks());
+        });
+    }
+
+    @Override
+    public long nextExecutionIdBlock() {
+        return jdbcTemplate.queryForObject(nextExecutionIdSql, Long.class);
+    }
+
+    @Override
+    public long findExecutionIdIncrement() {
+        return jdbcTemplate.queryForObject(findIncrementSql, Long.class, schema, "EXECUTIONS_SEQ");
+    }
+}
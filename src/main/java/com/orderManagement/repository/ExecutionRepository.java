@@ -1,13 +1,36 @@
 package com.orderManagement.repository;
 
 import com.orderManagement.entity.ExecutionEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * Spring Data JPA repository for managing {@link ExecutionEntity} instances.
- * Extends {@link JpaRepository} and uses the {@code @Repository} annotation.
+ * Extends {@link JpaRepository} for lookups and {@link ExecutionBatchRepository} for batched inserts.
  */
 @Repository
-public interface ExecutionRepository extends JpaRepository<ExecutionEntity,Long> {
+public interface ExecutionRepository extends JpaRepository<ExecutionEntity,Long>, ExecutionBatchRepository {
+
+    @Query("select distinct e.bookName from ExecutionEntity e")
+    List<String> findBookNames();
+
+    /**
+     * @return The highest execution id handed out, or {@code null} if there are no executions.
+     */
+    @Query("select max(e.executionId) from ExecutionEntity e")
+    Long findMaxExecutionId();
+
+    /**
+     * Reads a page of executions of a book in the order they were triggered.
+     *
+     * @param bookName    The name of the book.
+     * @param executionId The id of the last execution of the previous page, 0 for the first page.
+     * @param pageable    The page size.
+     * @return The executions of the book following the given id.
+     */
+    List<ExecutionEntity> findByBookNameAndExecutionIdGreaterThanOrderByExecutionId(String bookName, Long executionId, Pageable pageable);
 }
@@ -0,0 +1,18 @@
+package com.orderManagement.repository;
+
+import com.orderManagement.entity.FillEntity;
+
+import java.util.List;
+
+/**
+ * Repository fragment writing {@link com.orderManagement.entity.FillEntity} rows in JDBC batches.
+ */
+public interface FillBatchRepository {
+
+    /**
+     * Inserts fills in JDBC batches. Generated ids are not read back.
+     *
+     * @param fills The fills to insert.
+     */
+    void insertAll(List<FillEntity> fills);
+}
@@ -0,0 +1,42 @@
+package com.orderManagement.repository;
+
+import com.orderManagement.entity.FillEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Implements {@link FillBatchRepository} with {@link JdbcTemplate}.
+ * Fill ids are generated by an identity column, which keeps Hibernate from batching the inserts,
+ * so rows are sent as plain JDBC batches instead.
+ */
+public class FillBatchRepositoryImpl implements FillBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String insertSql;
+
+    private final int batchSize;
+
+    public FillBatchRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                   @Value("${spring.jpa.properties.hibernate.default_schema}") String schema,
+                                   @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.insertSql = "INSERT INTO " + schema + ".FILLS (EXECUTION_ID, ORDER_ID, QUANTITY, PRICE_TICKS) VALUES (?, ?, ?, ?)";
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void insertAll(List<FillEntity> fills) {
+        if (fills.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(insertSql, fills, batchSize, (preparedStatement, fill) -> {
+            preparedStatement.setLong(1, fill.getExecutionId());
+            preparedStatement.setLong(2, fill.getOrderId());
+            preparedStatement.setInt(3, fill.getQuantity());
+            preparedStatement.setLong(4, fill.getPriceTicks());
+        });
+    }
+}
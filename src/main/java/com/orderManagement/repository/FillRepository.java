@@ -0,0 +1,32 @@
+package com.orderManagement.repository;
+
+import com.orderManagement.entity.FillEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for managing {@link FillEntity} instances.
+ * Extends {@link JpaRepository} for lookups and {@link FillBatchRepository} for batched inserts.
+ */
+@Repository
+public interface FillRepository extends JpaRepository<FillEntity,Long>, FillBatchRepository {
+
+    /**
+     * Finds the fills of an execution through the execution id index.
+     *
+     * @param executionId The id of the execution.
+     * @return The fills of the execution in allocation order.
+     */
+    List<FillEntity> findByExecutionIdOrderByFillId(Long executionId);
+
+    /**
+     * Tells whether any of the executions has a fill, through the execution id index.
+     *
+     * @param executionIds The ids of the executions.
+     * @return True if a fill of one of the executions exists.
+     */
+    boolean existsByExecutionIdIn(Collection<Long> executionIds);
+}
@@ -0,0 +1,59 @@
+package com.orderManagement.repository;
+
+import com.orderManagement.entity.OrderEventEntity;
+
+import java.util.List;
+
+/**
+ * Repository fragment appending {@link com.orderManagement.entity.OrderEventEntity} rows in JDBC batches
+ * and keeping track of the events already applied to the orders table.
+ */
+public interface OrderEventBatchRepository {
+
+    /**
+     * Inserts events in JDBC batches. Event ids are assigned by the caller.
+     *
+     * @param orderEvents The events to insert.
+     */
+    void insertAll(List<OrderEventEntity> orderEvents);
+
+    /**
+     * @return The id of the last event applied to the orders table.
+     */
+    long findCheckpoint();
+
+    /**
+     * Records that every event up to the given id has been applied to the orders table.
+     *
+     * @param lastEventId The id of the last applied event.
+     */
+    void updateCheckpoint(long lastEventId);
+
+    /**
+     * Reserves a block of order ids, the size of the block is the increment of the order sequence.
+     *
+     * @return The first id of the block.
+     */
+    long nextOrderIdBlock();
+
+    /**
+     * Reserves a block of event ids, the size of the block is the increment of the event sequence.
+     *
+     * @return The first id of the block.
+     */
+    long nextEventIdBlock();
+
+    /**
+     * Reads the increment of the order sequence from the database.
+     *
+     * @return The number of order ids each block reserves.
+     */
+    long findOrderIdIncrement();
+
+    /**
+     * Reads the increment of the event sequence from the database.
+     *
+     * @return The number of event ids each block reserves.
+     */
+    long findEventIdIncrement();
+}
@@ -0,0 +1,108 @@
+package com.orderManagement.repository;
+
+import com.orderManagement.entity.OrderEventEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Implements {@link OrderEventBatchRepository} with {@link JdbcTemplate}.
+ * Events are only ever inserted, so they are sent as plain JDBC batches without going through the persistence context.
+ */
+public class OrderEventBatchRepositoryImpl implements OrderEventBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String insertSql;
+
+    private final String findCheckpointSql;
+
+    private final String updateCheckpointSql;
+
+    private final String nextOrderIdSql;
+
+    private final String nextEventIdSql;
+
+    private final String findIncrementSql;
+
+    private final String schema;
+
+    private final int batchSize;
+
+    public OrderEventBatchRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                         @Value("${spring.jpa.properties.hibernate.default_schema}") String schema,
+                                         @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.insertSql = "INSERT INTO " + schema + ".ORDER_EVENTS (EVENT_ID, ORDER_ID, EVENT_TYPE, BOOK_NAME, INSTRUMENT_ID, " +
+                "QUANTITY, REMAINING_QUANTITY, ENTRY_DATE, IS_ACTIVE, TYPE, PRICE_TICKS, PREVIOUS_ORDER_ID, EVENT_TIME) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        this.findCheckpointSql = "SELECT LAST_EVENT_ID FROM " + schema + ".ORDER_EVENTS_CHECKPOINT WHERE ID = 1";
+        this.updateCheckpointSql = "UPDATE " + schema + ".ORDER_EVENTS_CHECKPOINT SET LAST_EVENT_ID = ? WHERE ID = 1 AND LAST_EVENT_ID < ?";
+        this.nextOrderIdSql = "SELECT " + schema + ".ORDERS_SEQ.NEXTVAL FROM DUAL";
+        this.nextEventIdSql = "SELECT " + schema + ".ORDER_EVENTS_SEQ.NEXTVAL FROM DUAL";
+        this.findIncrementSql = "SELECT INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_SCHEMA = ? AND SEQUENCE_NAME = ?";
+        this.schema = schema.toUpperCase(Locale.ROOT);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void insertAll(List<OrderEventEntity> orderEvents) {
+        if (orderEvents.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(insertSql, orderEvents, batchSize, (preparedStatement, orderEvent) -> {
+            preparedStatement.setLong(1, orderEvent.getEventId());
+            preparedStatement.setLong(2, orderEvent.getOrderId());
+            preparedStatement.setInt(3, orderEvent.getEventType().getCode());
+            preparedStatement.setString(4, orderEvent.getBookName());
+            preparedStatement.setInt(5, orderEvent.getInstrumentId());
+            preparedStatement.setInt(6, orderEvent.getQuantity());
+            preparedStatement.setInt(7, orderEvent.getRemainingQuantity());
+            preparedStatement.setTimestamp(8, Timestamp.valueOf(orderEvent.getEntryDate()));
+            preparedStatement.setBoolean(9, orderEvent.isActive());
+            preparedStatement.setInt(10, orderEvent.getType().getCode());
+            preparedStatement.setLong(11, orderEvent.getPriceTicks());
+            if (orderEvent.getPreviousOrderId() == null) {
+                preparedStatement.setNull(12, Types.NUMERIC);
+            } else {
+                preparedStatement.setLong(12, orderEvent.getPreviousOrderId());
+            }
+            preparedStatement.setTimestamp(13, Timestamp.valueOf(orderEvent.getEventTime()));
+        });
+    }
+
+    @Override
+    public long findCheckpoint() {
+        return jdbcTemplate.queryForObject(findCheckpointSql, Long.class);
+    }
+
+    @Override
+    public void updateCheckpoint(long lastEventId) {
+        //The checkpoint only moves forward
+        jdbcTemplate.update(updateCheckpointSql, lastEventId, lastEventId);
+    }
+
+    @Override
+    public long nextOrderIdBlock() {
+        return jdbcTemplate.queryForObject(nextOrderIdSql, Long.class);
+    }
+
+    @Override
+    public long nextEventIdBlock() {
+        return jdbcTemplate.queryForObject(nextEventIdSql, Long.class);
+    }
+
+    @Override
+    public long findOrderIdIncrement() {
+        return jdbcTemplate.queryForObject(findIncrementSql, Long.class, schema, "ORDERS_SEQ");
+    }
+
+    @Override
+    public long findEventIdIncrement() {
+        return jdbcTemplate.queryForObject(findIncrementSql, Long.class, schema, "ORDER_EVENTS_SEQ");
+    }
+}
@@ -0,0 +1,36 @@
+package com.orderManagement.repository;
+
+import com.orderManagement.entity.OrderEventEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Spring Data JPA repository for reading {@link OrderEventEntity} instances.
+ * Extends {@link JpaRepository} for lookups and {@link OrderEventBatchRepository} for batched appends.
+ */
+@Repository
+public interface OrderEventRepository extends JpaRepository<OrderEventEntity,Long>, OrderEventBatchRepository {
+
+    /**
+     * Finds the last event of an order recorded up to the given time through the order id index.
+     *
+     * @param orderId   The id of the order.
+     * @param eventTime The time to look back from.
+     * @return The last event of the order up to that time, if any.
+     */
+    Optional<OrderEventEntity> findFirstByOrderIdAndEventTimeLessThanEqualOrderByEventIdDesc(Long orderId, LocalDateTime eventTime);
+
+    /**
+     * Reads a page of the events recorded after the given one.
+     *
+     * @param eventId  The id of the last event read.
+     * @param pageable The page size.
+     * @return The following events in id order.
+     */
+    List<OrderEventEntity> findByEventIdGreaterThanOrderByEventId(Long eventId, Pageable pageable);
+}
@@ -0,0 +1,25 @@
+package com.orderManagement.repository;
+
+import com.orderManagement.entity.OrderEntity;
+
+import java.util.List;
+
+/**
+ * Repository fragment writing the latest state of {@link com.orderManagement.entity.OrderEntity} rows in JDBC batches.
+ */
+public interface OrdersBatchRepository {
+
+    /**
+     * Inserts orders that are not stored yet and overwrites the others, in JDBC batches.
+     *
+     * @param orders The orders to write.
+     */
+    void mergeAll(List<OrderEntity> orders);
+
+    /**
+     * Writes the remaining quantity of stored orders in JDBC batches, leaving every other column as it is.
+     *
+     * @param orders The orders holding their latest remaining quantity.
+     */
+    void updateRemainingQuantities(List<OrderEntity> orders);
+}
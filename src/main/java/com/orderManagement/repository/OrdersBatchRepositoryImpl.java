@@ -0,0 +1,75 @@
+package com.orderManagement.repository;
+
+import com.orderManagement.entity.OrderEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Implements {@link OrdersBatchRepository} with {@link JdbcTemplate}.
+ * A single MERGE statement covers both new and known orders, so a batch needs no prior read to tell them apart.
+ */
+public class OrdersBatchRepositoryImpl implements OrdersBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String mergeSql;
+
+    private final String updateRemainingQuantitySql;
+
+    private final int batchSize;
+
+    public OrdersBatchRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                     @Value("${spring.jpa.properties.hibernate.default_schema}") String schema,
+                                     @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.mergeSql = "MERGE INTO " + schema + ".ORDERS o USING (SELECT CAST(? AS NUMBER) ORDER_ID, CAST(? AS VARCHAR2(100)) BOOK_NAME, " +
+                "CAST(? AS NUMBER) INSTRUMENT_ID, CAST(? AS NUMBER) QUANTITY, CAST(? AS NUMBER) REMAINING_QUANTITY, " +
+                "CAST(? AS TIMESTAMP) ENTRY_DATE, CAST(? AS NUMBER(1)) IS_ACTIVE, CAST(? AS NUMBER(1)) TYPE, " +
+                "CAST(? AS NUMBER(19)) PRICE_TICKS, CAST(? AS NUMBER) PREVIOUS_ORDER_ID FROM DUAL) s ON (o.ORDER_ID = s.ORDER_ID) " +
+                "WHEN MATCHED THEN UPDATE SET o.REMAINING_QUANTITY = s.REMAINING_QUANTITY, o.IS_ACTIVE = s.IS_ACTIVE " +
+                "WHEN NOT MATCHED THEN INSERT (ORDER_ID, BOOK_NAME, INSTRUMENT_ID, QUANTITY, REMAINING_QUANTITY, ENTRY_DATE, " +
+                "IS_ACTIVE, TYPE, PRICE_TICKS, PREVIOUS_ORDER_ID) VALUES (s.ORDER_ID, s.BOOK_NAME, s.INSTRUMENT_ID, s.QUANTITY, " +
+                "s.REMAINING_QUANTITY, s.ENTRY_DATE, s.IS_ACTIVE, s.TYPE, s.PRICE_TICKS, s.PREVIOUS_ORDER_ID)";
+        this.updateRemainingQuantitySql = "UPDATE " + schema + ".ORDERS SET REMAINING_QUANTITY = ? WHERE ORDER_ID = ?";
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void mergeAll(List<OrderEntity> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        //Only the remaining quantity and activity of an order change once it is created
+        jdbcTemplate.batchUpdate(mergeSql, orders, batchSize, (preparedStatement, order) -> {
+            preparedStatement.setLong(1, order.getOrderId());
+            preparedStatement.setString(2, order.getBookName());
+            preparedStatement.setInt(3, order.getInstrumentId());
+            preparedStatement.setInt(4, order.getQuantity());
+            preparedStatement.setInt(5, order.getRemainingQuantity());
+            preparedStatement.setTimestamp(6, Timestamp.valueOf(order.getEntryDate()));
+            preparedStatement.setBoolean(7, order.isActive());
+            preparedStatement.setInt(8, order.getType().getCode());
+            preparedStatement.setLong(9, order.getPriceTicks());
+            if (order.getPreviousOrderId() == null) {
+                preparedStatement.setNull(10, Types.NUMERIC);
+            } else {
+                preparedStatement.setLong(10, order.getPreviousOrderId());
+            }
+        });
+    }
+
+    @Override
+    public void updateRemainingQuantities(List<OrderEntity> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(updateRemainingQuantitySql, orders, batchSize, (preparedStatement, order) -> {
+            preparedStatement.setInt(1, order.getRemainingQuantity());
+            preparedStatement.setLong(2, order.getOrderId());
+        });
+    }
+}
@@ -1,13 +1,87 @@
 package com.orderManagement.repository;
 
 import com.orderManagement.entity.OrderEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 /**
  * Spring Data JPA repository for managing {@link OrderEntity} instances.
- * Extends {@link JpaRepository} and uses the {@code @Repository} annotation.
+ * Extends {@link JpaRepository} for lookups and {@link OrdersBatchRepository} for batched merges.
  */
 @Repository
-public interface OrdersRepository extends JpaRepository<OrderEntity,Long> {
+public interface OrdersRepository extends JpaRepository<OrderEntity,Long>, OrdersBatchRepository {
+
+    /**
+     * Finds the books holding at least one order with the given activity.
+     *
+     * @param isActive True for books with active orders.
+     * @return The distinct book names.
+     */
+    @Query("select distinct o.bookName from OrderEntity o where o.isActive = :isActive")
+    List<String> findBookNamesByActive(@Param("isActive") boolean isActive);
+
+    /**
+     * Deactivates an order if it is still active at the given version, moving its version on.
+     * Of concurrent amends or cancels of an order, on this node or another, exactly one gets a row back.
+     *
+     * @param orderId The id of the order.
+     * @param version The version the order was read at.
+     * @return 1 if the order was deactivated, 0 if it was changed or deactivated since it was read.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update OrderEntity o set o.isActive = false, o.version = o.version + 1 " +
+            "where o.orderId = :orderId and o.version = :version and o.isActive = true")
+    int deactivate(@Param("orderId") Long orderId, @Param("version") long version);
+
+    @Query("select count(o) from OrderEntity o where o.isActive = :isActive")
+    long countByActive(@Param("isActive") boolean isActive);
+
+    /**
+     * @param isActive True to sum over active orders.
+     * @return The remaining quantity of all orders with the given activity, 0 if there are none.
+     */
+    @Query("select coalesce(sum(o.remainingQuantity), 0) from OrderEntity o where o.isActive = :isActive")
+    long sumRemainingQuantityByActive(@Param("isActive") boolean isActive);
+
+    /**
+     * @return The highest order id handed out, or {@code null} if there are no orders.
+     */
+    @Query("select max(o.orderId) from OrderEntity o")
+    Long findMaxOrderId();
+
+    /**
+     * Reads the first page of orders of a book with the given activity in entry order.
+     *
+     * @param bookName The name of the book.
+     * @param isActive True to read active orders.
+     * @param pageable The page size.
+     * @return The oldest matching orders of the book.
+     */
+    @Query("select o from OrderEntity o where o.bookName = :bookName and o.isActive = :isActive " +
+            "order by o.entryDate, o.orderId")
+    List<OrderEntity> findOrdersOfBook(@Param("bookName") String bookName, @Param("isActive") boolean isActive, Pageable pageable);
+
+    /**
+     * Reads the next page of orders of a book with the given activity in entry order, starting after the last order of the previous page.
+     *
+     * @param bookName  The name of the book.
+     * @param isActive  True to read active orders.
+     * @param entryDate The entry date of the last order read.
+     * @param orderId   The id of the last order read.
+     * @param pageable  The page size.
+     * @return The following matching orders of the book.
+     */
+    @Query("select o from OrderEntity o where o.bookName = :bookName and o.isActive = :isActive " +
+            "and (o.entryDate > :entryDate or (o.entryDate = :entryDate and o.orderId > :orderId)) " +
+            "order by o.entryDate, o.orderId")
+    List<OrderEntity> findOrdersOfBookAfter(@Param("bookName") String bookName, @Param("isActive") boolean isActive,
+                                            @Param("entryDate") LocalDateTime entryDate, @Param("orderId") Long orderId,
+                                            Pageable pageable);
 }
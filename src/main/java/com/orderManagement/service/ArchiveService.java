@@ -0,0 +1,62 @@
+package com.orderManagement.service;
+
+import com.orderManagement.entity.ExecutionEntity;
+import com.orderManagement.entity.OrderEntity;
+import com.orderManagement.exceptions.BookArchivedException;
+import com.orderManagement.exceptions.BookDoesNotExistsException;
+import com.orderManagement.exceptions.BookNotFinishedException;
+import com.orderManagement.exceptions.BookOpenException;
+import com.orderManagement.model.BookArchive;
+
+import java.util.List;
+
+/**
+ * The ArchiveService interface defines the contract for services that move finished books out of the hot tables.
+ */
+public interface ArchiveService {
+    /**
+     * Moves the orders and executions of a closed book without pending orders to the archive tables
+     * and drops them from memory.
+     *
+     * @param bookName The name of the book to archive.
+     * @return The number of orders and executions archived.
+     */
+    BookArchive archiveBook(String bookName) throws BookDoesNotExistsException, BookOpenException, BookNotFinishedException;
+
+    /**
+     * Archives every closed book without pending orders that is not archived yet.
+     */
+    void archiveFinishedBooks();
+
+    /**
+     * Opens the book unless it has been archived. An archived book stays closed, its orders and executions
+     * are no longer in the hot tables.
+     *
+     * @param bookName The name of the book which needs to be opened.
+     */
+    void openBook(String bookName) throws BookArchivedException;
+
+    /**
+     * Checks if the given book has been archived.
+     *
+     * @param bookName The name of the book.
+     * @return True if orders or executions of the book are in the archive tables.
+     */
+    boolean isBookArchived(String bookName);
+
+    /**
+     * Given a bookName it retrieves its archived orders.
+     *
+     * @param bookName name of the book for which archived orders needs to be fetched.
+     * @return List of archived orders for a book, empty if it was never archived.
+     */
+    List<OrderEntity> getArchivedOrdersForBook(String bookName);
+
+    /**
+     * Given a bookName it retrieves its archived executions.
+     *
+     * @param bookName name of the book for which archived executions needs to be fetched.
+     * @return List of archived executions for a book, empty if it was never archived.
+     */
+    List<ExecutionEntity> getArchivedExecutionsForBook(String bookName);
+}
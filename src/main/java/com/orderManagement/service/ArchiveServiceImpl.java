@@ -0,0 +1,159 @@
+package com.orderManagement.service;
+
+import com.orderManagement.entity.ExecutionEntity;
+import com.orderManagement.entity.OrderEntity;
+import com.orderManagement.exceptions.BookArchivedException;
+import com.orderManagement.exceptions.BookDoesNotExistsException;
+import com.orderManagement.exceptions.BookNotFinishedException;
+import com.orderManagement.exceptions.BookOpenException;
+import com.orderManagement.model.BookArchive;
+import com.orderManagement.persistence.ResidentState;
+import com.orderManagement.repository.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The ArchiveServiceImpl implements ArchiveService.
+ * Writes still in flight behind the hot tables are awaited before a book is archived, so nothing of the book
+ * reaches the hot tables after its rows have been moved. The book is then dropped from every in-memory state.
+ * Finished books are also archived on the {@code app.archive.cron} schedule, which is disabled by default.
+ * Books are opened through this service under the same lock, so an archived book is never opened again.
+ */
+@Service
+@Slf4j
+public class ArchiveServiceImpl implements ArchiveService, SmartLifecycle {
+
+    private final BookService bookService;
+
+    private final OrderService orderService;
+
+    private final ExecutionService executionService;
+
+    private final BookRepository bookRepository;
+
+    private final List<ResidentState> residentStates;
+
+    private final Set<String> archivedBookNames = ConcurrentHashMap.newKeySet();
+
+    private final ReentrantLock archiveLock = new ReentrantLock();
+
+    private volatile boolean isRunning;
+
+    @Autowired
+    public ArchiveServiceImpl(BookService bookService, OrderService orderService, ExecutionService executionService,
+                              BookRepository bookRepository, List<ResidentState> residentStates) {
+        this.bookService = bookService;
+        this.orderService = orderService;
+        this.executionService = executionService;
+        this.bookRepository = bookRepository;
+        this.residentStates = residentStates;
+    }
+
+    @Override
+    public BookArchive archiveBook(String bookName) throws BookDoesNotExistsException, BookOpenException, BookNotFinishedException {
+        archiveLock.lock();
+        try {
+            if(!bookService.isBookClosed(bookName)){
+                throw new BookOpenException("Book with the name " + bookName + " is open, only closed books can be archived.");
+            }
+            if(!orderService.getPendingOrdersForBook(bookName).isEmpty()){
+                throw new BookNotFinishedException("Book with the name " + bookName + " can not be archived as it contains pending orders.");
+            }
+            orderService.awaitPendingWrites();
+            executionService.awaitPendingWrites();
+            BookArchive bookArchive = bookRepository.archiveBook(bookName);
+            residentStates.forEach(residentState -> residentState.evict(bookName));
+            archivedBookNames.add(bookName);
+            log.info("Archived book {} with {} orders and {} executions", bookName, bookArchive.getArchivedOrders(), bookArchive.getArchivedExecutions());
+            return bookArchive;
+        }
+        finally {
+            archiveLock.unlock();
+        }
+    }
+
+    @Override
+    @Scheduled(cron = "${app.archive.cron:-}")
+    public void archiveFinishedBooks() {
+        for (String bookName : bookService.getClosedBookNames()) {
+            if (archivedBookNames.contains(bookName) || !orderService.getPendingOrdersForBook(bookName).isEmpty()) {
+                continue;
+            }
+            try {
+                archiveBook(bookName);
+            } catch (RuntimeException exception) {
+                log.error("Could not archive book {}. Exception {}", bookName, exception.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void openBook(String bookName) throws BookArchivedException {
+        archiveLock.lock();
+        try {
+            if(isBookArchived(bookName)){
+                throw new BookArchivedException("Book with the name " + bookName + " is archived. Archived books can not be opened.");
+            }
+            bookService.openBook(bookName);
+        }
+        finally {
+            archiveLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isBookArchived(String bookName) {
+        return archivedBookNames.contains(bookName);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<OrderEntity> getArchivedOrdersForBook(String bookName) {
+        if (!isBookArchived(bookName)) {
+            return Collections.emptyList();
+        }
+        return bookRepository.findArchivedOrdersOfBook(bookName);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ExecutionEntity> getArchivedExecutionsForBook(String bookName) {
+        if (!isBookArchived(bookName)) {
+            return Collections.emptyList();
+        }
+        return bookRepository.findArchivedExecutionsOfBook(bookName);
+    }
+
+    @Override
+    public void start() {
+        archivedBookNames.addAll(bookRepository.findArchivedBookNames());
+        isRunning = true;
+    }
+
+    @Override
+    public void stop() {
+        archivedBookNames.clear();
+        isRunning = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    @Override
+    public int getPhase() {
+        //Same phase as the order and execution services, below the execution tickets using them
+        return SmartLifecycle.DEFAULT_PHASE - 1;
+    }
+}
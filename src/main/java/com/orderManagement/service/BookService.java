@@ -4,6 +4,7 @@ import com.orderManagement.exceptions.BookAlreadyExistsException;
 import com.orderManagement.exceptions.BookDoesNotExistsException;
 import com.orderManagement.model.Book;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -58,4 +59,11 @@ public interface BookService {
      */
     void openBook(String bookName);
 
+    /**
+     * Retrieves the names of the closed books.
+     *
+     * @return The names of the books currently closed.
+     */
+    List<String> getClosedBookNames();
+
 }
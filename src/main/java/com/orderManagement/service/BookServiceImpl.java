@@ -4,20 +4,26 @@ import com.orderManagement.entity.BookEntity;
 import com.orderManagement.exceptions.BookAlreadyExistsException;
 import com.orderManagement.exceptions.BookDoesNotExistsException;
 import com.orderManagement.model.Book;
+import com.orderManagement.persistence.SnapshotLog;
+import com.orderManagement.persistence.SnapshotStore;
+import com.orderManagement.persistence.StateCodecs;
 import com.orderManagement.repository.BookRepository;
 import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.SmartLifecycle;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * The BookServiceImpl implements BookService.
  * This service manages all book related operations.
  */
 @Service
+@Slf4j
 public class BookServiceImpl implements BookService, SmartLifecycle {
 
     private final BookRepository bookRepository;
@@ -26,11 +32,23 @@ public class BookServiceImpl implements BookService, SmartLifecycle {
 
     private volatile boolean isRunning;
 
+    private SnapshotLog<Book> bookSnapshots;
+
     @Autowired
     public BookServiceImpl(BookRepository bookRepository) {
         this.bookRepository = bookRepository;
     }
 
+    /**
+     * Restores books from a snapshot and journal on restart. Only wired when snapshots are enabled.
+     *
+     * @param snapshotStore store of the snapshot logs.
+     */
+    @Autowired(required = false)
+    public void setSnapshotStore(SnapshotStore snapshotStore) {
+        this.bookSnapshots = snapshotStore.open("books", StateCodecs.BOOKS);
+    }
+
     @Override
     @Transactional
     public Optional<Book> findByName(String bookName) {
@@ -68,6 +86,7 @@ public class BookServiceImpl implements BookService, SmartLifecycle {
             book.setBookName(bookName);
             book.setClosed(false);
             BookEntity bookEntity = bookRepository.save(BookEntity.toEntity(book));
+            journal(bookEntity.toBean());
             return bookEntity.toBean();
         });
     }
@@ -79,6 +98,7 @@ public class BookServiceImpl implements BookService, SmartLifecycle {
             book.setClosed(true);
             BookEntity bookEntity = bookRepository.save(BookEntity.toEntity(book));
             booksMap.put(bookName,bookEntity.toBean());
+            journal(bookEntity.toBean());
             return;
         }
         throw new BookDoesNotExistsException("Book with the name " + bookName + " does not exists.");
@@ -91,17 +111,63 @@ public class BookServiceImpl implements BookService, SmartLifecycle {
         book.setClosed(false);
         BookEntity bookEntity = bookRepository.save(BookEntity.toEntity(book));
         booksMap.put(bookName,bookEntity.toBean());
+        journal(bookEntity.toBean());
+    }
+
+    @Override
+    public List<String> getClosedBookNames(){
+        return booksMap.values()
+                .stream()
+                .filter(Book::isClosed)
+                .map(Book::getBookName)
+                .collect(Collectors.toList());
+    }
+
+    private void journal(Book book){
+        if(bookSnapshots != null){
+            bookSnapshots.append(book);
+        }
+    }
+
+    private boolean restoreFromSnapshot(){
+        if(bookSnapshots == null){
+            return false;
+        }
+        Optional<SnapshotLog.Restored<Book>> restored = bookSnapshots.restore();
+        if(restored.isEmpty()){
+            return false;
+        }
+        Map<String,Book> books = new HashMap<>();
+        //Later records hold the latest state of a book
+        restored.get().getRecords().forEach(book -> books.put(book.getBookName(), book));
+        long storedBooks = bookRepository.count();
+        if(books.size() != storedBooks){
+            log.warn("Book snapshot holds {} books but the database {}, loading from the database", books.size(), storedBooks);
+            return false;
+        }
+        booksMap.putAll(books);
+        return true;
     }
 
     @Override
     public void start() {
-        List<BookEntity> books = bookRepository.findAll();
-        books.stream().forEach(book-> booksMap.put(book.getBookName(),book.toBean()));
+        boolean isRestored = restoreFromSnapshot();
+        if(!isRestored){
+            List<BookEntity> books = bookRepository.findAll();
+            books.stream().forEach(book-> booksMap.put(book.getBookName(),book.toBean()));
+        }
+        if(bookSnapshots != null){
+            bookSnapshots.begin(isRestored);
+        }
         isRunning = true;
     }
 
     @Override
     public void stop() {
+        if(bookSnapshots != null && isRunning){
+            bookSnapshots.writeSnapshot(new ArrayList<>(booksMap.values()), 0);
+            bookSnapshots.close();
+        }
         booksMap.clear();
         isRunning = false;
     }
@@ -110,4 +176,10 @@ public class BookServiceImpl implements BookService, SmartLifecycle {
     public boolean isRunning() {
         return isRunning;
     }
+
+    @Override
+    public int getPhase() {
+        //Same phase as the order and execution services, below the execution tickets using them
+        return SmartLifecycle.DEFAULT_PHASE - 1;
+    }
 }
@@ -1,9 +1,12 @@
 package com.orderManagement.service;
 
 import com.orderManagement.entity.ExecutionEntity;
+import com.orderManagement.exceptions.BookArchivedException;
 import com.orderManagement.exceptions.BookDoesNotExistsException;
 import com.orderManagement.exceptions.BookOpenException;
 import com.orderManagement.model.Execution;
+import com.orderManagement.model.ExecutionResult;
+import com.orderManagement.model.Fill;
 
 import java.util.List;
 
@@ -16,7 +19,15 @@ public interface ExecutionService {
      *
      * @param execution Execution that needs to be triggered.
      */
-     void triggerExecution(Execution execution) throws BookDoesNotExistsException, BookOpenException;
+     void triggerExecution(Execution execution) throws BookDoesNotExistsException, BookOpenException, BookArchivedException;
+    /**
+     * Triggers a batch of executions in arrival order and persists them, and the orders they fill, in one transaction.
+     * Executions on a missing, open or archived book are rejected individually without failing the batch.
+     *
+     * @param executions Executions that need to be triggered.
+     * @return One result per execution, in the order of the batch.
+     */
+     List<ExecutionResult> triggerExecutions(List<Execution> executions);
     /**
      * Given a bookName it retrieves all executed executions
      *
@@ -24,4 +35,20 @@ public interface ExecutionService {
      * @return List of executed executions  for a book.
      */
      List<ExecutionEntity> getTriggeredExecutionsForBook(String bookName);
+    /**
+     * Given an execution id it retrieves the allocation of the execution to the orders it filled
+     *
+     * @param executionId id of the execution for which fills needs to be fetched.
+     * @return List of fills of the execution, empty if it filled no order.
+     */
+     List<Fill> getFillsForExecution(Long executionId);
+    /**
+     * Waits until the fills of the executions triggered so far are committed when write-behind acknowledges after
+     * flushing. Called once triggerExecution or triggerExecutions has returned, outside of their transaction.
+     */
+     void awaitFillPersistence();
+    /**
+     * Waits until every execution triggered so far is in the EXECUTIONS table, whatever write path it took.
+     */
+     void awaitPendingWrites();
 }
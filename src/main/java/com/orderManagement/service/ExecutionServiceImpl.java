@@ -1,23 +1,43 @@
 package com.orderManagement.service;
 
 import com.orderManagement.entity.ExecutionEntity;
-import com.orderManagement.entity.OrderEntity;
+import com.orderManagement.entity.FillEntity;
+import com.orderManagement.exceptions.BookArchivedException;
 import com.orderManagement.exceptions.BookDoesNotExistsException;
 import com.orderManagement.exceptions.BookOpenException;
+import com.orderManagement.locking.StripedLockManager;
+import com.orderManagement.matching.BookSequencer;
+import com.orderManagement.matching.OrderBook;
+import com.orderManagement.matching.RestingOrder;
 import com.orderManagement.model.Execution;
+import com.orderManagement.model.ExecutionResult;
 import com.orderManagement.model.ExecutionType;
+import com.orderManagement.model.Fill;
 import com.orderManagement.model.OrderType;
+import com.orderManagement.persistence.BookHydrator;
+import com.orderManagement.persistence.BookResidency;
+import com.orderManagement.persistence.ExecutionWal;
+import com.orderManagement.persistence.ResidentState;
+import com.orderManagement.persistence.SnapshotLog;
+import com.orderManagement.persistence.SnapshotStore;
+import com.orderManagement.persistence.StateCodecs;
 import com.orderManagement.repository.ExecutionRepository;
-import jakarta.transaction.Transactional;
+import com.orderManagement.repository.FillRepository;
+import com.orderManagement.store.BookStore;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 /**
  * The ExecutionServiceImpl implements ExecutionService.
@@ -25,7 +45,7 @@ import java.util.stream.Collectors;
  */
 @Service
 @Slf4j
-public class ExecutionServiceImpl implements ExecutionService, SmartLifecycle {
+public class ExecutionServiceImpl implements ExecutionService, SmartLifecycle, ResidentState {
 
     private final BookService bookService;
 
@@ -33,22 +53,218 @@ public class ExecutionServiceImpl implements ExecutionService, SmartLifecycle {
 
     private final ExecutionRepository executionRepository;
 
+    private final FillRepository fillRepository;
+
     private volatile boolean isRunning;
 
-    private ConcurrentHashMap<String,List<ExecutionEntity>> executionsMap = new ConcurrentHashMap<>();
+    private BookStore<ExecutionEntity> executionsMap = new BookStore<>();
+
+    private final AtomicLong executionSequence = new AtomicLong();
+
+    private final StripedLockManager lockManager;
+
+    private final BookHydrator bookHydrator;
+
+    private BookSequencer bookSequencer;
 
-    private final ConcurrentHashMap<String, Object> locks = new ConcurrentHashMap<>();
+    private BookResidency bookResidency;
+
+    private SnapshotLog<ExecutionEntity> executionSnapshots;
+
+    private ExecutionWal executionWal;
+
+    private ArchiveService archiveService;
+
+    private final AtomicLong highestExecutionId = new AtomicLong();
 
     @Autowired
-    public ExecutionServiceImpl(BookService bookService, OrderService orderService, ExecutionRepository executionRepository) {
+    public ExecutionServiceImpl(BookService bookService, OrderService orderService, ExecutionRepository executionRepository,
+                                FillRepository fillRepository, StripedLockManager lockManager, BookHydrator bookHydrator) {
         this.bookService = bookService;
         this.orderService = orderService;
         this.executionRepository = executionRepository;
+        this.fillRepository = fillRepository;
+        this.lockManager = lockManager;
+        this.bookHydrator = bookHydrator;
+    }
+
+    /**
+     * Rejects executions on archived books, their rows have left the hot tables. Injected lazily as the archive
+     * service depends on this service.
+     *
+     * @param archiveService service archiving finished books.
+     */
+    @Autowired
+    public void setArchiveService(@Lazy ArchiveService archiveService) {
+        this.archiveService = archiveService;
+    }
+
+    /**
+     * Switches execution ingestion to the single writer sequencer. Only wired when the sequencer is enabled.
+     *
+     * @param bookSequencer sequencer applying executions of a book one at a time.
+     */
+    @Autowired(required = false)
+    public void setBookSequencer(BookSequencer bookSequencer) {
+        this.bookSequencer = bookSequencer;
+    }
+
+    /**
+     * Loads executions of a book on first touch and evicts cold books. Only wired when lazy hydration is enabled.
+     *
+     * @param bookResidency tracker of the books held in memory.
+     */
+    @Autowired(required = false)
+    public void setBookResidency(BookResidency bookResidency) {
+        this.bookResidency = bookResidency;
+        bookResidency.register(this);
+    }
+
+    /**
+     * Restores executions from a snapshot and journal on restart. Only wired when snapshots are enabled.
+     *
+     * @param snapshotStore store of the snapshot logs.
+     */
+    @Autowired(required = false)
+    public void setSnapshotStore(SnapshotStore snapshotStore) {
+        this.executionSnapshots = snapshotStore.open("executions", StateCodecs.EXECUTIONS);
+    }
+
+    /**
+     * Makes executions durable in a local write-ahead log and inserts them into the database behind the requests.
+     * Fills and filled orders are still written by the request's transaction. Only wired when the execution log is enabled.
+     *
+     * @param executionWal write-ahead log of the executions.
+     */
+    @Autowired(required = false)
+    public void setExecutionWal(ExecutionWal executionWal) {
+        this.executionWal = executionWal;
     }
 
     @Override
     @Transactional
     public void triggerExecution(Execution execution) throws BookDoesNotExistsException,BookOpenException {
+        validateExecution(execution);
+        //Pinned until the fills are applied, evicting the book under a running match would drop the orders it fills
+        pinBook(execution.getBookName());
+        try {
+            ExecutionEntity executionEntity = saveExecution(execution);
+            matchAndPersist(Collections.singletonList(executionEntity), matchedFills -> {
+                if(bookSequencer != null){
+                    //The book's partition thread is the only writer of its order books, so matching takes no stripe lock
+                    bookSequencer.execute(execution.getBookName(), () -> matchExecution(executionEntity, matchedFills));
+                }
+                else{
+                    //We lock at unique execution as we need to operate on latest data.
+                    //If we receive two execution of same key at same time then we might get wrong result on remaining quantity.
+                    //Hence, this lock is required
+                    ReentrantLock lock = lockManager.lock(execution.getKey());
+                    try {
+                        matchExecution(executionEntity, matchedFills);
+                    }
+                    finally {
+                        lock.unlock();
+                    }
+                }
+            });
+        }
+        finally {
+            unpinBook(execution.getBookName());
+        }
+    }
+
+    @Override
+    @Transactional
+    public List<ExecutionResult> triggerExecutions(List<Execution> executions) {
+        List<ExecutionResult> results = new ArrayList<>(executions.size());
+        List<Execution> acceptedExecutions = new ArrayList<>();
+        for (int index = 0; index < executions.size(); index++) {
+            Execution execution = executions.get(index);
+            try {
+                validateExecution(execution);
+                acceptedExecutions.add(execution);
+                results.add(ExecutionResult.executed(index));
+            }
+            catch (BookDoesNotExistsException | BookOpenException | BookArchivedException exception){
+                results.add(ExecutionResult.rejected(index, exception.getMessage()));
+            }
+        }
+        //Books are pinned until the fills are applied, evicting a book under a running match would drop the orders it fills
+        Set<String> pinnedBooks = new LinkedHashSet<>();
+        try {
+            for (Execution execution : acceptedExecutions) {
+                if (!pinnedBooks.contains(execution.getBookName())) {
+                    pinBook(execution.getBookName());
+                    pinnedBooks.add(execution.getBookName());
+                }
+            }
+            List<ExecutionEntity> executionEntities = saveExecutions(acceptedExecutions
+                    .stream()
+                    .map(ExecutionEntity::toEntity)
+                    .collect(Collectors.toList()));
+            executionEntities.forEach(this::journal);
+            Map<String, List<ExecutionEntity>> executionsByBook = executionEntities
+                    .stream()
+                    .collect(Collectors.groupingBy(ExecutionEntity::getBookName, LinkedHashMap::new, Collectors.toList()));
+            executionsByBook.forEach(this::addToExecutionsMap);
+
+            matchAndPersist(executionEntities, matchedFills -> {
+                if(bookSequencer != null){
+                    //Each book is matched in arrival order on its partition, books of different partitions in parallel.
+                    //Partitions that do not get to a book in time have its task cancelled, the batch then rolls back
+                    Map<String, Runnable> matchingByBook = new LinkedHashMap<>();
+                    executionsByBook.forEach((bookName, bookExecutions) -> matchingByBook.put(bookName,
+                            () -> bookExecutions.forEach(executionEntity -> matchExecution(executionEntity, matchedFills))));
+                    bookSequencer.executeAll(matchingByBook);
+                }
+                else{
+                    for (int index = 0; index < acceptedExecutions.size(); index++) {
+                        ReentrantLock lock = lockManager.lock(acceptedExecutions.get(index).getKey());
+                        try {
+                            matchExecution(executionEntities.get(index), matchedFills);
+                        }
+                        finally {
+                            lock.unlock();
+                        }
+                    }
+                }
+            });
+        }
+        finally {
+            pinnedBooks.forEach(this::unpinBook);
+        }
+        return results;
+    }
+
+    @Override
+    public List<ExecutionEntity> getTriggeredExecutionsForBook(String bookName) {
+        residentBook(bookName);
+        return executionsMap.values(bookName);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Fill> getFillsForExecution(Long executionId) {
+        return fillRepository.findByExecutionIdOrderByFillId(executionId)
+                .stream()
+                .map(FillEntity::toBean)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void awaitFillPersistence() {
+        orderService.awaitFillPersistence();
+    }
+
+    @Override
+    public void awaitPendingWrites() {
+        if(executionWal != null){
+            executionWal.awaitStored();
+        }
+    }
+
+
+    private void validateExecution(Execution execution) throws BookDoesNotExistsException,BookOpenException,BookArchivedException {
         boolean isBookAvailable = bookService.isBookAvailable(execution.getBookName());
         if(!isBookAvailable){
             throw new BookDoesNotExistsException("Book with the name " + execution.getBookName() + " does not exists.");
@@ -56,98 +272,303 @@ public class ExecutionServiceImpl implements ExecutionService, SmartLifecycle {
         if(!bookService.isBookClosed(execution.getBookName())){
             throw new BookOpenException("Book with the name " + execution.getBookName() + " is still open. Can not run execution on open book.");
         }
-        saveExecutionInDb(execution);
-        //We lock at unique execution as we need to operate on latest data.
-        //If we receive two execution of same key at same time then we might get wrong result on remaining quantity.
-        //Hence, this lock is required
-        synchronized (locks.computeIfAbsent(execution.getKey(), k -> new Object())) {
-            List<OrderEntity> orderList = orderService.getActiveOrdersForBook(execution.getBookName());
-            if(execution.getType().equals(ExecutionType.OFFER)){
-                handleOfferExecutions(orderList,execution);
-            }
-            else{
-                handleAskExecutions(orderList,execution);
-            }
+        if(archiveService != null && archiveService.isBookArchived(execution.getBookName())){
+            throw new BookArchivedException("Book with the name " + execution.getBookName() + " is archived. Can not run execution on archived book.");
         }
     }
 
-    @Override
-    public List<ExecutionEntity> getTriggeredExecutionsForBook(String bookName) {
-        return executionsMap.getOrDefault(bookName,new ArrayList<>());
+    private void residentBook(String bookName) {
+        if(bookResidency != null){
+            bookResidency.touch(bookName);
+        }
+    }
+
+    private void pinBook(String bookName) {
+        if(bookResidency != null){
+            bookResidency.pin(bookName);
+        }
+    }
+
+    private void unpinBook(String bookName) {
+        if(bookResidency != null){
+            bookResidency.unpin(bookName);
+        }
+    }
+
+    private ExecutionEntity saveExecution(Execution execution){
+        ExecutionEntity executionEntity = ExecutionEntity.toEntity(execution);
+        if(executionWal == null){
+            executionEntity = executionRepository.save(executionEntity);
+        }
+        else{
+            assignLoggedIds(Collections.singletonList(executionEntity));
+        }
+        journal(executionEntity);
+        addToExecutionsMap(executionEntity);
+        return executionEntity;
     }
 
+    private List<ExecutionEntity> saveExecutions(List<ExecutionEntity> executionEntities){
+        if(executionWal == null){
+            return executionRepository.saveAll(executionEntities);
+        }
+        assignLoggedIds(executionEntities);
+        return executionEntities;
+    }
 
-    private void saveExecutionInDb(Execution execution){
-        ExecutionEntity executionEntity = executionRepository.save(ExecutionEntity.toEntity(execution));
-        executionsMap.putIfAbsent(executionEntity.getBookName(), new ArrayList<>());
-        executionsMap.computeIfPresent(executionEntity.getBookName(),(key,value)->{
-            value.add(executionEntity);
-            return value;
+    private void assignLoggedIds(List<ExecutionEntity> executionEntities){
+        //The fills need the ids, the executions themselves are only logged once they are matched
+        executionEntities.forEach(executionEntity -> executionEntity.setExecutionId(executionWal.nextExecutionId()));
+        executionWal.checkLoggable(executionEntities);
+    }
+
+    private void logExecutions(List<ExecutionEntity> executionEntities, List<FillEntity> fills){
+        if(executionWal == null){
+            return;
+        }
+        //On disk before the transaction commits, so a committed fill never points at an execution the log could lose.
+        //The insert into the database follows in the background once the outcome of the transaction is known
+        ExecutionWal.Prepared prepared = executionWal.prepare(executionEntities, fills);
+        if(!TransactionSynchronizationManager.isSynchronizationActive()){
+            prepared.commit();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if(status == STATUS_COMMITTED){
+                    prepared.commit();
+                }
+                else if(status == STATUS_ROLLED_BACK){
+                    prepared.rollback();
+                }
+                else{
+                    prepared.resolve();
+                }
+            }
         });
     }
 
-    private void handleOfferExecutions(List<OrderEntity> orderList,Execution execution){
-        List<OrderEntity> buyOrders = orderList.stream()
-                .filter(order-> order.getRemainingQuantity() > 0)
-                .filter(order -> order.getType() == OrderType.BUY)
-                .filter(order -> order.getInstrumentId() == (execution.getInstrumentId()))
-                .filter(order -> order.getPrice() >= execution.getPrice())
-                .sorted(Comparator.comparing(OrderEntity::getEntryDate))
-                .collect(Collectors.toList());
+    private void journal(ExecutionEntity executionEntity){
+        if(executionSnapshots != null && executionEntity.getExecutionId() != null){
+            highestExecutionId.accumulateAndGet(executionEntity.getExecutionId(), Math::max);
+            executionSnapshots.append(executionEntity);
+        }
+    }
 
-        int remainingQuantity = execution.getQuantity();
-        for (OrderEntity buyOrder : buyOrders) {
-            if (remainingQuantity > 0) {
-                int buyOrderQuantity = buyOrder.getRemainingQuantity();
-                int executionQuantity = Math.min(buyOrderQuantity, remainingQuantity);
-                buyOrder.setRemainingQuantity(buyOrderQuantity - executionQuantity);
-                orderService.updateOrder(buyOrder);
-                remainingQuantity -= executionQuantity;
-            } else {
-                break;
+    private boolean restoreFromSnapshot(){
+        if(executionSnapshots == null){
+            return false;
+        }
+        Optional<SnapshotLog.Restored<ExecutionEntity>> restored = executionSnapshots.restore();
+        if(restored.isEmpty()){
+            return false;
+        }
+        //An execution is written once, a journal replayed twice must not add it twice
+        TreeMap<Long,ExecutionEntity> executions = new TreeMap<>();
+        restored.get().getRecords().forEach(execution -> executions.put(execution.getExecutionId(), execution));
+        long highWaterMark = Math.max(restored.get().getHighWaterMark(), executions.isEmpty() ? 0 : executions.lastKey());
+        Long storedHighWaterMark = executionRepository.findMaxExecutionId();
+        long storedExecutions = executionRepository.count();
+        if(highWaterMark != (storedHighWaterMark == null ? 0 : storedHighWaterMark) || executions.size() != storedExecutions){
+            log.warn("Execution snapshot diverges from the database (highest id {} against {}, {} executions against {}), loading from the database",
+                    highWaterMark, storedHighWaterMark, executions.size(), storedExecutions);
+            return false;
+        }
+        executions.values()
+                .stream()
+                .collect(Collectors.groupingBy(ExecutionEntity::getBookName, LinkedHashMap::new, Collectors.toList()))
+                .forEach(this::addToExecutionsMap);
+        highestExecutionId.set(highWaterMark);
+        log.info("Restored {} executions from the snapshot", executions.size());
+        return true;
+    }
+
+    private void addToExecutionsMap(ExecutionEntity executionEntity){
+        //Executions are kept in the order they were triggered
+        executionsMap.put(executionEntity.getBookName(), executionSequence.incrementAndGet(), executionEntity);
+    }
+
+    private void addToExecutionsMap(String bookName, List<ExecutionEntity> executionEntities){
+        //Sequences are taken as one block, so the executions append to the book in a single write
+        long[] sequences = new long[executionEntities.size()];
+        long first = executionSequence.getAndAdd(sequences.length) + 1;
+        for (int i = 0; i < sequences.length; i++) {
+            sequences[i] = first + i;
+        }
+        executionsMap.putAll(bookName, sequences, executionEntities);
+    }
+
+    private void addExecutions(List<ExecutionEntity> page){
+        //A page holds executions of a single book
+        addToExecutionsMap(page.get(0).getBookName(), page);
+    }
+
+    /**
+     * Matches the executions of a transaction and persists the fills. Matching changes resting orders and order books
+     * as it goes, ahead of any write, so the fills are taken back in memory if the transaction rolls back,
+     * whichever write or log failed.
+     *
+     * @param executionEntities The executions of the transaction.
+     * @param matching          Matches the executions into the given fills.
+     */
+    private void matchAndPersist(List<ExecutionEntity> executionEntities, Consumer<MatchedFills> matching){
+        MatchedFills matchedFills = new MatchedFills();
+        boolean isSynchronized = TransactionSynchronizationManager.isSynchronizationActive();
+        if(isSynchronized){
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if(status == STATUS_ROLLED_BACK || status == STATUS_UNKNOWN && !isCommitted(matchedFills)){
+                        revertFills(matchedFills);
+                    }
+                }
+            });
+        }
+        try {
+            matching.accept(matchedFills);
+            persistFills(executionEntities, matchedFills);
+        }
+        catch (RuntimeException exception) {
+            if(!isSynchronized){
+                revertFills(matchedFills);
             }
+            throw exception;
         }
     }
 
-    private void handleAskExecutions(List<OrderEntity> orderList,Execution execution){
-        List<OrderEntity> sellOrders = orderList.stream()
-                .filter(order-> order.getRemainingQuantity() > 0)
-                .filter(order -> order.getType() == OrderType.SELL)
-                .filter(order -> order.getInstrumentId() == (execution.getInstrumentId()))
-                .filter(order -> order.getPrice() <= execution.getPrice())
-                .sorted(Comparator.comparing(OrderEntity::getEntryDate))
-                .collect(Collectors.toList());
+    private boolean isCommitted(MatchedFills matchedFills){
+        //Settled the way the execution log settles it, by looking for the fills the transaction inserted
+        List<FillEntity> fills = matchedFills.getFills();
+        if(fills.isEmpty()){
+            return true;
+        }
+        try {
+            return fillRepository.existsByExecutionIdIn(fills
+                    .stream()
+                    .map(FillEntity::getExecutionId)
+                    .distinct()
+                    .collect(Collectors.toList()));
+        }
+        catch (RuntimeException exception) {
+            log.error("Could not tell whether {} fills committed, keeping them in memory", fills.size(), exception);
+            return true;
+        }
+    }
+
+    private void revertFills(MatchedFills matchedFills){
+        List<FillEntity> fills = matchedFills.getFills();
+        List<RestingOrder> ordersOfFills = matchedFills.getOrdersOfFills();
+        //Latest fill first, undone in the reverse order they were applied
+        for (int i = fills.size() - 1; i >= 0; i--) {
+            orderService.revertFill(ordersOfFills.get(i), fills.get(i).getQuantity());
+        }
+    }
+
+    /**
+     * Writes what matching produced once the stripe lock is released or the partition thread is done with it,
+     * so no other match waits on a database round trip.
+     */
+    private void persistFills(List<ExecutionEntity> executionEntities, MatchedFills matchedFills){
+        List<FillEntity> fills = matchedFills.getFills();
+        fillRepository.insertAll(fills);
+        orderService.applyFills(matchedFills.getFilledOrders());
+        logExecutions(executionEntities, fills);
+    }
+
+    private void matchExecution(ExecutionEntity execution,MatchedFills matchedFills){
+        if(execution.getType().equals(ExecutionType.OFFER)){
+            handleOfferExecutions(execution,matchedFills);
+        }
+        else{
+            handleAskExecutions(execution,matchedFills);
+        }
+    }
+
+    private void handleOfferExecutions(ExecutionEntity execution,MatchedFills matchedFills){
+        //An offer is filled against buy orders, walking down from the best bid
+        OrderBook buyOrders = orderService.getOrderBook(execution.getBookName(), execution.getInstrumentId(), OrderType.BUY);
+        fillOrders(buyOrders,execution,matchedFills);
+    }
 
+    private void handleAskExecutions(ExecutionEntity execution,MatchedFills matchedFills){
+        //An ask is filled against sell orders, walking up from the best offer
+        OrderBook sellOrders = orderService.getOrderBook(execution.getBookName(), execution.getInstrumentId(), OrderType.SELL);
+        fillOrders(sellOrders,execution,matchedFills);
+    }
+
+    private void fillOrders(OrderBook orderBook,ExecutionEntity execution,MatchedFills matchedFills){
+        long limitPriceTicks = execution.getPriceTicks();
         int remainingQuantity = execution.getQuantity();
-        for (OrderEntity sellOrder : sellOrders) {
-            if (remainingQuantity > 0) {
-                int sellOrderQuantity = sellOrder.getRemainingQuantity();
-                int executionQuantity = Math.min(sellOrderQuantity, remainingQuantity);
-                sellOrder.setRemainingQuantity(sellOrderQuantity - executionQuantity);
-                orderService.updateOrder(sellOrder);
-                remainingQuantity -= executionQuantity;
-            } else {
+        while (remainingQuantity > 0) {
+            RestingOrder order = orderBook.peekBest(limitPriceTicks);
+            if (order == null) {
                 break;
             }
+            int executionQuantity = Math.min(order.getRemainingQuantity(), remainingQuantity);
+            if (!orderBook.fill(order, executionQuantity)) {
+                //Edited or deleted since it was peeked, the next best order takes its place
+                continue;
+            }
+            matchedFills.add(FillEntity.of(execution.getExecutionId(), order.getOrderId(), executionQuantity, execution.getPrice()), order);
+            remainingQuantity -= executionQuantity;
         }
     }
 
     @Override
     public void start() {
-        executionRepository.findAll().stream().forEach(execution->{
-            executionsMap.putIfAbsent(execution.getBookName(), new ArrayList<>());
-            executionsMap.computeIfPresent(execution.getBookName(),(key,value)->{
-                value.add(execution);
-                return value;
-            });
-        });
+        if (bookResidency != null) {
+            //Executions of a book are loaded when the book is first touched
+            isRunning = true;
+            return;
+        }
+        boolean isRestored = restoreFromSnapshot();
+        if(!isRestored){
+            bookHydrator.hydrate("executions", executionRepository.findBookNames(), this::loadExecutions, this::addExecutions);
+        }
+        if(executionSnapshots != null){
+            if(!isRestored){
+                Long storedHighWaterMark = executionRepository.findMaxExecutionId();
+                highestExecutionId.set(storedHighWaterMark == null ? 0 : storedHighWaterMark);
+            }
+            executionSnapshots.begin(isRestored);
+        }
         isRunning = true;
     }
 
+    private List<ExecutionEntity> loadExecutions(String bookName, ExecutionEntity last, int pageSize) {
+        Long lastExecutionId = last == null ? Long.valueOf(0) : last.getExecutionId();
+        return executionRepository.findByBookNameAndExecutionIdGreaterThanOrderByExecutionId(bookName, lastExecutionId, PageRequest.of(0, pageSize));
+    }
+
+    @Override
+    public void load(String bookName) {
+        //Executions still in the log would be missing from what the database returns
+        awaitPendingWrites();
+        executionsMap.removeBook(bookName);
+        bookHydrator.hydrateBook(bookName, this::loadExecutions, this::addExecutions);
+    }
+
+    @Override
+    public long size(String bookName) {
+        return executionsMap.size(bookName);
+    }
+
+    @Override
+    public void evict(String bookName) {
+        //Executions still in the log would be lost with the book, a later load reads them from the database
+        awaitPendingWrites();
+        executionsMap.removeBook(bookName);
+    }
+
     @Override
     public void stop() {
+        //Lazily loaded state only covers the resident books, it is never snapshotted
+        if(executionSnapshots != null && bookResidency == null && isRunning){
+            executionSnapshots.writeSnapshot(executionsMap.values(), highestExecutionId.get());
+            executionSnapshots.close();
+        }
         executionsMap.clear();
-        locks.clear();
         isRunning = false;
     }
 
@@ -155,4 +576,44 @@ public class ExecutionServiceImpl implements ExecutionService, SmartLifecycle {
     public boolean isRunning() {
         return isRunning;
     }
+
+    @Override
+    public int getPhase() {
+        //Start after the sequencer and write-behind logs, and before the execution tickets triggering executions
+        return SmartLifecycle.DEFAULT_PHASE - 1;
+    }
+
+    /**
+     * Fills matched by the executions of a transaction, collected from whichever threads match them.
+     * An order filled several times is written once with its final remaining quantity.
+     */
+    private static final class MatchedFills {
+
+        private final List<FillEntity> fills = new ArrayList<>();
+
+        private final List<RestingOrder> ordersOfFills = new ArrayList<>();
+
+        private final Map<Long, RestingOrder> filledOrders = new LinkedHashMap<>();
+
+        synchronized void add(FillEntity fill, RestingOrder filledOrder) {
+            fills.add(fill);
+            ordersOfFills.add(filledOrder);
+            filledOrders.put(filledOrder.getOrderId(), filledOrder);
+        }
+
+        /**
+         * @return The resting order of each fill, in the order of {@link #getFills()}.
+         */
+        synchronized List<RestingOrder> getOrdersOfFills() {
+            return new ArrayList<>(ordersOfFills);
+        }
+
+        synchronized List<FillEntity> getFills() {
+            return new ArrayList<>(fills);
+        }
+
+        synchronized List<RestingOrder> getFilledOrders() {
+            return new ArrayList<>(filledOrders.values());
+        }
+    }
 }
@@ -0,0 +1,294 @@
+package com.orderManagement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orderManagement.exceptions.ExecutionQueueFullException;
+import com.orderManagement.model.Execution;
+import com.orderManagement.model.ExecutionResult;
+import com.orderManagement.model.ExecutionTicket;
+import com.orderManagement.model.ExecutionTicketStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Accepts executions into a bounded queue and answers with a ticket right away, instead of holding the request
+ * until the execution is matched and persisted. A single thread takes executions off the queue in arrival order
+ * and triggers them in batches, each batch in one transaction. The outcome is kept on the ticket and, when the
+ * submitter gave a callback URL, posted to it. Callbacks are only sent to the hosts listed in
+ * {@code app.executions.async.callback-hosts}. Completed tickets are forgotten after the retention time.
+ * The bean only exists when {@code app.executions.async.enabled=true}.
+ */
+@Service
+@ConditionalOnProperty(name = "app.executions.async.enabled", havingValue = "true")
+@Slf4j
+public class ExecutionTicketService implements SmartLifecycle, Runnable {
+
+    private final ExecutionService executionService;
+
+    private final ObjectMapper objectMapper;
+
+    private final ArrayBlockingQueue<ExecutionTicket> queue;
+
+    private final int batchSize;
+
+    private final long ticketRetentionMillis;
+
+    private final Duration callbackTimeout;
+
+    private final HttpClient httpClient;
+
+    private final Set<String> callbackHosts;
+
+    private final ConcurrentHashMap<Long, ExecutionTicket> tickets = new ConcurrentHashMap<>();
+
+    private final ConcurrentLinkedQueue<ExecutionTicket> completedTickets = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong lastTicketId = new AtomicLong();
+
+    private final AtomicLong failedCallbacks = new AtomicLong();
+
+    private final Thread worker;
+
+    private volatile boolean isRunning;
+
+    public ExecutionTicketService(ExecutionService executionService, ObjectMapper objectMapper,
+                                  @Value("${app.executions.async.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${app.executions.async.batch-size:100}") int batchSize,
+                                  @Value("${app.executions.async.ticket-retention-ms:600000}") long ticketRetentionMillis,
+                                  @Value("${app.executions.async.callback-timeout-ms:5000}") long callbackTimeoutMillis,
+                                  @Value("${app.executions.async.callback-hosts:}") String callbackHosts) {
+        if (queueCapacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Execution queue capacity and batch size must be positive");
+        }
+        this.executionService = executionService;
+        this.objectMapper = objectMapper;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.ticketRetentionMillis = ticketRetentionMillis;
+        this.callbackTimeout = Duration.ofMillis(callbackTimeoutMillis);
+        this.httpClient = HttpClient.newBuilder().connectTimeout(callbackTimeout).build();
+        this.callbackHosts = Arrays
+                .stream(callbackHosts.split(","))
+                .map(String::trim)
+                .filter(host -> !host.isEmpty())
+                .map(String::toLowerCase)
+                .collect(Collectors.toSet());
+        this.worker = new Thread(this, "execution-tickets");
+        this.worker.setDaemon(true);
+    }
+
+    /**
+     * Queues an execution to be triggered in the background.
+     *
+     * @param execution   the execution to trigger.
+     * @param callbackUrl optional http or https URL the completed ticket is posted to.
+     * @return The queued ticket.
+     * @throws ExecutionQueueFullException if the queue holds as many executions as it can take.
+     * @throws IllegalArgumentException    if the callback URL is not an absolute http or https URL to an allowed host.
+     * @throws IllegalStateException       if the service is stopped.
+     */
+    public ExecutionTicket submit(Execution execution, String callbackUrl) throws ExecutionQueueFullException {
+        if (!isRunning) {
+            throw new IllegalStateException("Execution tickets are not accepted while the service is stopped");
+        }
+        if (callbackUrl != null) {
+            validateCallbackUrl(callbackUrl);
+        }
+        ExecutionTicket executionTicket = new ExecutionTicket();
+        executionTicket.setTicketId(lastTicketId.incrementAndGet());
+        executionTicket.setStatus(ExecutionTicketStatus.QUEUED);
+        executionTicket.setExecution(execution);
+        executionTicket.setCallbackUrl(callbackUrl);
+        executionTicket.setSubmittedAt(LocalDateTime.now());
+        tickets.put(executionTicket.getTicketId(), executionTicket);
+        if (!queue.offer(executionTicket)) {
+            tickets.remove(executionTicket.getTicketId());
+            throw new ExecutionQueueFullException("Execution queue is full with " + queue.size() + " executions, retry later.");
+        }
+        //Stopped meanwhile, a ticket still queued here is taken back, one already taken is completed by the worker or stop
+        if (!isRunning && queue.remove(executionTicket)) {
+            tickets.remove(executionTicket.getTicketId());
+            throw new IllegalStateException("Execution tickets are not accepted while the service is stopped");
+        }
+        return executionTicket;
+    }
+
+    /**
+     * @param ticketId id of the ticket.
+     * @return The latest state of the ticket, empty if it is unknown or was forgotten after its retention time.
+     */
+    public Optional<ExecutionTicket> getTicket(long ticketId) {
+        return Optional.ofNullable(tickets.get(ticketId));
+    }
+
+    /**
+     * @return The number of executions waiting in the queue.
+     */
+    public int getQueuedExecutions() {
+        return queue.size();
+    }
+
+    /**
+     * @return The number of callbacks that could not be delivered.
+     */
+    public long getFailedCallbacks() {
+        return failedCallbacks.get();
+    }
+
+    private void validateCallbackUrl(String callbackUrl) {
+        URI uri;
+        try {
+            uri = URI.create(callbackUrl);
+        } catch (IllegalArgumentException exception) {
+            throw new IllegalArgumentException("Callback URL " + callbackUrl + " is malformed.");
+        }
+        if (!uri.isAbsolute() || uri.getHost() == null || !("http".equals(uri.getScheme()) || "https".equals(uri.getScheme()))) {
+            throw new IllegalArgumentException("Callback URL " + callbackUrl + " must be an absolute http or https URL.");
+        }
+        if (!callbackHosts.contains(uri.getHost().toLowerCase())) {
+            throw new IllegalArgumentException("Callback host " + uri.getHost() + " is not allowed.");
+        }
+    }
+
+    @Override
+    public void run() {
+        List<ExecutionTicket> batch = new ArrayList<>(batchSize);
+        //Executions accepted before a stop are still run
+        while (isRunning || !queue.isEmpty()) {
+            ExecutionTicket first;
+            try {
+                first = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException exception) {
+                continue;
+            }
+            if (first != null) {
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                trigger(batch);
+                batch.clear();
+            }
+            forgetExpiredTickets();
+        }
+    }
+
+    private void trigger(List<ExecutionTicket> batch) {
+        List<Execution> executions = batch
+                .stream()
+                .map(ExecutionTicket::getExecution)
+                .collect(Collectors.toList());
+        List<ExecutionResult> results;
+        try {
+            results = executionService.triggerExecutions(executions);
+        } catch (RuntimeException exception) {
+            log.error("Failed to trigger {} queued executions. Exception {}", batch.size(), exception.getMessage());
+            batch.forEach(executionTicket -> complete(executionTicket, ExecutionTicketStatus.FAILED, exception.getMessage()));
+            return;
+        }
+        try {
+            executionService.awaitFillPersistence();
+        } catch (RuntimeException exception) {
+            //The executions are committed already, only the flush of their fills is late
+            log.warn("Fills of {} queued executions were not acknowledged. Exception {}", batch.size(), exception.getMessage());
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            ExecutionResult result = results.get(i);
+            complete(batch.get(i), result.isExecuted() ? ExecutionTicketStatus.EXECUTED : ExecutionTicketStatus.REJECTED, result.getMessage());
+        }
+    }
+
+    private void complete(ExecutionTicket executionTicket, ExecutionTicketStatus status, String message) {
+        //Replaced rather than updated, so readers of the map see a ticket in one consistent state
+        ExecutionTicket completedTicket = executionTicket.complete(status, message);
+        tickets.put(completedTicket.getTicketId(), completedTicket);
+        completedTickets.add(completedTicket);
+        if (completedTicket.getCallbackUrl() != null) {
+            postCallback(completedTicket);
+        }
+    }
+
+    private void postCallback(ExecutionTicket executionTicket) {
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(executionTicket);
+        } catch (IOException exception) {
+            log.error("Could not serialize ticket {} for its callback. Exception {}", executionTicket.getTicketId(), exception.getMessage());
+            failedCallbacks.incrementAndGet();
+            return;
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(executionTicket.getCallbackUrl()))
+                .timeout(callbackTimeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        //Sent without waiting, a slow callback receiver must not hold up the executions behind it
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, throwable) -> {
+            if (throwable != null || response.statusCode() >= 300) {
+                failedCallbacks.incrementAndGet();
+                log.warn("Callback of ticket {} to {} failed. {}", executionTicket.getTicketId(), executionTicket.getCallbackUrl(),
+                        throwable != null ? throwable.getMessage() : "Status " + response.statusCode());
+            }
+        });
+    }
+
+    private void forgetExpiredTickets() {
+        LocalDateTime expiry = LocalDateTime.now().minus(Duration.ofMillis(ticketRetentionMillis));
+        ExecutionTicket oldest;
+        while ((oldest = completedTickets.peek()) != null && oldest.getCompletedAt().isBefore(expiry)) {
+            completedTickets.poll();
+            tickets.remove(oldest.getTicketId(), oldest);
+        }
+    }
+
+    @Override
+    public void start() {
+        isRunning = true;
+        worker.start();
+        log.info("Started execution tickets with a queue of {} executions", queue.remainingCapacity());
+    }
+
+    @Override
+    public void stop() {
+        isRunning = false;
+        try {
+            worker.join();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        //Submitted while the worker was exiting, failed rather than left queued forever
+        List<ExecutionTicket> leftTickets = new ArrayList<>();
+        queue.drainTo(leftTickets);
+        leftTickets.forEach(executionTicket -> complete(executionTicket, ExecutionTicketStatus.FAILED, "Execution service stopped before the execution was triggered"));
+    }
+
+    @Override
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    @Override
+    public int getPhase() {
+        //Start after and stop before the services triggering the executions, the queue is drained while they still run
+        return SmartLifecycle.DEFAULT_PHASE;
+    }
+}
@@ -2,9 +2,16 @@ package com.orderManagement.service;
 
 import com.orderManagement.entity.OrderEntity;
 import com.orderManagement.exceptions.*;
+import com.orderManagement.matching.OrderBook;
+import com.orderManagement.matching.RestingOrder;
+import com.orderManagement.model.BookDepth;
 import com.orderManagement.model.Order;
+import com.orderManagement.model.OrderType;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * The OrderService interface defines the contract for services that manage order-related operations.
@@ -17,26 +24,50 @@ public interface OrderService {
      * @return Order object after new order is successfully placed or throws BookClosedException,OrderAlreadyExistsException.
      */
     Order addOrder(Order order) throws BookClosedException, OrderAlreadyExistsException,OrderNotAvailableException;
+    /**
+     * Adds a chunk of new orders in one transaction. Book state is validated once per distinct book of the chunk.
+     *
+     * @param orders new orders to add.
+     * @return The ids assigned to the orders, in input order.
+     */
+    List<Long> addOrders(List<Order> orders) throws BookClosedException,OrderNotAvailableException;
     /**
      * Edits an order Management system if book is not closed.
      *
      * @param order new edited order.
      * @return Edited object order after order is successfully edited or throws BookDoesNotExistsException,BookClosedException,OrderNotAvailableException.
      */
-    Order editOrder(Order order) throws BookDoesNotExistsException,BookClosedException, OrderNotAvailableException, InactiveOrderException;
+    Order editOrder(Order order) throws BookDoesNotExistsException,BookClosedException, OrderNotAvailableException, InactiveOrderException, OrderConflictException;
     /**
      * Deletes an order Management system if book is not closed.
      *
      * @param orderId id of Order to be deleted.
      */
-    void deleteOrder(Long orderId) throws BookDoesNotExistsException,BookClosedException,OrderNotAvailableException;
+    void deleteOrder(Long orderId) throws BookDoesNotExistsException,BookClosedException,OrderNotAvailableException, InactiveOrderException, OrderConflictException;
     /**
      * Given a bookName it retrieves all active orders.
      *
      * @param bookName name of the book for which active orders needs to be fetched.
-     * @return List of active orders  for a book.
+     * @return List of active orders  for a book, materialized from the resident orders.
      */
     List<OrderEntity> getActiveOrdersForBook(String bookName);
+
+    /**
+     * Looks up an active order by its id in memory.
+     *
+     * @param orderId id of the order.
+     * @return The order if it is active, empty otherwise.
+     */
+    Optional<Order> getActiveOrder(Long orderId);
+
+    /**
+     * Rebuilds an order as it was at a given time from its events.
+     *
+     * @param orderId id of the order.
+     * @param asOf    The time to rebuild the order at.
+     * @return The order with its remaining quantity and activity as of that time, or empty if it did not exist yet or event sourcing is disabled.
+     */
+    Optional<OrderEntity> getOrderAsOf(Long orderId, LocalDateTime asOf);
     /**
      * Updates data for an order object.
      *
@@ -44,11 +75,49 @@ public interface OrderService {
      */
     void updateOrder(OrderEntity orderEntity);
 
+    /**
+     * Persists the remaining quantity of matched resting orders through order entities materialized from them, in one batch.
+     *
+     * @param restingOrders resting orders that have been filled by executions.
+     */
+    void applyFills(List<RestingOrder> restingOrders);
+
+    /**
+     * Takes back a fill applied to a resting order and its order book by a transaction that rolled back.
+     * Orders amended, cancelled or evicted since are left alone, their state is read from the database again.
+     *
+     * @param restingOrder resting order the fill was applied to.
+     * @param quantity     quantity of the fill.
+     */
+    void revertFill(RestingOrder restingOrder, int quantity);
+
+    /**
+     * Waits until applied fills are committed when write-behind runs with ack-after-flush durability.
+     * Returns immediately when fills are written synchronously or acknowledged immediately.
+     * Must be called once the transaction applying the fills has committed, not inside it.
+     */
+    void awaitFillPersistence();
+
+    /**
+     * Waits until every order change made so far is in the ORDERS table, whatever write path it took.
+     */
+    void awaitPendingWrites();
+
+    /**
+     * Aggregates the best price levels of both sides of a book for an instrument.
+     *
+     * @param bookName     name of the book.
+     * @param instrumentId instrument id.
+     * @param levels       maximum number of price levels per side.
+     * @return The depth of the book, with empty sides if no order rests on them.
+     */
+    BookDepth getDepth(String bookName, int instrumentId, int levels);
+
     /**
      * Given a bookName it retrieves all completed orders.
      *
      * @param bookName name of the book for which completed orders needs to be fetched.
-     * @return List of completed orders  for a book.
+     * @return List of completed orders  for a book, materialized from the resident orders.
      */
     List<OrderEntity> getCompletedOrdersForBook(String bookName);
 
@@ -56,7 +125,26 @@ public interface OrderService {
      * Given a bookName it retrieves all pending orders.
      *
      * @param bookName name of the book for which pending orders needs to be fetched.
-     * @return List of pending orders  for a book.
+     * @return List of pending orders  for a book, materialized from the resident orders.
      */
     List<OrderEntity> getPendingOrdersForBook(String bookName);
+
+    /**
+     * Given a bookName it retrieves all active orders split into completed and pending ones, both read from one
+     * snapshot, so an order completed meanwhile is in exactly one of them.
+     *
+     * @param bookName name of the book for which orders needs to be fetched.
+     * @return Completed orders under {@code true} and pending orders under {@code false}, materialized from the resident orders.
+     */
+    Map<Boolean, List<OrderEntity>> getOrdersByCompletionForBook(String bookName);
+
+    /**
+     * Given a bookName, instrument and side it retrieves the price-time ordered book of resting orders.
+     *
+     * @param bookName name of the book.
+     * @param instrumentId id of the instrument.
+     * @param type side of the orders.
+     * @return Order book holding pending orders for the given book, instrument and side.
+     */
+    OrderBook getOrderBook(String bookName, int instrumentId, OrderType type);
 }
@@ -3,15 +3,41 @@ package com.orderManagement.service;
 import com.orderManagement.entity.BookEntity;
 import com.orderManagement.entity.OrderEntity;
 import com.orderManagement.exceptions.*;
+import com.orderManagement.matching.BookSequencer;
+import com.orderManagement.matching.OrderBook;
+import com.orderManagement.matching.RestingOrder;
+import com.orderManagement.model.BookDepth;
 import com.orderManagement.model.Order;
+import com.orderManagement.model.OrderEventType;
+import com.orderManagement.model.OrderType;
+import com.orderManagement.model.PriceLevelDepth;
+import com.orderManagement.persistence.BookHydrator;
+import com.orderManagement.persistence.BookResidency;
+import com.orderManagement.persistence.FillDurability;
+import com.orderManagement.persistence.FillWriter;
+import com.orderManagement.persistence.OrderEventLog;
+import com.orderManagement.persistence.ResidentState;
+import com.orderManagement.persistence.SnapshotLog;
+import com.orderManagement.persistence.SnapshotStore;
+import com.orderManagement.persistence.StateCodecs;
 import com.orderManagement.repository.OrdersRepository;
-import jakarta.transaction.Transactional;
+import com.orderManagement.store.BookEntries;
+import com.orderManagement.store.BookStore;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -19,7 +45,8 @@ import java.util.stream.Collectors;
  * This service manages all order related operations.
  */
 @Service
-public class OrderServiceImpl implements OrderService, SmartLifecycle {
+@Slf4j
+public class OrderServiceImpl implements OrderService, SmartLifecycle, ResidentState {
 
     private final BookService bookService;
 
@@ -27,14 +54,101 @@ public class OrderServiceImpl implements OrderService, SmartLifecycle {
 
     private volatile boolean isRunning;
 
-    private ConcurrentHashMap<String, List<OrderEntity>> bookOrdersMap = new ConcurrentHashMap<>();
+    //Active orders are only held as resting orders, entities are materialized from them when asked for
+    private BookStore<RestingOrder> bookOrdersMap = new BookStore<>();
 
-    private final ConcurrentHashMap<Long, Object> idLocks = new ConcurrentHashMap<>();
+    private static final long COMPLETED_KEY = 1L << 62;
+
+    //Pending orders are keyed by their id and completed ones by their id with COMPLETED_KEY set, so one write moves
+    //an order between them and one snapshot reads both
+    private BookStore<RestingOrder> ordersByStatus = new BookStore<>();
+
+    private ConcurrentHashMap<String, OrderBook> orderBooks = new ConcurrentHashMap<>();
+
+    private ConcurrentHashMap<Long, RestingOrder> activeOrdersById = new ConcurrentHashMap<>();
+
+    //One instance of each book name, shared by the resting orders of the book
+    private final ConcurrentHashMap<String, String> bookNames = new ConcurrentHashMap<>();
+
+    //Time priority of the orders, assigned as they enter their book
+    private final AtomicLong arrivalSequence = new AtomicLong();
+
+    //Orders claimed in memory by an amend or cancel whose transaction has not completed yet
+    private final Set<Long> claimedOrderIds = ConcurrentHashMap.newKeySet();
+
+    private static final int MAX_CLAIM_ATTEMPTS = 3;
+
+    private final BookHydrator bookHydrator;
+
+    private BookSequencer bookSequencer;
+
+    private FillWriter fillWriter;
+
+    private BookResidency bookResidency;
+
+    private SnapshotLog<OrderEntity> orderSnapshots;
+
+    private OrderEventLog orderEventLog;
+
+    private final AtomicLong highestOrderId = new AtomicLong();
 
     @Autowired
-    public OrderServiceImpl(BookService bookService, OrdersRepository ordersRepository) {
+    public OrderServiceImpl(BookService bookService, OrdersRepository ordersRepository, BookHydrator bookHydrator) {
         this.bookService = bookService;
         this.ordersRepository = ordersRepository;
+        this.bookHydrator = bookHydrator;
+    }
+
+    /**
+     * Routes order book mutations through the single writer sequencer. Only wired when the sequencer is enabled.
+     *
+     * @param bookSequencer sequencer applying mutations of a book one at a time.
+     */
+    @Autowired(required = false)
+    public void setBookSequencer(BookSequencer bookSequencer) {
+        this.bookSequencer = bookSequencer;
+    }
+
+    /**
+     * Writes order fills behind the matching path. Only wired when write-behind is enabled.
+     *
+     * @param fillWriter writer coalescing and flushing filled orders in batches.
+     */
+    @Autowired(required = false)
+    public void setFillWriter(FillWriter fillWriter) {
+        this.fillWriter = fillWriter;
+    }
+
+    /**
+     * Loads books on first touch and evicts cold ones instead of keeping every book in memory.
+     * Only wired when lazy hydration is enabled.
+     *
+     * @param bookResidency tracker of the books held in memory.
+     */
+    @Autowired(required = false)
+    public void setBookResidency(BookResidency bookResidency) {
+        this.bookResidency = bookResidency;
+        bookResidency.register(this);
+    }
+
+    /**
+     * Restores active orders from a snapshot and journal on restart. Only wired when snapshots are enabled.
+     *
+     * @param snapshotStore store of the snapshot logs.
+     */
+    @Autowired(required = false)
+    public void setSnapshotStore(SnapshotStore snapshotStore) {
+        this.orderSnapshots = snapshotStore.open("orders", StateCodecs.ORDERS);
+    }
+
+    /**
+     * Appends order events instead of updating orders in place. Only wired when event sourcing is enabled.
+     *
+     * @param orderEventLog log of order events applying them to the orders table behind the requests.
+     */
+    @Autowired(required = false)
+    public void setOrderEventLog(OrderEventLog orderEventLog) {
+        this.orderEventLog = orderEventLog;
     }
 
     @Override
@@ -44,28 +158,78 @@ public class OrderServiceImpl implements OrderService, SmartLifecycle {
         if(bookService.isBookClosed(order.getBookName())){
             throw new BookClosedException("Book with the name " + order.getBookName() + " is closed.");
         }
-        if(Objects.nonNull(order.getOrderId())){
-            if(!order.getOrderId().equals(Long.valueOf(0))){
-                Optional<OrderEntity> orderEntity =  ordersRepository.findById(order.getOrderId());
-                if(orderEntity.isPresent()){
-                    throw new OrderAlreadyExistsException("Order with the orderID " + order.getOrderId() + " already exist.");
-                }
-                else{
-                    throw new OrderNotAvailableException("Unknown order " + order.getOrderId());
+        pinBook(order.getBookName());
+        try {
+            if(Objects.nonNull(order.getOrderId())){
+                if(!order.getOrderId().equals(Long.valueOf(0))){
+                    Optional<OrderEntity> orderEntity =  ordersRepository.findById(order.getOrderId());
+                    if(orderEntity.isPresent()){
+                        throw new OrderAlreadyExistsException("Order with the orderID " + order.getOrderId() + " already exist.");
+                    }
+                    else{
+                        throw new OrderNotAvailableException("Unknown order " + order.getOrderId());
+                    }
                 }
             }
+            OrderEntity orderEntity = saveNewOrder(OrderEntity.toEntity(order));
+            afterCommit(orderEntity.getBookName(), () -> {
+                journal(orderEntity);
+                RestingOrder restingOrder = indexActiveOrder(orderEntity);
+                sequenced(orderEntity.getBookName(), ()-> addToOrderBook(restingOrder));
+            }, () -> {});
+            return orderEntity.toBean();
+        }
+        finally {
+            unpinBook(order.getBookName());
         }
-        OrderEntity orderEntity = ordersRepository.save(OrderEntity.toEntity(order));
-        bookOrdersMap.putIfAbsent(orderEntity.getBookName(), new ArrayList<>());
-        bookOrdersMap.computeIfPresent(orderEntity.getBookName(),(key,value)->{
-            value.add(orderEntity);
-            return value;
-        });
-        return orderEntity.toBean();
     }
     @Override
     @Transactional
-    public Order editOrder(Order order) throws BookDoesNotExistsException,BookClosedException,OrderNotAvailableException,InactiveOrderException{
+    public List<Long> addOrders(List<Order> orders) throws BookClosedException,OrderNotAvailableException{
+        Set<String> bookNames = new LinkedHashSet<>();
+        for (Order order : orders) {
+            if(Objects.nonNull(order.getOrderId()) && !order.getOrderId().equals(Long.valueOf(0))){
+                throw new OrderNotAvailableException("Bulk order entry only accepts new orders. Received order id " + order.getOrderId());
+            }
+            bookNames.add(order.getBookName());
+        }
+        //Book state is checked once per distinct book instead of once per order
+        for (String bookName : bookNames) {
+            bookService.addBookIfDoesNotExists(bookName);
+            if(bookService.isBookClosed(bookName)){
+                throw new BookClosedException("Book with the name " + bookName + " is closed.");
+            }
+        }
+        Set<String> pinnedBooks = new LinkedHashSet<>();
+        try {
+            for (String bookName : bookNames) {
+                pinBook(bookName);
+                pinnedBooks.add(bookName);
+            }
+            List<OrderEntity> orderEntities = saveNewOrders(orders
+                    .stream()
+                    .map(OrderEntity::toEntity)
+                    .collect(Collectors.toList()));
+            Map<String, List<OrderEntity>> ordersByBook = orderEntities
+                    .stream()
+                    .collect(Collectors.groupingBy(OrderEntity::getBookName, LinkedHashMap::new, Collectors.toList()));
+            ordersByBook.forEach((bookName, bookOrders) -> afterCommit(bookName, () -> {
+                bookOrders.forEach(this::journal);
+                List<RestingOrder> restingOrders = indexActiveOrders(bookName, bookOrders);
+                sequenced(bookName, () -> restingOrders.forEach(this::addToOrderBook));
+            }, () -> {}));
+            return orderEntities
+                    .stream()
+                    .map(OrderEntity::getOrderId)
+                    .collect(Collectors.toList());
+        }
+        finally {
+            pinnedBooks.forEach(this::unpinBook);
+        }
+    }
+    @Override
+    @Transactional
+    public Order editOrder(Order order) throws BookDoesNotExistsException,BookClosedException,OrderNotAvailableException,InactiveOrderException,OrderConflictException{
         boolean isBookAvailable = bookService.isBookAvailable(order.getBookName());
         if(!isBookAvailable){
             throw new BookDoesNotExistsException("Book with the name " + order.getBookName() + " does not exists.");
@@ -73,30 +237,46 @@ public class OrderServiceImpl implements OrderService, SmartLifecycle {
         if(bookService.isBookClosed(order.getBookName())){
             throw new BookClosedException("Book with the name " + order.getBookName() + " is closed.");
         }
-        // take lock if we receive two edits on same order. Only one can win and other will get rejected with InactiveOrderException
-        synchronized (idLocks.computeIfAbsent(order.getOrderId(), k -> new Object())) {
-            Optional<OrderEntity> pastOrder = ordersRepository.findById(order.getOrderId());
+        pinBook(order.getBookName());
+        try {
+            flushPendingFill(order.getOrderId());
+            Optional<OrderEntity> pastOrder = findPastOrder(order.getOrderId());
             if(pastOrder.isPresent()){
                 if(!pastOrder.get().isActive()){
                     throw new InactiveOrderException("Order with id " + order.getOrderId() + " is not active, can not edit order.");
                 }
-                OrderEntity editedOrder = OrderEntity.toEntity(order);
-                editedOrder.setPreviousOrderId(order.getOrderId());
-                editedOrder = ordersRepository.save(editedOrder);
-                pastOrder.get().setActive(false);
-                ordersRepository.save(pastOrder.get());
-                updateInMemoryMap(pastOrder.get(),editedOrder,order.getBookName());
-                return editedOrder.toBean();
+                // if we receive two edits on same order only one can claim it, the other gets rejected with OrderConflictException
+                long claimedVersion = claimOrder(pastOrder.get());
+                try {
+                    OrderEntity editedOrder = OrderEntity.toEntity(order);
+                    editedOrder.setPreviousOrderId(order.getOrderId());
+                    editedOrder = saveNewOrder(editedOrder);
+                    saveOrder(OrderEventType.AMENDED, pastOrder.get());
+                    OrderEntity newOrder = editedOrder;
+                    afterCommit(order.getBookName(), () -> {
+                        deactivate(pastOrder.get(), claimedVersion);
+                        journal(newOrder);
+                        updateInMemoryMap(pastOrder.get(),newOrder,order.getBookName());
+                    }, () -> claimedOrderIds.remove(order.getOrderId()));
+                    return editedOrder.toBean();
+                } catch (RuntimeException exception) {
+                    claimedOrderIds.remove(order.getOrderId());
+                    throw exception;
+                }
             }
             else{
                 throw new OrderNotAvailableException("order with order id" + order.getOrderId() + " is not available in the system. Can not edit.");
             }
         }
+        finally {
+            unpinBook(order.getBookName());
+        }
     }
     @Override
     @Transactional
-    public void deleteOrder(Long orderId) throws BookDoesNotExistsException,BookClosedException,OrderNotAvailableException{
-        Optional<OrderEntity> pastOrder = ordersRepository.findById(orderId);
+    public void deleteOrder(Long orderId) throws BookDoesNotExistsException,BookClosedException,OrderNotAvailableException,InactiveOrderException,OrderConflictException{
+        flushPendingFill(orderId);
+        Optional<OrderEntity> pastOrder = findPastOrder(orderId);
         if(pastOrder.isPresent()){
             boolean isBookAvailable = bookService.isBookAvailable(pastOrder.get().getBookName());
             if(!isBookAvailable){
@@ -105,9 +285,26 @@ public class OrderServiceImpl implements OrderService, SmartLifecycle {
             if(bookService.isBookClosed(pastOrder.get().getBookName())){
                 throw new BookClosedException("Book with the name " + pastOrder.get().getBookName() + " is closed.");
             }
-            pastOrder.get().setActive(false);
-            ordersRepository.save(pastOrder.get());
-            updateInMemoryMap(pastOrder.get(),null,pastOrder.get().getBookName());
+            if(!pastOrder.get().isActive()){
+                throw new InactiveOrderException("Order with id " + orderId + " is not active, can not delete order.");
+            }
+            pinBook(pastOrder.get().getBookName());
+            try {
+                long claimedVersion = claimOrder(pastOrder.get());
+                try {
+                    saveOrder(OrderEventType.CANCELLED, pastOrder.get());
+                    afterCommit(pastOrder.get().getBookName(), () -> {
+                        deactivate(pastOrder.get(), claimedVersion);
+                        updateInMemoryMap(pastOrder.get(),null,pastOrder.get().getBookName());
+                    }, () -> claimedOrderIds.remove(orderId));
+                } catch (RuntimeException exception) {
+                    claimedOrderIds.remove(orderId);
+                    throw exception;
+                }
+            }
+            finally {
+                unpinBook(pastOrder.get().getBookName());
+            }
         }
         else{
             throw new OrderNotAvailableException("order with order id" + orderId + " is not available in the system. Can not edit.");
@@ -116,10 +313,26 @@ public class OrderServiceImpl implements OrderService, SmartLifecycle {
 
     @Override
     public List<OrderEntity> getActiveOrdersForBook(String bookName){
-        return bookOrdersMap
-                .getOrDefault(bookName,new ArrayList<>())
-                .stream()
-                .collect(Collectors.toList());
+        residentBook(bookName);
+        return toEntities(bookOrdersMap.values(bookName));
+    }
+
+    @Override
+    public Optional<Order> getActiveOrder(Long orderId){
+        if(bookResidency != null && !activeOrdersById.containsKey(orderId)){
+            //The book of the order may have been evicted, looking it up loads the book again
+            findPastOrder(orderId);
+        }
+        return Optional.ofNullable(activeOrdersById.get(orderId)).map(restingOrder -> restingOrder.toEntity().toBean());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<OrderEntity> getOrderAsOf(Long orderId, LocalDateTime asOf){
+        if(orderEventLog == null){
+            return Optional.empty();
+        }
+        return orderEventLog.findAsOf(orderId, asOf);
     }
     @Override
     public void updateOrder(OrderEntity orderEntity){
@@ -127,56 +340,601 @@ public class OrderServiceImpl implements OrderService, SmartLifecycle {
     }
 
     @Override
-    public List<OrderEntity> getCompletedOrdersForBook(String bookName) {
-        return getActiveOrdersForBook(bookName)
+    public void applyFills(List<RestingOrder> restingOrders){
+        restingOrders.forEach(this::moveIfComplete);
+        List<OrderEntity> filledOrders = restingOrders
                 .stream()
-                .filter(activeOrder->activeOrder.getRemainingQuantity() == 0)
+                .map(RestingOrder::toEntity)
                 .collect(Collectors.toList());
+        journalAfterCommit(restingOrders);
+        if(orderEventLog != null){
+            orderEventLog.appendAll(OrderEventType.FILLED, filledOrders);
+            return;
+        }
+        if(fillWriter != null){
+            markDirtyAfterCommit(restingOrders);
+            return;
+        }
+        //One JDBC batch of updates of the remaining quantity, saving the detached entities would read each one back first.
+        //Fills do not move the version, so a claim reading the order before or after them still gets through
+        ordersRepository.updateRemainingQuantities(filledOrders);
+    }
+
+    @Override
+    public void revertFill(RestingOrder restingOrder, int quantity){
+        //An evicted book is read back from the database, which never saw the fill
+        OrderBook orderBook = orderBooks.get(OrderBook.key(restingOrder.getBookName(), restingOrder.getInstrumentId(), restingOrder.getType()));
+        if(orderBook != null && orderBook.unfill(restingOrder, quantity, () -> activeOrdersById.get(restingOrder.getOrderId()) == restingOrder)){
+            indexByStatus(restingOrder);
+            //A fill of the order committed meanwhile journaled it with this fill still taken off
+            journal(restingOrder.toEntity());
+        }
+    }
+
+    private void journalAfterCommit(List<RestingOrder> filledOrders) {
+        //Like adds, edits and deletes, a fill only reaches the journal once it is committed
+        if (orderSnapshots == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            filledOrders.forEach(filledOrder -> journal(filledOrder.toEntity()));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                //Materialized now, so the journal ends with the latest remaining quantity even if fills commit out of order
+                filledOrders.forEach(filledOrder -> journal(filledOrder.toEntity()));
+            }
+        });
+    }
+
+    private void markDirtyAfterCommit(List<RestingOrder> filledOrders) {
+        //The writer commits on its own, a fill it wrote for a request that then rolled back would never be undone
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            filledOrders.forEach(filledOrder -> fillWriter.markDirty(filledOrder.toEntity()));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                //Materialized now, so the writer gets the latest remaining quantity even if fills commit out of order
+                filledOrders.forEach(filledOrder -> fillWriter.markDirty(filledOrder.toEntity()));
+            }
+        });
+    }
+
+    @Override
+    public void awaitFillPersistence(){
+        if(fillWriter != null && fillWriter.getDurability() == FillDurability.ACK_AFTER_FLUSH){
+            fillWriter.awaitFlush();
+        }
+    }
+
+    @Override
+    public void awaitPendingWrites(){
+        if(fillWriter != null){
+            fillWriter.awaitFlush();
+        }
+        if(orderEventLog != null){
+            orderEventLog.awaitMaterialized();
+        }
+    }
+
+    @Override
+    public List<OrderEntity> getCompletedOrdersForBook(String bookName) {
+        residentBook(bookName);
+        return toEntities(ordersByStatus.snapshot(bookName).values(COMPLETED_KEY, Long.MAX_VALUE));
     }
 
     @Override
     public List<OrderEntity> getPendingOrdersForBook(String bookName) {
-        return getActiveOrdersForBook(bookName)
+        residentBook(bookName);
+        return toEntities(ordersByStatus.snapshot(bookName).values(0, COMPLETED_KEY));
+    }
+
+    @Override
+    public Map<Boolean, List<OrderEntity>> getOrdersByCompletionForBook(String bookName) {
+        residentBook(bookName);
+        BookEntries.Snapshot<RestingOrder> orders = ordersByStatus.snapshot(bookName);
+        Map<Boolean, List<OrderEntity>> ordersByCompletion = new HashMap<>();
+        ordersByCompletion.put(true, toEntities(orders.values(COMPLETED_KEY, Long.MAX_VALUE)));
+        ordersByCompletion.put(false, toEntities(orders.values(0, COMPLETED_KEY)));
+        return ordersByCompletion;
+    }
+
+    private List<OrderEntity> toEntities(List<RestingOrder> restingOrders) {
+        return restingOrders
                 .stream()
-                .filter(activeOrder->activeOrder.getRemainingQuantity() != 0)
+                .map(RestingOrder::toEntity)
                 .collect(Collectors.toList());
     }
 
-    private void updateInMemoryMap(OrderEntity orderToRemove, OrderEntity orderToAdd,String bookName){
-        bookOrdersMap.computeIfPresent(bookName, (key,currentOrders)->{
-            List<OrderEntity> newList =  currentOrders
-                    .stream()
-                    .filter(currentOrder-> !currentOrder.getOrderId().equals(orderToRemove.getOrderId()))
-                    .collect(Collectors.toList());
-            if(orderToAdd != null){
-                newList.add(orderToAdd);
+    private Optional<OrderEntity> findPastOrder(Long orderId) {
+        //Active orders are served from memory, only unknown or inactive orders need a database round trip
+        RestingOrder activeOrder = orderId == null ? null : activeOrdersById.get(orderId);
+        if (activeOrder != null) {
+            return Optional.of(activeOrder.toEntity());
+        }
+        Optional<OrderEntity> storedOrder = ordersRepository.findById(orderId);
+        if (bookResidency != null && storedOrder.isPresent() && storedOrder.get().isActive()
+                && !bookResidency.isResident(storedOrder.get().getBookName())) {
+            //Work on the order as the book holds it once it is loaded again
+            residentBook(storedOrder.get().getBookName());
+            activeOrder = activeOrdersById.get(orderId);
+            if (activeOrder != null) {
+                return Optional.of(activeOrder.toEntity());
+            }
+        }
+        return storedOrder;
+    }
+
+    private OrderEntity saveNewOrder(OrderEntity orderEntity) {
+        if (orderEventLog == null) {
+            return ordersRepository.save(orderEntity);
+        }
+        orderEntity.setOrderId(orderEventLog.nextOrderId());
+        orderEventLog.append(OrderEventType.CREATED, orderEntity);
+        return orderEntity;
+    }
+
+    private List<OrderEntity> saveNewOrders(List<OrderEntity> orderEntities) {
+        if (orderEventLog == null) {
+            return ordersRepository.saveAll(orderEntities);
+        }
+        orderEntities.forEach(orderEntity -> orderEntity.setOrderId(orderEventLog.nextOrderId()));
+        orderEventLog.appendAll(OrderEventType.CREATED, orderEntities);
+        return orderEntities;
+    }
+
+    private void saveOrder(OrderEventType eventType, OrderEntity pastOrder) {
+        //Without event sourcing the orders table was already updated when the order was claimed
+        if (orderEventLog != null) {
+            OrderEntity deactivatedOrder = new OrderEntity(pastOrder.getOrderId(), pastOrder.getInstrumentId(),
+                    pastOrder.getQuantity(), pastOrder.getRemainingQuantity(), pastOrder.getEntryDate(), false,
+                    pastOrder.getType(), pastOrder.getPriceTicks(), pastOrder.getBookName(),
+                    pastOrder.getPreviousOrderId(), pastOrder.getVersion());
+            orderEventLog.append(eventType, deactivatedOrder);
+        }
+    }
+
+    /**
+     * Claims an order that is being amended or cancelled. Of concurrent requests on the same order,
+     * on this node or another sharing the database, exactly one gets through and the others are rejected
+     * with OrderConflictException, without holding a lock while the order is read.
+     * The resident order is left untouched, it only leaves memory once the transaction of the request commits.
+     *
+     * @param pastOrder The active order to deactivate.
+     * @return The version of the order once it is deactivated.
+     */
+    private long claimOrder(OrderEntity pastOrder) {
+        Long orderId = pastOrder.getOrderId();
+        if (orderEventLog != null) {
+            //Events are only written by this node and the orders table trails them, the in memory order is the claim
+            if (!claimedOrderIds.add(orderId)) {
+                throw new OrderConflictException("Order with id " + orderId + " is being amended or cancelled concurrently.");
+            }
+            //Ids are never reused, an order still resident under its id has not been amended or cancelled
+            if (!pastOrder.isActive() || !activeOrdersById.containsKey(orderId)) {
+                claimedOrderIds.remove(orderId);
+                throw new OrderConflictException("Order with id " + orderId + " was amended or cancelled concurrently.");
+            }
+            return pastOrder.getVersion();
+        }
+        long version = pastOrder.getVersion();
+        for (int attempt = 1; ; attempt++) {
+            if (ordersRepository.deactivate(orderId, version) == 1) {
+                return version + 1;
+            }
+            Optional<OrderEntity> storedOrder = ordersRepository.findById(orderId);
+            if (storedOrder.isEmpty() || !storedOrder.get().isActive()) {
+                //Amended or cancelled by another request, possibly on another node, so it no longer rests here either
+                log.warn("Order {} was deactivated concurrently at version {}", orderId, version);
+                if (activeOrdersById.containsKey(orderId)) {
+                    updateInMemoryMap(pastOrder, null, pastOrder.getBookName());
+                }
+                throw new OrderConflictException("Order with id " + orderId + " was amended or cancelled concurrently.");
+            }
+            if (attempt == MAX_CLAIM_ATTEMPTS) {
+                throw new OrderConflictException("Order with id " + orderId + " kept changing, retry the request.");
+            }
+            //Still active, but written by another node since it was read here
+            version = storedOrder.get().getVersion();
+        }
+    }
+
+    private void deactivate(OrderEntity pastOrder, long claimedVersion) {
+        pastOrder.setActive(false);
+        pastOrder.setVersion(claimedVersion);
+        journal(pastOrder);
+    }
+
+    /**
+     * Applies the in memory side of an order change once the transaction of the request commits,
+     * so a rollback leaves the resident orders and order books as they were. The book stays pinned until
+     * the transaction completes, when onCompletion runs whatever the outcome.
+     *
+     * @param bookName       The book of the change.
+     * @param inMemoryChange The change of the resident orders and order book.
+     * @param onCompletion   Release of what the request holds, such as the claim on an order.
+     */
+    private void afterCommit(String bookName, Runnable inMemoryChange, Runnable onCompletion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                inMemoryChange.run();
+            }
+            finally {
+                onCompletion.run();
+            }
+            return;
+        }
+        pinBook(bookName);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                inMemoryChange.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                onCompletion.run();
+                unpinBook(bookName);
             }
-            return newList;
         });
     }
 
-    @Override
-    public void start() {
-        List<OrderEntity> orders = ordersRepository.findAll();
-        List<OrderEntity> activeOrders = orders
+    private void journal(OrderEntity orderEntity) {
+        if (orderSnapshots != null && orderEntity.getOrderId() != null) {
+            highestOrderId.accumulateAndGet(orderEntity.getOrderId(), Math::max);
+            orderSnapshots.append(orderEntity);
+        }
+    }
+
+    private boolean restoreFromSnapshot() {
+        if (orderSnapshots == null) {
+            return false;
+        }
+        Optional<SnapshotLog.Restored<OrderEntity>> restored = orderSnapshots.restore();
+        if (restored.isEmpty()) {
+            return false;
+        }
+        //Later records hold the latest state of an order, orders deactivated by the journal drop out
+        Map<Long, OrderEntity> orders = new HashMap<>();
+        long highWaterMark = restored.get().getHighWaterMark();
+        for (OrderEntity order : restored.get().getRecords()) {
+            orders.put(order.getOrderId(), order);
+            highWaterMark = Math.max(highWaterMark, order.getOrderId());
+        }
+        List<OrderEntity> activeOrders = orders.values()
                 .stream()
-                .filter(order-> order.isActive())
+                .filter(OrderEntity::isActive)
+                .sorted(Comparator.comparing(OrderEntity::getEntryDate).thenComparing(OrderEntity::getOrderId))
                 .collect(Collectors.toList());
+        Long storedHighWaterMark = ordersRepository.findMaxOrderId();
+        long storedActiveOrders = ordersRepository.countByActive(true);
+        if (highWaterMark != (storedHighWaterMark == null ? 0 : storedHighWaterMark) || activeOrders.size() != storedActiveOrders) {
+            log.warn("Order snapshot diverges from the database (highest id {} against {}, {} active orders against {}), loading from the database",
+                    highWaterMark, storedHighWaterMark, activeOrders.size(), storedActiveOrders);
+            return false;
+        }
+        //Fills leave ids and counts as they are, a fill missing from the journal or journaled in error shows in the sum
+        long remainingQuantity = activeOrders.stream().mapToLong(OrderEntity::getRemainingQuantity).sum();
+        long storedRemainingQuantity = ordersRepository.sumRemainingQuantityByActive(true);
+        if (remainingQuantity != storedRemainingQuantity) {
+            log.warn("Order snapshot diverges from the database (remaining quantity {} against {}), loading from the database",
+                    remainingQuantity, storedRemainingQuantity);
+            return false;
+        }
+        activeOrders
+                .stream()
+                .collect(Collectors.groupingBy(OrderEntity::getBookName, LinkedHashMap::new, Collectors.toList()))
+                .forEach((bookName, bookOrders) -> indexActiveOrders(bookName, bookOrders).forEach(this::addToOrderBook));
+        highestOrderId.set(highWaterMark);
+        log.info("Restored {} active orders from the snapshot", activeOrders.size());
+        return true;
+    }
 
-        activeOrders.stream().forEach(activeOrder->{
-            bookOrdersMap.putIfAbsent(activeOrder.getBookName(), new ArrayList<>());
-            bookOrdersMap.computeIfPresent(activeOrder.getBookName(),(key,value)->{
-                value.add(activeOrder);
-                return value;
-            });
+    private void residentBook(String bookName) {
+        if (bookResidency != null) {
+            bookResidency.touch(bookName);
+        }
+    }
+
+    private void pinBook(String bookName) {
+        //Held while the order books and indexes of the book are changed, so the book is not evicted half way
+        if (bookResidency != null) {
+            bookResidency.pin(bookName);
+        }
+    }
+
+    private void unpinBook(String bookName) {
+        if (bookResidency != null) {
+            bookResidency.unpin(bookName);
+        }
+    }
+
+    /**
+     * Makes an order resident. Its resting order is what the indexes and, once added, the order book hold.
+     *
+     * @param orderEntity The active order.
+     * @return The resting order of the order, or {@code null} if it has no id.
+     */
+    private RestingOrder indexActiveOrder(OrderEntity orderEntity) {
+        RestingOrder restingOrder = residentOrderOf(orderEntity);
+        if (restingOrder != null) {
+            bookOrdersMap.put(restingOrder.getBookName(), restingOrder.getOrderId(), restingOrder);
+            ordersByStatus.put(restingOrder.getBookName(), statusKey(restingOrder), restingOrder);
+        }
+        return restingOrder;
+    }
+
+    private RestingOrder residentOrderOf(OrderEntity orderEntity) {
+        if (orderEntity.getOrderId() == null) {
+            return null;
+        }
+        String bookName = bookNames.computeIfAbsent(orderEntity.getBookName(), name -> name);
+        RestingOrder restingOrder = RestingOrder.from(orderEntity, bookName, arrivalSequence.incrementAndGet());
+        activeOrdersById.put(restingOrder.getOrderId(), restingOrder);
+        return restingOrder;
+    }
+
+    /**
+     * Makes the orders of a book resident like {@link #indexActiveOrder}, publishing them to each per-book index
+     * in a single write.
+     *
+     * @param bookName      The book of the orders.
+     * @param orderEntities The active orders, in arrival order.
+     * @return The resting orders of the orders that have an id, in the same order.
+     */
+    private List<RestingOrder> indexActiveOrders(String bookName, List<OrderEntity> orderEntities) {
+        String sharedBookName = bookNames.computeIfAbsent(bookName, name -> name);
+        List<RestingOrder> restingOrders = new ArrayList<>(orderEntities.size());
+        for (OrderEntity orderEntity : orderEntities) {
+            if (orderEntity.getOrderId() == null) {
+                continue;
+            }
+            RestingOrder restingOrder = RestingOrder.from(orderEntity, sharedBookName, arrivalSequence.incrementAndGet());
+            activeOrdersById.put(restingOrder.getOrderId(), restingOrder);
+            restingOrders.add(restingOrder);
+        }
+        bookOrdersMap.putAll(sharedBookName, orderIds(restingOrders), restingOrders);
+        ordersByStatus.putAll(sharedBookName, statusKeys(restingOrders), restingOrders);
+        return restingOrders;
+    }
+
+    private static long[] orderIds(List<RestingOrder> restingOrders) {
+        long[] orderIds = new long[restingOrders.size()];
+        for (int i = 0; i < orderIds.length; i++) {
+            orderIds[i] = restingOrders.get(i).getOrderId();
+        }
+        return orderIds;
+    }
+
+    private static long[] statusKeys(List<RestingOrder> restingOrders) {
+        long[] statusKeys = new long[restingOrders.size()];
+        for (int i = 0; i < statusKeys.length; i++) {
+            statusKeys[i] = statusKey(restingOrders.get(i));
+        }
+        return statusKeys;
+    }
+
+    private static long statusKey(RestingOrder restingOrder) {
+        return restingOrder.isComplete() ? restingOrder.getOrderId() | COMPLETED_KEY : restingOrder.getOrderId();
+    }
+
+    /**
+     * Replaces an active order by its amended version, or only removes it when no amended version is given.
+     * Each index of the book takes the change in a single write, so a report sees either the order or its amended
+     * version, never both or neither.
+     *
+     * @param orderToRemove The order to remove.
+     * @param orderToAdd    The amended version of the order, or {@code null}.
+     * @return The resting orders removed and added, either {@code null} if there is none.
+     */
+    private RestingOrder[] replaceActiveOrder(OrderEntity orderToRemove, OrderEntity orderToAdd) {
+        Long removedOrderId = orderToRemove.getOrderId();
+        RestingOrder removedOrder = removedOrderId == null ? null : activeOrdersById.remove(removedOrderId);
+        RestingOrder addedOrder = orderToAdd == null ? null : residentOrderOf(orderToAdd);
+        if (addedOrder == null || addedOrder.getBookName().equals(orderToRemove.getBookName())) {
+            updateIndexes(orderToRemove.getBookName(), removedOrderId, addedOrder);
+        } else {
+            //Moved to another book, no single write covers both
+            updateIndexes(orderToRemove.getBookName(), removedOrderId, null);
+            updateIndexes(addedOrder.getBookName(), null, addedOrder);
+        }
+        return new RestingOrder[]{removedOrder, addedOrder};
+    }
+
+    private void updateIndexes(String bookName, Long removedOrderId, RestingOrder addedOrder) {
+        //The removed order is either pending or completed, whichever it is by now
+        long[] removedIds = removedOrderId == null ? new long[0] : new long[]{removedOrderId};
+        long[] removedStatusKeys = removedOrderId == null ? new long[0] : new long[]{removedOrderId, removedOrderId | COMPLETED_KEY};
+        List<RestingOrder> addedOrders = addedOrder == null ? List.of() : List.of(addedOrder);
+        bookOrdersMap.update(bookName, removedIds, orderIds(addedOrders), addedOrders);
+        ordersByStatus.update(bookName, removedStatusKeys, statusKeys(addedOrders), addedOrders);
+    }
+
+    /**
+     * Files an active order as pending or completed by its remaining quantity. Every fill or taken back fill that
+     * completes an order or reopens it calls this afterwards, and the status is read within the write, so racing
+     * calls leave the order filed by its latest status. Orders amended or cancelled meanwhile are left out.
+     *
+     * @param restingOrder The order.
+     */
+    private void indexByStatus(RestingOrder restingOrder) {
+        long orderId = restingOrder.getOrderId();
+        ordersByStatus.rekey(restingOrder.getBookName(), new long[]{orderId, orderId | COMPLETED_KEY}, OrderServiceImpl::statusKey, restingOrder);
+    }
+
+    private void moveIfComplete(RestingOrder restingOrder) {
+        //Only a fill completing the order changes its status, partial fills leave the index alone
+        if (restingOrder.isComplete()) {
+            indexByStatus(restingOrder);
+        }
+    }
+
+    @Override
+    public OrderBook getOrderBook(String bookName, int instrumentId, OrderType type) {
+        residentBook(bookName);
+        return orderBookOf(bookName, instrumentId, type);
+    }
+
+    private OrderBook orderBookOf(String bookName, int instrumentId, OrderType type) {
+        return orderBooks.computeIfAbsent(OrderBook.key(bookName, instrumentId, type), key -> new OrderBook(type));
+    }
+
+    private void flushPendingFill(Long orderId) {
+        //Orders that are no longer in memory are read back from the database, so their latest fill has to be there first
+        if (fillWriter != null && orderId != null) {
+            fillWriter.flushOrder(orderId);
+        }
+        if (orderEventLog != null && orderId != null) {
+            orderEventLog.flushOrder(orderId);
+        }
+    }
+
+    @Override
+    public BookDepth getDepth(String bookName, int instrumentId, int levels) {
+        residentBook(bookName);
+        BookDepth bookDepth = new BookDepth();
+        bookDepth.setBookName(bookName);
+        bookDepth.setInstrumentId(instrumentId);
+        bookDepth.setBids(depthOf(bookName, instrumentId, OrderType.BUY, levels));
+        bookDepth.setAsks(depthOf(bookName, instrumentId, OrderType.SELL, levels));
+        bookDepth.setBestBid(bookDepth.getBids().isEmpty() ? null : bookDepth.getBids().get(0).getPrice());
+        bookDepth.setBestOffer(bookDepth.getAsks().isEmpty() ? null : bookDepth.getAsks().get(0).getPrice());
+        return bookDepth;
+    }
+
+    private List<PriceLevelDepth> depthOf(String bookName, int instrumentId, OrderType type, int levels) {
+        //Reading depth must not create empty order books for unknown instruments
+        OrderBook orderBook = orderBooks.get(OrderBook.key(bookName, instrumentId, type));
+        return orderBook == null ? new ArrayList<>() : orderBook.depth(levels);
+    }
+
+    private OrderBook orderBookFor(RestingOrder restingOrder) {
+        return orderBookOf(restingOrder.getBookName(), restingOrder.getInstrumentId(), restingOrder.getType());
+    }
+
+    private void addToOrderBook(RestingOrder restingOrder) {
+        if (restingOrder == null) {
+            return;
+        }
+        orderBookFor(restingOrder).add(restingOrder);
+    }
+
+    private void removeFromOrderBook(RestingOrder restingOrder) {
+        if (restingOrder == null) {
+            return;
+        }
+        orderBookFor(restingOrder).remove(restingOrder.getOrderId(), restingOrder.getPriceTicks());
+    }
+
+    private void updateInMemoryMap(OrderEntity orderToRemove, OrderEntity orderToAdd,String bookName){
+        RestingOrder[] replacedOrders = replaceActiveOrder(orderToRemove, orderToAdd);
+        sequenced(bookName, ()->{
+            removeFromOrderBook(replacedOrders[0]);
+            addToOrderBook(replacedOrders[1]);
         });
+    }
+
+    private void sequenced(String bookName, Runnable orderBookMutation){
+        if(bookSequencer == null){
+            orderBookMutation.run();
+            return;
+        }
+        AtomicBoolean isStarted = new AtomicBoolean();
+        try {
+            bookSequencer.execute(bookName, () -> {
+                isStarted.set(true);
+                orderBookMutation.run();
+            });
+        } catch (RuntimeException exception) {
+            if (isStarted.get()) {
+                throw exception;
+            }
+            //The change is committed or read from the database already, a stalled or stopped partition must not lose it.
+            //Order books guard their levels with their own monitor, so the change is safe here, it only loses its place in sequence
+            log.warn("Applying an order book change of book {} off its partition. {}", bookName, exception.getMessage());
+            orderBookMutation.run();
+        }
+    }
+
+    @Override
+    public void start() {
+        if (bookResidency != null) {
+            //Books are loaded when first touched
+            isRunning = true;
+            return;
+        }
+        boolean isRestored = restoreFromSnapshot();
+        if (!isRestored) {
+            //Only active orders are loaded. They are read in entry date order so that their position in a price level
+            //keeps time priority across a restart
+            bookHydrator.hydrate("active orders", ordersRepository.findBookNamesByActive(true), this::loadActiveOrders, this::addActiveOrders);
+        }
+        if (orderSnapshots != null) {
+            if (!isRestored) {
+                Long storedHighWaterMark = ordersRepository.findMaxOrderId();
+                highestOrderId.set(storedHighWaterMark == null ? 0 : storedHighWaterMark);
+            }
+            orderSnapshots.begin(isRestored);
+        }
         isRunning = true;
     }
 
+    private void addActiveOrders(List<OrderEntity> page) {
+        //A page holds orders of a single book
+        indexActiveOrders(page.get(0).getBookName(), page).forEach(this::addToOrderBook);
+    }
+
+    private List<OrderEntity> loadActiveOrders(String bookName, OrderEntity last, int pageSize) {
+        Pageable page = PageRequest.of(0, pageSize);
+        if (last == null) {
+            return ordersRepository.findOrdersOfBook(bookName, true, page);
+        }
+        return ordersRepository.findOrdersOfBookAfter(bookName, true, last.getEntryDate(), last.getOrderId(), page);
+    }
+
+    @Override
+    public void load(String bookName) {
+        //Drop whatever was written to the book while it was not resident, the database has it all
+        evict(bookName);
+        bookHydrator.hydrateBook(bookName, this::loadActiveOrders, this::addActiveOrders);
+    }
+
+    @Override
+    public long size(String bookName) {
+        return bookOrdersMap.size(bookName);
+    }
+
+    @Override
+    public void evict(String bookName) {
+        List<RestingOrder> orders = bookOrdersMap.values(bookName);
+        //Fills not yet written would be lost with the orders holding them
+        orders.forEach(order -> flushPendingFill(order.getOrderId()));
+        bookOrdersMap.removeBook(bookName);
+        ordersByStatus.removeBook(bookName);
+        orders.forEach(order -> activeOrdersById.remove(order.getOrderId()));
+        orderBooks.keySet().removeIf(key -> OrderBook.isKeyOfBook(key, bookName));
+        bookNames.remove(bookName);
+    }
+
     @Override
     public void stop() {
+        //Lazily loaded state only covers the resident books, it is never snapshotted
+        if (orderSnapshots != null && bookResidency == null && isRunning) {
+            orderSnapshots.writeSnapshot(activeOrdersById.values()
+                    .stream()
+                    .map(RestingOrder::toEntity)
+                    .collect(Collectors.toList()), highestOrderId.get());
+            orderSnapshots.close();
+        }
         bookOrdersMap.clear();
-        idLocks.clear();
+        ordersByStatus.clear();
+        orderBooks.clear();
+        activeOrdersById.clear();
+        bookNames.clear();
         isRunning = false;
     }
 
@@ -184,4 +942,10 @@ public class OrderServiceImpl implements OrderService, SmartLifecycle {
     public boolean isRunning() {
         return isRunning;
     }
+
+    @Override
+    public int getPhase() {
+        //Start after the sequencer and write-behind logs, and before the execution tickets triggering executions
+        return SmartLifecycle.DEFAULT_PHASE - 1;
+    }
 }
@@ -1,11 +1,18 @@
 package com.orderManagement.service;
 
+import com.orderManagement.entity.ExecutionEntity;
+import com.orderManagement.entity.OrderEntity;
 import com.orderManagement.model.Report;
 import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 /**
  * The ReportService class provides methods for generating reports related to books, orders, and executions.
  * It is responsible for creating reports containing information about a specific book, such as its status, completed
- * and pending orders, and triggered executions.
+ * and pending orders, and triggered executions. Orders and executions of archived books are read back from the
+ * archive tables and reported along with whatever the book holds since.
  */
 @Service
 public class ReportService {
@@ -14,17 +21,22 @@ public class ReportService {
     private final OrderService orderService;
 
     private final ExecutionService executionService;
+
+    private final ArchiveService archiveService;
     /**
      * Constructs a new ReportService with the specified dependencies.
      *
      * @param bookService      An instance of the BookService to access book-related information.
      * @param orderService     An instance of the OrderService to access order-related information.
      * @param executionService An instance of the ExecutionService to access execution-related information.
+     * @param archiveService   An instance of the ArchiveService to access archived orders and executions.
      */
-    public ReportService(BookService bookService, OrderService orderService, ExecutionService executionService) {
+    public ReportService(BookService bookService, OrderService orderService, ExecutionService executionService,
+                         ArchiveService archiveService) {
         this.bookService = bookService;
         this.orderService = orderService;
         this.executionService = executionService;
+        this.archiveService = archiveService;
     }
     /**
      * Generates a report for a specific book, including its status, completed orders, pending orders, and triggered executions.
@@ -37,9 +49,33 @@ public class ReportService {
         boolean isBookClosed = bookService.isBookClosed(bookName);
         report.setBookName(bookName);
         report.setBookStatus(isBookClosed ? "Closed" : "Open");
-        report.setCompletedOrders(orderService.getCompletedOrdersForBook(bookName));
-        report.setPendingOrders(orderService.getPendingOrdersForBook(bookName));
+        //Read from one snapshot, an order completing meanwhile is reported once
+        Map<Boolean, List<OrderEntity>> ordersByCompletion = orderService.getOrdersByCompletionForBook(bookName);
+        report.setCompletedOrders(ordersByCompletion.get(true));
+        report.setPendingOrders(ordersByCompletion.get(false));
         report.setTriggeredExecutions(executionService.getTriggeredExecutionsForBook(bookName));
+        if(archiveService.isBookArchived(bookName)){
+            addArchivedEntries(report, bookName);
+        }
         return report;
     }
+
+    private void addArchivedEntries(Report report, String bookName){
+        List<OrderEntity> completedOrders = new ArrayList<>();
+        List<OrderEntity> pendingOrders = new ArrayList<>();
+        for(OrderEntity orderEntity : archiveService.getArchivedOrdersForBook(bookName)){
+            //Replaced and deleted orders are archived as well but never reported
+            if(!orderEntity.isActive()){
+                continue;
+            }
+            (orderEntity.isOrderComplete() ? completedOrders : pendingOrders).add(orderEntity);
+        }
+        completedOrders.addAll(report.getCompletedOrders());
+        pendingOrders.addAll(report.getPendingOrders());
+        List<ExecutionEntity> executions = new ArrayList<>(archiveService.getArchivedExecutionsForBook(bookName));
+        executions.addAll(report.getTriggeredExecutions());
+        report.setCompletedOrders(completedOrders);
+        report.setPendingOrders(pendingOrders);
+        report.setTriggeredExecutions(executions);
+    }
 }
@@ -0,0 +1,516 @@
+package com.orderManagement.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Holds the entries of a single book ordered by a long key, typically an order id or an arrival sequence.
+ * Entries live in small immutable chunks referenced from an immutable version. A write copies the one chunk it
+ * touches plus the chunk references and publishes the new version with a compare-and-set, retrying if another
+ * writer got there first. Writers therefore never block readers or each other, and a reader holding a version
+ * sees exactly the entries of that version however long it iterates.
+ * The price is paid by writers: every put or remove, appends included, copies up to {@link #CHUNK_SIZE} entries
+ * and the whole array of chunk references, so it costs O(CHUNK_SIZE + n / CHUNK_SIZE) for a book of n entries,
+ * and writers racing on one book redo that copy each time they lose the compare-and-set. Loading many entries,
+ * as at startup or on bulk entry, goes through {@link #putAll} instead, which publishes them in a single version.
+ *
+ * @param <V> The type of the entries.
+ */
+public class BookEntries<V> {
+
+    static final int CHUNK_SIZE = 64;
+
+    private final AtomicReference<Version<V>> current = new AtomicReference<>(Version.empty());
+
+    /**
+     * Adds an entry, or replaces the entry with the same key.
+     *
+     * @param key   The key of the entry.
+     * @param value The entry.
+     */
+    public void put(long key, V value) {
+        while (true) {
+            Version<V> version = current.get();
+            if (current.compareAndSet(version, version.put(key, value))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Adds entries in a single write, replacing entries with the same key. Of equal keys in the call the last one wins.
+     * Entries whose keys all follow the last key of the book, as when a book is loaded in key order, are appended
+     * into full chunks and the chunk references are copied once, which costs O(k + n / CHUNK_SIZE) for k entries.
+     * Otherwise the chunks from the one holding the lowest new key on are merged with the entries and rebuilt,
+     * so a call costs O(n + k log k) at worst and far less when the entries land near the end of the book.
+     *
+     * @param keys   The keys of the entries.
+     * @param values The entries, in the order of their keys.
+     */
+    public void putAll(long[] keys, List<? extends V> values) {
+        if (keys.length != values.size()) {
+            throw new IllegalArgumentException(keys.length + " keys for " + values.size() + " entries");
+        }
+        if (keys.length == 0) {
+            return;
+        }
+        //Sorted once, a retry after a lost compare-and-set only redoes the copy
+        Entries sorted = Entries.sorted(keys, values);
+        while (true) {
+            Version<V> version = current.get();
+            if (current.compareAndSet(version, version.putAll(sorted))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes the entry with the given key if present.
+     *
+     * @param key The key of the entry.
+     * @return True if an entry was removed.
+     */
+    public boolean remove(long key) {
+        while (true) {
+            Version<V> version = current.get();
+            Version<V> updated = version.remove(key);
+            if (updated == version) {
+                return false;
+            }
+            if (current.compareAndSet(version, updated)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Removes entries and adds others in a single write, so a reader sees the entries either before or after the
+     * whole change. Costs what the removes and puts would cost one by one.
+     *
+     * @param removedKeys The keys of the entries to remove, keys without an entry are skipped.
+     * @param keys        The keys of the entries to add.
+     * @param values      The entries to add, in the order of their keys.
+     */
+    public void update(long[] removedKeys, long[] keys, List<? extends V> values) {
+        if (keys.length != values.size()) {
+            throw new IllegalArgumentException(keys.length + " keys for " + values.size() + " entries");
+        }
+        while (true) {
+            Version<V> version = current.get();
+            Version<V> updated = version;
+            for (long removedKey : removedKeys) {
+                updated = updated.remove(removedKey);
+            }
+            for (int i = 0; i < keys.length; i++) {
+                updated = updated.put(keys[i], values.get(i));
+            }
+            if (updated == version || current.compareAndSet(version, updated.restamp(version.version + 1))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Moves an entry to the key it should have now, taking it from whichever of the given keys holds it, in a single
+     * write. The key is asked for within the write, and a new version is published even if the entry stays where it
+     * is. So of two calls racing on a change of the entry's key, the later one either sees the change or loses the
+     * compare-and-set and asks again.
+     *
+     * @param keys  The keys the entry may be at.
+     * @param keyOf Gives the key the entry should have.
+     * @param value The entry, compared by identity.
+     * @return True if the entry was found at one of the keys, false if they hold no entry or another one.
+     */
+    public boolean rekey(long[] keys, ToLongFunction<? super V> keyOf, V value) {
+        while (true) {
+            Version<V> version = current.get();
+            Version<V> updated = null;
+            for (long key : keys) {
+                if (version.get(key) == value) {
+                    long newKey = keyOf.applyAsLong(value);
+                    updated = newKey == key ? version : version.remove(key).put(newKey, value);
+                    break;
+                }
+            }
+            if (updated == null) {
+                return false;
+            }
+            if (current.compareAndSet(version, updated.restamp(version.version + 1))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns the current version of the entries. It never changes once returned.
+     *
+     * @return The consistent snapshot of the entries.
+     */
+    public Snapshot<V> snapshot() {
+        return current.get();
+    }
+
+    public int size() {
+        return current.get().size();
+    }
+
+    public boolean isEmpty() {
+        return current.get().size() == 0;
+    }
+
+    /**
+     * A point in time view of the entries of a book.
+     *
+     * @param <V> The type of the entries.
+     */
+    public interface Snapshot<V> {
+
+        /**
+         * @return The number of writes applied before this snapshot was taken.
+         */
+        long version();
+
+        int size();
+
+        V get(long key);
+
+        void forEach(Consumer<? super V> action);
+
+        /**
+         * @return The entries in key order, copied into a new list the caller may modify.
+         */
+        List<V> values();
+
+        /**
+         * @param fromKey The lowest key, inclusive.
+         * @param toKey   The highest key, exclusive.
+         * @return The entries whose keys fall in the range, in key order, copied into a new list the caller may modify.
+         */
+        List<V> values(long fromKey, long toKey);
+    }
+
+    /**
+     * Entries sorted by strictly increasing key.
+     */
+    private static final class Entries {
+
+        private final long[] keys;
+
+        private final Object[] values;
+
+        private Entries(long[] keys, Object[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        private static Entries sorted(long[] keys, List<?> values) {
+            boolean isSorted = true;
+            for (int i = 1; i < keys.length && isSorted; i++) {
+                isSorted = keys[i - 1] < keys[i];
+            }
+            if (isSorted) {
+                return new Entries(keys.clone(), values.toArray());
+            }
+            //A stable sort keeps equal keys in call order, so the last one is kept
+            Integer[] order = new Integer[keys.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (left, right) -> Long.compare(keys[left], keys[right]));
+            long[] sortedKeys = new long[keys.length];
+            Object[] sortedValues = new Object[keys.length];
+            int size = 0;
+            for (Integer index : order) {
+                if (size > 0 && sortedKeys[size - 1] == keys[index]) {
+                    size--;
+                }
+                sortedKeys[size] = keys[index];
+                sortedValues[size] = values.get(index);
+                size++;
+            }
+            return new Entries(Arrays.copyOf(sortedKeys, size), Arrays.copyOf(sortedValues, size));
+        }
+
+        private int size() {
+            return keys.length;
+        }
+    }
+
+    private static final class Chunk {
+
+        private final long[] keys;
+
+        private final Object[] values;
+
+        private Chunk(long[] keys, Object[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        private long firstKey() {
+            return keys[0];
+        }
+
+        private long lastKey() {
+            return keys[keys.length - 1];
+        }
+    }
+
+    private static final class Version<V> implements Snapshot<V> {
+
+        private static final Version<?> EMPTY = new Version<>(0, new Chunk[0], 0);
+
+        private final long version;
+
+        private final Chunk[] chunks;
+
+        private final int size;
+
+        private Version(long version, Chunk[] chunks, int size) {
+            this.version = version;
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <V> Version<V> empty() {
+            return (Version<V>) EMPTY;
+        }
+
+        @Override
+        public long version() {
+            return version;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V get(long key) {
+            int chunkIndex = chunkFor(key);
+            if (chunkIndex < 0) {
+                return null;
+            }
+            Chunk chunk = chunks[chunkIndex];
+            int index = Arrays.binarySearch(chunk.keys, key);
+            return index < 0 ? null : (V) chunk.values[index];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEach(Consumer<? super V> action) {
+            for (Chunk chunk : chunks) {
+                for (Object value : chunk.values) {
+                    action.accept((V) value);
+                }
+            }
+        }
+
+        @Override
+        public List<V> values() {
+            List<V> values = new ArrayList<>(size);
+            forEach(values::add);
+            return values;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public List<V> values(long fromKey, long toKey) {
+            List<V> values = new ArrayList<>();
+            for (int chunkIndex = Math.max(chunkFor(fromKey), 0); chunkIndex < chunks.length; chunkIndex++) {
+                Chunk chunk = chunks[chunkIndex];
+                if (chunk.firstKey() >= toKey) {
+                    break;
+                }
+                for (int i = 0; i < chunk.keys.length; i++) {
+                    if (chunk.keys[i] >= fromKey && chunk.keys[i] < toKey) {
+                        values.add((V) chunk.values[i]);
+                    }
+                }
+            }
+            return values;
+        }
+
+        /**
+         * Numbers a version built through several writes as a single write.
+         */
+        private Version<V> restamp(long version) {
+            return new Version<>(version, chunks, size);
+        }
+
+        private Version<V> put(long key, V value) {
+            if (chunks.length == 0) {
+                return new Version<>(version + 1, new Chunk[]{new Chunk(new long[]{key}, new Object[]{value})}, 1);
+            }
+            //Keys before the first chunk go into the first chunk
+            int chunkIndex = Math.max(chunkFor(key), 0);
+            Chunk chunk = chunks[chunkIndex];
+            int index = Arrays.binarySearch(chunk.keys, key);
+            if (index >= 0) {
+                Object[] values = chunk.values.clone();
+                values[index] = value;
+                return new Version<>(version + 1, replace(chunkIndex, new Chunk(chunk.keys, values)), size);
+            }
+            int insertAt = -index - 1;
+            boolean isLastChunk = chunkIndex == chunks.length - 1;
+            if (chunk.keys.length == CHUNK_SIZE && isLastChunk && insertAt == CHUNK_SIZE) {
+                //Appends start a new chunk so that chunks filled in key order stay full
+                Chunk[] updated = Arrays.copyOf(chunks, chunks.length + 1);
+                updated[chunks.length] = new Chunk(new long[]{key}, new Object[]{value});
+                return new Version<>(version + 1, updated, size + 1);
+            }
+            long[] keys = new long[chunk.keys.length + 1];
+            Object[] values = new Object[keys.length];
+            System.arraycopy(chunk.keys, 0, keys, 0, insertAt);
+            System.arraycopy(chunk.values, 0, values, 0, insertAt);
+            keys[insertAt] = key;
+            values[insertAt] = value;
+            System.arraycopy(chunk.keys, insertAt, keys, insertAt + 1, chunk.keys.length - insertAt);
+            System.arraycopy(chunk.values, insertAt, values, insertAt + 1, chunk.values.length - insertAt);
+            if (keys.length <= CHUNK_SIZE) {
+                return new Version<>(version + 1, replace(chunkIndex, new Chunk(keys, values)), size + 1);
+            }
+            int half = keys.length / 2;
+            Chunk lower = new Chunk(Arrays.copyOfRange(keys, 0, half), Arrays.copyOfRange(values, 0, half));
+            Chunk upper = new Chunk(Arrays.copyOfRange(keys, half, keys.length), Arrays.copyOfRange(values, half, values.length));
+            Chunk[] updated = new Chunk[chunks.length + 1];
+            System.arraycopy(chunks, 0, updated, 0, chunkIndex);
+            updated[chunkIndex] = lower;
+            updated[chunkIndex + 1] = upper;
+            System.arraycopy(chunks, chunkIndex + 1, updated, chunkIndex + 2, chunks.length - chunkIndex - 1);
+            return new Version<>(version + 1, updated, size + 1);
+        }
+
+        private Version<V> putAll(Entries entries) {
+            if (chunks.length == 0 || entries.keys[0] > chunks[chunks.length - 1].lastKey()) {
+                return append(entries);
+            }
+            return merge(entries);
+        }
+
+        private Version<V> append(Entries entries) {
+            int count = entries.size();
+            int lastChunkSize = chunks.length == 0 ? CHUNK_SIZE : chunks[chunks.length - 1].keys.length;
+            //Tops up the last chunk first, so chunks filled in key order stay full
+            int topUp = Math.min(CHUNK_SIZE - lastChunkSize, count);
+            int newChunks = (count - topUp + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            Chunk[] updated = Arrays.copyOf(chunks, chunks.length + newChunks);
+            if (topUp > 0) {
+                Chunk last = chunks[chunks.length - 1];
+                long[] keys = Arrays.copyOf(last.keys, lastChunkSize + topUp);
+                Object[] values = Arrays.copyOf(last.values, lastChunkSize + topUp);
+                System.arraycopy(entries.keys, 0, keys, lastChunkSize, topUp);
+                System.arraycopy(entries.values, 0, values, lastChunkSize, topUp);
+                updated[chunks.length - 1] = new Chunk(keys, values);
+            }
+            fill(updated, chunks.length, entries.keys, entries.values, topUp, count);
+            return new Version<>(version + 1, updated, size + count);
+        }
+
+        private Version<V> merge(Entries entries) {
+            //Chunks before the one the lowest new key falls in are left as they are
+            int firstChunk = Math.max(chunkFor(entries.keys[0]), 0);
+            int tailSize = 0;
+            for (int i = firstChunk; i < chunks.length; i++) {
+                tailSize += chunks[i].keys.length;
+            }
+            long[] keys = new long[tailSize + entries.size()];
+            Object[] values = new Object[keys.length];
+            int merged = 0;
+            int next = 0;
+            for (int chunkIndex = firstChunk; chunkIndex < chunks.length; chunkIndex++) {
+                Chunk chunk = chunks[chunkIndex];
+                for (int i = 0; i < chunk.keys.length; i++) {
+                    long key = chunk.keys[i];
+                    while (next < entries.size() && entries.keys[next] < key) {
+                        keys[merged] = entries.keys[next];
+                        values[merged++] = entries.values[next++];
+                    }
+                    if (next < entries.size() && entries.keys[next] == key) {
+                        keys[merged] = key;
+                        values[merged++] = entries.values[next++];
+                    } else {
+                        keys[merged] = key;
+                        values[merged++] = chunk.values[i];
+                    }
+                }
+            }
+            while (next < entries.size()) {
+                keys[merged] = entries.keys[next];
+                values[merged++] = entries.values[next++];
+            }
+            Chunk[] updated = Arrays.copyOf(chunks, firstChunk + (merged + CHUNK_SIZE - 1) / CHUNK_SIZE);
+            fill(updated, firstChunk, keys, values, 0, merged);
+            return new Version<>(version + 1, updated, size - tailSize + merged);
+        }
+
+        /**
+         * Cuts the given range of entries into full chunks, stored from the given chunk index on.
+         */
+        private static void fill(Chunk[] chunks, int chunkIndex, long[] keys, Object[] values, int from, int to) {
+            for (int start = from; start < to; start += CHUNK_SIZE) {
+                int end = Math.min(start + CHUNK_SIZE, to);
+                chunks[chunkIndex++] = new Chunk(Arrays.copyOfRange(keys, start, end), Arrays.copyOfRange(values, start, end));
+            }
+        }
+
+        private Version<V> remove(long key) {
+            int chunkIndex = chunkFor(key);
+            if (chunkIndex < 0) {
+                return this;
+            }
+            Chunk chunk = chunks[chunkIndex];
+            int index = Arrays.binarySearch(chunk.keys, key);
+            if (index < 0) {
+                return this;
+            }
+            if (chunk.keys.length == 1) {
+                Chunk[] updated = new Chunk[chunks.length - 1];
+                System.arraycopy(chunks, 0, updated, 0, chunkIndex);
+                System.arraycopy(chunks, chunkIndex + 1, updated, chunkIndex, chunks.length - chunkIndex - 1);
+                return new Version<>(version + 1, updated, size - 1);
+            }
+            long[] keys = new long[chunk.keys.length - 1];
+            Object[] values = new Object[keys.length];
+            System.arraycopy(chunk.keys, 0, keys, 0, index);
+            System.arraycopy(chunk.values, 0, values, 0, index);
+            System.arraycopy(chunk.keys, index + 1, keys, index, keys.length - index);
+            System.arraycopy(chunk.values, index + 1, values, index, values.length - index);
+            return new Version<>(version + 1, replace(chunkIndex, new Chunk(keys, values)), size - 1);
+        }
+
+        /**
+         * Finds the last chunk whose first key is not greater than the given key.
+         *
+         * @return The index of the chunk, or -1 if the key sorts before every chunk.
+         */
+        private int chunkFor(long key) {
+            int low = 0;
+            int high = chunks.length - 1;
+            int found = -1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (chunks[middle].firstKey() <= key) {
+                    found = middle;
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return found;
+        }
+
+        private Chunk[] replace(int chunkIndex, Chunk chunk) {
+            Chunk[] updated = chunks.clone();
+            updated[chunkIndex] = chunk;
+            return updated;
+        }
+    }
+}
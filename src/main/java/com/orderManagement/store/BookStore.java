@@ -0,0 +1,121 @@
+package com.orderManagement.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Keeps the entries of every book in a {@link BookEntries}, so reads of one book never see a write half applied
+ * and never block the writers of that book. A change of several entries of a book, such as an edit replacing one
+ * order by another, goes through {@link #update} or {@link #rekey} to be seen whole.
+ * Nothing is atomic across books or stores though.
+ *
+ * @param <V> The type of the entries.
+ */
+public class BookStore<V> {
+
+    private final ConcurrentHashMap<String, BookEntries<V>> books = new ConcurrentHashMap<>();
+
+    public void put(String bookName, long key, V value) {
+        books.computeIfAbsent(bookName, name -> new BookEntries<>()).put(key, value);
+    }
+
+    /**
+     * Adds entries of a book in a single write, see {@link BookEntries#putAll}.
+     *
+     * @param bookName The name of the book.
+     * @param keys     The keys of the entries.
+     * @param values   The entries, in the order of their keys.
+     */
+    public void putAll(String bookName, long[] keys, List<? extends V> values) {
+        if (keys.length == 0) {
+            return;
+        }
+        books.computeIfAbsent(bookName, name -> new BookEntries<>()).putAll(keys, values);
+    }
+
+    /**
+     * Removes and adds entries of a book in a single write, see {@link BookEntries#update}.
+     *
+     * @param bookName    The name of the book.
+     * @param removedKeys The keys of the entries to remove.
+     * @param keys        The keys of the entries to add.
+     * @param values      The entries to add, in the order of their keys.
+     */
+    public void update(String bookName, long[] removedKeys, long[] keys, List<? extends V> values) {
+        if (keys.length == 0) {
+            BookEntries<V> entries = books.get(bookName);
+            if (entries != null) {
+                entries.update(removedKeys, keys, values);
+            }
+            return;
+        }
+        books.computeIfAbsent(bookName, name -> new BookEntries<>()).update(removedKeys, keys, values);
+    }
+
+    /**
+     * Moves an entry of a book to the key it should have now, in a single write, see {@link BookEntries#rekey}.
+     *
+     * @param bookName The name of the book.
+     * @param keys     The keys the entry may be at.
+     * @param keyOf    Gives the key the entry should have.
+     * @param value    The entry.
+     * @return True if the entry was found at one of the keys.
+     */
+    public boolean rekey(String bookName, long[] keys, ToLongFunction<? super V> keyOf, V value) {
+        BookEntries<V> entries = books.get(bookName);
+        return entries != null && entries.rekey(keys, keyOf, value);
+    }
+
+    public boolean remove(String bookName, long key) {
+        BookEntries<V> entries = books.get(bookName);
+        return entries != null && entries.remove(key);
+    }
+
+    /**
+     * Returns a consistent snapshot of the entries of a book.
+     *
+     * @param bookName The name of the book.
+     * @return The entries of the book in key order, empty if the book has none.
+     */
+    public List<V> values(String bookName) {
+        BookEntries<V> entries = books.get(bookName);
+        return entries == null ? new ArrayList<>() : entries.snapshot().values();
+    }
+
+    /**
+     * Returns a consistent snapshot of a book, for reads that take several views of the same entries.
+     *
+     * @param bookName The name of the book.
+     * @return The current version of the entries of the book, empty if the book has none.
+     */
+    public BookEntries.Snapshot<V> snapshot(String bookName) {
+        BookEntries<V> entries = books.get(bookName);
+        return (entries == null ? new BookEntries<V>() : entries).snapshot();
+    }
+
+    /**
+     * Returns the entries of every book, each book read from its own consistent snapshot.
+     *
+     * @return The entries of all books.
+     */
+    public List<V> values() {
+        List<V> values = new ArrayList<>();
+        books.values().forEach(entries -> entries.snapshot().forEach(values::add));
+        return values;
+    }
+
+    public void removeBook(String bookName) {
+        books.remove(bookName);
+    }
+
+    public int size(String bookName) {
+        BookEntries<V> entries = books.get(bookName);
+        return entries == null ? 0 : entries.size();
+    }
+
+    public void clear() {
+        books.clear();
+    }
+}
@@ -0,0 +1,13 @@
+CREATE TABLE TEST.FILLS
+(
+    FILL_ID            NUMBER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    EXECUTION_ID       NUMBER NOT NULL,
+    ORDER_ID           NUMBER NOT NULL,
+    QUANTITY           NUMBER NOT NULL,
+    PRICE              NUMBER NOT NULL
+);
+
+CREATE INDEX TEST.FILLS_EXECUTION_ID_IDX ON TEST.FILLS (EXECUTION_ID);
+
+GRANT SELECT,INSERT,UPDATE,DELETE on TEST.FILLS TO test_rw;
+GRANT SELECT on TEST.FILLS TO test_ro;
@@ -0,0 +1,10 @@
+-- Ids are allocated from sequences so that Hibernate can reserve a block of ids in one call and batch inserts.
+-- The increment is the allocation size of the pooled-lo optimizer, the entities read it back at startup.
+CREATE SEQUENCE TEST.ORDERS_SEQ START WITH 1 INCREMENT BY ${idAllocationSize};
+CREATE SEQUENCE TEST.EXECUTIONS_SEQ START WITH 1 INCREMENT BY ${idAllocationSize};
+
+ALTER SEQUENCE TEST.ORDERS_SEQ RESTART WITH (SELECT COALESCE(MAX(ORDER_ID), 0) + 1 FROM TEST.ORDERS);
+ALTER SEQUENCE TEST.EXECUTIONS_SEQ RESTART WITH (SELECT COALESCE(MAX(EXECUTION_ID), 0) + 1 FROM TEST.EXECUTIONS);
+
+ALTER TABLE TEST.ORDERS ALTER COLUMN ORDER_ID DROP IDENTITY;
+ALTER TABLE TEST.EXECUTIONS ALTER COLUMN EXECUTION_ID DROP IDENTITY;
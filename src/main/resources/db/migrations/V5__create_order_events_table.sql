@@ -0,0 +1,35 @@
+-- Append-only log of order events. Every event holds the whole state of the order once the event is applied,
+-- so the state of an order at any time is the last event recorded up to that time.
+CREATE TABLE TEST.ORDER_EVENTS
+(
+    EVENT_ID           NUMBER PRIMARY KEY,
+    ORDER_ID           NUMBER NOT NULL,
+    EVENT_TYPE         VARCHAR2(10) NOT NULL,
+    BOOK_NAME          VARCHAR2(100) NOT NULL,
+    INSTRUMENT_ID      NUMBER NOT NULL,
+    QUANTITY           NUMBER NOT NULL,
+    REMAINING_QUANTITY NUMBER NOT NULL,
+    ENTRY_DATE         TIMESTAMP (6) NOT NULL,
+    IS_ACTIVE          VARCHAR2(1) NOT NULL,
+    TYPE               VARCHAR2(5) NOT NULL,
+    PRICE              NUMBER NOT NULL,
+    PREVIOUS_ORDER_ID  NUMBER,
+    EVENT_TIME         TIMESTAMP (6) NOT NULL
+);
+
+CREATE INDEX TEST.ORDER_EVENTS_ORDER_ID_IDX ON TEST.ORDER_EVENTS (ORDER_ID, EVENT_ID);
+
+CREATE SEQUENCE TEST.ORDER_EVENTS_SEQ START WITH 1 INCREMENT BY ${idAllocationSize};
+
+-- Every event up to LAST_EVENT_ID has been applied to TEST.ORDERS
+CREATE TABLE TEST.ORDER_EVENTS_CHECKPOINT
+(
+    ID                 NUMBER PRIMARY KEY,
+    LAST_EVENT_ID      NUMBER NOT NULL
+);
+
+INSERT INTO TEST.ORDER_EVENTS_CHECKPOINT (ID, LAST_EVENT_ID) VALUES (1, 0);
+
+GRANT SELECT,INSERT on TEST.ORDER_EVENTS TO test_rw;
+GRANT SELECT on TEST.ORDER_EVENTS TO test_ro;
+GRANT SELECT,UPDATE on TEST.ORDER_EVENTS_CHECKPOINT TO test_rw;
@@ -0,0 +1,34 @@
+-- Orders and executions of finished books are moved out of the hot tables into these, in one transaction per book.
+-- Fills stay in TEST.FILLS, they are looked up by execution id only.
+CREATE TABLE TEST.ARCHIVED_ORDERS
+(
+    ORDER_ID           NUMBER PRIMARY KEY,
+    BOOK_NAME          VARCHAR2(100) NOT NULL,
+    INSTRUMENT_ID      NUMBER NOT NULL,
+    QUANTITY           NUMBER NOT NULL,
+    REMAINING_QUANTITY NUMBER NOT NULL,
+    ENTRY_DATE         TIMESTAMP (6) NOT NULL,
+    IS_ACTIVE          VARCHAR2(1) NOT NULL,
+    TYPE               VARCHAR2(5) NOT NULL,
+    PRICE              NUMBER NOT NULL,
+    PREVIOUS_ORDER_ID  NUMBER
+);
+
+CREATE INDEX TEST.ARCHIVED_ORDERS_BOOK_NAME_IDX ON TEST.ARCHIVED_ORDERS (BOOK_NAME);
+
+CREATE TABLE TEST.ARCHIVED_EXECUTIONS
+(
+    EXECUTION_ID       NUMBER PRIMARY KEY,
+    BOOK_NAME          VARCHAR2(100) NOT NULL,
+    INSTRUMENT_ID      NUMBER NOT NULL,
+    QUANTITY           NUMBER NOT NULL,
+    TYPE               VARCHAR2(5) NOT NULL,
+    PRICE              NUMBER NOT NULL
+);
+
+CREATE INDEX TEST.ARCHIVED_EXECUTIONS_BOOK_NAME_IDX ON TEST.ARCHIVED_EXECUTIONS (BOOK_NAME);
+
+GRANT SELECT,INSERT on TEST.ARCHIVED_ORDERS TO test_rw;
+GRANT SELECT on TEST.ARCHIVED_ORDERS TO test_ro;
+GRANT SELECT,INSERT on TEST.ARCHIVED_EXECUTIONS TO test_rw;
+GRANT SELECT on TEST.ARCHIVED_EXECUTIONS TO test_ro;
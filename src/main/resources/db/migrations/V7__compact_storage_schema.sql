@@ -0,0 +1,86 @@
+-- Compact storage: prices are stored as fixed-point ticks with six decimals (PriceTicks.SCALE),
+-- flags as NUMBER(1) and enums as NUMBER(1) holding the explicit code of each constant of the Java enum:
+-- OrderType BUY 0, SELL 1; ExecutionType OFFER 0, ASK 1; OrderEventType CREATED 0, AMENDED 1, CANCELLED 2, FILLED 3.
+-- Each column is added next to the one it replaces and backfilled from it before the old one is dropped.
+-- Enum values are mapped one by one without a fallback, an unknown value is left NULL and fails the NOT NULL step.
+
+ALTER TABLE TEST.BOOKS ADD COLUMN IS_CLOSED_NEW NUMBER(1);
+UPDATE TEST.BOOKS SET IS_CLOSED_NEW = CASE WHEN IS_CLOSED IS NULL OR IS_CLOSED = '0' THEN 0 ELSE 1 END;
+ALTER TABLE TEST.BOOKS DROP COLUMN IS_CLOSED;
+ALTER TABLE TEST.BOOKS ALTER COLUMN IS_CLOSED_NEW RENAME TO IS_CLOSED;
+ALTER TABLE TEST.BOOKS ALTER COLUMN IS_CLOSED SET NOT NULL;
+
+ALTER TABLE TEST.ORDERS ADD COLUMN IS_ACTIVE_NEW NUMBER(1);
+UPDATE TEST.ORDERS SET IS_ACTIVE_NEW = CASE WHEN IS_ACTIVE IS NULL OR IS_ACTIVE = '0' THEN 0 ELSE 1 END;
+ALTER TABLE TEST.ORDERS ADD COLUMN TYPE_NEW NUMBER(1);
+UPDATE TEST.ORDERS SET TYPE_NEW = CASE UPPER(TYPE) WHEN 'BUY' THEN 0 WHEN 'SELL' THEN 1 END;
+ALTER TABLE TEST.ORDERS ADD COLUMN PRICE_TICKS NUMBER(19);
+UPDATE TEST.ORDERS SET PRICE_TICKS = ROUND(PRICE * 1000000);
+ALTER TABLE TEST.ORDERS DROP COLUMN IS_ACTIVE;
+ALTER TABLE TEST.ORDERS ALTER COLUMN IS_ACTIVE_NEW RENAME TO IS_ACTIVE;
+ALTER TABLE TEST.ORDERS ALTER COLUMN IS_ACTIVE SET NOT NULL;
+ALTER TABLE TEST.ORDERS DROP COLUMN TYPE;
+ALTER TABLE TEST.ORDERS ALTER COLUMN TYPE_NEW RENAME TO TYPE;
+ALTER TABLE TEST.ORDERS ALTER COLUMN TYPE SET NOT NULL;
+ALTER TABLE TEST.ORDERS DROP COLUMN PRICE;
+ALTER TABLE TEST.ORDERS ALTER COLUMN PRICE_TICKS SET NOT NULL;
+
+ALTER TABLE TEST.ARCHIVED_ORDERS ADD COLUMN IS_ACTIVE_NEW NUMBER(1);
+UPDATE TEST.ARCHIVED_ORDERS SET IS_ACTIVE_NEW = CASE WHEN IS_ACTIVE IS NULL OR IS_ACTIVE = '0' THEN 0 ELSE 1 END;
+ALTER TABLE TEST.ARCHIVED_ORDERS ADD COLUMN TYPE_NEW NUMBER(1);
+UPDATE TEST.ARCHIVED_ORDERS SET TYPE_NEW = CASE UPPER(TYPE) WHEN 'BUY' THEN 0 WHEN 'SELL' THEN 1 END;
+ALTER TABLE TEST.ARCHIVED_ORDERS ADD COLUMN PRICE_TICKS NUMBER(19);
+UPDATE TEST.ARCHIVED_ORDERS SET PRICE_TICKS = ROUND(PRICE * 1000000);
+ALTER TABLE TEST.ARCHIVED_ORDERS DROP COLUMN IS_ACTIVE;
+ALTER TABLE TEST.ARCHIVED_ORDERS ALTER COLUMN IS_ACTIVE_NEW RENAME TO IS_ACTIVE;
+ALTER TABLE TEST.ARCHIVED_ORDERS ALTER COLUMN IS_ACTIVE SET NOT NULL;
+ALTER TABLE TEST.ARCHIVED_ORDERS DROP COLUMN TYPE;
+ALTER TABLE TEST.ARCHIVED_ORDERS ALTER COLUMN TYPE_NEW RENAME TO TYPE;
+ALTER TABLE TEST.ARCHIVED_ORDERS ALTER COLUMN TYPE SET NOT NULL;
+ALTER TABLE TEST.ARCHIVED_ORDERS DROP COLUMN PRICE;
+ALTER TABLE TEST.ARCHIVED_ORDERS ALTER COLUMN PRICE_TICKS SET NOT NULL;
+
+ALTER TABLE TEST.ORDER_EVENTS ADD COLUMN EVENT_TYPE_NEW NUMBER(1);
+UPDATE TEST.ORDER_EVENTS SET EVENT_TYPE_NEW = CASE UPPER(EVENT_TYPE) WHEN 'CREATED' THEN 0 WHEN 'AMENDED' THEN 1 WHEN 'CANCELLED' THEN 2 WHEN 'FILLED' THEN 3 END;
+ALTER TABLE TEST.ORDER_EVENTS ADD COLUMN IS_ACTIVE_NEW NUMBER(1);
+UPDATE TEST.ORDER_EVENTS SET IS_ACTIVE_NEW = CASE WHEN IS_ACTIVE IS NULL OR IS_ACTIVE = '0' THEN 0 ELSE 1 END;
+ALTER TABLE TEST.ORDER_EVENTS ADD COLUMN TYPE_NEW NUMBER(1);
+UPDATE TEST.ORDER_EVENTS SET TYPE_NEW = CASE UPPER(TYPE) WHEN 'BUY' THEN 0 WHEN 'SELL' THEN 1 END;
+ALTER TABLE TEST.ORDER_EVENTS ADD COLUMN PRICE_TICKS NUMBER(19);
+UPDATE TEST.ORDER_EVENTS SET PRICE_TICKS = ROUND(PRICE * 1000000);
+ALTER TABLE TEST.ORDER_EVENTS DROP COLUMN EVENT_TYPE;
+ALTER TABLE TEST.ORDER_EVENTS ALTER COLUMN EVENT_TYPE_NEW RENAME TO EVENT_TYPE;
+ALTER TABLE TEST.ORDER_EVENTS ALTER COLUMN EVENT_TYPE SET NOT NULL;
+ALTER TABLE TEST.ORDER_EVENTS DROP COLUMN IS_ACTIVE;
+ALTER TABLE TEST.ORDER_EVENTS ALTER COLUMN IS_ACTIVE_NEW RENAME TO IS_ACTIVE;
+ALTER TABLE TEST.ORDER_EVENTS ALTER COLUMN IS_ACTIVE SET NOT NULL;
+ALTER TABLE TEST.ORDER_EVENTS DROP COLUMN TYPE;
+ALTER TABLE TEST.ORDER_EVENTS ALTER COLUMN TYPE_NEW RENAME TO TYPE;
+ALTER TABLE TEST.ORDER_EVENTS ALTER COLUMN TYPE SET NOT NULL;
+ALTER TABLE TEST.ORDER_EVENTS DROP COLUMN PRICE;
+ALTER TABLE TEST.ORDER_EVENTS ALTER COLUMN PRICE_TICKS SET NOT NULL;
+
+ALTER TABLE TEST.EXECUTIONS ADD COLUMN TYPE_NEW NUMBER(1);
+UPDATE TEST.EXECUTIONS SET TYPE_NEW = CASE UPPER(TYPE) WHEN 'OFFER' THEN 0 WHEN 'ASK' THEN 1 END;
+ALTER TABLE TEST.EXECUTIONS ADD COLUMN PRICE_TICKS NUMBER(19);
+UPDATE TEST.EXECUTIONS SET PRICE_TICKS = ROUND(PRICE * 1000000);
+ALTER TABLE TEST.EXECUTIONS DROP COLUMN TYPE;
+ALTER TABLE TEST.EXECUTIONS ALTER COLUMN TYPE_NEW RENAME TO TYPE;
+ALTER TABLE TEST.EXECUTIONS ALTER COLUMN TYPE SET NOT NULL;
+ALTER TABLE TEST.EXECUTIONS DROP COLUMN PRICE;
+ALTER TABLE TEST.EXECUTIONS ALTER COLUMN PRICE_TICKS SET NOT NULL;
+
+ALTER TABLE TEST.ARCHIVED_EXECUTIONS ADD COLUMN TYPE_NEW NUMBER(1);
+UPDATE TEST.ARCHIVED_EXECUTIONS SET TYPE_NEW = CASE UPPER(TYPE) WHEN 'OFFER' THEN 0 WHEN 'ASK' THEN 1 END;
+ALTER TABLE TEST.ARCHIVED_EXECUTIONS ADD COLUMN PRICE_TICKS NUMBER(19);
+UPDATE TEST.ARCHIVED_EXECUTIONS SET PRICE_TICKS = ROUND(PRICE * 1000000);
+ALTER TABLE TEST.ARCHIVED_EXECUTIONS DROP COLUMN TYPE;
+ALTER TABLE TEST.ARCHIVED_EXECUTIONS ALTER COLUMN TYPE_NEW RENAME TO TYPE;
+ALTER TABLE TEST.ARCHIVED_EXECUTIONS ALTER COLUMN TYPE SET NOT NULL;
+ALTER TABLE TEST.ARCHIVED_EXECUTIONS DROP COLUMN PRICE;
+ALTER TABLE TEST.ARCHIVED_EXECUTIONS ALTER COLUMN PRICE_TICKS SET NOT NULL;
+
+ALTER TABLE TEST.FILLS ADD COLUMN PRICE_TICKS NUMBER(19);
+UPDATE TEST.FILLS SET PRICE_TICKS = ROUND(PRICE * 1000000);
+ALTER TABLE TEST.FILLS DROP COLUMN PRICE;
+ALTER TABLE TEST.FILLS ALTER COLUMN PRICE_TICKS SET NOT NULL;
@@ -0,0 +1,2 @@
+-- Version of an order for optimistic concurrency. It moves when the order is amended or cancelled, fills leave it alone.
+ALTER TABLE TEST.ORDERS ADD COLUMN VERSION NUMBER(19) DEFAULT 0 NOT NULL;
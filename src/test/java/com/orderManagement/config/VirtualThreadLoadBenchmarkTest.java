@@ -0,0 +1,242 @@
+package com.orderManagement.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orderManagement.OrderManagementApplication;
+import com.orderManagement.model.Execution;
+import com.orderManagement.model.ExecutionType;
+import com.orderManagement.model.Order;
+import com.orderManagement.model.OrderType;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares request throughput against a slow database on the Tomcat platform pool and on virtual threads.
+ * The application is started once per mode over a data source delaying every statement by a network round trip.
+ * Orders are added to an open book and executions triggered against a closed one through the real endpoints,
+ * with far more requests in flight than Tomcat has worker threads. The connection pool is sized above the Tomcat
+ * pool, so it is the request threads and not the connections that bound the platform run.
+ * Run with {@code -Dbenchmark=true} on a Java 21 runtime.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Slf4j
+public class VirtualThreadLoadBenchmarkTest {
+
+    private static final int REQUEST_COUNT = 4_000;
+
+    private static final int IN_FLIGHT_REQUESTS = 1_000;
+
+    private static final int TOMCAT_THREADS = 200;
+
+    private static final int CONNECTIONS = 400;
+
+    private static final long STATEMENT_DELAY_MILLIS = 20;
+
+    private static final int RESTING_ORDERS = 200;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @Test
+    public void benchmarkPlatformAndVirtualThreadsAgainstSlowDatabase() throws Exception {
+        assumeTrue(Runtime.version().feature() >= 21, "Virtual threads need a Java 21 runtime");
+        long platformNanos = run(false);
+        long virtualNanos = run(true);
+
+        log.info("Tomcat pool of {} threads: {} requests per second", TOMCAT_THREADS, throughput(platformNanos));
+        log.info("Virtual threads: {} requests per second", throughput(virtualNanos));
+        assertTrue(virtualNanos < platformNanos);
+    }
+
+    /**
+     * Starts the application in one request execution mode and times the load against it.
+     *
+     * @param isVirtual True to serve requests on virtual threads.
+     * @return The time taken by the load.
+     */
+    private long run(boolean isVirtual) throws Exception {
+        String mode = isVirtual ? "virtual" : "platform";
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", 0);
+        properties.put("server.tomcat.threads.max", TOMCAT_THREADS);
+        properties.put("spring.datasource.hikari.maximum-pool-size", CONNECTIONS);
+        properties.put("app.virtual-threads.enabled", isVirtual);
+        properties.put("logging.level.com.orderManagement", "WARN");
+        //A database of its own per run, so the second run does not load the orders of the first
+        properties.put("spring.datasource.url", "jdbc:h2:mem:" + mode + ";MODE=Oracle;DB_CLOSE_DELAY=-1;"
+                + "INIT=CREATE SCHEMA IF NOT EXISTS TEST\\;create user if not exists test_ro password 'test'\\;"
+                + "create user if not exists test_rw password 'test'");
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(OrderManagementApplication.class, SlowDatabaseConfiguration.class)
+                .properties(properties)
+                .run()) {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+            post(baseUrl + "/book/save/orders", "");
+            post(baseUrl + "/book/save/executions", "");
+            for (int i = 0; i < RESTING_ORDERS; i++) {
+                post(baseUrl + "/order/addOrder", objectMapper.writeValueAsString(createOrder("executions")));
+            }
+            post(baseUrl + "/book/close/executions", "");
+
+            List<String> urls = new ArrayList<>(REQUEST_COUNT);
+            List<String> bodies = new ArrayList<>(REQUEST_COUNT);
+            for (int i = 0; i < REQUEST_COUNT; i++) {
+                boolean isOrder = i % 2 == 0;
+                urls.add(baseUrl + (isOrder ? "/order/addOrder" : "/execution/triggerExecution"));
+                bodies.add(objectMapper.writeValueAsString(isOrder ? createOrder("orders") : createExecution("executions")));
+            }
+            //Warm up the endpoints, the connection pool and the request threads
+            load(urls.subList(0, IN_FLIGHT_REQUESTS), bodies.subList(0, IN_FLIGHT_REQUESTS));
+            long start = System.nanoTime();
+            load(urls, bodies);
+            return System.nanoTime() - start;
+        }
+    }
+
+    private void load(List<String> urls, List<String> bodies) throws Exception {
+        Semaphore inFlight = new Semaphore(IN_FLIGHT_REQUESTS);
+        AtomicInteger failures = new AtomicInteger();
+        List<CompletableFuture<?>> requests = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            inFlight.acquire();
+            requests.add(httpClient.sendAsync(request(urls.get(i), bodies.get(i)), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, exception) -> {
+                        //An execution whose fills are still pending answers 202
+                        if (exception != null || response.statusCode() / 100 != 2) {
+                            failures.incrementAndGet();
+                        }
+                        inFlight.release();
+                    }));
+        }
+        CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.MINUTES);
+        assertEquals(failures.get(), 0);
+    }
+
+    private void post(String url, String body) throws Exception {
+        HttpResponse<String> response = httpClient.send(request(url, body), HttpResponse.BodyHandlers.ofString());
+        assertEquals(response.statusCode(), 200, response.body());
+    }
+
+    private static HttpRequest request(String url, String body) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static Order createOrder(String bookName) {
+        Order order = new Order();
+        order.setInstrumentId(42);
+        order.setQuantity(10);
+        order.setEntryDate(LocalDateTime.now());
+        order.setType(OrderType.BUY);
+        order.setPrice(40);
+        order.setBookName(bookName);
+        return order;
+    }
+
+    private static Execution createExecution(String bookName) {
+        Execution execution = new Execution();
+        execution.setInstrumentId(42);
+        execution.setQuantity(5);
+        execution.setType(ExecutionType.OFFER);
+        execution.setPrice(39);
+        execution.setBookName(bookName);
+        return execution;
+    }
+
+    private static long throughput(long nanos) {
+        return REQUEST_COUNT * TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    /**
+     * Delays every statement the application runs against its data source, as a remote database would.
+     */
+    @TestConfiguration(proxyBeanMethods = false)
+    static class SlowDatabaseConfiguration {
+
+        @Bean
+        static BeanPostProcessor slowDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && "dataSource".equals(beanName) ? new SlowDataSource(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    private static final class SlowDataSource extends DelegatingDataSource {
+
+        private SlowDataSource(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return slow(super.getConnection(), Connection.class);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return slow(super.getConnection(username, password), Connection.class);
+        }
+
+        /**
+         * Proxies a connection or one of its statements. Statements handed out by the connection are proxied as well,
+         * and every execute call of a statement sleeps for the delay first.
+         */
+        @SuppressWarnings("unchecked")
+        private static <T> T slow(T target, Class<T> type) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                if (target instanceof Statement && method.getName().startsWith("execute")) {
+                    Thread.sleep(STATEMENT_DELAY_MILLIS);
+                }
+                Object result = invoke(target, method, args);
+                if (result instanceof Statement && method.getReturnType().isInterface()
+                        && Statement.class.isAssignableFrom(method.getReturnType())) {
+                    return slow(result, (Class<Object>) method.getReturnType());
+                }
+                return result;
+            });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException exception) {
+                throw exception.getCause();
+            }
+        }
+    }
+}
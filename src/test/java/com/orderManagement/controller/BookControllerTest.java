@@ -3,8 +3,14 @@ package com.orderManagement.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.orderManagement.entity.OrderEntity;
 import com.orderManagement.exceptions.BookAlreadyExistsException;
+import com.orderManagement.exceptions.BookArchivedException;
 import com.orderManagement.exceptions.BookDoesNotExistsException;
+import com.orderManagement.exceptions.BookNotFinishedException;
+import com.orderManagement.exceptions.BookOpenException;
 import com.orderManagement.model.Book;
+import com.orderManagement.model.BookArchive;
+import com.orderManagement.model.BookDepth;
+import com.orderManagement.service.ArchiveService;
 import com.orderManagement.service.BookService;
 import com.orderManagement.service.OrderService;
 import org.junit.jupiter.api.Test;
@@ -44,6 +50,8 @@ public class BookControllerTest {
     private BookService bookService;
     @MockBean
     private OrderService orderService;
+    @MockBean
+    private ArchiveService archiveService;
 
     ObjectMapper objectMapper = new ObjectMapper();
 
@@ -161,12 +169,21 @@ public class BookControllerTest {
                 )
                 .andExpect(MockMvcResultMatchers.status().isFailedDependency());
 
-        //Simulate internal server error scenario
+        //Simulate can not open book because it is archived
         when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
         when((orderService.getPendingOrdersForBook(matches("book")))).thenReturn(new ArrayList<>());
+        doThrow(new BookArchivedException("Book is archived"))
+                .when(archiveService)
+                .openBook(anyString());
 
+        mockMvc.perform(MockMvcRequestBuilders.post("/book/open/book")
+                        .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+
+        //Simulate internal server error scenario
         doThrow(new RuntimeException("Internal error"))
-                .when(bookService)
+                .when(archiveService)
                 .openBook(anyString());
 
         mockMvc.perform(MockMvcRequestBuilders.post("/book/open/book")
@@ -175,4 +192,64 @@ public class BookControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isInternalServerError());
         
     }
+
+    @Test
+    public void testArchiveBookApi() throws Exception{
+        BookArchive bookArchive = new BookArchive();
+        bookArchive.setBookName("book");
+        bookArchive.setArchivedOrders(3);
+        bookArchive.setArchivedExecutions(2);
+        when(archiveService.archiveBook(matches("book"))).thenReturn(bookArchive);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/book/archive/book")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.archivedOrders").value(3))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.archivedExecutions").value(2));
+
+        //Simulate open book scenario
+        when(archiveService.archiveBook(matches("book"))).thenThrow(new BookOpenException("Book is open"));
+        mockMvc.perform(MockMvcRequestBuilders.post("/book/archive/book")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        //Simulate pending orders scenario
+        doThrow(new BookNotFinishedException("Book has pending orders"))
+                .when(archiveService)
+                .archiveBook(anyString());
+        mockMvc.perform(MockMvcRequestBuilders.post("/book/archive/book")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isFailedDependency());
+
+        //Simulate internal server error scenario
+        doThrow(new RuntimeException("Internal error"))
+                .when(archiveService)
+                .archiveBook(anyString());
+        mockMvc.perform(MockMvcRequestBuilders.post("/book/archive/book")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isInternalServerError());
+    }
+
+    @Test
+    public void testGetDepthApi() throws Exception{
+        BookDepth bookDepth = new BookDepth();
+        bookDepth.setBookName("book");
+        bookDepth.setInstrumentId(42);
+        bookDepth.setBestBid(41.0);
+        bookDepth.setBids(new ArrayList<>());
+        bookDepth.setAsks(new ArrayList<>());
+        when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
+        when(orderService.getDepth(matches("book"), eq(42), eq(3))).thenReturn(bookDepth);
+
+        mockMvc.perform(get("/book/book/depth").param("instrumentId", "42").param("levels", "3"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.bestBid").value(41.0));
+
+        mockMvc.perform(get("/book/book/depth").param("instrumentId", "42").param("levels", "0"))
+                .andExpect(status().isBadRequest());
+
+        when(bookService.isBookAvailable(matches("book"))).thenReturn(false);
+        mockMvc.perform(get("/book/book/depth").param("instrumentId", "42"))
+                .andExpect(status().isNotFound());
+    }
 }
@@ -2,11 +2,18 @@ package com.orderManagement.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.orderManagement.entity.ExecutionEntity;
+import com.orderManagement.exceptions.BookArchivedException;
 import com.orderManagement.exceptions.BookDoesNotExistsException;
 import com.orderManagement.exceptions.BookOpenException;
+import com.orderManagement.exceptions.ExecutionQueueFullException;
 import com.orderManagement.model.Execution;
+import com.orderManagement.model.ExecutionResult;
+import com.orderManagement.model.ExecutionTicket;
+import com.orderManagement.model.ExecutionTicketStatus;
 import com.orderManagement.model.ExecutionType;
+import com.orderManagement.model.Fill;
 import com.orderManagement.service.ExecutionService;
+import com.orderManagement.service.ExecutionTicketService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -23,10 +30,16 @@ import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.util.List;
+import java.util.Optional;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
 
 @WebMvcTest(ExecutionController.class)
 public class ExecutionControllerTest {
@@ -37,6 +50,9 @@ public class ExecutionControllerTest {
     @MockBean
     private ExecutionService executionService;
 
+    @MockBean
+    private ExecutionTicketService executionTicketService;
+
     ObjectMapper objectMapper = new ObjectMapper();
 
     @Test
@@ -58,6 +74,19 @@ public class ExecutionControllerTest {
 
         assertEquals(result.getResponse().getContentAsString(), "Execution triggered successfully");
 
+        //Simulate fills not flushed in time, the execution is committed and must not be retried
+        doThrow(new IllegalStateException("Order fills were not persisted within 5000 ms"))
+                .when(executionService)
+                .awaitFillPersistence();
+
+        result = mockMvc.perform(MockMvcRequestBuilders.post("/execution/triggerExecution")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(executionJson))
+                .andExpect(MockMvcResultMatchers.status().isAccepted())
+                .andReturn();
+
+        assertEquals(result.getResponse().getContentAsString(), "Execution triggered, fills pending");
+
         //Simulate book doest not exists scenario.
         doThrow(new BookDoesNotExistsException("Book does not exists"))
                 .when(executionService)
@@ -78,6 +107,16 @@ public class ExecutionControllerTest {
                         .content(executionJson))
                 .andExpect(MockMvcResultMatchers.status().isBadRequest());
 
+        //Simulate book is archived scenario
+        doThrow(new BookArchivedException("Book archived exception"))
+                .when(executionService)
+                .triggerExecution(any());
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/execution/triggerExecution")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(executionJson))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
         //Simulate internal server error scenario
         doThrow(new RuntimeException("Internal error"))
                 .when(executionService)
@@ -88,4 +127,118 @@ public class ExecutionControllerTest {
                         .content(executionJson))
                 .andExpect(MockMvcResultMatchers.status().isInternalServerError());
     }
+
+    @Test
+    public void testTriggerExecutionsApi() throws Exception{
+        Execution execution = new Execution();
+        execution.setBookName("book");
+        execution.setInstrumentId(42);
+        execution.setType(ExecutionType.OFFER);
+        execution.setQuantity(16);
+        execution.setPrice(34);
+
+        String executionsJson = objectMapper.writeValueAsString(List.of(execution, execution));
+        when(executionService.triggerExecutions(any()))
+                .thenReturn(List.of(ExecutionResult.executed(0), ExecutionResult.rejected(1, "Book does not exists")));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/execution/triggerExecutions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(executionsJson))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].executed").value(true))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].executed").value(false));
+
+        //Simulate fills not flushed in time, the batch is committed and must not be retried
+        doThrow(new IllegalStateException("Order fills were not persisted within 5000 ms"))
+                .when(executionService)
+                .awaitFillPersistence();
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/execution/triggerExecutions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(executionsJson))
+                .andExpect(MockMvcResultMatchers.status().isAccepted())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].executed").value(true));
+
+        //Simulate internal server error scenario
+        when(executionService.triggerExecutions(any())).thenThrow(new RuntimeException("Internal error"));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/execution/triggerExecutions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(executionsJson))
+                .andExpect(MockMvcResultMatchers.status().isInternalServerError());
+    }
+
+    @Test
+    public void testGetFillsApi() throws Exception{
+        Fill fill = new Fill();
+        fill.setExecutionId(Long.valueOf(7));
+        fill.setOrderId(Long.valueOf(4));
+        fill.setQuantity(50);
+        fill.setPrice(39);
+        when(executionService.getFillsForExecution(Long.valueOf(7))).thenReturn(List.of(fill));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/execution/7/fills"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].orderId").value(4))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].quantity").value(50));
+    }
+
+    @Test
+    public void testSubmitExecutionApi() throws Exception{
+        Execution execution = new Execution();
+        execution.setBookName("book");
+        execution.setInstrumentId(42);
+        execution.setType(ExecutionType.OFFER);
+        execution.setQuantity(16);
+        execution.setPrice(34);
+        String executionJson = objectMapper.writeValueAsString(execution);
+
+        ExecutionTicket executionTicket = new ExecutionTicket();
+        executionTicket.setTicketId(9L);
+        executionTicket.setStatus(ExecutionTicketStatus.QUEUED);
+        when(executionTicketService.submit(any(), isNull())).thenReturn(executionTicket);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/execution/submitExecution")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(executionJson))
+                .andExpect(MockMvcResultMatchers.status().isAccepted())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.ticketId").value(9))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.status").value("QUEUED"));
+
+        //Simulate malformed callback URL scenario
+        when(executionTicketService.submit(any(), eq("ftp://localhost")))
+                .thenThrow(new IllegalArgumentException("Callback URL ftp://localhost must be an absolute http or https URL."));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/execution/submitExecution")
+                        .param("callbackUrl", "ftp://localhost")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(executionJson))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        //Simulate queue full scenario
+        when(executionTicketService.submit(any(), isNull())).thenThrow(new ExecutionQueueFullException("Execution queue is full"));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/execution/submitExecution")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(executionJson))
+                .andExpect(MockMvcResultMatchers.status().isServiceUnavailable());
+    }
+
+    @Test
+    public void testGetTicketApi() throws Exception{
+        ExecutionTicket executionTicket = new ExecutionTicket();
+        executionTicket.setTicketId(9L);
+        executionTicket.setStatus(ExecutionTicketStatus.REJECTED);
+        executionTicket.setMessage("Book does not exists");
+        when(executionTicketService.getTicket(9L)).thenReturn(Optional.of(executionTicket));
+        when(executionTicketService.getTicket(10L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/execution/ticket/9"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.status").value("REJECTED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Book does not exists"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/execution/ticket/10"))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
 }
@@ -1,6 +1,7 @@
 package com.orderManagement.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orderManagement.entity.OrderEntity;
 import com.orderManagement.exceptions.*;
 import com.orderManagement.model.Order;
 import com.orderManagement.model.OrderType;
@@ -22,6 +23,8 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -148,6 +151,16 @@ public class OrderControllerTest {
                         .content(orderJson))
                 .andExpect(MockMvcResultMatchers.status().isBadRequest());
 
+        //Simulate OrderConflictException
+        doThrow(new OrderConflictException("OrderConflictException"))
+                .when(orderService)
+                .editOrder(any());
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/order/editOrder")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(orderJson))
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+
         //Simulate internal server error scenario
         doThrow(new RuntimeException("Internal error"))
                 .when(orderService)
@@ -199,6 +212,26 @@ public class OrderControllerTest {
                 )
                 .andExpect(MockMvcResultMatchers.status().isBadRequest());
 
+        //Simulate InactiveOrderException
+        doThrow(new InactiveOrderException("InactiveOrderException"))
+                .when(orderService)
+                .deleteOrder(any());
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/order/deleteOrder/2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        //Simulate OrderConflictException
+        doThrow(new OrderConflictException("OrderConflictException"))
+                .when(orderService)
+                .deleteOrder(any());
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/order/deleteOrder/2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+
         //Simulate internal server error scenario
         doThrow(new RuntimeException("Internal error"))
                 .when(orderService)
@@ -219,4 +252,86 @@ public class OrderControllerTest {
         order.setInstrumentId(42);
         return order;
     }
+
+    @Test
+    public void testGetOrderApi() throws Exception{
+        Order order = new Order();
+        order.setOrderId(Long.valueOf(2));
+        order.setBookName("book");
+        when(orderService.getActiveOrder(Long.valueOf(2))).thenReturn(Optional.of(order));
+        when(orderService.getActiveOrder(Long.valueOf(3))).thenReturn(Optional.empty());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/order/2"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.orderId").value(2));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/order/3"))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+    @Test
+    public void testGetOrderAsOfApi() throws Exception{
+        OrderEntity order = new OrderEntity();
+        order.setOrderId(Long.valueOf(2));
+        order.setRemainingQuantity(30);
+        order.setActive(true);
+        order.setVersion(4);
+        LocalDateTime asOf = LocalDateTime.of(2024, 1, 15, 10, 30);
+        when(orderService.getOrderAsOf(Long.valueOf(2), asOf)).thenReturn(Optional.of(order));
+        when(orderService.getOrderAsOf(Long.valueOf(3), asOf)).thenReturn(Optional.empty());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/order/2/asOf").param("time", "2024-01-15T10:30:00"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.remainingQuantity").value(30))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.active").value(true))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.version").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.priceTicks").doesNotExist());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/order/3/asOf").param("time", "2024-01-15T10:30:00"))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+    @Test
+    public void testAddOrdersApi() throws Exception{
+        Order order = getOrder();
+        order.setOrderId(null);
+        String ordersJson = objectMapper.writeValueAsString(List.of(order, order));
+        when(orderService.addOrders(any())).thenReturn(List.of(Long.valueOf(7), Long.valueOf(8)));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/order/addOrders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ordersJson))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0]").value(7))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1]").value(8));
+
+        //Simulate book closed exception
+        doThrow(new BookClosedException("Book is already closed"))
+                .when(orderService)
+                .addOrders(any());
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/order/addOrders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ordersJson))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    public void testAddOrdersStreamApi() throws Exception{
+        Order order = getOrder();
+        order.setOrderId(null);
+        String orderJson = objectMapper.writeValueAsString(order);
+        when(orderService.addOrders(any())).thenReturn(List.of(Long.valueOf(7), Long.valueOf(8)));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/order/addOrders")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(orderJson + "\n" + orderJson + "\n"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1]").value(8));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/order/addOrders")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("not json\n"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
 }
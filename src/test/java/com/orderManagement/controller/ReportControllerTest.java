@@ -3,7 +3,9 @@ package com.orderManagement.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.orderManagement.entity.ExecutionEntity;
 import com.orderManagement.entity.OrderEntity;
+import com.orderManagement.locking.StripedLockManager;
 import com.orderManagement.model.ExecutionType;
+import com.orderManagement.model.LockStatistics;
 import com.orderManagement.model.Report;
 import com.orderManagement.service.ReportService;
 import org.junit.jupiter.api.Test;
@@ -37,9 +39,29 @@ public class ReportControllerTest {
     private MockMvc mockMvc;
     @MockBean
     private ReportService reportService;
+    @MockBean
+    private StripedLockManager lockManager;
 
     ObjectMapper objectMapper = new ObjectMapper();
 
+    @Test
+    public void testGetLockStatisticsApi() throws Exception {
+        LockStatistics statistics = new LockStatistics();
+        statistics.setStripes(256);
+        statistics.setContendedAcquisitions(3);
+        when(lockManager.getStatistics(5)).thenReturn(statistics);
+
+        mockMvc.perform(get("/report/metrics/locks").param("hottest", "5"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.stripes").value(256))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.contendedAcquisitions").value(3));
+
+        mockMvc.perform(get("/report/metrics/locks").param("hottest", "-1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/report/metrics/locks").param("hottest", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void testGetReportApi() throws Exception {
         Report report = getReport();
@@ -0,0 +1,70 @@
+package com.orderManagement.entity;
+
+import com.orderManagement.model.Order;
+import com.orderManagement.model.OrderType;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.BeanUtils;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the per call cost and allocation of reflective property copies against the field by field mappers
+ * for the order conversions done on every add and edit.
+ * Run with {@code -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Slf4j
+public class EntityMapperBenchmarkTest {
+
+    private static final int WARM_UP_CALLS = 200_000;
+
+    private static final int MEASURED_CALLS = 1_000_000;
+
+    @Test
+    public void benchmarkReflectiveAndSpecializedOrderMapping(){
+        Order order = new Order();
+        order.setOrderId(7L);
+        order.setInstrumentId(42);
+        order.setQuantity(10);
+        order.setEntryDate(LocalDateTime.now());
+        order.setType(OrderType.BUY);
+        order.setPrice(39.9);
+        order.setBookName("benchmark");
+
+        Function<Order, Order> reflective = bean -> {
+            OrderEntity orderEntity = new OrderEntity();
+            BeanUtils.copyProperties(bean, orderEntity);
+            Order mapped = new Order();
+            BeanUtils.copyProperties(orderEntity, mapped);
+            return mapped;
+        };
+        Function<Order, Order> specialized = bean -> EntityMappers.ORDERS.toBean(EntityMappers.ORDERS.toEntity(bean));
+
+        measure("Reflective", reflective, order);
+        measure("Specialized", specialized, order);
+        assertEquals(specialized.apply(order).getPrice(), reflective.apply(order).getPrice());
+    }
+
+    private static void measure(String name, Function<Order, Order> mapping, Order order) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long checksum = 0;
+        for (int i = 0; i < WARM_UP_CALLS; i++) {
+            checksum += mapping.apply(order).getQuantity();
+        }
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_CALLS; i++) {
+            checksum += mapping.apply(order).getQuantity();
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        log.info("{} order round trip: {} ns and {} bytes per call (checksum {})",
+                name, nanos / MEASURED_CALLS, allocated / MEASURED_CALLS, checksum);
+    }
+}
@@ -0,0 +1,98 @@
+package com.orderManagement.entity;
+
+import com.orderManagement.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EntityMappersTest {
+
+    @Test
+    public void testOrderRoundTrip(){
+        Order order = new Order();
+        order.setOrderId(7L);
+        order.setInstrumentId(42);
+        order.setQuantity(10);
+        order.setEntryDate(LocalDateTime.of(2023, 10, 1, 12, 0));
+        order.setType(OrderType.SELL);
+        order.setPrice(39.9);
+        order.setBookName("bookName");
+
+        OrderEntity orderEntity = EntityMappers.ORDERS.toEntity(order);
+        assertEquals(orderEntity.getOrderId(), 7L);
+        assertEquals(orderEntity.getPriceTicks(), 39_900_000L);
+
+        Order mapped = EntityMappers.ORDERS.toBean(orderEntity);
+        assertEquals(mapped.getOrderId(), 7L);
+        assertEquals(mapped.getInstrumentId(), 42);
+        assertEquals(mapped.getQuantity(), 10);
+        assertEquals(mapped.getEntryDate(), order.getEntryDate());
+        assertEquals(mapped.getType(), OrderType.SELL);
+        assertEquals(mapped.getPrice(), 39.9);
+        assertEquals(mapped.getBookName(), "bookName");
+    }
+
+    @Test
+    public void testNewOrderEntityIsActiveWithoutId(){
+        Order order = new Order();
+        order.setOrderId(7L);
+        order.setQuantity(10);
+        order.setType(OrderType.BUY);
+
+        OrderEntity orderEntity = OrderEntity.toEntity(order);
+        assertNull(orderEntity.getOrderId());
+        assertTrue(orderEntity.isActive());
+        assertEquals(orderEntity.getRemainingQuantity(), 10);
+    }
+
+    @Test
+    public void testOrderStateKeepsRemainingQuantityAndActiveFlag(){
+        OrderEntity orderEntity = new OrderEntity();
+        orderEntity.setOrderId(8L);
+        orderEntity.setQuantity(10);
+        orderEntity.setRemainingQuantity(4);
+        orderEntity.setActive(false);
+        orderEntity.setPrice(39.9);
+        orderEntity.setPreviousOrderId(7L);
+
+        OrderState orderState = orderEntity.toOrderState();
+        assertEquals(orderState.getOrderId(), 8L);
+        assertEquals(orderState.getRemainingQuantity(), 4);
+        assertFalse(orderState.isActive());
+        assertEquals(orderState.getPrice(), 39.9);
+        assertEquals(orderState.getPreviousOrderId(), 7L);
+    }
+
+    @Test
+    public void testExecutionRoundTrip(){
+        Execution execution = new Execution();
+        execution.setInstrumentId(42);
+        execution.setQuantity(5);
+        execution.setType(ExecutionType.OFFER);
+        execution.setPrice(41.25);
+        execution.setBookName("bookName");
+
+        Execution mapped = ExecutionEntity.toEntity(execution).toBean();
+        assertEquals(mapped.getKey(), execution.getKey());
+        assertEquals(mapped.getQuantity(), 5);
+        assertEquals(mapped.getPrice(), 41.25);
+    }
+
+    @Test
+    public void testBookAndFillRoundTrip(){
+        Book book = new Book();
+        book.setBookName("bookName");
+        book.setClosed(true);
+        Book mappedBook = BookEntity.toEntity(book).toBean();
+        assertEquals(mappedBook.getBookName(), "bookName");
+        assertTrue(mappedBook.isClosed());
+
+        Fill mappedFill = FillEntity.of(3L, 7L, 4, 40.5).toBean();
+        assertEquals(mappedFill.getExecutionId(), 3L);
+        assertEquals(mappedFill.getOrderId(), 7L);
+        assertEquals(mappedFill.getQuantity(), 4);
+        assertEquals(mappedFill.getPrice(), 40.5);
+    }
+}
@@ -0,0 +1,63 @@
+package com.orderManagement.locking;
+
+import com.orderManagement.model.LockStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StripedLockManagerTest {
+
+    @Test
+    public void testSameKeyMapsToSameLock(){
+        StripedLockManager lockManager = new StripedLockManager(16);
+        ReentrantLock first = lockManager.lock(Long.valueOf(42));
+        first.unlock();
+        ReentrantLock second = lockManager.lock(Long.valueOf(42));
+        second.unlock();
+        assertSame(first, second);
+        assertEquals(lockManager.getStatistics(5).getAcquisitions(), 2L);
+        assertEquals(lockManager.getStatistics(5).getContendedAcquisitions(), 0L);
+    }
+
+    @Test
+    public void testLockIsReentrant(){
+        StripedLockManager lockManager = new StripedLockManager(1);
+        ReentrantLock outer = lockManager.lock("book42BUY");
+        ReentrantLock inner = lockManager.lock(Long.valueOf(7));
+        assertEquals(outer.getHoldCount(), 2);
+        inner.unlock();
+        outer.unlock();
+        assertFalse(outer.isLocked());
+    }
+
+    @Test
+    public void testContendedAcquisitionIsRecorded() throws Exception{
+        StripedLockManager lockManager = new StripedLockManager(4);
+        CountDownLatch started = new CountDownLatch(1);
+        ReentrantLock held = lockManager.lock("book42OFFER");
+        Thread waiter = new Thread(() -> {
+            started.countDown();
+            lockManager.lock("book42OFFER").unlock();
+        });
+        waiter.start();
+        started.await();
+        while (!held.hasQueuedThreads()) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(5);
+        held.unlock();
+        waiter.join();
+        LockStatistics statistics = lockManager.getStatistics(5);
+        assertEquals(statistics.getContendedAcquisitions(), 1L);
+        assertEquals(statistics.getHottestStripes().size(), 1);
+        assertTrue(statistics.getMaxWaitMicros() > 0);
+    }
+
+    @Test
+    public void testStripeCountMustBePowerOfTwo(){
+        assertThrows(IllegalArgumentException.class, () -> new StripedLockManager(12));
+    }
+}
@@ -0,0 +1,200 @@
+package com.orderManagement.matching;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookSequencerTest {
+
+    private BookSequencer bookSequencer;
+
+    @BeforeEach
+    void setupBeforeEach() {
+        bookSequencer = new BookSequencer(2, 8, 5000);
+        bookSequencer.start();
+    }
+
+    @AfterEach
+    void tearDownAfterEach() {
+        bookSequencer.stop();
+    }
+
+    @Test
+    public void testTasksOfABookRunInPublicationOrder(){
+        List<Integer> applied = new ArrayList<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            int value = i;
+            futures.add(bookSequencer.submit("book", () -> applied.add(value)));
+        }
+        futures.forEach(CompletableFuture::join);
+        assertEquals(applied.size(), 100);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(applied.get(i), Integer.valueOf(i));
+        }
+    }
+
+    @Test
+    public void testConcurrentPublishersDoNotLoseUpdates() throws Exception{
+        int publishers = 4;
+        int tasksPerPublisher = 1000;
+        long[] counter = new long[1];
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < publishers; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException exception) {
+                    return;
+                }
+                for (int j = 0; j < tasksPerPublisher; j++) {
+                    //Unsynchronized increment is safe as only the partition thread runs it
+                    bookSequencer.execute("book", () -> counter[0]++);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        bookSequencer.execute("book", () -> {});
+        assertEquals(counter[0], (long) publishers * tasksPerPublisher);
+    }
+
+    @Test
+    public void testExecuteRethrowsTaskException(){
+        assertThrows(IllegalStateException.class, () -> {
+            bookSequencer.execute("book", () -> {
+                throw new IllegalStateException("failed");
+            });
+        });
+        //partition keeps consuming after a failed task
+        AtomicBoolean applied = new AtomicBoolean();
+        bookSequencer.execute("book", () -> applied.set(true));
+        assertTrue(applied.get());
+    }
+
+    @Test
+    public void testSubmitCompletesFutureExceptionally(){
+        CompletableFuture<Void> future = bookSequencer.submit("book", () -> {
+            throw new IllegalStateException("failed");
+        });
+        assertThrows(CompletionException.class, future::join);
+    }
+
+    @Test
+    public void testNestedSubmitOnSamePartitionRunsInline(){
+        AtomicBoolean applied = new AtomicBoolean();
+        bookSequencer.execute("book", () -> bookSequencer.execute("book", () -> applied.set(true)));
+        assertTrue(applied.get());
+    }
+
+    @Test
+    public void testBufferSizeMustBeAPowerOfTwo(){
+        assertThrows(IllegalArgumentException.class, () -> new BookSequencer(1, 6, 5000));
+    }
+
+    @Test
+    public void testCanNotSubmitWhenStopped(){
+        bookSequencer.stop();
+        assertThrows(IllegalStateException.class, () -> bookSequencer.submit("book", () -> {}));
+    }
+
+    @Test
+    public void testExecuteGivesUpAfterTheAwaitTimeout() throws Exception{
+        BookSequencer slowSequencer = new BookSequencer(1, 8, 50);
+        slowSequencer.start();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            slowSequencer.submit("book", () -> {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            AtomicBoolean ran = new AtomicBoolean();
+            assertThrows(IllegalStateException.class, () -> slowSequencer.execute("book", () -> ran.set(true)));
+            release.countDown();
+            //The task queued after the cancelled one has run, so the cancelled one was skipped rather than late
+            slowSequencer.submit("book", () -> {}).get(5, TimeUnit.SECONDS);
+            assertFalse(ran.get());
+        }
+        finally {
+            release.countDown();
+            slowSequencer.stop();
+        }
+    }
+
+    @Test
+    public void testExecuteAllCancelsTheTasksOfAStalledPartition() throws Exception{
+        BookSequencer slowSequencer = new BookSequencer(2, 8, 50);
+        slowSequencer.start();
+        CountDownLatch release = new CountDownLatch(1);
+        //Books landing on different partitions
+        String stalledBook = "a";
+        String otherBook = "b";
+        try {
+            slowSequencer.submit(stalledBook, () -> {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            AtomicBoolean stalledRan = new AtomicBoolean();
+            AtomicBoolean otherRan = new AtomicBoolean();
+            Map<String, Runnable> tasks = new LinkedHashMap<>();
+            tasks.put(stalledBook, () -> stalledRan.set(true));
+            tasks.put(otherBook, () -> otherRan.set(true));
+            assertThrows(IllegalStateException.class, () -> slowSequencer.executeAll(tasks));
+            //The free partition ran its task, the stalled one never will
+            assertTrue(otherRan.get());
+            release.countDown();
+            slowSequencer.submit(stalledBook, () -> {}).get(5, TimeUnit.SECONDS);
+            assertFalse(stalledRan.get());
+        }
+        finally {
+            release.countDown();
+            slowSequencer.stop();
+        }
+    }
+
+    @Test
+    public void testSubmissionsRacingStopAreNeverLeftPending() throws Exception{
+        List<CompletableFuture<Void>> futures = Collections.synchronizedList(new ArrayList<>());
+        Thread publisher = new Thread(() -> {
+            while (true) {
+                try {
+                    futures.add(bookSequencer.submit("book", () -> {}));
+                } catch (IllegalStateException exception) {
+                    return;
+                }
+            }
+        });
+        publisher.start();
+        Thread.sleep(20);
+        bookSequencer.stop();
+        publisher.join();
+        for (CompletableFuture<Void> future : new ArrayList<>(futures)) {
+            //Each submission either ran or failed, none waits on a consumer that has exited
+            future.handle((result, throwable) -> null).get(1, TimeUnit.SECONDS);
+        }
+    }
+}
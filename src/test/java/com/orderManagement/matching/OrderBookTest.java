@@ -0,0 +1,207 @@
+package com.orderManagement.matching;
+
+import com.orderManagement.entity.OrderEntity;
+import com.orderManagement.model.OrderType;
+import com.orderManagement.model.PriceLevelDepth;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderBookTest {
+
+    private long arrivalSequence;
+
+    @Test
+    public void testBuyBookReturnsHighestPriceFirst(){
+        OrderBook orderBook = new OrderBook(OrderType.BUY);
+        orderBook.add(createOrder(1, 40, 10));
+        orderBook.add(createOrder(2, 42, 10));
+        orderBook.add(createOrder(3, 41, 10));
+        assertEquals(orderBook.peekBest(PriceTicks.toTicks(39)).getOrderId(), 2L);
+        fillBest(orderBook);
+        assertEquals(orderBook.peekBest(PriceTicks.toTicks(39)).getOrderId(), 3L);
+        fillBest(orderBook);
+        assertEquals(orderBook.peekBest(PriceTicks.toTicks(39)).getOrderId(), 1L);
+        fillBest(orderBook);
+        assertTrue(orderBook.isEmpty());
+    }
+
+    @Test
+    public void testSellBookReturnsLowestPriceFirst(){
+        OrderBook orderBook = new OrderBook(OrderType.SELL);
+        orderBook.add(createOrder(1, 40, 10));
+        orderBook.add(createOrder(2, 38, 10));
+        assertEquals(orderBook.peekBest(PriceTicks.toTicks(41)).getOrderId(), 2L);
+    }
+
+    @Test
+    public void testOrdersAtSamePriceAreReturnedInArrivalOrder(){
+        OrderBook orderBook = new OrderBook(OrderType.BUY);
+        orderBook.add(createOrder(5, 40, 10));
+        orderBook.add(createOrder(3, 40, 10));
+        assertEquals(orderBook.peekBest(PriceTicks.toTicks(40)).getOrderId(), 5L);
+        fillBest(orderBook);
+        assertEquals(orderBook.peekBest(PriceTicks.toTicks(40)).getOrderId(), 3L);
+    }
+
+    @Test
+    public void testNothingIsReturnedIfBestPriceDoesNotCross(){
+        OrderBook buyBook = new OrderBook(OrderType.BUY);
+        buyBook.add(createOrder(1, 40, 10));
+        assertNull(buyBook.peekBest(PriceTicks.toTicks(41)));
+
+        OrderBook sellBook = new OrderBook(OrderType.SELL);
+        sellBook.add(createOrder(2, 40, 10));
+        assertNull(sellBook.peekBest(PriceTicks.toTicks(39)));
+    }
+
+    @Test
+    public void testCompletedOrdersAreNotAdded(){
+        OrderBook orderBook = new OrderBook(OrderType.BUY);
+        orderBook.add(createOrder(1, 40, 0));
+        assertTrue(orderBook.isEmpty());
+    }
+
+    @Test
+    public void testRemoveOrder(){
+        OrderBook orderBook = new OrderBook(OrderType.BUY);
+        orderBook.add(createOrder(1, 40, 10));
+        orderBook.add(createOrder(2, 40, 10));
+        assertTrue(orderBook.remove(1, PriceTicks.toTicks(40)));
+        assertFalse(orderBook.remove(1, PriceTicks.toTicks(40)));
+        assertEquals(orderBook.peekBest(PriceTicks.toTicks(40)).getOrderId(), 2L);
+    }
+
+    @Test
+    public void testDepthIsMaintainedOnAddRemoveAndFill(){
+        OrderBook orderBook = new OrderBook(OrderType.SELL);
+        orderBook.add(createOrder(1, 40, 10));
+        orderBook.add(createOrder(2, 40, 15));
+        orderBook.add(createOrder(3, 41, 20));
+        orderBook.add(createOrder(4, 42, 5));
+        List<PriceLevelDepth> depth = orderBook.depth(2);
+        assertEquals(depth.size(), 2);
+        assertEquals(depth.get(0).getPrice(), 40.0);
+        assertEquals(depth.get(0).getQuantity(), 25L);
+        assertEquals(depth.get(0).getOrderCount(), 2);
+        assertEquals(depth.get(1).getPrice(), 41.0);
+
+        orderBook.fill(orderBook.peekBest(PriceTicks.toTicks(40)), 4);
+        assertEquals(orderBook.depth(1).get(0).getQuantity(), 21L);
+        assertEquals(orderBook.depth(1).get(0).getOrderCount(), 2);
+
+        orderBook.fill(orderBook.peekBest(PriceTicks.toTicks(40)), 6);
+        assertEquals(orderBook.depth(1).get(0).getQuantity(), 15L);
+        assertEquals(orderBook.depth(1).get(0).getOrderCount(), 1);
+
+        orderBook.remove(2, PriceTicks.toTicks(40));
+        depth = orderBook.depth(5);
+        assertEquals(depth.size(), 2);
+        assertEquals(depth.get(0).getPrice(), 41.0);
+        assertEquals(depth.get(1).getQuantity(), 5L);
+    }
+
+    @Test
+    public void testOrderRemovedAfterItWasPeekedIsNotFilled(){
+        OrderBook orderBook = new OrderBook(OrderType.SELL);
+        orderBook.add(createOrder(1, 40, 10));
+        orderBook.add(createOrder(2, 40, 15));
+        RestingOrder best = orderBook.peekBest(PriceTicks.toTicks(40));
+        //An edit removes the order between the peek and the fill
+        orderBook.remove(1, PriceTicks.toTicks(40));
+
+        assertFalse(orderBook.fill(best, 4));
+        assertEquals(best.getRemainingQuantity(), 10);
+        assertEquals(orderBook.depth(1).get(0).getQuantity(), 15L);
+        assertEquals(orderBook.depth(1).get(0).getOrderCount(), 1);
+
+        orderBook.remove(2, PriceTicks.toTicks(40));
+        assertFalse(orderBook.fill(best, 4));
+        assertTrue(orderBook.isEmpty());
+    }
+
+    @Test
+    public void testUnfillPutsCompletedOrderBackAtItsArrivalPosition(){
+        OrderBook orderBook = new OrderBook(OrderType.SELL);
+        RestingOrder first = createOrder(1, 40, 10, 1);
+        RestingOrder second = createOrder(2, 40, 15, 2);
+        orderBook.add(first);
+        orderBook.add(second);
+        assertTrue(orderBook.fill(first, 10));
+        assertTrue(orderBook.fill(second, 5));
+
+        assertTrue(orderBook.unfill(second, 5, () -> true));
+        assertTrue(orderBook.unfill(first, 10, () -> true));
+        assertSame(orderBook.peekBest(PriceTicks.toTicks(40)), first);
+        assertEquals(orderBook.depth(1).get(0).getQuantity(), 25L);
+        assertEquals(orderBook.depth(1).get(0).getOrderCount(), 2);
+
+        //Deleted meanwhile, the order stays out of the book
+        assertTrue(orderBook.fill(first, 10));
+        assertFalse(orderBook.unfill(first, 10, () -> false));
+        assertEquals(first.getRemainingQuantity(), 0);
+        assertEquals(orderBook.depth(1).get(0).getOrderCount(), 1);
+    }
+
+    @Test
+    public void testOrderOvertakenOnItsWayInRestsByArrivalSequence(){
+        OrderBook orderBook = new OrderBook(OrderType.BUY);
+        orderBook.add(createOrder(1, 40, 10, 1));
+        orderBook.add(createOrder(3, 40, 10, 3));
+        orderBook.add(createOrder(2, 40, 10, 2));
+        assertEquals(orderBook.peekBest(PriceTicks.toTicks(40)).getOrderId(), 1L);
+        fillBest(orderBook);
+        assertEquals(orderBook.peekBest(PriceTicks.toTicks(40)).getOrderId(), 2L);
+        fillBest(orderBook);
+        assertEquals(orderBook.peekBest(PriceTicks.toTicks(40)).getOrderId(), 3L);
+    }
+
+    @Test
+    public void testRestingOrderMaterializesItsEntity(){
+        RestingOrder restingOrder = createOrder(7, 39.5, 30, 1);
+        restingOrder.fill(10);
+        OrderEntity orderEntity = restingOrder.toEntity();
+        assertEquals(orderEntity.getOrderId(), Long.valueOf(7));
+        assertEquals(orderEntity.getRemainingQuantity(), 20);
+        assertEquals(orderEntity.getQuantity(), 30);
+        assertEquals(orderEntity.getPrice(), 39.5);
+        assertEquals(orderEntity.getEntryDate(), LocalDateTime.of(2024, 1, 1, 9, 30, 0, 123456000));
+        assertEquals(orderEntity.getBookName(), "book");
+        assertNull(orderEntity.getPreviousOrderId());
+        assertTrue(orderEntity.isActive());
+        orderEntity.setRemainingQuantity(0);
+        assertEquals(restingOrder.getRemainingQuantity(), 20);
+    }
+
+    @Test
+    public void testPriceTicksRoundTrip(){
+        assertEquals(PriceTicks.toTicks(39.9), 39_900_000L);
+        assertEquals(PriceTicks.toTicks(0.1 + 0.2), PriceTicks.toTicks(0.3));
+        assertEquals(PriceTicks.toPrice(PriceTicks.toTicks(41.25)), 41.25);
+    }
+
+    private static void fillBest(OrderBook orderBook){
+        RestingOrder best = orderBook.peekBest(0);
+        orderBook.fill(best, best.getRemainingQuantity());
+    }
+
+    private RestingOrder createOrder(long orderId, double price, int remainingQuantity){
+        return createOrder(orderId, price, remainingQuantity, ++arrivalSequence);
+    }
+
+    private static RestingOrder createOrder(long orderId, double price, int remainingQuantity, long arrivalSequence){
+        OrderEntity orderEntity = new OrderEntity();
+        orderEntity.setOrderId(orderId);
+        orderEntity.setInstrumentId(42);
+        orderEntity.setPriceTicks(PriceTicks.toTicks(price));
+        orderEntity.setRemainingQuantity(remainingQuantity);
+        orderEntity.setQuantity(remainingQuantity);
+        orderEntity.setEntryDate(LocalDateTime.of(2024, 1, 1, 9, 30, 0, 123456000));
+        orderEntity.setType(OrderType.BUY);
+        orderEntity.setActive(true);
+        return RestingOrder.from(orderEntity, "book", arrivalSequence);
+    }
+}
@@ -0,0 +1,64 @@
+package com.orderManagement.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookHydratorTest {
+
+    @Test
+    public void testEveryRowOfEveryBookIsLoadedInPagesAndInOrder(){
+        Map<String, List<Integer>> rowsByBook = Map.of(
+                "book1", List.of(1, 2, 3, 4, 5),
+                "book2", List.of(10, 20),
+                "book3", List.of());
+        List<String> loadedPages = Collections.synchronizedList(new ArrayList<>());
+        BookHydrator.PageLoader<Integer> pageLoader = (bookName, last, pageSize) -> {
+            List<Integer> page = rowsByBook.get(bookName)
+                    .stream()
+                    .filter(row -> last == null || row > last)
+                    .limit(pageSize)
+                    .collect(Collectors.toList());
+            loadedPages.add(bookName + page);
+            return page;
+        };
+        Map<String, List<Integer>> loadedRows = new ConcurrentHashMap<>();
+
+        BookHydrator bookHydrator = new BookHydrator(2, 2);
+        List<List<Integer>> consumedPages = Collections.synchronizedList(new ArrayList<>());
+        long rows = bookHydrator.hydrate("rows", List.of("book1", "book2", "book3"), pageLoader, page -> {
+            consumedPages.add(page);
+            String bookName = page.get(0) < 10 ? "book1" : "book2";
+            loadedRows.computeIfAbsent(bookName, key -> Collections.synchronizedList(new ArrayList<>())).addAll(page);
+        });
+
+        assertEquals(rows, 7L);
+        //Pages are handed over whole, empty ones not at all
+        assertEquals(consumedPages.size(), 4);
+        assertTrue(consumedPages.containsAll(List.of(List.of(1, 2), List.of(3, 4), List.of(5), List.of(10, 20))));
+        assertEquals(loadedRows.get("book1"), List.of(1, 2, 3, 4, 5));
+        assertEquals(loadedRows.get("book2"), List.of(10, 20));
+        //A full page is followed by another read, a short one ends the book
+        assertTrue(loadedPages.containsAll(List.of("book1[1, 2]", "book1[3, 4]", "book1[5]", "book2[10, 20]", "book2[]", "book3[]")));
+        assertEquals(loadedPages.size(), 6);
+    }
+
+    @Test
+    public void testFailureOfABookFailsTheHydration(){
+        BookHydrator bookHydrator = new BookHydrator(2, 10);
+        BookHydrator.PageLoader<Integer> pageLoader = (bookName, last, pageSize) -> {
+            throw new IllegalArgumentException("Database is down");
+        };
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> {
+            bookHydrator.hydrate("rows", List.of("book1"), pageLoader, page -> {});
+        });
+        assertEquals(exception.getCause().getMessage(), "Database is down");
+    }
+}
@@ -0,0 +1,126 @@
+package com.orderManagement.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookResidencyTest {
+
+    @Test
+    public void testBookIsLoadedOnceOnFirstTouch() throws Exception{
+        RowsPerBook state = new RowsPerBook(10);
+        BookResidency bookResidency = new BookResidency(1_000, 30, 0);
+        bookResidency.register(state);
+        assertFalse(bookResidency.isResident("book"));
+
+        CountDownLatch done = new CountDownLatch(4);
+        for (int i = 0; i < 4; i++) {
+            new Thread(() -> {
+                bookResidency.touch("book");
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        bookResidency.touch("book");
+
+        assertTrue(bookResidency.isResident("book"));
+        assertEquals(state.loads.get(), 1);
+        assertEquals(state.size("book"), 10L);
+    }
+
+    @Test
+    public void testLeastRecentlyTouchedBooksAreEvictedOverBudget() throws Exception{
+        RowsPerBook state = new RowsPerBook(10);
+        BookResidency bookResidency = new BookResidency(25, 30, 0);
+        bookResidency.register(state);
+        bookResidency.touch("book1");
+        Thread.sleep(2);
+        bookResidency.touch("book2");
+        Thread.sleep(2);
+        bookResidency.touch("book1");
+        Thread.sleep(2);
+        //Loading a third book goes over budget, book2 is the coldest
+        bookResidency.touch("book3");
+
+        assertTrue(bookResidency.isResident("book1"));
+        assertFalse(bookResidency.isResident("book2"));
+        assertTrue(bookResidency.isResident("book3"));
+        assertEquals(state.evicted, List.of("book2"));
+
+        //A cold book is loaded again on its next touch
+        bookResidency.touch("book2");
+        assertTrue(bookResidency.isResident("book2"));
+        assertEquals(state.loads.get(), 4);
+    }
+
+    @Test
+    public void testRecentlyTouchedBooksAreNotEvicted(){
+        RowsPerBook state = new RowsPerBook(10);
+        BookResidency bookResidency = new BookResidency(15, 30, 60_000);
+        bookResidency.register(state);
+        bookResidency.touch("book1");
+        bookResidency.touch("book2");
+        assertTrue(bookResidency.isResident("book1"));
+        assertTrue(bookResidency.isResident("book2"));
+        assertTrue(state.evicted.isEmpty());
+    }
+
+    @Test
+    public void testPinnedBookIsNotEvicted() throws Exception{
+        RowsPerBook state = new RowsPerBook(10);
+        BookResidency bookResidency = new BookResidency(15, 30, 0);
+        bookResidency.register(state);
+        bookResidency.pin("book1");
+        Thread.sleep(2);
+        //book1 is the coldest but pinned, so the budget is met by evicting the other book
+        bookResidency.touch("book2");
+        assertTrue(bookResidency.isResident("book1"));
+        assertFalse(bookResidency.isResident("book2"));
+        assertEquals(state.evicted, List.of("book2"));
+
+        bookResidency.unpin("book1");
+        Thread.sleep(2);
+        bookResidency.touch("book2");
+        assertFalse(bookResidency.isResident("book1"));
+        assertTrue(bookResidency.isResident("book2"));
+    }
+
+    private static class RowsPerBook implements ResidentState {
+
+        private final long rowsPerBook;
+
+        private final Map<String, Long> rows = new ConcurrentHashMap<>();
+
+        private final AtomicInteger loads = new AtomicInteger();
+
+        private final List<String> evicted = new ArrayList<>();
+
+        RowsPerBook(long rowsPerBook) {
+            this.rowsPerBook = rowsPerBook;
+        }
+
+        @Override
+        public void load(String bookName) {
+            loads.incrementAndGet();
+            rows.put(bookName, rowsPerBook);
+        }
+
+        @Override
+        public long size(String bookName) {
+            return rows.getOrDefault(bookName, 0L);
+        }
+
+        @Override
+        public void evict(String bookName) {
+            evicted.add(bookName);
+            rows.remove(bookName);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.orderManagement.persistence;
+
+import com.orderManagement.entity.ExecutionEntity;
+import com.orderManagement.entity.FillEntity;
+import com.orderManagement.model.ExecutionType;
+import com.orderManagement.repository.ExecutionRepository;
+import com.orderManagement.repository.FillRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ExecutionWalTest {
+
+    private Path directory;
+
+    private FillRepository fillRepository;
+
+    @BeforeEach
+    void setupBeforeEach() throws IOException {
+        directory = Files.createTempDirectory("wal");
+        fillRepository = mock(FillRepository.class);
+    }
+
+    @AfterEach
+    void cleanupAfterEach() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Test
+    public void testLoggedExecutionsAreStoredBehindTheAppend(){
+        ExecutionRepository executionRepository = mockRepository();
+        ExecutionWal executionWal = new ExecutionWal(executionRepository, fillRepository, directory, 1024 * 1024, 10, 1000, 1000, 50);
+        executionWal.start();
+        executionWal.appendAll(List.of(createExecution(1L, "book"), createExecution(2L, "book")));
+        assertTrue(executionWal.getSyncs() >= 1);
+        assertEquals(executionWal.getUnappliedExecutions(),2);
+        executionWal.stop();
+        assertEquals(storedExecutions(executionRepository).size(),2);
+        assertEquals(executionWal.getUnappliedExecutions(),0);
+    }
+
+    @Test
+    public void testUnstoredExecutionsAreReplayedOnRestart(){
+        ExecutionRepository failingRepository = mockRepository();
+        doThrow(new RuntimeException("Database unavailable")).when(failingRepository).insertAll(any());
+        ExecutionWal executionWal = new ExecutionWal(failingRepository, fillRepository, directory, 1024 * 1024, 10, 1000, 1000, 50);
+        executionWal.start();
+        executionWal.appendAll(List.of(createExecution(7L, "book"), createExecution(8L, "other")));
+        //The process dies before the executions reach the database
+        ExecutionRepository executionRepository = mockRepository();
+        ExecutionWal restartedWal = new ExecutionWal(executionRepository, fillRepository, directory, 1024 * 1024, 10, 1000, 1000, 50);
+        restartedWal.start();
+        List<ExecutionEntity> replayed = storedExecutions(executionRepository);
+        assertEquals(replayed.size(),2);
+        assertEquals(replayed.get(0).getExecutionId(),Long.valueOf(7));
+        assertEquals(replayed.get(1).getBookName(),"other");
+        assertEquals(replayed.get(1).getType(),ExecutionType.ASK);
+        assertEquals(replayed.get(1).getPriceTicks(),39_500_000L);
+        restartedWal.stop();
+        executionWal.stop();
+    }
+
+    @Test
+    public void testStoredExecutionsAreNotReplayed(){
+        ExecutionRepository executionRepository = mockRepository();
+        ExecutionWal executionWal = new ExecutionWal(executionRepository, fillRepository, directory, 1024 * 1024, 10, 1000, 1000, 50);
+        executionWal.start();
+        executionWal.appendAll(List.of(createExecution(1L, "book")));
+        executionWal.stop();
+
+        ExecutionRepository restartedRepository = mockRepository();
+        ExecutionWal restartedWal = new ExecutionWal(restartedRepository, fillRepository, directory, 1024 * 1024, 10, 1000, 1000, 50);
+        restartedWal.start();
+        verify(restartedRepository,never()).insertAll(any());
+        restartedWal.appendAll(List.of(createExecution(2L, "book")));
+        restartedWal.stop();
+        assertEquals(storedExecutions(restartedRepository).size(),1);
+    }
+
+    @Test
+    public void testFullLogIsReusedOnceItsExecutionsAreStored(){
+        ExecutionRepository executionRepository = mockRepository();
+        ExecutionWal executionWal = new ExecutionWal(executionRepository, fillRepository, directory, 64 + 2 * ExecutionWal.RECORD_BYTES, 10, 5, 5000, 50);
+        executionWal.start();
+        for (long executionId = 1; executionId <= 5; executionId++) {
+            executionWal.appendAll(List.of(createExecution(executionId, "book")));
+        }
+        executionWal.appendAll(List.of(createExecution(6L, "book"), createExecution(7L, "book")));
+        //A transaction is never split across a rewind, it would wait for its own records to be stored
+        assertThrows(IllegalArgumentException.class, () -> executionWal.appendAll(List.of(createExecution(8L, "book"), createExecution(9L, "book"), createExecution(10L, "book"))));
+        executionWal.stop();
+        assertEquals(storedExecutions(executionRepository).size(),7);
+
+        ExecutionRepository restartedRepository = mockRepository();
+        ExecutionWal restartedWal = new ExecutionWal(restartedRepository, fillRepository, directory, 64 + 2 * ExecutionWal.RECORD_BYTES, 10, 5, 5000, 50);
+        restartedWal.start();
+        verify(restartedRepository,never()).insertAll(any());
+        restartedWal.stop();
+    }
+
+    @Test
+    public void testRolledBackExecutionsAreNeverStored(){
+        ExecutionRepository executionRepository = mockRepository();
+        ExecutionWal executionWal = new ExecutionWal(executionRepository, fillRepository, directory, 1024 * 1024, 10, 1000, 1000, 50);
+        executionWal.start();
+        ExecutionWal.Prepared prepared = executionWal.prepare(List.of(createExecution(1L, "book")), List.of(createFill(1L)));
+        //On disk before the transaction completes, but not stored while its outcome is unknown
+        assertTrue(executionWal.getSyncs() >= 1);
+        assertEquals(executionWal.getUnappliedExecutions(),0);
+        prepared.rollback();
+        executionWal.appendAll(List.of(createExecution(2L, "book")));
+        executionWal.awaitStored();
+        executionWal.stop();
+        List<ExecutionEntity> stored = storedExecutions(executionRepository);
+        assertEquals(stored.size(),1);
+        assertEquals(stored.get(0).getExecutionId(),Long.valueOf(2));
+
+        ExecutionRepository restartedRepository = mockRepository();
+        ExecutionWal restartedWal = new ExecutionWal(restartedRepository, fillRepository, directory, 1024 * 1024, 10, 1000, 1000, 50);
+        restartedWal.start();
+        verify(restartedRepository,never()).insertAll(any());
+        restartedWal.stop();
+    }
+
+    @Test
+    public void testPreparedExecutionsAreResolvedFromTheirFillsOnRestart(){
+        ExecutionRepository failingRepository = mockRepository();
+        doThrow(new RuntimeException("Database unavailable")).when(failingRepository).insertAll(any());
+        ExecutionWal executionWal = new ExecutionWal(failingRepository, fillRepository, directory, 1024 * 1024, 10, 1000, 1000, 50);
+        executionWal.start();
+        executionWal.prepare(List.of(createExecution(1L, "book")), List.of(createFill(1L)));
+        executionWal.prepare(List.of(createExecution(2L, "book"), createExecution(3L, "book")), List.of(createFill(3L)));
+        executionWal.prepare(List.of(createExecution(4L, "book")), new ArrayList<>());
+        //The process dies before any outcome is written. Only the fills of the second transaction were committed
+        when(fillRepository.existsByExecutionIdIn(List.of(1L))).thenReturn(false);
+        when(fillRepository.existsByExecutionIdIn(List.of(2L, 3L))).thenReturn(true);
+        ExecutionRepository executionRepository = mockRepository();
+        ExecutionWal restartedWal = new ExecutionWal(executionRepository, fillRepository, directory, 1024 * 1024, 10, 1000, 1000, 50);
+        restartedWal.start();
+        List<Long> replayed = storedExecutions(executionRepository)
+                .stream()
+                .map(ExecutionEntity::getExecutionId)
+                .collect(Collectors.toList());
+        //The last transaction matched nothing, so nothing tells whether it committed and it is kept
+        assertEquals(replayed,List.of(2L, 3L, 4L));
+        restartedWal.stop();
+        executionWal.stop();
+    }
+
+    @Test
+    public void testBookNameLongerThanRecordIsRejected(){
+        ExecutionRepository executionRepository = mockRepository();
+        ExecutionWal executionWal = new ExecutionWal(executionRepository, fillRepository, directory, 1024 * 1024, 10, 1000, 1000, 50);
+        executionWal.start();
+        assertThrows(IllegalArgumentException.class, () -> executionWal.appendAll(List.of(createExecution(1L, "b".repeat(101)))));
+        executionWal.stop();
+    }
+
+    @Test
+    public void testStartFailsIfSequenceIncrementDiffersFromAllocationSize(){
+        ExecutionRepository executionRepository = mockRepository();
+        when(executionRepository.findExecutionIdIncrement()).thenReturn(1L);
+        ExecutionWal executionWal = new ExecutionWal(executionRepository, fillRepository, directory, 1024 * 1024, 10, 1000, 1000, 50);
+        assertThrows(IllegalStateException.class, executionWal::start);
+        assertFalse(executionWal.isRunning());
+    }
+
+    private static ExecutionRepository mockRepository(){
+        ExecutionRepository executionRepository = mock(ExecutionRepository.class);
+        when(executionRepository.findExecutionIdIncrement()).thenReturn(50L);
+        return executionRepository;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<ExecutionEntity> storedExecutions(ExecutionRepository executionRepository){
+        ArgumentCaptor<List<ExecutionEntity>> argumentCaptor = ArgumentCaptor.forClass(List.class);
+        verify(executionRepository,atLeastOnce()).insertAll(argumentCaptor.capture());
+        List<ExecutionEntity> executions = new ArrayList<>();
+        argumentCaptor.getAllValues().forEach(executions::addAll);
+        return executions;
+    }
+
+    private static FillEntity createFill(Long executionId){
+        return FillEntity.of(executionId, 1L, 10, 39.5);
+    }
+
+    private static ExecutionEntity createExecution(Long executionId, String bookName){
+        ExecutionEntity executionEntity = new ExecutionEntity();
+        executionEntity.setExecutionId(executionId);
+        executionEntity.setBookName(bookName);
+        executionEntity.setInstrumentId(42);
+        executionEntity.setQuantity(10);
+        executionEntity.setType(bookName.equals("other") ? ExecutionType.ASK : ExecutionType.OFFER);
+        executionEntity.setPrice(39.5);
+        return executionEntity;
+    }
+}
@@ -0,0 +1,130 @@
+package com.orderManagement.persistence;
+
+import com.orderManagement.entity.OrderEntity;
+import com.orderManagement.repository.OrdersRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class FillWriterTest {
+
+    @Mock
+    private OrdersRepository ordersRepository;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFillsOfAnOrderAreCoalesced(){
+        FillWriter fillWriter = new FillWriter(ordersRepository, 10, 1000, FillDurability.ACK_AFTER_FLUSH, 1000);
+        OrderEntity orderEntity = createOrder(1L, 50);
+        fillWriter.markDirty(orderEntity);
+        orderEntity.setRemainingQuantity(20);
+        fillWriter.markDirty(orderEntity);
+        fillWriter.markDirty(createOrder(2L, 0));
+        fillWriter.flush();
+        ArgumentCaptor<List<OrderEntity>> argumentCaptor = ArgumentCaptor.forClass(List.class);
+        verify(ordersRepository,times(1)).updateRemainingQuantities(argumentCaptor.capture());
+        //One JDBC batch of updates, no read of the orders before writing them
+        verify(ordersRepository,never()).saveAll(any());
+        assertEquals(argumentCaptor.getValue().size(),2);
+        assertEquals(fillWriter.getMetrics().getPendingOrders(),0);
+        assertEquals(fillWriter.getMetrics().getFlushedOrders(),2L);
+        assertEquals(fillWriter.getMetrics().getFlushes(),1L);
+    }
+
+    @Test
+    public void testFlushIsSplitIntoBatches(){
+        FillWriter fillWriter = new FillWriter(ordersRepository, 2, 1000, FillDurability.ACK_AFTER_FLUSH, 1000);
+        for (long orderId = 1; orderId <= 5; orderId++) {
+            fillWriter.markDirty(createOrder(orderId, 0));
+        }
+        fillWriter.flush();
+        verify(ordersRepository,times(3)).updateRemainingQuantities(any());
+        assertEquals(fillWriter.getMetrics().getFlushedOrders(),5L);
+    }
+
+    @Test
+    public void testAwaitFlushReturnsOnceFillsAreCommitted(){
+        FillWriter fillWriter = new FillWriter(ordersRepository, 100, 1000, FillDurability.ACK_AFTER_FLUSH, 5000);
+        fillWriter.start();
+        fillWriter.markDirty(createOrder(1L, 10));
+        //The writer is woken up by the waiter instead of sleeping for the whole flush interval
+        fillWriter.awaitFlush();
+        verify(ordersRepository,times(1)).updateRemainingQuantities(any());
+        fillWriter.stop();
+        assertFalse(fillWriter.isRunning());
+    }
+
+    @Test
+    public void testFailedFlushKeepsFillsPending(){
+        FillWriter fillWriter = new FillWriter(ordersRepository, 10, 1000, FillDurability.ACK_AFTER_FLUSH, 50);
+        doThrow(new RuntimeException("Database unavailable")).when(ordersRepository).updateRemainingQuantities(any());
+        fillWriter.markDirty(createOrder(1L, 10));
+        fillWriter.flush();
+        assertEquals(fillWriter.getMetrics().getPendingOrders(),1);
+        assertEquals(fillWriter.getMetrics().getFailedFlushes(),1L);
+        assertThrows(IllegalStateException.class, fillWriter::awaitFlush);
+    }
+
+    @Test
+    public void testFlushOrderWritesPendingFillRightAway(){
+        FillWriter fillWriter = new FillWriter(ordersRepository, 10, 1000, FillDurability.ACK_IMMEDIATELY, 1000);
+        OrderEntity orderEntity = createOrder(1L, 10);
+        fillWriter.markDirty(orderEntity);
+        fillWriter.flushOrder(1L);
+        fillWriter.flushOrder(2L);
+        verify(ordersRepository,times(1)).updateRemainingQuantities(List.of(orderEntity));
+        assertEquals(fillWriter.getMetrics().getPendingOrders(),0);
+    }
+
+    @Test
+    public void testFlushOrderWaitsForTheBatchWritingIt() throws Exception{
+        FillWriter fillWriter = new FillWriter(ordersRepository, 10, 1000, FillDurability.ACK_IMMEDIATELY, 5000);
+        CountDownLatch batchStarted = new CountDownLatch(1);
+        CountDownLatch releaseBatch = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            batchStarted.countDown();
+            assertTrue(releaseBatch.await(5, TimeUnit.SECONDS));
+            return null;
+        }).when(ordersRepository).updateRemainingQuantities(any());
+        fillWriter.markDirty(createOrder(1L, 10));
+        Thread writer = new Thread(fillWriter::flush);
+        writer.start();
+        assertTrue(batchStarted.await(5, TimeUnit.SECONDS));
+
+        //The order already left the dirty orders, the edit must still wait for its fill to be written
+        CountDownLatch flushedOrder = new CountDownLatch(1);
+        Thread editor = new Thread(() -> {
+            fillWriter.flushOrder(1L);
+            flushedOrder.countDown();
+        });
+        editor.start();
+        assertFalse(flushedOrder.await(100, TimeUnit.MILLISECONDS));
+        releaseBatch.countDown();
+        assertTrue(flushedOrder.await(5, TimeUnit.SECONDS));
+        writer.join();
+        verify(ordersRepository,times(1)).updateRemainingQuantities(any());
+    }
+
+    @Test
+    public void testInvalidSettingsAreRejected(){
+        assertThrows(IllegalArgumentException.class, () -> new FillWriter(ordersRepository, 0, 10, FillDurability.ACK_IMMEDIATELY, 1000));
+    }
+
+    private static OrderEntity createOrder(Long orderId, int remainingQuantity){
+        OrderEntity orderEntity = new OrderEntity();
+        orderEntity.setOrderId(orderId);
+        orderEntity.setRemainingQuantity(remainingQuantity);
+        return orderEntity;
+    }
+}
@@ -0,0 +1,163 @@
+package com.orderManagement.persistence;
+
+import com.orderManagement.entity.OrderEntity;
+import com.orderManagement.entity.OrderEventEntity;
+import com.orderManagement.model.OrderEventType;
+import com.orderManagement.repository.OrderEventRepository;
+import com.orderManagement.repository.OrdersRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderEventLogTest {
+
+    @Mock
+    private OrderEventRepository orderEventRepository;
+
+    @Mock
+    private OrdersRepository ordersRepository;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLatestEventOfAnOrderIsMaterializedAndCheckpointAdvances(){
+        when(orderEventRepository.nextEventIdBlock()).thenReturn(1L);
+        OrderEventLog orderEventLog = new OrderEventLog(orderEventRepository, ordersRepository, 50, 10, 1000, 1000);
+        OrderEntity orderEntity = createOrder(1L, 50);
+        orderEventLog.append(OrderEventType.CREATED, orderEntity);
+        orderEntity.setRemainingQuantity(20);
+        orderEventLog.append(OrderEventType.FILLED, orderEntity);
+        verify(orderEventRepository,times(2)).insertAll(any());
+        assertEquals(orderEventLog.getUnmaterializedOrders(),1);
+
+        orderEventLog.materialize();
+        ArgumentCaptor<List<OrderEntity>> argumentCaptor = ArgumentCaptor.forClass(List.class);
+        verify(ordersRepository,times(1)).mergeAll(argumentCaptor.capture());
+        assertEquals(argumentCaptor.getValue().size(),1);
+        assertEquals(argumentCaptor.getValue().get(0).getRemainingQuantity(),20);
+        verify(orderEventRepository,times(1)).updateCheckpoint(2L);
+        assertEquals(orderEventLog.getUnmaterializedOrders(),0);
+    }
+
+    @Test
+    public void testUncommittedEventHoldsCheckpointBack(){
+        when(orderEventRepository.nextEventIdBlock()).thenReturn(1L);
+        OrderEventLog orderEventLog = new OrderEventLog(orderEventRepository, ordersRepository, 50, 10, 1000, 1000);
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> synchronizations;
+        try {
+            orderEventLog.append(OrderEventType.CREATED, createOrder(1L, 50));
+            synchronizations = new ArrayList<>(TransactionSynchronizationManager.getSynchronizations());
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        orderEventLog.append(OrderEventType.CREATED, createOrder(2L, 50));
+        orderEventLog.materialize();
+        verify(ordersRepository,times(1)).mergeAll(any());
+        verify(orderEventRepository,never()).updateCheckpoint(anyLong());
+
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        orderEventLog.materialize();
+        verify(ordersRepository,times(2)).mergeAll(any());
+        verify(orderEventRepository,times(1)).updateCheckpoint(2L);
+    }
+
+    @Test
+    public void testRolledBackEventIsNotMaterialized(){
+        when(orderEventRepository.nextEventIdBlock()).thenReturn(1L);
+        OrderEventLog orderEventLog = new OrderEventLog(orderEventRepository, ordersRepository, 50, 10, 1000, 1000);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            orderEventLog.append(OrderEventType.CANCELLED, createOrder(1L, 50));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        orderEventLog.materialize();
+        verify(ordersRepository,never()).mergeAll(any());
+        assertEquals(orderEventLog.getUnmaterializedOrders(),0);
+    }
+
+    @Test
+    public void testFailedMaterializationKeepsEventsPending(){
+        when(orderEventRepository.nextEventIdBlock()).thenReturn(1L);
+        doThrow(new RuntimeException("Database unavailable")).when(ordersRepository).mergeAll(any());
+        OrderEventLog orderEventLog = new OrderEventLog(orderEventRepository, ordersRepository, 50, 10, 1000, 1000);
+        orderEventLog.append(OrderEventType.CREATED, createOrder(1L, 50));
+        orderEventLog.materialize();
+        assertEquals(orderEventLog.getUnmaterializedOrders(),1);
+        verify(orderEventRepository,never()).updateCheckpoint(anyLong());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testStartAppliesEventsRecordedAfterCheckpoint(){
+        when(orderEventRepository.findCheckpoint()).thenReturn(5L);
+        when(orderEventRepository.findByEventIdGreaterThanOrderByEventId(eq(5L), any()))
+                .thenReturn(List.of(createEvent(6L, 1L, 50), createEvent(7L, 1L, 30), createEvent(8L, 2L, 10)));
+        when(orderEventRepository.findOrderIdIncrement()).thenReturn(50L);
+        when(orderEventRepository.findEventIdIncrement()).thenReturn(50L);
+        OrderEventLog orderEventLog = new OrderEventLog(orderEventRepository, ordersRepository, 50, 10, 1000, 1000);
+        orderEventLog.start();
+        orderEventLog.stop();
+        ArgumentCaptor<List<OrderEntity>> argumentCaptor = ArgumentCaptor.forClass(List.class);
+        verify(ordersRepository,times(1)).mergeAll(argumentCaptor.capture());
+        assertEquals(argumentCaptor.getValue().size(),2);
+        assertEquals(argumentCaptor.getValue().get(0).getRemainingQuantity(),30);
+        verify(orderEventRepository,times(1)).updateCheckpoint(8L);
+        assertFalse(orderEventLog.isRunning());
+    }
+
+    @Test
+    public void testOrderIdsAreHandedOutFromReservedBlocks(){
+        when(orderEventRepository.nextOrderIdBlock()).thenReturn(1L, 3L);
+        OrderEventLog orderEventLog = new OrderEventLog(orderEventRepository, ordersRepository, 2, 10, 1000, 1000);
+        assertEquals(orderEventLog.nextOrderId(),1L);
+        assertEquals(orderEventLog.nextOrderId(),2L);
+        assertEquals(orderEventLog.nextOrderId(),3L);
+        verify(orderEventRepository,times(2)).nextOrderIdBlock();
+    }
+
+    @Test
+    public void testStartFailsIfSequenceIncrementDiffersFromAllocationSize(){
+        when(orderEventRepository.findOrderIdIncrement()).thenReturn(1L);
+        OrderEventLog orderEventLog = new OrderEventLog(orderEventRepository, ordersRepository, 50, 10, 1000, 1000);
+        assertThrows(IllegalStateException.class, orderEventLog::start);
+        assertFalse(orderEventLog.isRunning());
+        verify(orderEventRepository,never()).findCheckpoint();
+    }
+
+    @Test
+    public void testInvalidSettingsAreRejected(){
+        assertThrows(IllegalArgumentException.class, () -> new OrderEventLog(orderEventRepository, ordersRepository, 50, 0, 1000, 1000));
+    }
+
+    private static OrderEntity createOrder(Long orderId, int remainingQuantity){
+        OrderEntity orderEntity = new OrderEntity();
+        orderEntity.setOrderId(orderId);
+        orderEntity.setRemainingQuantity(remainingQuantity);
+        orderEntity.setActive(true);
+        return orderEntity;
+    }
+
+    private static OrderEventEntity createEvent(Long eventId, Long orderId, int remainingQuantity){
+        return OrderEventEntity.of(eventId, OrderEventType.FILLED, createOrder(orderId, remainingQuantity), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,48 @@
+package com.orderManagement.persistence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(MockitoExtension.class)
+public class ReadReplicaRoutingDataSourceTest {
+    @Mock
+    private DataSource primaryDataSource;
+    @Mock
+    private DataSource replicaDataSource;
+
+    @AfterEach
+    public void tearDown(){
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    public void testReadOnlyTransactionsAreRoutedToReplica(){
+        ReadReplicaRoutingDataSource routingDataSource = new ReadReplicaRoutingDataSource(primaryDataSource, replicaDataSource);
+        routingDataSource.start();
+        assertEquals(routingDataSource.determineCurrentLookupKey(), ReadReplicaRoutingDataSource.Route.PRIMARY);
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals(routingDataSource.determineCurrentLookupKey(), ReadReplicaRoutingDataSource.Route.REPLICA);
+    }
+
+    @Test
+    public void testReadsStayOnPrimaryUntilStarted(){
+        ReadReplicaRoutingDataSource routingDataSource = new ReadReplicaRoutingDataSource(primaryDataSource, replicaDataSource);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals(routingDataSource.determineCurrentLookupKey(), ReadReplicaRoutingDataSource.Route.PRIMARY);
+
+        routingDataSource.start();
+        assertEquals(routingDataSource.determineCurrentLookupKey(), ReadReplicaRoutingDataSource.Route.REPLICA);
+
+        routingDataSource.stop();
+        assertEquals(routingDataSource.determineCurrentLookupKey(), ReadReplicaRoutingDataSource.Route.PRIMARY);
+    }
+}
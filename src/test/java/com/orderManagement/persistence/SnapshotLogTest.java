@@ -0,0 +1,120 @@
+package com.orderManagement.persistence;
+
+import com.orderManagement.model.Book;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotLogTest {
+
+    private Path directory;
+
+    private SnapshotStore snapshotStore;
+
+    @BeforeEach
+    void setupBeforeEach() throws IOException {
+        directory = Files.createTempDirectory("snapshots");
+        snapshotStore = new SnapshotStore(directory.toString(), 1);
+    }
+
+    @AfterEach
+    void cleanupAfterEach() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Test
+    public void testNothingIsRestoredWithoutSnapshot(){
+        SnapshotLog<Book> snapshotLog = snapshotStore.open("books", StateCodecs.BOOKS);
+        assertTrue(snapshotLog.restore().isEmpty());
+    }
+
+    @Test
+    public void testSnapshotAndJournalAreRestoredInOrder(){
+        SnapshotLog<Book> snapshotLog = snapshotStore.open("books", StateCodecs.BOOKS);
+        snapshotLog.begin(false);
+        snapshotLog.writeSnapshot(List.of(book("book1", false), book("book2", true)), 42);
+        snapshotLog.append(book("book3", false));
+        snapshotLog.append(book("book1", true));
+        snapshotLog.close();
+
+        Optional<SnapshotLog.Restored<Book>> restored = snapshotStore.open("books", StateCodecs.BOOKS).restore();
+        assertTrue(restored.isPresent());
+        assertEquals(restored.get().getHighWaterMark(), 42L);
+        assertEquals(describe(restored.get().getRecords()), List.of("book1:false", "book2:true", "book3:false", "book1:true"));
+    }
+
+    @Test
+    public void testJournalContinuesAfterRestoreAndIsClearedBySnapshot(){
+        SnapshotLog<Book> snapshotLog = snapshotStore.open("books", StateCodecs.BOOKS);
+        snapshotLog.begin(false);
+        snapshotLog.writeSnapshot(List.of(book("book1", false)), 0);
+        snapshotLog.append(book("book2", false));
+        snapshotLog.close();
+
+        SnapshotLog<Book> restartedLog = snapshotStore.open("books", StateCodecs.BOOKS);
+        assertEquals(restartedLog.restore().get().getRecords().size(), 2);
+        restartedLog.begin(true);
+        restartedLog.append(book("book3", false));
+        assertEquals(describe(restartedLog.restore().get().getRecords()), List.of("book1:false", "book2:false", "book3:false"));
+
+        //The new snapshot absorbs the journal, which must not be replayed on top of it
+        restartedLog.writeSnapshot(List.of(book("book1", true)), 0);
+        assertEquals(describe(restartedLog.restore().get().getRecords()), List.of("book1:true"));
+        restartedLog.close();
+    }
+
+    @Test
+    public void testSnapshotIsDroppedWhenStateIsLoadedFromDatabase(){
+        SnapshotLog<Book> snapshotLog = snapshotStore.open("books", StateCodecs.BOOKS);
+        snapshotLog.writeSnapshot(List.of(book("book1", false)), 0);
+        snapshotLog.begin(false);
+        snapshotLog.close();
+        assertTrue(snapshotLog.restore().isEmpty());
+    }
+
+    @Test
+    public void testTornJournalTailIsIgnored() throws IOException{
+        SnapshotLog<Book> snapshotLog = snapshotStore.open("books", StateCodecs.BOOKS);
+        snapshotLog.begin(false);
+        snapshotLog.writeSnapshot(List.of(book("book1", false)), 0);
+        snapshotLog.append(book("book2", false));
+        snapshotLog.append(book("book3", false));
+        snapshotLog.close();
+
+        //Damage the last record as a crash in the middle of a write would
+        Path journal = directory.resolve("books.journal");
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long lastRecordByte = 12 + 2 * 8 + 2 * ("book2".length() + 3) - 1;
+            channel.write(java.nio.ByteBuffer.wrap(new byte[]{0x7F}), lastRecordByte);
+        }
+        assertEquals(describe(snapshotStore.open("books", StateCodecs.BOOKS).restore().get().getRecords()), List.of("book1:false", "book2:false"));
+    }
+
+    private static List<String> describe(List<Book> books){
+        return books.stream().map(book -> book.getBookName() + ":" + book.isClosed()).collect(Collectors.toList());
+    }
+
+    private static Book book(String bookName, boolean isClosed){
+        Book book = new Book();
+        book.setBookName(bookName);
+        book.setClosed(isClosed);
+        return book;
+    }
+}
@@ -0,0 +1,94 @@
+package com.orderManagement.repository;
+
+import com.orderManagement.entity.OrderEntity;
+import com.orderManagement.model.OrderType;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares order insert throughput of one transaction per order against batched inserts of a whole chunk.
+ * Run with {@code -Dbenchmark=true}.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Slf4j
+public class OrderInsertBenchmarkTest {
+
+    private static final int ORDER_COUNT = 10_000;
+
+    @Autowired
+    private OrdersRepository ordersRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void benchmarkSingleAndBatchedOrderInserts(){
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        //Warm up the connection pool and the statement caches
+        transactionTemplate.executeWithoutResult(status -> ordersRepository.saveAll(createOrders(1_000)));
+
+        List<OrderEntity> singleOrders = createOrders(ORDER_COUNT);
+        statistics.clear();
+        long start = System.nanoTime();
+        singleOrders.forEach(ordersRepository::save);
+        long singleNanos = System.nanoTime() - start;
+        long singleStatements = statistics.getPrepareStatementCount();
+
+        List<OrderEntity> batchedOrders = createOrders(ORDER_COUNT);
+        statistics.clear();
+        start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> ordersRepository.saveAll(batchedOrders));
+        long batchedNanos = System.nanoTime() - start;
+        long batchedStatements = statistics.getPrepareStatementCount();
+
+        log.info("Inserted {} orders one per transaction: {} orders/s, {} statements",
+                ORDER_COUNT, ordersPerSecond(singleNanos), singleStatements);
+        log.info("Inserted {} orders in one batched transaction: {} orders/s, {} statements",
+                ORDER_COUNT, ordersPerSecond(batchedNanos), batchedStatements);
+
+        //Ids are reserved in blocks and inserts are sent in JDBC batches, not one round trip per order
+        assertTrue(batchedStatements * 10 < ORDER_COUNT);
+        assertTrue(batchedOrders.stream().allMatch(order -> order.getOrderId() != null));
+    }
+
+    private static long ordersPerSecond(long nanos) {
+        return ORDER_COUNT * 1_000_000_000L / Math.max(nanos, 1);
+    }
+
+    private static List<OrderEntity> createOrders(int count) {
+        List<OrderEntity> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            OrderEntity order = new OrderEntity();
+            order.setBookName("benchmark");
+            order.setInstrumentId(42);
+            order.setQuantity(10);
+            order.setRemainingQuantity(10);
+            order.setPrice(40 + (i % 100) / 10.0);
+            order.setType(i % 2 == 0 ? OrderType.BUY : OrderType.SELL);
+            order.setActive(true);
+            order.setEntryDate(LocalDateTime.now());
+            orders.add(order);
+        }
+        return orders;
+    }
+}
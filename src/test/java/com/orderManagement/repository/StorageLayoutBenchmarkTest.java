@@ -0,0 +1,112 @@
+package com.orderManagement.repository;
+
+import com.orderManagement.entity.OrderEntity;
+import com.orderManagement.matching.PriceTicks;
+import com.orderManagement.model.OrderType;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the storage size and full scan time of orders stored with the compact layout against the former layout
+ * of string flags, string types and decimal prices mapped through converters.
+ * Run with {@code -Dbenchmark=true}.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Slf4j
+public class StorageLayoutBenchmarkTest {
+
+    private static final int ORDER_COUNT = 200_000;
+
+    private static final long FIRST_ORDER_ID = 1_000_000_000L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void tearDown(){
+        jdbcTemplate.update("DELETE FROM TEST.ORDERS WHERE BOOK_NAME = 'benchmark'");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS TEST.LEGACY_ORDERS");
+    }
+
+    @Test
+    public void benchmarkCompactAgainstLegacyOrderLayout(){
+        jdbcTemplate.execute("CREATE TABLE TEST.LEGACY_ORDERS (ORDER_ID NUMBER PRIMARY KEY, BOOK_NAME VARCHAR2(100) NOT NULL, " +
+                "INSTRUMENT_ID NUMBER NOT NULL, QUANTITY NUMBER NOT NULL, REMAINING_QUANTITY NUMBER NOT NULL, " +
+                "ENTRY_DATE TIMESTAMP (6) NOT NULL, IS_ACTIVE VARCHAR2(1) NOT NULL, TYPE VARCHAR2(5) NOT NULL, " +
+                "PRICE NUMBER NOT NULL, PREVIOUS_ORDER_ID NUMBER)");
+        List<Object[]> compactRows = new ArrayList<>(ORDER_COUNT);
+        List<Object[]> legacyRows = new ArrayList<>(ORDER_COUNT);
+        Timestamp entryDate = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            double price = 40 + (i % 1000) / 100.0;
+            OrderType type = i % 2 == 0 ? OrderType.BUY : OrderType.SELL;
+            compactRows.add(new Object[]{FIRST_ORDER_ID + i, "benchmark", 42, 10, 10, entryDate, true, type.ordinal(), PriceTicks.toTicks(price)});
+            legacyRows.add(new Object[]{FIRST_ORDER_ID + i, "benchmark", 42, 10, 10, entryDate, "1", type.name(), price});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO TEST.ORDERS (ORDER_ID, BOOK_NAME, INSTRUMENT_ID, QUANTITY, REMAINING_QUANTITY, " +
+                "ENTRY_DATE, IS_ACTIVE, TYPE, PRICE_TICKS) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", compactRows);
+        jdbcTemplate.batchUpdate("INSERT INTO TEST.LEGACY_ORDERS (ORDER_ID, BOOK_NAME, INSTRUMENT_ID, QUANTITY, REMAINING_QUANTITY, " +
+                "ENTRY_DATE, IS_ACTIVE, TYPE, PRICE) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", legacyRows);
+
+        long compactBytes = jdbcTemplate.queryForObject("SELECT DISK_SPACE_USED('TEST.ORDERS')", Long.class);
+        long legacyBytes = jdbcTemplate.queryForObject("SELECT DISK_SPACE_USED('TEST.LEGACY_ORDERS')", Long.class);
+
+        //Warm up both scans
+        scanCompact();
+        scanLegacy();
+        long start = System.nanoTime();
+        List<OrderEntity> compactOrders = scanCompact();
+        long compactNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        List<OrderEntity> legacyOrders = scanLegacy();
+        long legacyNanos = System.nanoTime() - start;
+
+        log.info("Compact layout: {} bytes per order, scanned {} orders in {} ms",
+                compactBytes / ORDER_COUNT, compactOrders.size(), compactNanos / 1_000_000);
+        log.info("Legacy layout: {} bytes per order, scanned {} orders in {} ms",
+                legacyBytes / ORDER_COUNT, legacyOrders.size(), legacyNanos / 1_000_000);
+
+        assertEquals(compactOrders.size(), ORDER_COUNT);
+        assertEquals(legacyOrders.size(), ORDER_COUNT);
+        assertEquals(compactOrders.get(ORDER_COUNT - 1).getPrice(), legacyOrders.get(ORDER_COUNT - 1).getPrice());
+        assertTrue(compactBytes < legacyBytes);
+    }
+
+    private List<OrderEntity> scanCompact() {
+        OrderType[] orderTypes = OrderType.values();
+        return jdbcTemplate.query("SELECT ORDER_ID, IS_ACTIVE, TYPE, PRICE_TICKS FROM TEST.ORDERS WHERE BOOK_NAME = 'benchmark' " +
+                "ORDER BY ORDER_ID", (resultSet, rowNum) -> {
+            OrderEntity order = new OrderEntity();
+            order.setOrderId(resultSet.getLong(1));
+            order.setActive(resultSet.getBoolean(2));
+            order.setType(orderTypes[resultSet.getInt(3)]);
+            order.setPriceTicks(resultSet.getLong(4));
+            return order;
+        });
+    }
+
+    private List<OrderEntity> scanLegacy() {
+        return jdbcTemplate.query("SELECT ORDER_ID, IS_ACTIVE, TYPE, PRICE FROM TEST.LEGACY_ORDERS ORDER BY ORDER_ID", (resultSet, rowNum) -> {
+            OrderEntity order = new OrderEntity();
+            order.setOrderId(resultSet.getLong(1));
+            order.setActive(!"0".equals(resultSet.getString(2)));
+            order.setType(OrderType.BUY.name().equalsIgnoreCase(resultSet.getString(3)) ? OrderType.BUY : OrderType.SELL);
+            order.setPrice(resultSet.getDouble(4));
+            return order;
+        });
+    }
+}
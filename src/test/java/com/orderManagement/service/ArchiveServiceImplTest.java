@@ -0,0 +1,114 @@
+package com.orderManagement.service;
+
+import com.orderManagement.entity.OrderEntity;
+import com.orderManagement.exceptions.BookArchivedException;
+import com.orderManagement.exceptions.BookDoesNotExistsException;
+import com.orderManagement.exceptions.BookNotFinishedException;
+import com.orderManagement.exceptions.BookOpenException;
+import com.orderManagement.model.BookArchive;
+import com.orderManagement.persistence.ResidentState;
+import com.orderManagement.repository.BookRepository;
+import com.orderManagement.utils.TestUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.matches;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ArchiveServiceImplTest {
+    @Mock
+    private BookService bookService;
+    @Mock
+    private OrderService orderService;
+    @Mock
+    private ExecutionService executionService;
+    @Mock
+    private BookRepository bookRepository;
+    @Mock
+    private ResidentState residentState;
+
+    private ArchiveServiceImpl archiveService;
+
+    @BeforeEach
+    public void setUp(){
+        archiveService = new ArchiveServiceImpl(bookService, orderService, executionService, bookRepository, List.of(residentState));
+    }
+
+    @Test
+    public void testArchiveBookMovesRowsAndEvictsBook(){
+        BookArchive bookArchive = new BookArchive();
+        bookArchive.setBookName("book");
+        bookArchive.setArchivedOrders(2);
+        when(bookService.isBookClosed(matches("book"))).thenReturn(true);
+        when(orderService.getPendingOrdersForBook(matches("book"))).thenReturn(new ArrayList<>());
+        when(bookRepository.archiveBook(matches("book"))).thenReturn(bookArchive);
+        assertFalse(archiveService.isBookArchived("book"));
+
+        assertEquals(archiveService.archiveBook("book"), bookArchive);
+        verify(orderService).awaitPendingWrites();
+        verify(executionService).awaitPendingWrites();
+        verify(residentState).evict("book");
+        assertTrue(archiveService.isBookArchived("book"));
+
+        List<OrderEntity> archivedOrders = TestUtils.mockActiveOrders();
+        when(bookRepository.findArchivedOrdersOfBook(matches("book"))).thenReturn(archivedOrders);
+        assertEquals(archiveService.getArchivedOrdersForBook("book"), archivedOrders);
+    }
+
+    @Test
+    public void testOnlyClosedBooksWithoutPendingOrdersAreArchived(){
+        when(bookService.isBookClosed(matches("missing"))).thenThrow(new BookDoesNotExistsException("Book does not exists"));
+        assertThrows(BookDoesNotExistsException.class, () -> archiveService.archiveBook("missing"));
+
+        when(bookService.isBookClosed(matches("open"))).thenReturn(false);
+        assertThrows(BookOpenException.class, () -> archiveService.archiveBook("open"));
+
+        when(bookService.isBookClosed(matches("book"))).thenReturn(true);
+        when(orderService.getPendingOrdersForBook(matches("book"))).thenReturn(TestUtils.mockActiveOrders().subList(0, 1));
+        assertThrows(BookNotFinishedException.class, () -> archiveService.archiveBook("book"));
+
+        verify(bookRepository, never()).archiveBook(anyString());
+        verify(residentState, never()).evict(anyString());
+    }
+
+    @Test
+    public void testArchiveFinishedBooksSkipsArchivedAndPendingBooks(){
+        when(bookRepository.findArchivedBookNames()).thenReturn(List.of("archived"));
+        archiveService.start();
+        when(bookService.getClosedBookNames()).thenReturn(List.of("archived", "pending", "finished"));
+        when(bookService.isBookClosed(anyString())).thenReturn(true);
+        when(orderService.getPendingOrdersForBook(matches("pending"))).thenReturn(TestUtils.mockActiveOrders().subList(0, 1));
+        when(orderService.getPendingOrdersForBook(matches("finished"))).thenReturn(new ArrayList<>());
+        when(bookRepository.archiveBook(anyString())).thenReturn(new BookArchive());
+
+        archiveService.archiveFinishedBooks();
+
+        verify(orderService, never()).getPendingOrdersForBook("archived");
+        verify(bookRepository, never()).archiveBook("archived");
+        verify(bookRepository, never()).archiveBook("pending");
+        verify(bookRepository).archiveBook("finished");
+        assertTrue(archiveService.isBookArchived("finished"));
+        assertFalse(archiveService.isBookArchived("pending"));
+    }
+
+    @Test
+    public void testArchivedBookIsNotOpenedAgain(){
+        when(bookRepository.findArchivedBookNames()).thenReturn(List.of("archived"));
+        archiveService.start();
+
+        assertThrows(BookArchivedException.class, () -> archiveService.openBook("archived"));
+        verify(bookService, never()).openBook("archived");
+
+        archiveService.openBook("book");
+        verify(bookService).openBook("book");
+    }
+}
@@ -2,29 +2,51 @@ package com.orderManagement.service;
 
 import com.orderManagement.entity.BookEntity;
 import com.orderManagement.entity.ExecutionEntity;
+import com.orderManagement.entity.FillEntity;
 import com.orderManagement.entity.OrderEntity;
+import com.orderManagement.exceptions.BookArchivedException;
 import com.orderManagement.exceptions.BookDoesNotExistsException;
 import com.orderManagement.exceptions.BookOpenException;
+import com.orderManagement.locking.StripedLockManager;
+import com.orderManagement.matching.BookSequencer;
+import com.orderManagement.matching.OrderBook;
+import com.orderManagement.matching.PriceTicks;
+import com.orderManagement.matching.RestingOrder;
 import com.orderManagement.model.Execution;
+import com.orderManagement.model.ExecutionResult;
 import com.orderManagement.model.ExecutionType;
+import com.orderManagement.model.Fill;
 import com.orderManagement.model.OrderType;
+import com.orderManagement.persistence.BookHydrator;
+import com.orderManagement.persistence.ExecutionWal;
 import com.orderManagement.repository.ExecutionRepository;
+import com.orderManagement.repository.FillRepository;
 import com.orderManagement.utils.TestUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.matches;
 import static org.mockito.Mockito.*;
 
@@ -36,6 +58,12 @@ public class ExecutionServiceImplTest {
     private OrderService orderService;
     @Mock
     private ExecutionRepository executionRepository;
+    @Mock
+    private FillRepository fillRepository;
+    @Spy
+    private StripedLockManager lockManager = new StripedLockManager(16);
+    @Spy
+    private BookHydrator bookHydrator = new BookHydrator(2, 100);
     @InjectMocks
     private ExecutionServiceImpl executionService;
 
@@ -49,7 +77,8 @@ public class ExecutionServiceImplTest {
         executionEntity.setExecutionId(Long.valueOf(1));
         List<ExecutionEntity> list = new ArrayList<>();
         list.add(executionEntity);
-        when(executionRepository.findAll()).thenReturn(list);
+        when(executionRepository.findBookNames()).thenReturn(List.of("book"));
+        when(executionRepository.findByBookNameAndExecutionIdGreaterThanOrderByExecutionId(eq("book"), eq(Long.valueOf(0)), any())).thenReturn(list);
         executionService.start();
     }
 
@@ -75,11 +104,29 @@ public class ExecutionServiceImplTest {
     }
 
     @Test
+    public void testCanNotTriggerExecutionIfBookIsArchived(){
+        ArchiveService archiveService = mock(ArchiveService.class);
+        executionService.setArchiveService(archiveService);
+        when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
+        when(bookService.isBookClosed(matches("book"))).thenReturn(true);
+        when(archiveService.isBookArchived("book")).thenReturn(true);
+        Execution execution = new Execution();
+        execution.setBookName("book");
+        assertThrows(BookArchivedException.class, () -> {
+            executionService.triggerExecution(execution);
+        });
+        List<ExecutionResult> results = executionService.triggerExecutions(List.of(execution));
+        assertFalse(results.get(0).isExecuted());
+        verify(executionRepository,never()).save(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
     public void testOfferExecutionTrigger(){
         when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
         when(bookService.isBookClosed(matches("book"))).thenReturn(true);
-        List<OrderEntity> activeOrders = TestUtils.mockActiveOrders();
-        when(orderService.getActiveOrdersForBook(matches("book"))).thenReturn(activeOrders);
+        OrderBook buyOrders = TestUtils.mockOrderBook(42, OrderType.BUY);
+        when(orderService.getOrderBook(matches("book"), eq(42), eq(OrderType.BUY))).thenReturn(buyOrders);
         Execution execution = new Execution();
         execution.setPrice(39);
         execution.setQuantity(70);
@@ -88,22 +135,135 @@ public class ExecutionServiceImplTest {
         execution.setType(ExecutionType.OFFER);
         when(executionRepository.save(any())).thenReturn(ExecutionEntity.toEntity(execution));
         executionService.triggerExecution(execution);
-        ArgumentCaptor<OrderEntity> argumentCaptor = ArgumentCaptor.forClass(OrderEntity.class);
-        verify(orderService,times(2)).updateOrder(argumentCaptor.capture());
-        List<OrderEntity> executedOrders =  argumentCaptor.getAllValues();
+        ArgumentCaptor<List<RestingOrder>> argumentCaptor = ArgumentCaptor.forClass(List.class);
+        verify(orderService,times(1)).applyFills(argumentCaptor.capture());
+        List<RestingOrder> executedOrders =  argumentCaptor.getValue();
         assertEquals(executedOrders.size(),2);
-        assertEquals(executedOrders.get(0).getOrderId(),Long.valueOf(1));
+        //Best bid is filled first regardless of entry time
+        assertEquals(executedOrders.get(0).getOrderId(),4L);
         assertEquals(executedOrders.get(0).getRemainingQuantity(),0);
-        assertEquals(executedOrders.get(1).getOrderId(),Long.valueOf(4));
+        assertEquals(executedOrders.get(1).getOrderId(),1L);
         assertEquals(executedOrders.get(1).getRemainingQuantity(),20);
+        assertSame(buyOrders.peekBest(PriceTicks.toTicks(39)),executedOrders.get(1));
+        ArgumentCaptor<List<FillEntity>> fillCaptor = ArgumentCaptor.forClass(List.class);
+        verify(fillRepository,times(1)).insertAll(fillCaptor.capture());
+        List<FillEntity> fills = fillCaptor.getValue();
+        assertEquals(fills.size(),2);
+        assertEquals(fills.get(0).getOrderId(),Long.valueOf(4));
+        assertEquals(fills.get(0).getQuantity(),40);
+        assertEquals(fills.get(1).getOrderId(),Long.valueOf(1));
+        assertEquals(fills.get(1).getQuantity(),30);
+        assertEquals(fills.get(1).getPrice(),39.0);
     }
 
     @Test
+    @SuppressWarnings("unchecked")
+    public void testExecutionIsLoggedInsteadOfSavedWhenWalIsEnabled() throws Exception{
+        Path directory = Files.createTempDirectory("wal");
+        when(executionRepository.nextExecutionIdBlock()).thenReturn(100L);
+        when(executionRepository.findExecutionIdIncrement()).thenReturn(50L);
+        ExecutionWal executionWal = new ExecutionWal(executionRepository, fillRepository, directory.toString(), 1, 10, 1000, 1000, 50);
+        executionWal.start();
+        executionService.setExecutionWal(executionWal);
+        when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
+        when(bookService.isBookClosed(matches("book"))).thenReturn(true);
+        OrderBook buyOrders = TestUtils.mockOrderBook(42, OrderType.BUY);
+        when(orderService.getOrderBook(matches("book"), eq(42), eq(OrderType.BUY))).thenReturn(buyOrders);
+        Execution execution = new Execution();
+        execution.setPrice(39);
+        execution.setQuantity(70);
+        execution.setBookName("book");
+        execution.setInstrumentId(42);
+        execution.setType(ExecutionType.OFFER);
+        executionService.triggerExecution(execution);
+        verify(executionRepository,never()).save(any());
+        ArgumentCaptor<List<FillEntity>> fillCaptor = ArgumentCaptor.forClass(List.class);
+        verify(fillRepository,times(1)).insertAll(fillCaptor.capture());
+        assertEquals(fillCaptor.getValue().get(0).getExecutionId(),Long.valueOf(100));
+        assertEquals(executionWal.getUnappliedExecutions(),1);
+        executionWal.stop();
+        ArgumentCaptor<List<ExecutionEntity>> executionCaptor = ArgumentCaptor.forClass(List.class);
+        verify(executionRepository,times(1)).insertAll(executionCaptor.capture());
+        assertEquals(executionCaptor.getValue().get(0).getExecutionId(),Long.valueOf(100));
+    }
+
+    @Test
+    public void testEvictedBookWaitsForItsLoggedExecutionsToBeStored() throws Exception{
+        Path directory = Files.createTempDirectory("wal");
+        when(executionRepository.nextExecutionIdBlock()).thenReturn(100L);
+        when(executionRepository.findExecutionIdIncrement()).thenReturn(50L);
+        //Inserted behind the request only after a long interval, unless something waits for them
+        ExecutionWal executionWal = new ExecutionWal(executionRepository, fillRepository, directory.toString(), 1, 10, 60000, 1000, 50);
+        executionWal.start();
+        executionService.setExecutionWal(executionWal);
+        when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
+        when(bookService.isBookClosed(matches("book"))).thenReturn(true);
+        OrderBook buyOrders = TestUtils.mockOrderBook(42, OrderType.BUY);
+        when(orderService.getOrderBook(matches("book"), eq(42), eq(OrderType.BUY))).thenReturn(buyOrders);
+        Execution execution = new Execution();
+        execution.setPrice(39);
+        execution.setQuantity(70);
+        execution.setBookName("book");
+        execution.setInstrumentId(42);
+        execution.setType(ExecutionType.OFFER);
+        executionService.triggerExecution(execution);
+        assertEquals(executionWal.getUnappliedExecutions(),1);
+        executionService.evict("book");
+        assertEquals(executionWal.getUnappliedExecutions(),0);
+        verify(executionRepository,times(1)).insertAll(any());
+        assertEquals(executionService.size("book"),0);
+        executionWal.stop();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testExecutionIsLoggedBeforeCommitAndOnlyStoredOnceItCommits() throws Exception{
+        Path directory = Files.createTempDirectory("wal");
+        when(executionRepository.nextExecutionIdBlock()).thenReturn(100L);
+        when(executionRepository.findExecutionIdIncrement()).thenReturn(50L);
+        ExecutionWal executionWal = new ExecutionWal(executionRepository, fillRepository, directory.toString(), 1, 10, 1000, 1000, 50);
+        executionWal.start();
+        executionService.setExecutionWal(executionWal);
+        when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
+        when(bookService.isBookClosed(matches("book"))).thenReturn(true);
+        OrderBook buyOrders = TestUtils.mockOrderBook(42, OrderType.BUY);
+        when(orderService.getOrderBook(matches("book"), eq(42), eq(OrderType.BUY))).thenReturn(buyOrders);
+        Execution execution = new Execution();
+        execution.setPrice(39);
+        execution.setQuantity(70);
+        execution.setBookName("book");
+        execution.setInstrumentId(42);
+        execution.setType(ExecutionType.OFFER);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            executionService.triggerExecution(execution);
+            //On disk before the transaction commits
+            assertTrue(executionWal.getSyncs() >= 1);
+            assertEquals(executionWal.getUnappliedExecutions(),0);
+            //The matching rolls back, the execution must never reach EXECUTIONS
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationManager.initSynchronization();
+            executionService.triggerExecution(execution);
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        executionWal.stop();
+        ArgumentCaptor<List<ExecutionEntity>> executionCaptor = ArgumentCaptor.forClass(List.class);
+        verify(executionRepository,times(1)).insertAll(executionCaptor.capture());
+        assertEquals(executionCaptor.getValue().size(),1);
+        assertEquals(executionCaptor.getValue().get(0).getExecutionId(),Long.valueOf(101));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
     public void testAskExecutionTrigger(){
         when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
         when(bookService.isBookClosed(matches("book"))).thenReturn(true);
-        List<OrderEntity> activeOrders = TestUtils.mockActiveOrders();
-        when(orderService.getActiveOrdersForBook(matches("book"))).thenReturn(activeOrders);
+        OrderBook sellOrders = TestUtils.mockOrderBook(42, OrderType.SELL);
+        when(orderService.getOrderBook(matches("book"), eq(42), eq(OrderType.SELL))).thenReturn(sellOrders);
         Execution execution = new Execution();
         execution.setPrice(39);
         execution.setQuantity(30);
@@ -112,14 +272,148 @@ public class ExecutionServiceImplTest {
         execution.setType(ExecutionType.ASK);
         when(executionRepository.save(any())).thenReturn(ExecutionEntity.toEntity(execution));
         executionService.triggerExecution(execution);
-        ArgumentCaptor<OrderEntity> argumentCaptor = ArgumentCaptor.forClass(OrderEntity.class);
-        verify(orderService,times(1)).updateOrder(argumentCaptor.capture());
-        List<OrderEntity> executedOrders =  argumentCaptor.getAllValues();
+        ArgumentCaptor<List<RestingOrder>> argumentCaptor = ArgumentCaptor.forClass(List.class);
+        verify(orderService,times(1)).applyFills(argumentCaptor.capture());
+        List<RestingOrder> executedOrders =  argumentCaptor.getValue();
         assertEquals(executedOrders.size(),1);
-        assertEquals(executedOrders.get(0).getOrderId(),Long.valueOf(3));
+        assertEquals(executedOrders.get(0).getOrderId(),3L);
         assertEquals(executedOrders.get(0).getRemainingQuantity(),20);
     }
 
+    @Test
+    public void testFillsAreTakenBackWhenTheTransactionRollsBack(){
+        when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
+        when(bookService.isBookClosed(matches("book"))).thenReturn(true);
+        OrderBook buyOrders = TestUtils.mockOrderBook(42, OrderType.BUY);
+        when(orderService.getOrderBook(matches("book"), eq(42), eq(OrderType.BUY))).thenReturn(buyOrders);
+        RestingOrder bestBid = buyOrders.peekBest(0);
+        Execution execution = createExecution("book", 39, 70);
+        execution.setType(ExecutionType.OFFER);
+        when(executionRepository.save(any())).thenReturn(ExecutionEntity.toEntity(execution));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            executionService.triggerExecution(execution);
+            verify(orderService,never()).revertFill(any(),anyInt());
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        //Latest fill first
+        InOrder inOrder = inOrder(orderService);
+        inOrder.verify(orderService).revertFill(argThat(order -> order.getOrderId() == 1L), eq(30));
+        inOrder.verify(orderService).revertFill(same(bestBid), eq(40));
+    }
+
+    @Test
+    public void testFillsAreTakenBackWhenPersistingThemFailsOutsideATransaction(){
+        when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
+        when(bookService.isBookClosed(matches("book"))).thenReturn(true);
+        OrderBook sellOrders = TestUtils.mockOrderBook(42, OrderType.SELL);
+        when(orderService.getOrderBook(matches("book"), eq(42), eq(OrderType.SELL))).thenReturn(sellOrders);
+        Execution execution = createExecution("book", 39, 30);
+        execution.setType(ExecutionType.ASK);
+        when(executionRepository.save(any())).thenReturn(ExecutionEntity.toEntity(execution));
+        doThrow(new IllegalStateException("connection lost")).when(fillRepository).insertAll(any());
+        assertThrows(IllegalStateException.class, () -> executionService.triggerExecution(execution));
+        verify(orderService).revertFill(argThat(order -> order.getOrderId() == 3L), eq(30));
+        verify(orderService,never()).applyFills(any());
+    }
+
+    @Test
+    public void testFillsArePersistedOnceTheStripeLockIsReleased(){
+        when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
+        when(bookService.isBookClosed(matches("book"))).thenReturn(true);
+        OrderBook sellOrders = TestUtils.mockOrderBook(42, OrderType.SELL);
+        when(orderService.getOrderBook(matches("book"), eq(42), eq(OrderType.SELL))).thenReturn(sellOrders);
+        Execution execution = createExecution("book", 39, 30);
+        execution.setType(ExecutionType.ASK);
+        when(executionRepository.save(any())).thenReturn(ExecutionEntity.toEntity(execution));
+        List<Integer> holdCounts = new ArrayList<>();
+        doAnswer(invocation -> {
+            ReentrantLock lock = lockManager.lock(execution.getKey());
+            holdCounts.add(lock.getHoldCount());
+            lock.unlock();
+            return null;
+        }).when(orderService).applyFills(any());
+        executionService.triggerExecution(execution);
+        //Only the lock taken above, the matching one was released before the write
+        assertEquals(holdCounts,List.of(1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testOfferExecutionTriggerThroughSequencer(){
+        BookSequencer bookSequencer = new BookSequencer(1, 4, 5000);
+        bookSequencer.start();
+        executionService.setBookSequencer(bookSequencer);
+        when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
+        when(bookService.isBookClosed(matches("book"))).thenReturn(true);
+        OrderBook buyOrders = TestUtils.mockOrderBook(42, OrderType.BUY);
+        when(orderService.getOrderBook(matches("book"), eq(42), eq(OrderType.BUY))).thenReturn(buyOrders);
+        Execution execution = new Execution();
+        execution.setPrice(39);
+        execution.setQuantity(70);
+        execution.setBookName("book");
+        execution.setInstrumentId(42);
+        execution.setType(ExecutionType.OFFER);
+        when(executionRepository.save(any())).thenReturn(ExecutionEntity.toEntity(execution));
+        executionService.triggerExecution(execution);
+        bookSequencer.stop();
+        //Fills are applied on the calling thread once matching is done, not from the partition thread
+        ArgumentCaptor<List<RestingOrder>> argumentCaptor = ArgumentCaptor.forClass(List.class);
+        verify(orderService,times(1)).applyFills(argumentCaptor.capture());
+        assertEquals(argumentCaptor.getValue().size(),2);
+        assertEquals(executionService.getTriggeredExecutionsForBook("book").size(),2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testTriggerExecutionsPersistsBatchOnce(){
+        when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
+        when(bookService.isBookAvailable(matches("unknown"))).thenReturn(false);
+        when(bookService.isBookClosed(matches("book"))).thenReturn(true);
+        OrderBook buyOrders = TestUtils.mockOrderBook(42, OrderType.BUY);
+        when(orderService.getOrderBook(matches("book"), eq(42), eq(OrderType.BUY))).thenReturn(buyOrders);
+        Execution firstExecution = createExecution("book", 39, 40);
+        Execution rejectedExecution = createExecution("unknown", 39, 10);
+        Execution secondExecution = createExecution("book", 39, 30);
+        when(executionRepository.saveAll(any())).thenReturn(List.of(ExecutionEntity.toEntity(firstExecution), ExecutionEntity.toEntity(secondExecution)));
+
+        List<ExecutionResult> results = executionService.triggerExecutions(List.of(firstExecution, rejectedExecution, secondExecution));
+
+        assertEquals(results.size(),3);
+        assertTrue(results.get(0).isExecuted());
+        assertFalse(results.get(1).isExecuted());
+        assertEquals(results.get(1).getIndex(),1);
+        assertTrue(results.get(2).isExecuted());
+        verify(executionRepository,never()).save(any());
+        ArgumentCaptor<List<RestingOrder>> argumentCaptor = ArgumentCaptor.forClass(List.class);
+        verify(orderService,times(1)).applyFills(argumentCaptor.capture());
+        List<RestingOrder> filledOrders = argumentCaptor.getValue();
+        //Order 1 is touched by both executions but reported once with its final quantity
+        assertEquals(filledOrders.size(),2);
+        assertEquals(filledOrders.get(0).getOrderId(),4L);
+        assertEquals(filledOrders.get(0).getRemainingQuantity(),0);
+        assertEquals(filledOrders.get(1).getOrderId(),1L);
+        assertEquals(filledOrders.get(1).getRemainingQuantity(),20);
+        assertEquals(executionService.getTriggeredExecutionsForBook("book").size(),3);
+        ArgumentCaptor<List<FillEntity>> fillCaptor = ArgumentCaptor.forClass(List.class);
+        verify(fillRepository,times(1)).insertAll(fillCaptor.capture());
+        assertEquals(fillCaptor.getValue().size(),2);
+    }
+
+    @Test
+    public void testGetFillsForExecution(){
+        when(fillRepository.findByExecutionIdOrderByFillId(Long.valueOf(7)))
+                .thenReturn(List.of(FillEntity.of(Long.valueOf(7), Long.valueOf(4), 50, 39), FillEntity.of(Long.valueOf(7), Long.valueOf(1), 20, 39)));
+        List<Fill> fills = executionService.getFillsForExecution(Long.valueOf(7));
+        assertEquals(fills.size(),2);
+        assertEquals(fills.get(0).getOrderId(),Long.valueOf(4));
+        assertEquals(fills.get(0).getQuantity(),50);
+        assertEquals(fills.get(1).getExecutionId(),Long.valueOf(7));
+    }
+
     @Test
     public void testStopExecutionService(){
         assertTrue(executionService.isRunning());
@@ -129,4 +423,14 @@ public class ExecutionServiceImplTest {
         //check map is cleared
         assertEquals(executionService.getTriggeredExecutionsForBook("book").size(),0);
     }
+
+    private static Execution createExecution(String bookName, double price, int quantity){
+        Execution execution = new Execution();
+        execution.setPrice(price);
+        execution.setQuantity(quantity);
+        execution.setBookName(bookName);
+        execution.setInstrumentId(42);
+        execution.setType(ExecutionType.OFFER);
+        return execution;
+    }
 }
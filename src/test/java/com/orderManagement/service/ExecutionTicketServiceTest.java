@@ -0,0 +1,242 @@
+package com.orderManagement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.orderManagement.exceptions.ExecutionQueueFullException;
+import com.orderManagement.model.Execution;
+import com.orderManagement.model.ExecutionResult;
+import com.orderManagement.model.ExecutionTicket;
+import com.orderManagement.model.ExecutionTicketStatus;
+import com.orderManagement.model.ExecutionType;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ExecutionTicketServiceTest {
+
+    @Mock
+    private ExecutionService executionService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    public void testTicketReportsTheOutcomeOfItsExecution() throws Exception{
+        when(executionService.triggerExecutions(any()))
+                .thenReturn(List.of(ExecutionResult.executed(0)))
+                .thenReturn(List.of(ExecutionResult.rejected(0, "Book does not exists")));
+        ExecutionTicketService executionTicketService = createService(100);
+        executionTicketService.start();
+        try {
+            ExecutionTicket executed = executionTicketService.submit(createExecution(), null);
+            assertEquals(executed.getStatus(), ExecutionTicketStatus.QUEUED);
+            assertEquals(awaitCompletion(executionTicketService, executed.getTicketId()).getStatus(), ExecutionTicketStatus.EXECUTED);
+
+            ExecutionTicket rejected = executionTicketService.submit(createExecution(), null);
+            ExecutionTicket completed = awaitCompletion(executionTicketService, rejected.getTicketId());
+            assertEquals(completed.getStatus(), ExecutionTicketStatus.REJECTED);
+            assertEquals(completed.getMessage(), "Book does not exists");
+            assertNotNull(completed.getCompletedAt());
+        }
+        finally {
+            executionTicketService.stop();
+        }
+    }
+
+    @Test
+    public void testTicketsOfAFailedBatchAreFailed() throws Exception{
+        when(executionService.triggerExecutions(any())).thenThrow(new RuntimeException("Connection refused"));
+        ExecutionTicketService executionTicketService = createService(100);
+        executionTicketService.start();
+        try {
+            ExecutionTicket executionTicket = executionTicketService.submit(createExecution(), null);
+            ExecutionTicket completed = awaitCompletion(executionTicketService, executionTicket.getTicketId());
+            assertEquals(completed.getStatus(), ExecutionTicketStatus.FAILED);
+            assertEquals(completed.getMessage(), "Connection refused");
+        }
+        finally {
+            executionTicketService.stop();
+        }
+    }
+
+    @Test
+    public void testSubmitIsRejectedOnceTheQueueIsFull() throws Exception{
+        CountDownLatch triggered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            triggered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(ExecutionResult.executed(0));
+        }).when(executionService).triggerExecutions(any());
+        ExecutionTicketService executionTicketService = createService(1);
+        executionTicketService.start();
+        try {
+            //The first execution is taken off the queue and blocks the worker, the second fills the queue
+            executionTicketService.submit(createExecution(), null);
+            assertTrue(triggered.await(5, TimeUnit.SECONDS));
+            executionTicketService.submit(createExecution(), null);
+            assertThrows(ExecutionQueueFullException.class, () -> executionTicketService.submit(createExecution(), null));
+            assertEquals(executionTicketService.getQueuedExecutions(), 1);
+        }
+        finally {
+            release.countDown();
+            executionTicketService.stop();
+        }
+    }
+
+    @Test
+    public void testMalformedCallbackUrlIsRejected(){
+        ExecutionTicketService executionTicketService = createService(10);
+        executionTicketService.start();
+        try {
+            assertThrows(IllegalArgumentException.class, () -> executionTicketService.submit(createExecution(), "ftp://localhost/executions"));
+            assertThrows(IllegalArgumentException.class, () -> executionTicketService.submit(createExecution(), "/executions"));
+            assertEquals(executionTicketService.getQueuedExecutions(), 0);
+        }
+        finally {
+            executionTicketService.stop();
+        }
+    }
+
+    @Test
+    public void testCallbackToAHostNotAllowedIsRejected(){
+        ExecutionTicketService executionTicketService = createService(10);
+        executionTicketService.start();
+        try {
+            assertThrows(IllegalArgumentException.class, () -> executionTicketService.submit(createExecution(), "http://169.254.169.254/latest"));
+            assertThrows(IllegalArgumentException.class, () -> executionTicketService.submit(createExecution(), "https://localhost.example.com/executions"));
+            assertEquals(executionTicketService.getQueuedExecutions(), 0);
+        }
+        finally {
+            executionTicketService.stop();
+        }
+    }
+
+    @Test
+    public void testCallbacksAreRejectedWithoutAllowedHosts(){
+        ExecutionTicketService executionTicketService = new ExecutionTicketService(executionService, objectMapper, 10, 100, 60_000, 1000, "");
+        executionTicketService.start();
+        try {
+            assertThrows(IllegalArgumentException.class, () -> executionTicketService.submit(createExecution(), "http://localhost/executions"));
+        }
+        finally {
+            executionTicketService.stop();
+        }
+    }
+
+    @Test
+    public void testTicketsSubmittedWhileStoppingAreNeverLeftQueued() throws Exception{
+        when(executionService.triggerExecutions(any())).thenAnswer(invocation -> {
+            List<Execution> executions = invocation.getArgument(0);
+            List<ExecutionResult> results = new ArrayList<>();
+            for (int i = 0; i < executions.size(); i++) {
+                results.add(ExecutionResult.executed(i));
+            }
+            return results;
+        });
+        for (int round = 0; round < 20; round++) {
+            ExecutionTicketService executionTicketService = createService(10_000);
+            executionTicketService.start();
+            List<ExecutionTicket> submitted = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch started = new CountDownLatch(1);
+            Thread submitter = new Thread(() -> {
+                started.countDown();
+                while (true) {
+                    try {
+                        submitted.add(executionTicketService.submit(createExecution(), null));
+                    } catch (IllegalStateException exception) {
+                        return;
+                    } catch (ExecutionQueueFullException exception) {
+                        Thread.yield();
+                    }
+                }
+            });
+            submitter.start();
+            started.await();
+            executionTicketService.stop();
+            submitter.join(5000);
+            assertFalse(submitter.isAlive());
+            for (ExecutionTicket executionTicket : submitted) {
+                //Either triggered by the worker or failed by stop, never still waiting
+                assertNotEquals(executionTicketService.getTicket(executionTicket.getTicketId()).orElseThrow().getStatus(), ExecutionTicketStatus.QUEUED);
+            }
+        }
+    }
+
+    @Test
+    public void testCompletedTicketIsPostedToItsCallbackUrl() throws Exception{
+        when(executionService.triggerExecutions(any())).thenReturn(List.of(ExecutionResult.executed(0)));
+        CompletableFuture<String> callback = new CompletableFuture<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/executions", exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                callback.complete(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+        ExecutionTicketService executionTicketService = createService(10);
+        executionTicketService.start();
+        try {
+            String callbackUrl = "http://localhost:" + server.getAddress().getPort() + "/executions";
+            ExecutionTicket executionTicket = executionTicketService.submit(createExecution(), callbackUrl);
+            String body = callback.get(5, TimeUnit.SECONDS);
+            assertTrue(body.contains("\"ticketId\":" + executionTicket.getTicketId()));
+            assertTrue(body.contains("EXECUTED"));
+            assertEquals(executionTicketService.getFailedCallbacks(), 0L);
+        }
+        finally {
+            executionTicketService.stop();
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testUnknownTicketIsEmpty(){
+        ExecutionTicketService executionTicketService = createService(10);
+        assertTrue(executionTicketService.getTicket(42L).isEmpty());
+        assertThrows(IllegalStateException.class, () -> executionTicketService.submit(createExecution(), null));
+    }
+
+    private ExecutionTicketService createService(int queueCapacity){
+        return new ExecutionTicketService(executionService, objectMapper, queueCapacity, 100, 60_000, 1000, "localhost");
+    }
+
+    private static ExecutionTicket awaitCompletion(ExecutionTicketService executionTicketService, long ticketId) throws InterruptedException{
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            ExecutionTicket executionTicket = executionTicketService.getTicket(ticketId).orElseThrow();
+            if (executionTicket.getStatus() != ExecutionTicketStatus.QUEUED) {
+                return executionTicket;
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("Ticket " + ticketId + " was not completed");
+    }
+
+    private static Execution createExecution(){
+        Execution execution = new Execution();
+        execution.setBookName("book");
+        execution.setInstrumentId(42);
+        execution.setType(ExecutionType.OFFER);
+        execution.setQuantity(16);
+        execution.setPrice(34);
+        return execution;
+    }
+}
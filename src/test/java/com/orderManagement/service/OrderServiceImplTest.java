@@ -1,9 +1,23 @@
 package com.orderManagement.service;
 
 import com.orderManagement.entity.OrderEntity;
+import com.orderManagement.entity.OrderEventEntity;
 import com.orderManagement.exceptions.*;
+import com.orderManagement.matching.BookSequencer;
+import com.orderManagement.matching.OrderBook;
+import com.orderManagement.matching.RestingOrder;
+import com.orderManagement.model.BookDepth;
 import com.orderManagement.model.Order;
+import com.orderManagement.model.OrderEventType;
 import com.orderManagement.model.OrderType;
+import com.orderManagement.persistence.BookHydrator;
+import com.orderManagement.persistence.BookResidency;
+import com.orderManagement.persistence.FillDurability;
+import com.orderManagement.persistence.FillWriter;
+import com.orderManagement.persistence.OrderEventLog;
+import com.orderManagement.persistence.SnapshotStore;
+import com.orderManagement.persistence.StateCodecs;
+import com.orderManagement.repository.OrderEventRepository;
 import com.orderManagement.repository.OrdersRepository;
 import com.orderManagement.utils.TestUtils;
 import org.aspectj.weaver.ast.Or;
@@ -11,13 +25,23 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -30,13 +54,16 @@ public class OrderServiceImplTest {
     private BookService bookService;
     @Mock
     private OrdersRepository ordersRepository;
+    @Spy
+    private BookHydrator bookHydrator = new BookHydrator(2, 100);
     @InjectMocks
     private OrderServiceImpl orderService;
 
     @BeforeEach
     void setupBeforeEach() {
         List<OrderEntity> activeOrders = TestUtils.mockActiveOrders();
-        when(ordersRepository.findAll()).thenReturn(activeOrders);
+        when(ordersRepository.findBookNamesByActive(true)).thenReturn(List.of("book"));
+        when(ordersRepository.findOrdersOfBook(eq("book"), eq(true), any())).thenReturn(activeOrders);
         orderService.start();
     }
 
@@ -93,6 +120,220 @@ public class OrderServiceImplTest {
         assertEquals(addedOrder.getBookName(),"book");
     }
 
+    @Test
+    public void testCommittedOrderIsBookedWhenItsPartitionStalls() throws Exception{
+        BookSequencer bookSequencer = new BookSequencer(1, 8, 50);
+        bookSequencer.start();
+        orderService.setBookSequencer(bookSequencer);
+        CountDownLatch release = new CountDownLatch(1);
+        Order order = createOrder("book", 39.5);
+        OrderEntity orderEntity = OrderEntity.toEntity(order);
+        orderEntity.setOrderId(Long.valueOf(10));
+        when(bookService.isBookClosed(matches("book"))).thenReturn(false);
+        when(ordersRepository.save(any())).thenReturn(orderEntity);
+        try {
+            bookSequencer.submit("book", () -> {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            orderService.addOrder(order);
+            //Cancelled on the stalled partition and applied by the caller instead, never lost and never applied twice
+            release.countDown();
+            bookSequencer.submit("book", () -> {}).get(5, TimeUnit.SECONDS);
+            OrderBook buyOrders = orderService.getOrderBook("book", order.getInstrumentId(), OrderType.BUY);
+            assertEquals(buyOrders.depth(10).stream().mapToInt(level -> level.getOrderCount()).sum(), 3);
+        }
+        finally {
+            release.countDown();
+            bookSequencer.stop();
+        }
+    }
+
+    @Test
+    public void testAddedOrderIsOnlyBookedOnceItsTransactionCommits(){
+        Order order = createOrder("book", 39.5);
+        OrderEntity orderEntity = OrderEntity.toEntity(order);
+        orderEntity.setOrderId(Long.valueOf(10));
+        when(bookService.isBookClosed(matches("book"))).thenReturn(false);
+        when(ordersRepository.save(any())).thenReturn(orderEntity);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            orderService.addOrder(order);
+            assertTrue(orderService.getActiveOrder(Long.valueOf(10)).isEmpty());
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        //Rolled back, so the order never reaches the indexes or the order book
+        assertTrue(orderService.getActiveOrder(Long.valueOf(10)).isEmpty());
+        assertEquals(orderService.getActiveOrdersForBook("book").size(),6);
+    }
+
+    @Test
+    public void testAddOrdersValidatesEachBookOnceAndReturnsIdsInInputOrder(){
+        List<Order> orders = List.of(createOrder("book", 39.5), createOrder("book2", 40), createOrder("book", 41));
+        List<OrderEntity> savedOrders = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            OrderEntity orderEntity = OrderEntity.toEntity(orders.get(i));
+            orderEntity.setOrderId(Long.valueOf(10 + i));
+            savedOrders.add(orderEntity);
+        }
+        when(bookService.isBookClosed(matches("book"))).thenReturn(false);
+        when(bookService.isBookClosed(matches("book2"))).thenReturn(false);
+        when(ordersRepository.saveAll(any())).thenReturn(savedOrders);
+        List<Long> orderIds = orderService.addOrders(orders);
+        assertEquals(orderIds, List.of(Long.valueOf(10), Long.valueOf(11), Long.valueOf(12)));
+        verify(bookService,times(1)).isBookClosed("book");
+        verify(bookService,times(1)).addBookIfDoesNotExists("book");
+        verify(ordersRepository,never()).save(any());
+        assertEquals(orderService.getActiveOrdersForBook("book").size(),8);
+        assertTrue(orderService.getActiveOrder(Long.valueOf(12)).isPresent());
+    }
+
+    @Test
+    public void testCanNotAddOrdersInBulkIfBookIsClosed(){
+        when(bookService.isBookClosed(matches("book"))).thenReturn(true);
+        assertThrows(BookClosedException.class, () -> {
+            orderService.addOrders(List.of(createOrder("book", 39.5)));
+        });
+        verify(ordersRepository,never()).saveAll(any());
+    }
+
+    @Test
+    public void testCanNotAddOrdersInBulkWithOrderId(){
+        Order order = createOrder("book", 39.5);
+        order.setOrderId(Long.valueOf(2));
+        assertThrows(OrderNotAvailableException.class, () -> {
+            orderService.addOrders(List.of(order));
+        });
+    }
+
+    @Test
+    public void testColdBookIsLoadedOnFirstTouchAndAfterEviction() throws Exception{
+        OrderEntity coldOrder = createOrderEntity("cold", 20);
+        OrderEntity otherOrder = createOrderEntity("other", 21);
+        when(ordersRepository.findOrdersOfBook(eq("cold"), eq(true), any())).thenReturn(List.of(coldOrder));
+        when(ordersRepository.findOrdersOfBook(eq("other"), eq(true), any())).thenReturn(List.of(otherOrder));
+        //Room for a single order
+        orderService.setBookResidency(new BookResidency(1, 30, 0));
+
+        assertEquals(orderService.getActiveOrdersForBook("cold").size(), 1);
+        assertEquals(orderService.getPendingOrdersForBook("cold").size(), 1);
+        verify(ordersRepository,times(1)).findOrdersOfBook(eq("cold"), eq(true), any());
+
+        //Loading another book evicts the cold one
+        Thread.sleep(2);
+        assertEquals(orderService.getActiveOrdersForBook("other").size(), 1);
+        assertEquals(orderService.size("cold"), 0L);
+
+        //The book of an order is known once it is read from the database
+        when(ordersRepository.findById(eq(Long.valueOf(20)))).thenReturn(Optional.of(coldOrder));
+        assertTrue(orderService.getActiveOrder(Long.valueOf(20)).isPresent());
+        assertEquals(orderService.getOrderBook("cold",42,OrderType.BUY).peekBest(0).getOrderId(),20L);
+        verify(ordersRepository,times(2)).findOrdersOfBook(eq("cold"), eq(true), any());
+    }
+
+    @Test
+    public void testRestartRestoresActiveOrdersFromSnapshot() throws Exception{
+        Path directory = Files.createTempDirectory("snapshots");
+        orderService.setSnapshotStore(new SnapshotStore(directory.toString(), 1));
+        orderService.stop();
+
+        when(ordersRepository.findMaxOrderId()).thenReturn(Long.valueOf(6));
+        when(ordersRepository.countByActive(true)).thenReturn(6L);
+        when(ordersRepository.sumRemainingQuantityByActive(true)).thenReturn(remainingQuantityOf(TestUtils.mockActiveOrders()));
+        orderService.start();
+
+        verify(ordersRepository,times(1)).findBookNamesByActive(true);
+        assertEquals(orderService.getActiveOrdersForBook("book").size(),6);
+        assertEquals(orderService.getPendingOrdersForBook("book").size(),4);
+        assertEquals(orderService.getOrderBook("book",42,OrderType.BUY).peekBest(0).getOrderId(),4L);
+    }
+
+    @Test
+    public void testRestartLoadsFromDatabaseWhenSnapshotDiverges() throws Exception{
+        Path directory = Files.createTempDirectory("snapshots");
+        orderService.setSnapshotStore(new SnapshotStore(directory.toString(), 1));
+        orderService.stop();
+
+        //An order was added after the snapshot without being journaled
+        when(ordersRepository.findMaxOrderId()).thenReturn(Long.valueOf(7));
+        when(ordersRepository.countByActive(true)).thenReturn(7L);
+        orderService.start();
+
+        verify(ordersRepository,times(2)).findBookNamesByActive(true);
+        assertEquals(orderService.getActiveOrdersForBook("book").size(),6);
+    }
+
+    @Test
+    public void testRestartLoadsFromDatabaseWhenSnapshotMissesAFill() throws Exception{
+        Path directory = Files.createTempDirectory("snapshots");
+        orderService.setSnapshotStore(new SnapshotStore(directory.toString(), 1));
+        orderService.stop();
+
+        //Same orders, but a fill committed after the snapshot was never journaled
+        when(ordersRepository.findMaxOrderId()).thenReturn(Long.valueOf(6));
+        when(ordersRepository.countByActive(true)).thenReturn(6L);
+        when(ordersRepository.sumRemainingQuantityByActive(true)).thenReturn(remainingQuantityOf(TestUtils.mockActiveOrders()) - 30);
+        orderService.start();
+
+        verify(ordersRepository,times(2)).findBookNamesByActive(true);
+    }
+
+    @Test
+    public void testFillIsJournaledOnlyOnceItsTransactionCommits() throws Exception{
+        Path directory = Files.createTempDirectory("snapshots");
+        orderService.setSnapshotStore(new SnapshotStore(directory.toString(), 1));
+        orderService.stop();
+        when(ordersRepository.findMaxOrderId()).thenReturn(Long.valueOf(6));
+        when(ordersRepository.countByActive(true)).thenReturn(6L);
+        when(ordersRepository.sumRemainingQuantityByActive(true)).thenReturn(remainingQuantityOf(TestUtils.mockActiveOrders()));
+        orderService.start();
+        RestingOrder restingOrder = orderService.getOrderBook("book",42,OrderType.SELL).peekBest(Long.MAX_VALUE);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            restingOrder.fill(30);
+            orderService.applyFills(List.of(restingOrder));
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        restingOrder.unfill(30);
+        assertEquals(journaledRemainingQuantity(directory, 3L),50);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            restingOrder.fill(30);
+            orderService.applyFills(List.of(restingOrder));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(journaledRemainingQuantity(directory, 3L),20);
+    }
+
+    private static long remainingQuantityOf(List<OrderEntity> orders) {
+        return orders.stream().mapToLong(OrderEntity::getRemainingQuantity).sum();
+    }
+
+    private static int journaledRemainingQuantity(Path directory, long orderId) {
+        List<OrderEntity> records = new SnapshotStore(directory.toString(), 1).open("orders", StateCodecs.ORDERS).restore().get().getRecords();
+        //The latest record of an order holds its state
+        return records.stream()
+                .filter(record -> record.getOrderId() == orderId)
+                .reduce((earlier, later) -> later)
+                .get()
+                .getRemainingQuantity();
+    }
+
     @Test
     public void testCanNotEditOrderIfBookIsNotAvailableInSystem(){
         Order order = new Order();
@@ -120,10 +361,10 @@ public class OrderServiceImplTest {
     public void testCanNotEditOrderIfPastOrderToEditIsNotAvailable(){
         Order order = new Order();
         order.setBookName("book");
-        order.setOrderId(Long.valueOf(2));
+        order.setOrderId(Long.valueOf(7));
         when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
         when(bookService.isBookClosed(matches("book"))).thenReturn(false);
-        when(ordersRepository.findById(eq(Long.valueOf(2)))).thenReturn(Optional.empty());
+        when(ordersRepository.findById(eq(Long.valueOf(7)))).thenReturn(Optional.empty());
         assertThrows(OrderNotAvailableException.class, () -> {
             orderService.editOrder(order);
         });
@@ -133,12 +374,12 @@ public class OrderServiceImplTest {
     public void testCanNotEditOrderIfPastOrderToEditIsNotActive(){
         Order order = new Order();
         order.setBookName("book");
-        order.setOrderId(Long.valueOf(2));
+        order.setOrderId(Long.valueOf(7));
         OrderEntity pastOrder = new OrderEntity();
         pastOrder.setActive(false);
         when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
         when(bookService.isBookClosed(matches("book"))).thenReturn(false);
-        when(ordersRepository.findById(eq(Long.valueOf(2)))).thenReturn(Optional.of(pastOrder));
+        when(ordersRepository.findById(eq(Long.valueOf(7)))).thenReturn(Optional.of(pastOrder));
         assertThrows(InactiveOrderException.class, () -> {
             orderService.editOrder(order);
         });
@@ -154,28 +395,138 @@ public class OrderServiceImplTest {
         order.setInstrumentId(42);
         order.setEntryDate(LocalDateTime.now());
         order.setOrderId(Long.valueOf(2));
-        OrderEntity pastOrder = new OrderEntity();
-        pastOrder.setActive(true);
         when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
         when(bookService.isBookClosed(matches("book"))).thenReturn(false);
-        when(ordersRepository.findById(eq(Long.valueOf(2)))).thenReturn(Optional.of(pastOrder));
+        when(ordersRepository.deactivate(Long.valueOf(2), 0L)).thenReturn(1);
         when(ordersRepository.save(any())).thenReturn(OrderEntity.toEntity(order));
         ArgumentCaptor<OrderEntity> argumentCaptor = ArgumentCaptor.forClass(OrderEntity.class);
         orderService.editOrder(order);
-        verify(ordersRepository,times(2)).save(argumentCaptor.capture());
-        List<OrderEntity> capturedOrders =  argumentCaptor.getAllValues();
-        assertEquals(capturedOrders.size(),2);
-        assertEquals(capturedOrders.get(0).getPreviousOrderId(),Long.valueOf(2));
-        assertEquals(capturedOrders.get(1).isActive(),false);
+        //The past order is deactivated at the version it was read at, only the new order is saved
+        verify(ordersRepository,times(1)).deactivate(Long.valueOf(2), 0L);
+        verify(ordersRepository,times(1)).save(argumentCaptor.capture());
+        assertEquals(argumentCaptor.getValue().getPreviousOrderId(),Long.valueOf(2));
+        //The active order to edit is found in memory
+        verify(ordersRepository,never()).findById(any());
+        assertTrue(orderService.getActiveOrder(Long.valueOf(2)).isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEditOrderAppendsEventsWhenEventSourcingIsEnabled(){
+        OrderEventRepository orderEventRepository = mock(OrderEventRepository.class);
+        when(orderEventRepository.nextOrderIdBlock()).thenReturn(100L);
+        when(orderEventRepository.nextEventIdBlock()).thenReturn(1L);
+        orderService.setOrderEventLog(new OrderEventLog(orderEventRepository, ordersRepository, 50, 10, 1000, 1000));
+        Order order = new Order();
+        order.setBookName("book");
+        order.setQuantity(40);
+        order.setPrice(39.9);
+        order.setType(OrderType.BUY);
+        order.setInstrumentId(42);
+        order.setEntryDate(LocalDateTime.now());
+        order.setOrderId(Long.valueOf(2));
+        when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
+        when(bookService.isBookClosed(matches("book"))).thenReturn(false);
+        Order editedOrder = orderService.editOrder(order);
+        ArgumentCaptor<List<OrderEventEntity>> argumentCaptor = ArgumentCaptor.forClass(List.class);
+        verify(orderEventRepository,times(2)).insertAll(argumentCaptor.capture());
+        verify(ordersRepository,never()).save(any());
+        OrderEventEntity createdEvent = argumentCaptor.getAllValues().get(0).get(0);
+        OrderEventEntity amendedEvent = argumentCaptor.getAllValues().get(1).get(0);
+        assertEquals(createdEvent.getEventType(),OrderEventType.CREATED);
+        assertEquals(createdEvent.getOrderId(),Long.valueOf(100));
+        assertEquals(createdEvent.getPreviousOrderId(),Long.valueOf(2));
+        assertEquals(amendedEvent.getEventType(),OrderEventType.AMENDED);
+        assertEquals(amendedEvent.getOrderId(),Long.valueOf(2));
+        assertFalse(amendedEvent.isActive());
+        assertEquals(editedOrder.getOrderId(),Long.valueOf(100));
+        assertTrue(orderService.getActiveOrder(Long.valueOf(100)).isPresent());
+    }
+
+    @Test
+    public void testEditOrderIsRejectedIfOrderWasDeactivatedConcurrently(){
+        Order order = createOrder("book", 40);
+        order.setOrderId(Long.valueOf(2));
+        OrderEntity storedOrder = new OrderEntity();
+        storedOrder.setActive(false);
+        storedOrder.setVersion(1);
+        when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
+        when(bookService.isBookClosed(matches("book"))).thenReturn(false);
+        when(ordersRepository.findById(eq(Long.valueOf(2)))).thenReturn(Optional.of(storedOrder));
+        assertThrows(OrderConflictException.class, () -> {
+            orderService.editOrder(order);
+        });
+        verify(ordersRepository,never()).save(any());
+        //Another node amended it, it no longer rests here
+        assertTrue(orderService.getActiveOrder(Long.valueOf(2)).isEmpty());
+    }
+
+    @Test
+    public void testEditOrderRetriesAtTheStoredVersion(){
+        Order order = createOrder("book", 40);
+        order.setOrderId(Long.valueOf(2));
+        OrderEntity storedOrder = new OrderEntity();
+        storedOrder.setActive(true);
+        storedOrder.setVersion(1);
+        when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
+        when(bookService.isBookClosed(matches("book"))).thenReturn(false);
+        //Written by another node since it was loaded, the claim at the resident version misses
+        when(ordersRepository.deactivate(Long.valueOf(2), 0L)).thenReturn(0);
+        when(ordersRepository.findById(eq(Long.valueOf(2)))).thenReturn(Optional.of(storedOrder));
+        when(ordersRepository.deactivate(Long.valueOf(2), 1L)).thenReturn(1);
+        when(ordersRepository.save(any())).thenReturn(OrderEntity.toEntity(order));
+        orderService.editOrder(order);
+        InOrder claims = inOrder(ordersRepository);
+        claims.verify(ordersRepository).deactivate(Long.valueOf(2), 0L);
+        claims.verify(ordersRepository).findById(Long.valueOf(2));
+        claims.verify(ordersRepository).deactivate(Long.valueOf(2), 1L);
+        verify(ordersRepository,times(1)).save(any());
+        assertTrue(orderService.getActiveOrder(Long.valueOf(2)).isEmpty());
+    }
+
+    @Test
+    public void testCachedOrderIsUntouchedIfSaveAfterTheClaimFails(){
+        Order order = createOrder("book", 40);
+        order.setOrderId(Long.valueOf(2));
+        when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
+        when(bookService.isBookClosed(matches("book"))).thenReturn(false);
+        when(ordersRepository.deactivate(Long.valueOf(2), 0L)).thenReturn(1);
+        when(ordersRepository.save(any())).thenThrow(new IllegalStateException("connection lost"));
+        assertThrows(IllegalStateException.class, () -> {
+            orderService.editOrder(order);
+        });
+        //The transaction rolls back, so the cached order stays active at the version it was read at
+        OrderEntity cachedOrder = orderService.getActiveOrdersForBook("book")
+                .stream()
+                .filter(orderEntity -> orderEntity.getOrderId().equals(Long.valueOf(2)))
+                .findFirst()
+                .orElseThrow();
+        assertTrue(cachedOrder.isActive());
+        assertEquals(cachedOrder.getVersion(),0L);
+        assertTrue(orderService.getActiveOrder(Long.valueOf(2)).isPresent());
+    }
+
+    @Test
+    public void testDeleteOrderIsRejectedWithConflictIfOrderKeepsChanging(){
+        OrderEntity storedOrder = new OrderEntity();
+        storedOrder.setActive(true);
+        storedOrder.setVersion(1);
+        when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
+        when(bookService.isBookClosed(matches("book"))).thenReturn(false);
+        when(ordersRepository.findById(eq(Long.valueOf(2)))).thenReturn(Optional.of(storedOrder));
+        assertThrows(OrderConflictException.class, () -> {
+            orderService.deleteOrder(Long.valueOf(2));
+        });
+        assertTrue(orderService.getActiveOrder(Long.valueOf(2)).isPresent());
     }
 
     @Test
     public void testCanNotDeleteOrderIfOrderToDeleteIsNotPresentInDb(){
         OrderEntity pastOrder = new OrderEntity();
         pastOrder.setActive(true);
-        when(ordersRepository.findById(eq(Long.valueOf(2)))).thenReturn(Optional.empty());
+        when(ordersRepository.findById(eq(Long.valueOf(7)))).thenReturn(Optional.empty());
         assertThrows(OrderNotAvailableException.class, () -> {
-            orderService.deleteOrder(Long.valueOf(2));
+            orderService.deleteOrder(Long.valueOf(7));
         });
     }
 
@@ -185,9 +536,9 @@ public class OrderServiceImplTest {
         pastOrder.setActive(true);
         pastOrder.setBookName("book");
         when(bookService.isBookAvailable(matches("book"))).thenReturn(false);
-        when(ordersRepository.findById(eq(Long.valueOf(2)))).thenReturn(Optional.of(pastOrder));
+        when(ordersRepository.findById(eq(Long.valueOf(7)))).thenReturn(Optional.of(pastOrder));
         assertThrows(BookDoesNotExistsException.class, () -> {
-            orderService.deleteOrder(Long.valueOf(2));
+            orderService.deleteOrder(Long.valueOf(7));
         });
     }
 
@@ -198,26 +549,31 @@ public class OrderServiceImplTest {
         pastOrder.setBookName("book");
         when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
         when(bookService.isBookClosed(matches("book"))).thenReturn(true);
-        when(ordersRepository.findById(eq(Long.valueOf(2)))).thenReturn(Optional.of(pastOrder));
+        when(ordersRepository.findById(eq(Long.valueOf(7)))).thenReturn(Optional.of(pastOrder));
         assertThrows(BookClosedException.class, () -> {
-            orderService.deleteOrder(Long.valueOf(2));
+            orderService.deleteOrder(Long.valueOf(7));
         });
     }
 
     @Test
     public void testCanDeleteOrderIfORderIdIsValid(){
-        OrderEntity pastOrder = new OrderEntity();
-        pastOrder.setActive(true);
-        pastOrder.setBookName("book");
         when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
         when(bookService.isBookClosed(matches("book"))).thenReturn(false);
-        when(ordersRepository.findById(eq(Long.valueOf(2)))).thenReturn(Optional.of(pastOrder));
+        when(ordersRepository.deactivate(Long.valueOf(2), 0L)).thenReturn(1);
         orderService.deleteOrder(Long.valueOf(2));
-        ArgumentCaptor<OrderEntity> argumentCaptor = ArgumentCaptor.forClass(OrderEntity.class);
-        verify(ordersRepository,times(1)).save(argumentCaptor.capture());
-        List<OrderEntity> capturedOrders =  argumentCaptor.getAllValues();
-        assertEquals(capturedOrders.size(),1);
-        assertEquals(capturedOrders.get(0).isActive(),false);
+        verify(ordersRepository,times(1)).deactivate(Long.valueOf(2), 0L);
+        verify(ordersRepository,never()).save(any());
+        verify(ordersRepository,never()).findById(any());
+        assertEquals(orderService.getActiveOrdersForBook("book").size(),5);
+    }
+
+    @Test
+    public void testGetActiveOrderIsServedFromMemory(){
+        Optional<Order> order = orderService.getActiveOrder(Long.valueOf(4));
+        assertTrue(order.isPresent());
+        assertEquals(order.get().getPrice(),41.0);
+        assertTrue(orderService.getActiveOrder(Long.valueOf(7)).isEmpty());
+        verify(ordersRepository,never()).findById(any());
     }
 
     @Test
@@ -236,6 +592,169 @@ public class OrderServiceImplTest {
         assertEquals(orderService.getPendingOrdersForBook("book").size(),4);
     }
 
+    @Test
+    public void testCompletingFillMovesOrderFromPendingToCompleted(){
+        RestingOrder restingOrder = orderService.getOrderBook("book",42,OrderType.SELL).peekBest(Long.MAX_VALUE);
+        restingOrder.fill(20);
+        orderService.applyFills(List.of(restingOrder));
+        assertEquals(orderService.getPendingOrdersForBook("book").size(),4);
+        restingOrder.fill(30);
+        orderService.applyFills(List.of(restingOrder));
+        assertEquals(orderService.getPendingOrdersForBook("book").size(),3);
+        List<OrderEntity> completedOrders = orderService.getCompletedOrdersForBook("book");
+        assertEquals(completedOrders.size(),3);
+        assertEquals(completedOrders.get(0).getOrderId(),Long.valueOf(3));
+    }
+
+    @Test
+    public void testOrdersByCompletionHoldEachActiveOrderOnce(){
+        RestingOrder restingOrder = orderService.getOrderBook("book",42,OrderType.SELL).peekBest(Long.MAX_VALUE);
+        restingOrder.fill(50);
+        orderService.applyFills(List.of(restingOrder));
+        Map<Boolean, List<OrderEntity>> ordersByCompletion = orderService.getOrdersByCompletionForBook("book");
+        assertEquals(ordersByCompletion.get(true).size(),3);
+        assertEquals(ordersByCompletion.get(false).size(),3);
+        assertTrue(ordersByCompletion.get(true).stream().anyMatch(order -> order.getOrderId() == 3L));
+        assertTrue(ordersByCompletion.get(false).stream().noneMatch(order -> order.getOrderId() == 3L));
+        assertTrue(orderService.getOrdersByCompletionForBook("unknown").get(false).isEmpty());
+    }
+
+    @Test
+    public void testRevertedFillPutsCompletedOrderBackInBookAndPendingOrders(){
+        OrderBook sellOrders = orderService.getOrderBook("book",42,OrderType.SELL);
+        RestingOrder restingOrder = sellOrders.peekBest(Long.MAX_VALUE);
+        assertTrue(sellOrders.fill(restingOrder, 50));
+        orderService.applyFills(List.of(restingOrder));
+        assertTrue(sellOrders.isEmpty());
+        orderService.revertFill(restingOrder, 50);
+        assertEquals(restingOrder.getRemainingQuantity(),50);
+        assertSame(sellOrders.peekBest(Long.MAX_VALUE),restingOrder);
+        assertEquals(orderService.getDepth("book",42,5).getAsks().get(0).getQuantity(),50L);
+        assertEquals(orderService.getPendingOrdersForBook("book").size(),4);
+        assertEquals(orderService.getCompletedOrdersForBook("book").size(),2);
+    }
+
+    @Test
+    public void testRevertedFillOfDeletedOrderIsNotPutBack(){
+        when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
+        when(bookService.isBookClosed(matches("book"))).thenReturn(false);
+        when(ordersRepository.deactivate(Long.valueOf(3), 0L)).thenReturn(1);
+        OrderBook sellOrders = orderService.getOrderBook("book",42,OrderType.SELL);
+        RestingOrder restingOrder = sellOrders.peekBest(Long.MAX_VALUE);
+        assertTrue(sellOrders.fill(restingOrder, 50));
+        orderService.deleteOrder(Long.valueOf(3));
+        orderService.revertFill(restingOrder, 50);
+        assertTrue(sellOrders.isEmpty());
+        assertEquals(orderService.getPendingOrdersForBook("book").size(),3);
+    }
+
+    @Test
+    public void testDeletedOrderIsRemovedFromPendingOrders(){
+        when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
+        when(bookService.isBookClosed(matches("book"))).thenReturn(false);
+        when(ordersRepository.deactivate(Long.valueOf(3), 0L)).thenReturn(1);
+        orderService.deleteOrder(Long.valueOf(3));
+        assertEquals(orderService.getPendingOrdersForBook("book").size(),3);
+        assertEquals(orderService.getCompletedOrdersForBook("book").size(),2);
+        assertTrue(orderService.getPendingOrdersForBook("unknown").isEmpty());
+    }
+
+    @Test
+    public void testGetOrderBookHoldsPendingOrdersInPricePriority(){
+        OrderBook buyOrders = orderService.getOrderBook("book",42,OrderType.BUY);
+        assertEquals(buyOrders.peekBest(0).getOrderId(),4L);
+        //completed orders do not rest in the order book
+        assertTrue(orderService.getOrderBook("book",44,OrderType.BUY).isEmpty());
+    }
+
+    @Test
+    public void testDeletedOrderIsRemovedFromOrderBook(){
+        when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
+        when(bookService.isBookClosed(matches("book"))).thenReturn(false);
+        when(ordersRepository.deactivate(Long.valueOf(3), 0L)).thenReturn(1);
+        orderService.deleteOrder(Long.valueOf(3));
+        assertTrue(orderService.getOrderBook("book",42,OrderType.SELL).isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testApplyFillUpdatesOrderEntity(){
+        RestingOrder restingOrder = orderService.getOrderBook("book",42,OrderType.SELL).peekBest(Long.MAX_VALUE);
+        restingOrder.fill(30);
+        orderService.applyFills(List.of(restingOrder));
+        ArgumentCaptor<List<OrderEntity>> argumentCaptor = ArgumentCaptor.forClass(List.class);
+        verify(ordersRepository,times(1)).updateRemainingQuantities(argumentCaptor.capture());
+        assertEquals(argumentCaptor.getValue().get(0).getOrderId(),Long.valueOf(3));
+        assertEquals(argumentCaptor.getValue().get(0).getRemainingQuantity(),20);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testApplyFillsUpdatesOrderEntitiesInOneBatch(){
+        RestingOrder sellOrder = orderService.getOrderBook("book",42,OrderType.SELL).peekBest(Long.MAX_VALUE);
+        sellOrder.fill(30);
+        RestingOrder buyOrder = orderService.getOrderBook("book",42,OrderType.BUY).peekBest(0);
+        buyOrder.fill(buyOrder.getRemainingQuantity());
+        orderService.applyFills(List.of(sellOrder,buyOrder));
+        ArgumentCaptor<List<OrderEntity>> argumentCaptor = ArgumentCaptor.forClass(List.class);
+        verify(ordersRepository,times(1)).updateRemainingQuantities(argumentCaptor.capture());
+        verify(ordersRepository,never()).saveAll(any());
+        verify(ordersRepository,never()).save(any());
+        List<OrderEntity> savedOrders = argumentCaptor.getValue();
+        assertEquals(savedOrders.size(),2);
+        assertEquals(savedOrders.get(0).getOrderId(),Long.valueOf(3));
+        assertEquals(savedOrders.get(0).getRemainingQuantity(),20);
+        assertEquals(savedOrders.get(1).getOrderId(),Long.valueOf(buyOrder.getOrderId()));
+        assertEquals(savedOrders.get(1).getRemainingQuantity(),0);
+    }
+
+    @Test
+    public void testApplyFillIsWrittenBehindWhenFillWriterIsEnabled(){
+        FillWriter fillWriter = new FillWriter(ordersRepository, 10, 1000, FillDurability.ACK_IMMEDIATELY, 1000);
+        orderService.setFillWriter(fillWriter);
+        RestingOrder restingOrder = orderService.getOrderBook("book",42,OrderType.SELL).peekBest(Long.MAX_VALUE);
+        restingOrder.fill(30);
+        orderService.applyFills(List.of(restingOrder));
+        orderService.awaitFillPersistence();
+        verify(ordersRepository,never()).save(any());
+        assertEquals(fillWriter.getMetrics().getPendingOrders(),1);
+    }
+
+    @Test
+    public void testWrittenBehindFillIsOnlyMarkedOnceItsTransactionCommits(){
+        FillWriter fillWriter = new FillWriter(ordersRepository, 10, 1000, FillDurability.ACK_IMMEDIATELY, 1000);
+        orderService.setFillWriter(fillWriter);
+        RestingOrder restingOrder = orderService.getOrderBook("book",42,OrderType.SELL).peekBest(Long.MAX_VALUE);
+        restingOrder.fill(30);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            orderService.applyFills(List.of(restingOrder));
+            assertEquals(fillWriter.getMetrics().getPendingOrders(),0);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(fillWriter.getMetrics().getPendingOrders(),1);
+    }
+
+    @Test
+    public void testGetDepthAggregatesPriceLevels(){
+        BookDepth bookDepth = orderService.getDepth("book",42,5);
+        assertEquals(bookDepth.getBids().size(),2);
+        assertEquals(bookDepth.getBestBid(),41.0);
+        assertEquals(bookDepth.getBids().get(0).getQuantity(),40L);
+        assertEquals(bookDepth.getBids().get(1).getPrice(),40.0);
+        assertEquals(bookDepth.getBestOffer(),37.0);
+        assertEquals(bookDepth.getAsks().get(0).getOrderCount(),1);
+        when(bookService.isBookAvailable(matches("book"))).thenReturn(true);
+        when(bookService.isBookClosed(matches("book"))).thenReturn(false);
+        when(ordersRepository.deactivate(Long.valueOf(3), 0L)).thenReturn(1);
+        orderService.deleteOrder(Long.valueOf(3));
+        assertNull(orderService.getDepth("book",42,5).getBestOffer());
+        assertTrue(orderService.getDepth("book",99,5).getBids().isEmpty());
+    }
+
     @Test
     public void testUpdateOrder(){
         orderService.updateOrder(new OrderEntity());
@@ -252,6 +771,22 @@ public class OrderServiceImplTest {
         assertEquals(orderService.getActiveOrdersForBook("book").size(),0);
     }
 
+    private static Order createOrder(String bookName, double price){
+        Order order = new Order();
+        order.setBookName(bookName);
+        order.setQuantity(10);
+        order.setPrice(price);
+        order.setType(OrderType.BUY);
+        order.setInstrumentId(42);
+        order.setEntryDate(LocalDateTime.now());
+        return order;
+    }
 
-
+    private static OrderEntity createOrderEntity(String bookName, long orderId){
+        OrderEntity orderEntity = OrderEntity.toEntity(createOrder(bookName, 39.5));
+        orderEntity.setOrderId(orderId);
+        orderEntity.setRemainingQuantity(10);
+        orderEntity.setActive(true);
+        return orderEntity;
+    }
 }
@@ -12,6 +12,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.matches;
@@ -25,6 +26,8 @@ public class ReportServiceTest {
     private OrderService orderService;
     @Mock
     private ExecutionService executionService;
+    @Mock
+    private ArchiveService archiveService;
     @InjectMocks
     private ReportService reportService;
 
@@ -42,8 +45,7 @@ public class ReportServiceTest {
         completedOrders.add(activeOrders.get(4));
         completedOrders.add(activeOrders.get(5));
         executionEntities.add(new ExecutionEntity());
-        when(orderService.getCompletedOrdersForBook(matches("book"))).thenReturn(completedOrders);
-        when(orderService.getPendingOrdersForBook(matches("book"))).thenReturn(pendingOrders);
+        when(orderService.getOrdersByCompletionForBook(matches("book"))).thenReturn(Map.of(true, completedOrders, false, pendingOrders));
         when(executionService.getTriggeredExecutionsForBook(matches("book"))).thenReturn(executionEntities);
         Report report = reportService.generateReportForBook("book");
         assertEquals(report.getBookName(),"book");
@@ -52,4 +54,26 @@ public class ReportServiceTest {
         assertEquals(report.getPendingOrders().size(),4);
         assertEquals(report.getTriggeredExecutions().size(),1);
     }
+
+    @Test
+    public void testGenerateReportForArchivedBook(){
+        when(bookService.isBookClosed(matches("book"))).thenReturn(true);
+        List<OrderEntity> activeOrders =  TestUtils.mockActiveOrders();
+        OrderEntity archivedCompletedOrder = activeOrders.get(4);
+        OrderEntity archivedReplacedOrder = activeOrders.get(5);
+        archivedReplacedOrder.setActive(false);
+        List<ExecutionEntity> archivedExecutions = new ArrayList<>();
+        archivedExecutions.add(new ExecutionEntity());
+        archivedExecutions.add(new ExecutionEntity());
+        when(orderService.getOrdersByCompletionForBook(matches("book"))).thenReturn(Map.of(true, new ArrayList<>(), false, new ArrayList<>()));
+        when(executionService.getTriggeredExecutionsForBook(matches("book"))).thenReturn(new ArrayList<>());
+        when(archiveService.isBookArchived(matches("book"))).thenReturn(true);
+        when(archiveService.getArchivedOrdersForBook(matches("book"))).thenReturn(List.of(archivedCompletedOrder, archivedReplacedOrder));
+        when(archiveService.getArchivedExecutionsForBook(matches("book"))).thenReturn(archivedExecutions);
+        Report report = reportService.generateReportForBook("book");
+        assertEquals(report.getCompletedOrders().size(),1);
+        assertEquals(report.getCompletedOrders().get(0),archivedCompletedOrder);
+        assertEquals(report.getPendingOrders().size(),0);
+        assertEquals(report.getTriggeredExecutions().size(),2);
+    }
 }
@@ -0,0 +1,244 @@
+package com.orderManagement.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookEntriesTest {
+
+    @Test
+    public void testEntriesAreReturnedInKeyOrder(){
+        BookEntries<String> entries = new BookEntries<>();
+        List<Long> keys = new ArrayList<>();
+        for (long key = 1; key <= 500; key++) {
+            keys.add(key);
+        }
+        Collections.shuffle(keys);
+        keys.forEach(key -> entries.put(key, "order" + key));
+        List<String> values = entries.snapshot().values();
+        assertEquals(values.size(), 500);
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals(values.get(i), "order" + (i + 1));
+        }
+    }
+
+    @Test
+    public void testPutReplacesAndRemoveDeletes(){
+        BookEntries<String> entries = new BookEntries<>();
+        for (long key = 1; key <= 200; key++) {
+            entries.put(key, "order" + key);
+        }
+        entries.put(70, "edited");
+        assertEquals(entries.snapshot().get(70), "edited");
+        assertEquals(entries.size(), 200);
+
+        for (long key = 1; key <= 200; key += 2) {
+            assertTrue(entries.remove(key));
+        }
+        assertFalse(entries.remove(1));
+        assertFalse(entries.remove(1000));
+        assertEquals(entries.size(), 100);
+        assertNull(entries.snapshot().get(1));
+        assertEquals(entries.snapshot().values().get(0), "order2");
+    }
+
+    @Test
+    public void testSnapshotDoesNotChangeAfterWrites(){
+        BookEntries<String> entries = new BookEntries<>();
+        entries.put(1, "order1");
+        entries.put(2, "order2");
+        BookEntries.Snapshot<String> snapshot = entries.snapshot();
+
+        entries.put(3, "order3");
+        entries.remove(1);
+        entries.put(2, "edited");
+
+        assertEquals(snapshot.values(), List.of("order1", "order2"));
+        assertEquals(entries.snapshot().values(), List.of("edited", "order3"));
+        assertEquals(entries.snapshot().version() - snapshot.version(), 3L);
+    }
+
+    @Test
+    public void testPutAllAppendsInOneWrite(){
+        BookEntries<String> entries = new BookEntries<>();
+        for (long key = 1; key <= 10; key++) {
+            entries.put(key, "order" + key);
+        }
+        long version = entries.snapshot().version();
+        List<String> values = new ArrayList<>();
+        long[] keys = new long[300];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i + 11;
+            values.add("order" + keys[i]);
+        }
+        entries.putAll(keys, values);
+        assertEquals(entries.snapshot().version(), version + 1);
+        assertEquals(entries.size(), 310);
+        List<String> snapshot = entries.snapshot().values();
+        for (int i = 0; i < snapshot.size(); i++) {
+            assertEquals(snapshot.get(i), "order" + (i + 1));
+        }
+        assertEquals(entries.snapshot().get(310), "order310");
+        entries.put(311, "order311");
+        assertEquals(entries.snapshot().values().get(310), "order311");
+        //Only the chunks from the lowest key on are rebuilt
+        entries.putAll(new long[]{305, 320}, List.of("edited", "order320"));
+        assertEquals(entries.size(), 312);
+        assertEquals(entries.snapshot().get(305), "edited");
+        assertEquals(entries.snapshot().values().get(1), "order2");
+        assertEquals(entries.snapshot().values().get(311), "order320");
+    }
+
+    @Test
+    public void testPutAllMergesUnorderedAndExistingKeys(){
+        BookEntries<String> entries = new BookEntries<>();
+        for (long key = 2; key <= 400; key += 2) {
+            entries.put(key, "order" + key);
+        }
+        BookEntries.Snapshot<String> before = entries.snapshot();
+        //Odd keys in reverse, an existing key replaced and a key given twice, the last one winning
+        List<Long> keys = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        for (long key = 399; key >= 1; key -= 2) {
+            keys.add(key);
+            values.add("order" + key);
+        }
+        keys.add(100L);
+        values.add("edited");
+        keys.add(0L);
+        values.add("first");
+        keys.add(0L);
+        values.add("order0");
+        entries.putAll(keys.stream().mapToLong(Long::longValue).toArray(), values);
+
+        assertEquals(entries.snapshot().version(), before.version() + 1);
+        assertEquals(before.size(), 200);
+        assertEquals(entries.size(), 401);
+        List<String> merged = entries.snapshot().values();
+        for (int key = 0; key <= 400; key++) {
+            assertEquals(merged.get(key), key == 100 ? "edited" : "order" + key);
+        }
+        assertTrue(entries.remove(399));
+        assertNull(entries.snapshot().get(399));
+    }
+
+    @Test
+    public void testUpdateRemovesAndAddsInOneWrite(){
+        BookEntries<String> entries = new BookEntries<>();
+        for (long key = 1; key <= 200; key++) {
+            entries.put(key, "order" + key);
+        }
+        BookEntries.Snapshot<String> snapshot = entries.snapshot();
+
+        entries.update(new long[]{70, 1000}, new long[]{201}, List.of("edited"));
+
+        assertEquals(entries.snapshot().version() - snapshot.version(), 1L);
+        assertEquals(entries.size(), 200);
+        assertNull(entries.snapshot().get(70));
+        assertEquals(entries.snapshot().get(201), "edited");
+        assertEquals(snapshot.get(70), "order70");
+        assertEquals(entries.snapshot().values(69, 72), List.of("order69", "order71"));
+        assertEquals(entries.snapshot().values(200, Long.MAX_VALUE), List.of("order200", "edited"));
+    }
+
+    @Test
+    public void testRekeyMovesOnlyTheEntryStillAtItsKey(){
+        BookEntries<String> entries = new BookEntries<>();
+        String order = "order1";
+        entries.put(1, order);
+        entries.put(2, "order2");
+
+        assertTrue(entries.rekey(new long[]{1, 101}, value -> 101, order));
+        assertNull(entries.snapshot().get(1));
+        assertSame(entries.snapshot().get(101), order);
+        assertEquals(entries.snapshot().values(0, 100), List.of("order2"));
+
+        //Another entry took the key, the entry is not moved
+        entries.put(101, "replaced");
+        assertFalse(entries.rekey(new long[]{1, 101}, value -> 1, order));
+        assertEquals(entries.snapshot().get(101), "replaced");
+    }
+
+    @Test
+    public void testRekeyedEntryIsSeenAtExactlyOneKey() throws Exception{
+        BookEntries<String> entries = new BookEntries<>();
+        String order = "order1";
+        entries.put(1, order);
+        AtomicBoolean isCompleted = new AtomicBoolean();
+        AtomicBoolean isReading = new AtomicBoolean(true);
+        AtomicReference<String> readerFailure = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> {
+            while (isReading.get()) {
+                BookEntries.Snapshot<String> snapshot = entries.snapshot();
+                int seen = snapshot.values(0, 100).size() + snapshot.values(100, Long.MAX_VALUE).size();
+                if (seen != 1) {
+                    readerFailure.set("Entry seen " + seen + " times");
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 20_000; i++) {
+            isCompleted.set(!isCompleted.get());
+            entries.rekey(new long[]{1, 101}, value -> isCompleted.get() ? 101 : 1, order);
+        }
+        isReading.set(false);
+        reader.join();
+
+        assertNull(readerFailure.get());
+        assertSame(entries.snapshot().get(1), order);
+    }
+
+    @Test
+    public void testConcurrentWritersAndReaders() throws Exception{
+        BookEntries<Long> entries = new BookEntries<>();
+        int writerCount = 4;
+        int keysPerWriter = 2_000;
+        CountDownLatch writersDone = new CountDownLatch(writerCount);
+        AtomicBoolean isReading = new AtomicBoolean(true);
+        AtomicReference<String> readerFailure = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> {
+            while (isReading.get()) {
+                BookEntries.Snapshot<Long> snapshot = entries.snapshot();
+                List<Long> values = snapshot.values();
+                if (values.size() != snapshot.size()) {
+                    readerFailure.set("Snapshot size " + snapshot.size() + " but " + values.size() + " values");
+                }
+                for (int i = 1; i < values.size(); i++) {
+                    if (values.get(i - 1) >= values.get(i)) {
+                        readerFailure.set("Values out of order at " + i);
+                    }
+                }
+            }
+        });
+        reader.start();
+        for (int writer = 0; writer < writerCount; writer++) {
+            long firstKey = writer;
+            new Thread(() -> {
+                //Writers interleave their keys and remove every other key they added
+                for (long key = firstKey; key < (long) writerCount * keysPerWriter; key += writerCount) {
+                    entries.put(key, key);
+                    if (key % 2 == 1) {
+                        entries.remove(key);
+                    }
+                }
+                writersDone.countDown();
+            }).start();
+        }
+        writersDone.await();
+        isReading.set(false);
+        reader.join();
+
+        assertNull(readerFailure.get());
+        assertEquals(entries.size(), writerCount * keysPerWriter / 2);
+        assertTrue(entries.snapshot().values().stream().allMatch(key -> key % 2 == 0));
+    }
+}
@@ -1,6 +1,8 @@
 package com.orderManagement.utils;
 
 import com.orderManagement.entity.OrderEntity;
+import com.orderManagement.matching.OrderBook;
+import com.orderManagement.matching.RestingOrder;
 import com.orderManagement.model.OrderType;
 
 import java.time.LocalDateTime;
@@ -26,6 +28,16 @@ public class TestUtils {
         return orderEntities;
     }
 
+    public static OrderBook mockOrderBook(int instrumentId, OrderType orderType){
+        OrderBook orderBook = new OrderBook(orderType);
+        mockActiveOrders()
+                .stream()
+                .filter(order -> order.getInstrumentId() == instrumentId)
+                .filter(order -> order.getType() == orderType)
+                .forEach(order -> orderBook.add(RestingOrder.from(order, order.getBookName(), order.getOrderId())));
+        return orderBook;
+    }
+
     private static OrderEntity createOrderEntity(Long orderId,int instrumentId, int quantity,double price,OrderType orderType,int remainingQuantity){
         OrderEntity orderEntity = new OrderEntity();
         orderEntity.setOrderId(orderId);